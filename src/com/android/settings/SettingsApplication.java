@@ -17,8 +17,12 @@
 package com.android.settings;
 
 import android.app.Application;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
 
 import com.android.settings.activityembedding.ActivityEmbeddingRulesController;
+import com.android.settings.core.PreferenceXmlMetadataCache;
 import com.android.settings.homepage.SettingsHomepageActivity;
 import com.android.settingslib.applications.AppIconCacheManager;
 
@@ -46,9 +50,16 @@ public class SettingsApplication extends Application {
         return mHomeActivity.get();
     }
 
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        PreferenceXmlMetadataCache.getInstance().clear();
+    }
+
     @Override
     public void onLowMemory() {
         super.onLowMemory();
         AppIconCacheManager.getInstance().release();
+        PreferenceXmlMetadataCache.getInstance().clear();
     }
 }
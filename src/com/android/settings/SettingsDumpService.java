@@ -35,6 +35,8 @@ import android.telephony.TelephonyManager;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.applications.ProcStatsData;
+import com.android.settings.core.PreferenceXmlMetadataCache;
+import com.android.settings.dashboard.ObserverLatencyTracker;
 import com.android.settings.datausage.lib.DataUsageLib;
 import com.android.settings.fuelgauge.batterytip.AnomalyConfigJobService;
 import com.android.settingslib.net.DataUsageController;
@@ -61,6 +63,10 @@ public class SettingsDumpService extends Service {
     @VisibleForTesting
     static final String KEY_ANOMALY_DETECTION = "anomaly_detection";
     @VisibleForTesting
+    static final String KEY_PREFERENCE_XML_CACHE = "preference_xml_cache";
+    @VisibleForTesting
+    static final String KEY_DASHBOARD_OBSERVER_LATENCY = "dashboard_observer_latency";
+    @VisibleForTesting
     static final Intent BROWSER_INTENT =
             new Intent("android.intent.action.VIEW", Uri.parse("http://"));
 
@@ -80,6 +86,8 @@ public class SettingsDumpService extends Service {
             dump.put(KEY_MEMORY, dumpMemory());
             dump.put(KEY_DEFAULT_BROWSER_APP, dumpDefaultBrowser());
             dump.put(KEY_ANOMALY_DETECTION, dumpAnomalyDetection());
+            dump.put(KEY_PREFERENCE_XML_CACHE, PreferenceXmlMetadataCache.getInstance().dump());
+            dump.put(KEY_DASHBOARD_OBSERVER_LATENCY, ObserverLatencyTracker.getInstance().dump());
         } catch (Exception e) {
             e.printStackTrace();
         }
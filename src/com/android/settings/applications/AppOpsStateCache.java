@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.app.AppOpsManager;
+import android.app.AppOpsManager.OpEntry;
+import android.app.AppOpsManager.PackageOps;
+import android.content.pm.IPackageManager;
+import android.content.pm.PackageInfo;
+import android.content.pm.ParceledListSlice;
+import android.os.RemoteException;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Process-wide cache of the package manager and app ops queries of {@link AppStateAppOpsBridge}.
+ *
+ * <p>Every bridge of a page rebuilds its extra info on the same event, each one querying the
+ * packages requesting its permissions, their availability per profile, the packages holding the
+ * permissions and the app ops. This cache shares the answers between them for
+ * {@link #SNAPSHOT_TTL_MS}: availability is asked once per package and profile, and app ops are
+ * fetched once for the op codes of all bridges, then filtered for each one. Bridges invalidate
+ * the cache when the package list changes or they resume. The notification and power bridges
+ * don't send these queries and are not served by this cache.
+ *
+ * <p>The lock is never held across a binder call. The first caller of a query sends it, and the
+ * callers asking the same query meanwhile wait for its answer instead of sending their own. A
+ * failed query is not cached.
+ *
+ * <p>Answers are only shared between callers of the same {@link IPackageManager} and
+ * {@link AppOpsManager} instances. Returned objects are shared and must not be modified.
+ */
+public final class AppOpsStateCache {
+    private static final String TAG = "AppOpsStateCache";
+
+    /** How long answers are shared, long enough to cover the bridges of one rebuild. */
+    @VisibleForTesting
+    static final long SNAPSHOT_TTL_MS = 2 * DateUtils.SECOND_IN_MILLIS;
+
+    private static final AppOpsStateCache sInstance = new AppOpsStateCache();
+
+    private final Object mLock = new Object();
+    /** The op codes asked by any bridge so far, app ops are always fetched for all of them. */
+    @GuardedBy("mLock")
+    private final SparseBooleanArray mKnownOpCodes = new SparseBooleanArray();
+    @GuardedBy("mLock")
+    private Snapshot mSnapshot;
+    @GuardedBy("mLock")
+    private int mBinderCallCount;
+
+    public static AppOpsStateCache getInstance() {
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    AppOpsStateCache() {
+    }
+
+    /** See {@link IPackageManager#getAppOpPermissionPackages(String)}. */
+    @WorkerThread
+    @Nullable
+    public String[] getAppOpPermissionPackages(IPackageManager packageManager, String permission)
+            throws RemoteException {
+        return getOrQuery(packageManager, "permission:" + permission,
+                () -> packageManager.getAppOpPermissionPackages(permission));
+    }
+
+    /** See {@link IPackageManager#isPackageAvailable(String, int)}. */
+    @WorkerThread
+    public boolean isPackageAvailable(IPackageManager packageManager, String packageName,
+            int userId) throws RemoteException {
+        return getOrQuery(packageManager, "available:" + userId + ":" + packageName,
+                () -> packageManager.isPackageAvailable(packageName, userId));
+    }
+
+    /** See {@link IPackageManager#getPackagesHoldingPermissions(String[], long, int)}. */
+    @WorkerThread
+    public List<PackageInfo> getPackagesHoldingPermissions(IPackageManager packageManager,
+            String[] permissions, int userId) throws RemoteException {
+        return getOrQuery(packageManager, "holding:" + userId + Arrays.toString(permissions),
+                () -> {
+                    @SuppressWarnings("unchecked") final ParceledListSlice<PackageInfo> slice =
+                            packageManager.getPackagesHoldingPermissions(permissions, 0, userId);
+                    return slice != null && slice.getList() != null
+                            ? slice.getList() : Collections.<PackageInfo>emptyList();
+                });
+    }
+
+    /**
+     * See {@link AppOpsManager#getPackagesForOps(int[])}. The returned packages only hold the
+     * entries of {@code opCodes}, in the order the service reported them.
+     */
+    @WorkerThread
+    public List<PackageOps> getPackagesForOps(IPackageManager packageManager,
+            AppOpsManager appOpsManager, int[] opCodes) {
+        final CompletableFuture<List<PackageOps>> future;
+        final Snapshot snapshot;
+        final int[] knownOpCodes;
+        synchronized (mLock) {
+            snapshot = getSnapshotLocked(packageManager);
+            if (snapshot.mAppOpsManager == appOpsManager && snapshot.hasPackageOpsFor(opCodes)) {
+                future = snapshot.mPackageOps;
+                knownOpCodes = null;
+            } else {
+                for (int opCode : opCodes) {
+                    mKnownOpCodes.put(opCode, true);
+                }
+                knownOpCodes = new int[mKnownOpCodes.size()];
+                for (int i = 0; i < knownOpCodes.length; i++) {
+                    knownOpCodes[i] = mKnownOpCodes.keyAt(i);
+                }
+                future = new CompletableFuture<>();
+                snapshot.mAppOpsManager = appOpsManager;
+                snapshot.mPackageOpsCodes = knownOpCodes;
+                snapshot.mPackageOps = future;
+                mBinderCallCount++;
+            }
+        }
+        if (knownOpCodes == null) {
+            try {
+                return filterPackageOps(future.get(), opCodes);
+            } catch (InterruptedException | ExecutionException e) {
+                Log.w(TAG, "getPackagesForOps() failed to wait, querying directly", e);
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (mLock) {
+                mBinderCallCount++;
+            }
+            return filterPackageOps(queryPackageOps(appOpsManager, opCodes), opCodes);
+        }
+
+        final List<PackageOps> packageOps;
+        try {
+            packageOps = queryPackageOps(appOpsManager, knownOpCodes);
+        } catch (RuntimeException e) {
+            synchronized (mLock) {
+                if (snapshot.mPackageOps == future) {
+                    snapshot.mPackageOps = null;
+                }
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+        future.complete(packageOps);
+        return filterPackageOps(packageOps, opCodes);
+    }
+
+    /** Drops all answers, e.g. once the package list or app ops may have changed. */
+    public void invalidate() {
+        synchronized (mLock) {
+            mSnapshot = null;
+        }
+    }
+
+    /** Returns the number of queries sent to the system services. */
+    @VisibleForTesting
+    int getBinderCallCount() {
+        synchronized (mLock) {
+            return mBinderCallCount;
+        }
+    }
+
+    /**
+     * Returns the answer to {@code key}. Only the first caller runs {@code query}, outside of the
+     * lock, and the callers asking for the same key meanwhile wait for its answer.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getOrQuery(IPackageManager packageManager, String key, Query<T> query)
+            throws RemoteException {
+        final CompletableFuture<Object> future;
+        final Snapshot snapshot;
+        final boolean isInFlight;
+        synchronized (mLock) {
+            snapshot = getSnapshotLocked(packageManager);
+            final CompletableFuture<Object> answer = snapshot.mAnswers.get(key);
+            isInFlight = answer != null;
+            if (isInFlight) {
+                future = answer;
+            } else {
+                future = new CompletableFuture<>();
+                snapshot.mAnswers.put(key, future);
+                mBinderCallCount++;
+            }
+        }
+        if (isInFlight) {
+            try {
+                return (T) future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                Log.w(TAG, "Failed to wait for " + key + ", querying directly", e);
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (mLock) {
+                mBinderCallCount++;
+            }
+            return query.run();
+        }
+
+        final T result;
+        try {
+            result = query.run();
+        } catch (RemoteException | RuntimeException e) {
+            // Not cached, the next caller asks again.
+            synchronized (mLock) {
+                if (snapshot.mAnswers.get(key) == future) {
+                    snapshot.mAnswers.remove(key);
+                }
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+        future.complete(result);
+        return result;
+    }
+
+    @GuardedBy("mLock")
+    private Snapshot getSnapshotLocked(IPackageManager packageManager) {
+        final long now = SystemClock.elapsedRealtime();
+        if (mSnapshot == null || mSnapshot.mPackageManager != packageManager
+                || now - mSnapshot.mTimestamp >= SNAPSHOT_TTL_MS) {
+            if (mSnapshot != null) {
+                Log.d(TAG, "Snapshot dropped, " + mBinderCallCount + " queries so far");
+            }
+            mSnapshot = new Snapshot(packageManager, now);
+        }
+        return mSnapshot;
+    }
+
+    private static List<PackageOps> queryPackageOps(AppOpsManager appOpsManager,
+            int[] opCodes) {
+        final List<PackageOps> packageOps = appOpsManager.getPackagesForOps(opCodes);
+        return packageOps != null ? packageOps : Collections.emptyList();
+    }
+
+    private static List<PackageOps> filterPackageOps(List<PackageOps> packageOps,
+            int[] opCodes) {
+        final List<PackageOps> result = new ArrayList<>(packageOps.size());
+        for (int i = 0, size = packageOps.size(); i < size; i++) {
+            final PackageOps packageOp = packageOps.get(i);
+            final List<OpEntry> entries = packageOp.getOps();
+            final List<OpEntry> matchedEntries = new ArrayList<>(entries.size());
+            for (int j = 0; j < entries.size(); j++) {
+                if (contains(opCodes, entries.get(j).getOp())) {
+                    matchedEntries.add(entries.get(j));
+                }
+            }
+            if (matchedEntries.size() == entries.size()) {
+                result.add(packageOp);
+            } else if (!matchedEntries.isEmpty()) {
+                result.add(new PackageOps(packageOp.getPackageName(), packageOp.getUid(),
+                        matchedEntries));
+            }
+        }
+        return result;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** A query sent to the package manager. */
+    private interface Query<T> {
+        T run() throws RemoteException;
+    }
+
+    private static final class Snapshot {
+        final IPackageManager mPackageManager;
+        final long mTimestamp;
+        /** The package manager answers, in flight or done, by query and arguments. */
+        final ArrayMap<String, CompletableFuture<Object>> mAnswers = new ArrayMap<>();
+        AppOpsManager mAppOpsManager;
+        int[] mPackageOpsCodes;
+        CompletableFuture<List<PackageOps>> mPackageOps;
+
+        Snapshot(IPackageManager packageManager, long timestamp) {
+            mPackageManager = packageManager;
+            mTimestamp = timestamp;
+        }
+
+        boolean hasPackageOpsFor(int[] opCodes) {
+            if (mPackageOps == null) {
+                return false;
+            }
+            for (int opCode : opCodes) {
+                if (!contains(mPackageOpsCodes, opCode)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
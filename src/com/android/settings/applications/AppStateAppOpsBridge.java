@@ -42,7 +42,8 @@ import java.util.Set;
 
 /*
  * Connects app ops info to the ApplicationsState. Makes use of AppOpsManager to
- * determine further permission level.
+ * determine further permission level. The package manager and app ops queries go through
+ * AppOpsStateCache, so the bridges loading together share them.
  */
 public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
 
@@ -55,6 +56,7 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
     private final Context mContext;
     private final int[] mAppOpsOpCodes;
     private final String[] mPermissions;
+    private final AppOpsStateCache mStateCache;
 
     public AppStateAppOpsBridge(Context context, ApplicationsState appState, Callback callback,
             int appOpsOpCode, String[] permissions) {
@@ -85,6 +87,26 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
         mAppOpsManager = (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
         mAppOpsOpCodes = appOpsOpCodes;
         mPermissions = permissions;
+        mStateCache = AppOpsStateCache.getInstance();
+    }
+
+    @Override
+    public void resume(boolean forceLoadAllApps) {
+        // Modes may have been changed from another screen while this one was paused.
+        mStateCache.invalidate();
+        super.resume(forceLoadAllApps);
+    }
+
+    @Override
+    public void forceUpdate(String pkg, int uid) {
+        mStateCache.invalidate();
+        super.forceUpdate(pkg, uid);
+    }
+
+    @Override
+    public void onPackageListChanged() {
+        mStateCache.invalidate();
+        super.onPackageListChanged();
     }
 
     private boolean isThisUserAProfileOfCurrentUser(final int userId) {
@@ -174,7 +196,8 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
         try {
             Set<String> packagesSet = new HashSet<>();
             for (String permission : mPermissions) {
-                String[] pkgs = mIPackageManager.getAppOpPermissionPackages(permission);
+                String[] pkgs = mStateCache.getAppOpPermissionPackages(mIPackageManager,
+                        permission);
                 if (pkgs != null) {
                     packagesSet.addAll(Arrays.asList(pkgs));
                 }
@@ -193,8 +216,8 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
                 final int profileId = profile.getIdentifier();
                 entries.put(profileId, entriesForProfile);
                 for (final String packageName : packagesSet) {
-                    final boolean isAvailable = mIPackageManager.isPackageAvailable(packageName,
-                            profileId);
+                    final boolean isAvailable = mStateCache.isPackageAvailable(mIPackageManager,
+                            packageName, profileId);
                     if (!shouldIgnorePackage(packageName) && isAvailable) {
                         final PermissionState newEntry = new PermissionState(packageName, profile);
                         entriesForProfile.put(packageName, newEntry);
@@ -227,15 +250,14 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
                 if (entriesForProfile == null) {
                     continue;
                 }
-                @SuppressWarnings("unchecked") final List<PackageInfo> packageInfos =
-                        mIPackageManager
-                                .getPackagesHoldingPermissions(mPermissions, 0,
-                                        profileId).getList();
-                final int packageInfoCount = packageInfos != null ? packageInfos.size() : 0;
+                final List<PackageInfo> packageInfos = mStateCache.getPackagesHoldingPermissions(
+                        mIPackageManager, mPermissions, profileId);
+                final int packageInfoCount = packageInfos.size();
                 for (int i = 0; i < packageInfoCount; i++) {
                     final PackageInfo packageInfo = packageInfos.get(i);
                     final PermissionState pe = entriesForProfile.get(packageInfo.packageName);
                     if (pe != null) {
+                        // The cached PackageInfo is shared with other bridges, don't modify it.
                         pe.packageInfo = packageInfo;
                         pe.staticPermissionGranted = true;
                     }
@@ -258,9 +280,9 @@ public abstract class AppStateAppOpsBridge extends AppStateBaseBridge {
         }
 
         // Find out which packages have been granted permission from AppOps.
-        final List<AppOpsManager.PackageOps> packageOps = mAppOpsManager.getPackagesForOps(
-                mAppOpsOpCodes);
-        final int packageOpsCount = packageOps != null ? packageOps.size() : 0;
+        final List<AppOpsManager.PackageOps> packageOps = mStateCache.getPackagesForOps(
+                mIPackageManager, mAppOpsManager, mAppOpsOpCodes);
+        final int packageOpsCount = packageOps.size();
         for (int i = 0; i < packageOpsCount; i++) {
             final AppOpsManager.PackageOps packageOp = packageOps.get(i);
             final int userId = UserHandle.getUserId(packageOp.getUid());
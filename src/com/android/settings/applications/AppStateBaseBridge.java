@@ -77,11 +77,17 @@ public abstract class AppStateBaseBridge implements ApplicationsState.Callbacks
 
     @Override
     public void onPackageListChanged() {
-        mHandler.sendEmptyMessage(BackgroundHandler.MSG_LOAD_ALL);
+        loadAllExtraInfoAsync();
     }
 
     @Override
     public void onLoadEntriesCompleted() {
+        loadAllExtraInfoAsync();
+    }
+
+    private void loadAllExtraInfoAsync() {
+        // A pending load reads the latest state anyway, bursts of events only need one.
+        mHandler.removeMessages(BackgroundHandler.MSG_LOAD_ALL);
         mHandler.sendEmptyMessage(BackgroundHandler.MSG_LOAD_ALL);
     }
 
@@ -53,6 +53,7 @@ import androidx.preference.PreferenceCategory;
 import com.android.settings.R;
 import com.android.settings.Utils;
 import com.android.settings.deviceinfo.StorageWizardMoveConfirm;
+import com.android.settings.deviceinfo.storage.StorageCacheHelper;
 import com.android.settingslib.RestrictedLockUtils;
 import com.android.settingslib.applications.AppUtils;
 import com.android.settingslib.applications.ApplicationsState.Callbacks;
@@ -600,6 +601,8 @@ public class AppStorageSettings extends AppInfoWithHeader
                     break;
                 case MSG_CLEAR_CACHE:
                     mCacheCleared = true;
+                    // No broadcast for a cleared cache, drop the stats the storage page keeps.
+                    new StorageCacheHelper(getContext(), mUserId).removePackageStats(mPackageName);
                     // Refresh size info
                     updateSize();
                     break;
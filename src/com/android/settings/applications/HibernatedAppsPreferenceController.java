@@ -41,7 +41,7 @@ import java.util.concurrent.Executor;
  * A preference controller handling the logic for updating summary of hibernated apps.
  */
 public final class HibernatedAppsPreferenceController extends BasePreferenceController
-        implements LifecycleObserver {
+        implements LifecycleObserver, BasePreferenceController.ThreadSafeAvailability {
     private static final String TAG = "HibernatedAppsPrefController";
     private PreferenceScreen mScreen;
     private int mUnusedCount = 0;
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.os.RemoteException;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
+import android.util.Log;
+import android.util.LongSparseArray;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.internal.app.procstats.IProcessStats;
+import com.android.internal.app.procstats.ProcessStats;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Process-wide cache of the {@link ProcessStats} read from the process stats service, one per
+ * duration.
+ *
+ * <p>Each read pulls and parses the whole stats parcel of the duration. Switching the duration of
+ * a memory screen is answered from the stats of the last read for {@link #STATS_TTL_MS}, which is
+ * invisible next to durations of hours, and {@link #prefetch} reads the other durations in the
+ * background so switching to them doesn't wait for the service. Resuming or refreshing a screen
+ * forces a read. Concurrent callers of a duration wait for the read already in flight. Stats are
+ * dropped once they expire, so the parcels of a screen left are not kept by this process-wide
+ * instance.
+ *
+ * <p>Stats are shared between callers and must not be modified.
+ */
+final class ProcStatsCache {
+    private static final String TAG = "ProcStatsCache";
+
+    /** How long parsed stats are reused. */
+    @VisibleForTesting
+    static final long STATS_TTL_MS = DateUtils.MINUTE_IN_MILLIS;
+
+    private static final ProcStatsCache sInstance = new ProcStatsCache();
+
+    private final Object mLock = new Object();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mEvictExpiredStats = this::evictExpiredStats;
+    @GuardedBy("mLock")
+    private final LongSparseArray<Snapshot> mSnapshots = new LongSparseArray<>();
+    @GuardedBy("mLock")
+    private final LongSparseArray<CompletableFuture<ProcessStats>> mInFlightReads =
+            new LongSparseArray<>();
+    @GuardedBy("mLock")
+    private IBinder mService;
+    @GuardedBy("mLock")
+    private long mGeneration;
+    @GuardedBy("mLock")
+    private int mReadCount;
+
+    static ProcStatsCache getInstance() {
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    ProcStatsCache() {
+    }
+
+    /**
+     * Returns the stats over {@code duration}, reading them from {@code processStats} unless a
+     * read is in flight or, if {@code forceRead} is false, there are fresh stats.
+     *
+     * @return the stats, or null if the service couldn't be reached or the stats couldn't be
+     *         parsed
+     */
+    @WorkerThread
+    @Nullable
+    ProcessStats get(IProcessStats processStats, long duration, boolean forceRead) {
+        final CompletableFuture<ProcessStats> future;
+        final long generation;
+        synchronized (mLock) {
+            final ProcessStats cachedStats = getCachedStatsLocked(processStats, duration);
+            if (cachedStats != null && !forceRead) {
+                return cachedStats;
+            }
+            final CompletableFuture<ProcessStats> inFlightRead = mInFlightReads.get(duration);
+            if (inFlightRead != null) {
+                future = inFlightRead;
+                generation = -1;
+            } else {
+                future = new CompletableFuture<>();
+                mInFlightReads.put(duration, future);
+                mReadCount++;
+                generation = mGeneration;
+            }
+        }
+        if (generation < 0) {
+            return await(future, processStats, duration);
+        }
+
+        ProcessStats stats = null;
+        try {
+            stats = read(processStats, duration);
+        } finally {
+            synchronized (mLock) {
+                if (mInFlightReads.get(duration) == future) {
+                    mInFlightReads.remove(duration);
+                }
+                if (stats != null && generation == mGeneration) {
+                    mSnapshots.put(duration, new Snapshot(stats, SystemClock.elapsedRealtime()));
+                    scheduleEvictionLocked();
+                }
+            }
+            future.complete(stats);
+        }
+        return stats;
+    }
+
+    /** Reads the stats of the {@code durations} that aren't cached yet, in the background. */
+    void prefetch(IProcessStats processStats, long[] durations) {
+        synchronized (mLock) {
+            boolean isCached = true;
+            for (long duration : durations) {
+                if (getCachedStatsLocked(processStats, duration) == null
+                        && mInFlightReads.get(duration) == null) {
+                    isCached = false;
+                    break;
+                }
+            }
+            if (isCached) {
+                return;
+            }
+        }
+        ThreadUtils.postOnBackgroundThread(() -> {
+            for (long duration : durations) {
+                get(processStats, duration, /* forceRead */ false);
+            }
+        });
+    }
+
+    /** Drops all stats, reads in flight are still delivered but not cached. */
+    void invalidate() {
+        synchronized (mLock) {
+            mGeneration++;
+            mSnapshots.clear();
+            mInFlightReads.clear();
+            mHandler.removeCallbacks(mEvictExpiredStats);
+        }
+    }
+
+    /** Returns the number of stats kept, expired or not. */
+    @VisibleForTesting
+    int getCachedStatsCount() {
+        synchronized (mLock) {
+            return mSnapshots.size();
+        }
+    }
+
+    /** Returns the number of reads sent to the service. */
+    @VisibleForTesting
+    int getReadCount() {
+        synchronized (mLock) {
+            return mReadCount;
+        }
+    }
+
+    @GuardedBy("mLock")
+    @Nullable
+    private ProcessStats getCachedStatsLocked(IProcessStats processStats, long duration) {
+        final IBinder service = processStats != null ? processStats.asBinder() : null;
+        if (service != mService) {
+            // Stats are only shared between callers of the same service.
+            mService = service;
+            mGeneration++;
+            mSnapshots.clear();
+            mInFlightReads.clear();
+            mHandler.removeCallbacks(mEvictExpiredStats);
+            return null;
+        }
+        final Snapshot snapshot = mSnapshots.get(duration);
+        if (snapshot == null) {
+            return null;
+        }
+        if (SystemClock.elapsedRealtime() - snapshot.mTimestamp >= STATS_TTL_MS) {
+            mSnapshots.remove(duration);
+            return null;
+        }
+        return snapshot.mStats;
+    }
+
+    private void evictExpiredStats() {
+        synchronized (mLock) {
+            final long now = SystemClock.elapsedRealtime();
+            for (int i = mSnapshots.size() - 1; i >= 0; i--) {
+                if (now - mSnapshots.valueAt(i).mTimestamp >= STATS_TTL_MS) {
+                    mSnapshots.removeAt(i);
+                }
+            }
+            scheduleEvictionLocked();
+        }
+    }
+
+    /** Schedules the eviction of the stats expiring first, if any. */
+    @GuardedBy("mLock")
+    private void scheduleEvictionLocked() {
+        mHandler.removeCallbacks(mEvictExpiredStats);
+        if (mSnapshots.size() == 0) {
+            return;
+        }
+        long oldestTimestamp = Long.MAX_VALUE;
+        for (int i = 0; i < mSnapshots.size(); i++) {
+            oldestTimestamp = Math.min(oldestTimestamp, mSnapshots.valueAt(i).mTimestamp);
+        }
+        final long delay = oldestTimestamp + STATS_TTL_MS - SystemClock.elapsedRealtime();
+        mHandler.postDelayed(mEvictExpiredStats, Math.max(0, delay));
+    }
+
+    @Nullable
+    private ProcessStats await(CompletableFuture<ProcessStats> future,
+            IProcessStats processStats, long duration) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Read in flight failed", e);
+        }
+        return read(processStats, duration);
+    }
+
+    @Nullable
+    private static ProcessStats read(IProcessStats processStats, long duration) {
+        try {
+            final ParcelFileDescriptor pfd = processStats.getStatsOverTime(duration);
+            final ProcessStats stats = new ProcessStats(false);
+            final InputStream is = new ParcelFileDescriptor.AutoCloseInputStream(pfd);
+            stats.read(is);
+            try {
+                is.close();
+            } catch (IOException e) {
+            }
+            if (stats.mReadError != null) {
+                // Neither shared nor cached, the next caller reads again.
+                Log.w(TAG, "Failure reading process stats: " + stats.mReadError);
+                return null;
+            }
+            return stats;
+        } catch (RemoteException e) {
+            Log.e(TAG, "RemoteException:", e);
+            return null;
+        }
+    }
+
+    private static final class Snapshot {
+        final ProcessStats mStats;
+        final long mTimestamp;
+
+        Snapshot(ProcessStats stats, long timestamp) {
+            mStats = stats;
+            mTimestamp = timestamp;
+        }
+    }
+}
@@ -19,8 +19,6 @@ package com.android.settings.applications;
 import android.app.ActivityManager;
 import android.content.Context;
 import android.content.pm.PackageManager;
-import android.os.ParcelFileDescriptor;
-import android.os.RemoteException;
 import android.os.ServiceManager;
 import android.os.SystemClock;
 import android.text.format.Formatter;
@@ -29,6 +27,8 @@ import android.util.Log;
 import android.util.LongSparseArray;
 import android.util.SparseArray;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.android.internal.app.ProcessMap;
 import com.android.internal.app.procstats.DumpUtils;
 import com.android.internal.app.procstats.IProcessStats;
@@ -41,9 +41,8 @@ import com.android.internal.util.MemInfoReader;
 import com.android.settings.R;
 import com.android.settings.Utils;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
@@ -73,9 +72,21 @@ public class ProcStatsData {
 
     private ArrayList<ProcStatsPackageEntry> pkgEntries;
 
+    private final ProcStatsCache mStatsCache;
+
+    // Results already computed from mResultsStats, by filter.
+    private ProcessStats mResultsStats;
+    private final ArrayMap<String, Result> mResults = new ArrayMap<>();
+
     public ProcStatsData(Context context, boolean useXfer) {
+        this(context, useXfer, ProcStatsCache.getInstance());
+    }
+
+    @VisibleForTesting
+    ProcStatsData(Context context, boolean useXfer, ProcStatsCache statsCache) {
         mContext = context;
         mPm = context.getPackageManager();
+        mStatsCache = statsCache;
         mProcessStats = IProcessStats.Stub.asInterface(
                 ServiceManager.getService(ProcessStats.SERVICE_NAME));
         mMemStates = ProcessStats.ALL_MEM_ADJ;
@@ -122,10 +133,15 @@ public class ProcStatsData {
         return mStats.mTimePeriodEndRealtime - mStats.mTimePeriodStartRealtime;
     }
 
+    /**
+     * Switches to the stats over {@code duration}. Stats of the duration read less than
+     * {@link ProcStatsCache#STATS_TTL_MS} ago, e.g. by {@link #prefetchDurations}, are reused.
+     */
     public void setDuration(long duration) {
         if (duration != mDuration) {
             mDuration = duration;
-            refreshStats(true);
+            load(/* forceLoad */ false);
+            refreshStats(false);
         }
     }
 
@@ -137,9 +153,32 @@ public class ProcStatsData {
         return pkgEntries;
     }
 
+    /**
+     * Reads the stats of {@code durations} in the background, so that switching to them later
+     * doesn't wait for the process stats service.
+     */
+    public void prefetchDurations(long[] durations) {
+        mStatsCache.prefetch(mProcessStats, durations);
+    }
+
     public void refreshStats(boolean forceLoad) {
         if (mStats == null || forceLoad) {
-            load();
+            load(forceLoad);
+        }
+
+        // Switching filters over the same stats is answered from the results computed before.
+        if (mResultsStats != mStats) {
+            mResultsStats = mStats;
+            mResults.clear();
+        }
+        final String resultKey = Arrays.toString(mMemStates) + Arrays.toString(mStates)
+                + mUseUss;
+        final Result result = mResults.get(resultKey);
+        if (result != null) {
+            pkgEntries = result.mPkgEntries;
+            mMemInfo = result.mMemInfo;
+            memTotalTime = result.mMemTotalTime;
+            return;
         }
 
         pkgEntries = new ArrayList<>();
@@ -168,6 +207,8 @@ public class ProcStatsData {
         ProcStatsPackageEntry osPkg = createOsEntry(bgTotals, runTotals, totalMem,
                 mMemInfo.baseCacheRam);
         pkgEntries.add(osPkg);
+
+        mResults.put(resultKey, new Result(pkgEntries, mMemInfo, memTotalTime));
     }
 
     private void createPkgMap(ArrayList<ProcStatsEntry> procEntries, ProcessDataCollection bgTotals,
@@ -341,21 +382,26 @@ public class ProcStatsData {
         return procEntries;
     }
 
-    private void load() {
-        try {
-            ParcelFileDescriptor pfd = mProcessStats.getStatsOverTime(mDuration);
+    private void load(boolean forceLoad) {
+        final ProcessStats stats = mStatsCache.get(mProcessStats, mDuration, forceLoad);
+        if (stats != null) {
+            mStats = stats;
+        } else if (mStats == null) {
+            // Nothing read yet, show empty stats.
             mStats = new ProcessStats(false);
-            InputStream is = new ParcelFileDescriptor.AutoCloseInputStream(pfd);
-            mStats.read(is);
-            try {
-                is.close();
-            } catch (IOException e) {
-            }
-            if (mStats.mReadError != null) {
-                Log.w(TAG, "Failure reading process stats: " + mStats.mReadError);
-            }
-        } catch (RemoteException e) {
-            Log.e(TAG, "RemoteException:", e);
+        }
+    }
+
+    private static class Result {
+        final ArrayList<ProcStatsPackageEntry> mPkgEntries;
+        final MemInfo mMemInfo;
+        final long mMemTotalTime;
+
+        Result(ArrayList<ProcStatsPackageEntry> pkgEntries, MemInfo memInfo,
+                long memTotalTime) {
+            mPkgEntries = pkgEntries;
+            mMemInfo = memInfo;
+            mMemTotalTime = memTotalTime;
         }
     }
 
@@ -62,6 +62,7 @@ public abstract class ProcessStatsBase extends SettingsPreferenceFragment
 
     protected ProcStatsData mStatsManager;
     protected int mDurationIndex;
+    private boolean mIsFirstResume = true;
 
     @Override
     public void onCreate(Bundle icicle) {
@@ -88,8 +89,11 @@ public abstract class ProcessStatsBase extends SettingsPreferenceFragment
     @Override
     public void onResume() {
         super.onResume();
-        mStatsManager.refreshStats(false);
+        // onCreate() just loaded the stats for the first resume, later ones read them again.
+        mStatsManager.refreshStats(!mIsFirstResume);
+        mIsFirstResume = false;
         refreshUi();
+        mStatsManager.prefetchDurations(sDurations);
     }
 
     @Override
@@ -19,6 +19,7 @@ package com.android.settings.applications;
 import android.app.ActivityManager;
 import android.app.Dialog;
 import android.content.Context;
+import android.content.pm.PackageItemInfo;
 import android.content.pm.PackageManager;
 import android.content.res.ColorStateList;
 import android.graphics.PorterDuff;
@@ -51,6 +52,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
 
 public class RunningProcessesView extends FrameLayout
         implements AdapterView.OnItemClickListener, RecyclerListener,
@@ -103,6 +106,21 @@ public class RunningProcessesView extends FrameLayout
         long mFirstRunTime;
         boolean mSetBackground;
 
+        // What the row was bound from, to tell whether it needs to be bound again.
+        CharSequence mBoundLabel;
+        String mBoundDescription;
+        PackageItemInfo mBoundPackageInfo;
+        boolean mBoundBackground;
+        long mBoundActiveSince;
+
+        boolean isStale() {
+            return mBoundLabel != mItem.mDisplayLabel
+                    || !Objects.equals(mBoundDescription, mItem.mDescription)
+                    || mBoundPackageInfo != mItem.mPackageInfo
+                    || mBoundBackground != mItem.mBackground
+                    || mBoundActiveSince != mItem.mActiveSince;
+        }
+
         void updateTime(Context context, StringBuilder builder) {
             TextView uptimeView = null;
 
@@ -201,6 +219,11 @@ public class RunningProcessesView extends FrameLayout
                 icon.setImageDrawable(item.loadIcon(rootView.getContext(), state));
                 icon.setVisibility(View.VISIBLE);
                 ai.updateTime(rootView.getContext(), builder);
+                ai.mBoundLabel = item.mDisplayLabel;
+                ai.mBoundDescription = item.mDescription;
+                ai.mBoundPackageInfo = item.mPackageInfo;
+                ai.mBoundBackground = item.mBackground;
+                ai.mBoundActiveSince = item.mActiveSince;
                 return ai;
             }
         }
@@ -213,6 +236,8 @@ public class RunningProcessesView extends FrameLayout
         ArrayList<RunningState.MergedItem> mOrigItems;
         final ArrayList<RunningState.MergedItem> mItems
                 = new ArrayList<RunningState.MergedItem>();
+        final ArrayList<RunningState.MergedItem> mTmpItems
+                = new ArrayList<RunningState.MergedItem>();
 
         ServiceListAdapter(RunningState state) {
             mState = state;
@@ -225,7 +250,6 @@ public class RunningProcessesView extends FrameLayout
             if (mShowBackground != showBackground) {
                 mShowBackground = showBackground;
                 mState.setWatchingBackgroundItems(showBackground);
-                refreshItems();
                 refreshUi(true);
             }
         }
@@ -234,22 +258,36 @@ public class RunningProcessesView extends FrameLayout
             return mShowBackground;
         }
 
-        void refreshItems() {
+        /**
+         * Picks up the current items of the state.
+         *
+         * @return true if the rows changed, false if the same items are still shown in the
+         * same order
+         */
+        boolean refreshItems() {
             ArrayList<RunningState.MergedItem> newItems =
                 mShowBackground ? mState.getCurrentBackgroundItems()
                         : mState.getCurrentMergedItems();
-            if (mOrigItems != newItems) {
-                mOrigItems = newItems;
-                if (newItems == null) {
-                    mItems.clear();
-                } else {
-                    mItems.clear();
-                    mItems.addAll(newItems);
-                    if (mShowBackground) {
-                        Collections.sort(mItems, mState.mBackgroundComparator);
-                    }
+            if (mOrigItems == newItems) {
+                return false;
+            }
+            mOrigItems = newItems;
+            mTmpItems.clear();
+            if (newItems != null) {
+                mTmpItems.addAll(newItems);
+                if (mShowBackground) {
+                    Collections.sort(mTmpItems, mState.mBackgroundComparator);
                 }
             }
+            // Items don't override equals(), so this compares instances.
+            if (mTmpItems.equals(mItems)) {
+                mTmpItems.clear();
+                return false;
+            }
+            mItems.clear();
+            mItems.addAll(mTmpItems);
+            mTmpItems.clear();
+            return true;
         }
 
         public boolean hasStableIds() {
@@ -317,8 +355,12 @@ public class RunningProcessesView extends FrameLayout
     void refreshUi(boolean dataChanged) {
         if (dataChanged) {
             ServiceListAdapter adapter = mAdapter;
-            adapter.refreshItems();
-            adapter.notifyDataSetChanged();
+            if (adapter.refreshItems()) {
+                adapter.notifyDataSetChanged();
+            } else {
+                // Same rows, only rebind the ones whose item changed.
+                rebindChangedItems();
+            }
         }
 
         if (mDataAvail != null) {
@@ -488,6 +530,17 @@ public class RunningProcessesView extends FrameLayout
         return false;
     }
 
+    void rebindChangedItems() {
+        synchronized (mState.mLock) {
+            for (Map.Entry<View, ActiveItem> entry : mActiveItems.entrySet()) {
+                final ActiveItem ai = entry.getValue();
+                if (ai.isStale()) {
+                    entry.setValue(ai.mHolder.bind(mState, ai.mItem, mBuilder));
+                }
+            }
+        }
+    }
+
     void updateTimes() {
         Iterator<ActiveItem> it = mActiveItems.values().iterator();
         while (it.hasNext()) {
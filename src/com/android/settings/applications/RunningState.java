@@ -43,6 +43,8 @@ import android.text.format.Formatter;
 import android.util.Log;
 import android.util.SparseArray;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.android.settings.R;
 import com.android.settingslib.Utils;
 import com.android.settingslib.applications.InterestingConfigChanges;
@@ -72,6 +74,10 @@ public class RunningState {
 
     static final long TIME_UPDATE_DELAY = 1000;
     static final long CONTENTS_UPDATE_DELAY = 2000;
+    // Polling backs off up to this delay while the processes don't change.
+    static final long MAX_CONTENTS_UPDATE_DELAY = 8000;
+    // Delay from a process importance change to the update, batching the related changes.
+    static final long IMPORTANCE_UPDATE_DELAY = 250;
 
     static final int MAX_SERVICES = 100;
 
@@ -139,6 +145,12 @@ public class RunningState {
 
     int mSequence = 0;
 
+    // Fingerprint of the services and processes the current items were built from.
+    boolean mHasFingerprint;
+    long mFingerprint;
+    // Number of updates in a row that found the same fingerprint.
+    int mUnchangedUpdates;
+
     final Comparator<RunningState.MergedItem> mBackgroundComparator =
             new Comparator<RunningState.MergedItem>() {
                 @Override
@@ -210,6 +222,8 @@ public class RunningState {
     boolean mResumed;
     boolean mHaveData;
     boolean mWatchingBackgroundItems;
+    boolean mListeningToImportance;
+    boolean mImportanceUpdatePending;
 
     ArrayList<BaseItem> mItems = new ArrayList<BaseItem>();
     ArrayList<MergedItem> mMergedItems = new ArrayList<MergedItem>();
@@ -243,13 +257,14 @@ public class RunningState {
                         if (!mResumed) {
                             return;
                         }
+                        mImportanceUpdatePending = false;
                     }
                     Message cmd = mHandler.obtainMessage(MSG_REFRESH_UI);
                     cmd.arg1 = update(mApplicationContext, mAm) ? 1 : 0;
                     mHandler.sendMessage(cmd);
                     removeMessages(MSG_UPDATE_CONTENTS);
                     msg = obtainMessage(MSG_UPDATE_CONTENTS);
-                    sendMessageDelayed(msg, CONTENTS_UPDATE_DELAY);
+                    sendMessageDelayed(msg, getContentsUpdateDelay());
                     break;
             }
         }
@@ -325,6 +340,20 @@ public class RunningState {
     private final UserManagerBroadcastReceiver mUmBroadcastReceiver =
             new UserManagerBroadcastReceiver();
 
+    // Brings the next update forward when a process starts, stops or changes importance, so
+    // the polling delay can grow while nothing happens.
+    private final ActivityManager.OnUidImportanceListener mUidImportanceListener =
+            (uid, importance) -> {
+                synchronized (mLock) {
+                    if (mResumed && !mImportanceUpdatePending) {
+                        mImportanceUpdatePending = true;
+                        mBackgroundHandler.removeMessages(MSG_UPDATE_CONTENTS);
+                        mBackgroundHandler.sendEmptyMessageDelayed(MSG_UPDATE_CONTENTS,
+                                IMPORTANCE_UPDATE_DELAY);
+                    }
+                }
+            };
+
     // ----- DATA STRUCTURES -----
 
     static interface OnRefreshUiListener {
@@ -812,6 +841,15 @@ public class RunningState {
                 mBackgroundHandler.sendEmptyMessage(MSG_UPDATE_CONTENTS);
             }
             mHandler.sendEmptyMessage(MSG_UPDATE_TIME);
+            if (!mListeningToImportance) {
+                try {
+                    mAm.addOnUidImportanceListener(mUidImportanceListener,
+                            ActivityManager.RunningAppProcessInfo.IMPORTANCE_SERVICE);
+                    mListeningToImportance = true;
+                } catch (SecurityException e) {
+                    Log.w(TAG, "Unable to listen to process importance, polling only", e);
+                }
+            }
         }
     }
 
@@ -844,6 +882,10 @@ public class RunningState {
             mResumed = false;
             mRefreshUiListener = null;
             mHandler.removeMessages(MSG_UPDATE_TIME);
+            if (mListeningToImportance) {
+                mAm.removeOnUidImportanceListener(mUidImportanceListener);
+                mListeningToImportance = false;
+            }
         }
     }
 
@@ -862,6 +904,7 @@ public class RunningState {
     }
 
     private void reset() {
+        mHasFingerprint = false;
         mServiceProcessesByName.clear();
         mServiceProcessesByPid.clear();
         mInterestingProcesses.clear();
@@ -899,17 +942,25 @@ public class RunningState {
         userItem.mChildren.add(newItem);
     }
 
-    private boolean update(Context context, ActivityManager am) {
-        final PackageManager pm = context.getPackageManager();
-
-        mSequence++;
+    /** Returns the delay to the next poll, longer while nothing changes. */
+    long getContentsUpdateDelay() {
+        return Math.min(CONTENTS_UPDATE_DELAY << Math.min(mUnchangedUpdates, 3),
+                MAX_CONTENTS_UPDATE_DELAY);
+    }
 
-        boolean changed = false;
+    private boolean update(Context context, ActivityManager am) {
+        return update(context, am.getRunningServices(MAX_SERVICES), am.getRunningAppProcesses());
+    }
 
-        // Retrieve list of services, filtering out anything that definitely
-        // won't be shown in the UI.
-        List<ActivityManager.RunningServiceInfo> services
-                = am.getRunningServices(MAX_SERVICES);
+    /**
+     * Updates the items from the running services and processes. The items are only rebuilt
+     * when the services or processes differ from the last update, otherwise just the process
+     * sizes are refreshed.
+     */
+    @VisibleForTesting
+    boolean update(Context context, List<ActivityManager.RunningServiceInfo> services,
+            List<ActivityManager.RunningAppProcessInfo> processes) {
+        // Filter out services that definitely won't be shown in the UI.
         int NS = services != null ? services.size() : 0;
         for (int i = 0; i < NS; i++) {
             ActivityManager.RunningServiceInfo si = services.get(i);
@@ -933,10 +984,31 @@ public class RunningState {
             }
         }
 
-        // Retrieve list of running processes, organizing them into a sparse
-        // array for easy retrieval.
-        List<ActivityManager.RunningAppProcessInfo> processes
-                = am.getRunningAppProcesses();
+        boolean changed = false;
+        final long fingerprint = RunningStateFingerprint.compute(services, processes);
+        if (mHasFingerprint && fingerprint == mFingerprint) {
+            mUnchangedUpdates++;
+        } else {
+            mHasFingerprint = true;
+            mFingerprint = fingerprint;
+            mUnchangedUpdates = 0;
+            changed = updateItems(context, services, NS, processes);
+        }
+
+        return updateSizes(context, changed);
+    }
+
+    /** Rebuilds the items, returns true if they changed. */
+    private boolean updateItems(Context context,
+            List<ActivityManager.RunningServiceInfo> services, int NS,
+            List<ActivityManager.RunningAppProcessInfo> processes) {
+        final PackageManager pm = context.getPackageManager();
+
+        mSequence++;
+
+        boolean changed = false;
+
+        // Organize the running processes into a sparse array for easy retrieval.
         final int NP = processes != null ? processes.size() : 0;
         mTmpAppProcesses.clear();
         for (int i = 0; i < NP; i++) {
@@ -1312,6 +1384,18 @@ public class RunningState {
             }
         }
 
+        synchronized (mLock) {
+            mNumBackgroundProcesses = numBackgroundProcesses;
+            mNumForegroundProcesses = numForegroundProcesses;
+            mNumServiceProcesses = numServiceProcesses;
+        }
+
+        return changed;
+    }
+
+    /** Refreshes the process sizes and the background items. */
+    private boolean updateSizes(Context context, boolean changed) {
+        final int numBackgroundProcesses = mNumBackgroundProcesses;
         long backgroundProcessMemory = 0;
         long foregroundProcessMemory = 0;
         long serviceProcessMemory = 0;
@@ -1419,9 +1503,6 @@ public class RunningState {
         }
 
         synchronized (mLock) {
-            mNumBackgroundProcesses = numBackgroundProcesses;
-            mNumForegroundProcesses = numForegroundProcesses;
-            mNumServiceProcesses = numServiceProcesses;
             mBackgroundProcessMemory = backgroundProcessMemory;
             mForegroundProcessMemory = foregroundProcessMemory;
             mServiceProcessMemory = serviceProcessMemory;
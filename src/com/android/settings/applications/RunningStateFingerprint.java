@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.app.ActivityManager.RunningAppProcessInfo;
+import android.app.ActivityManager.RunningServiceInfo;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Hashes the fields of the running services and processes that {@link RunningState} builds its
+ * items from. Two polls with the same fingerprint produce the same items, only the process
+ * sizes need to be refreshed.
+ */
+final class RunningStateFingerprint {
+    private static final long SEED = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private RunningStateFingerprint() {
+    }
+
+    static long compute(List<RunningServiceInfo> services,
+            List<RunningAppProcessInfo> processes) {
+        long hash = SEED;
+        final int numServices = services != null ? services.size() : 0;
+        hash = mix(hash, numServices);
+        for (int i = 0; i < numServices; i++) {
+            final RunningServiceInfo si = services.get(i);
+            hash = mix(hash, Objects.hashCode(si.service));
+            hash = mix(hash, Objects.hashCode(si.process));
+            hash = mix(hash, si.uid);
+            hash = mix(hash, si.pid);
+            hash = mix(hash, si.restarting);
+            hash = mix(hash, si.activeSince);
+            hash = mix(hash, si.clientLabel);
+            hash = mix(hash, si.clientCount);
+            hash = mix(hash, si.flags);
+            hash = mix(hash, (si.started ? 1 : 0) | (si.foreground ? 2 : 0));
+        }
+        final int numProcesses = processes != null ? processes.size() : 0;
+        hash = mix(hash, numProcesses);
+        for (int i = 0; i < numProcesses; i++) {
+            final RunningAppProcessInfo pi = processes.get(i);
+            hash = mix(hash, Objects.hashCode(pi.processName));
+            hash = mix(hash, pi.uid);
+            hash = mix(hash, pi.pid);
+            hash = mix(hash, pi.importance);
+            hash = mix(hash, pi.importanceReasonCode);
+            hash = mix(hash, pi.importanceReasonPid);
+            hash = mix(hash, pi.lru);
+            hash = mix(hash, pi.flags);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        final long h = (hash ^ value) * PRIME;
+        return h ^ (h >>> 29);
+    }
+}
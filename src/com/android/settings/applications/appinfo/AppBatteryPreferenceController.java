@@ -38,6 +38,7 @@ import com.android.settings.R;
 import com.android.settings.Utils;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.fuelgauge.AdvancedPowerUsageDetail;
+import com.android.settings.fuelgauge.BatteryUsageStatsCache;
 import com.android.settings.fuelgauge.BatteryUtils;
 import com.android.settings.fuelgauge.PowerUsageFeatureProvider;
 import com.android.settings.fuelgauge.batteryusage.BatteryChartPreferenceController;
@@ -293,25 +294,25 @@ public class AppBatteryPreferenceController extends BasePreferenceController
         @Override
         public void onLoadFinished(Loader<BatteryUsageStats> loader,
                 BatteryUsageStats batteryUsageStats) {
-            closeBatteryUsageStats();
+            if (batteryUsageStats != mBatteryUsageStats) {
+                // The loader delivers the same result again when restarted.
+                closeBatteryUsageStats();
+            }
             mBatteryUsageStats = batteryUsageStats;
             AppBatteryPreferenceController.this.onLoadFinished();
         }
 
         @Override
         public void onLoaderReset(Loader<BatteryUsageStats> loader) {
+            closeBatteryUsageStats();
         }
     }
 
     private void closeBatteryUsageStats() {
         if (mBatteryUsageStats != null) {
-            try {
-                mBatteryUsageStats.close();
-            } catch (Exception e) {
-                Log.e(TAG, "BatteryUsageStats.close() failed", e);
-            } finally {
-                mBatteryUsageStats = null;
-            }
+            // Shared through BatteryUsageStatsCache, which closes it once nobody holds it.
+            BatteryUsageStatsCache.getInstance().release(mBatteryUsageStats);
+            mBatteryUsageStats = null;
         }
     }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import android.text.TextUtils;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Search index over the app list of {@link ManageApplications}.
+ *
+ * <p>Labels are normalized once per app, case folded for the current locale and stripped of
+ * diacritics, so a keystroke only compares strings. An app matches if its label contains the
+ * query or one of its package name segments starts with it. When the query extends the previous
+ * one, only the previous results are searched.
+ *
+ * <p>Not thread safe, it's only used from the thread of the search filter.
+ */
+final class AppSearchIndex {
+
+    private final Locale mLocale;
+    private Map<AppEntry, IndexedEntry> mIndex = new HashMap<>();
+    private List<AppEntry> mIndexedEntries;
+    private String mLastQuery;
+    private ArrayList<AppEntry> mLastResults;
+
+    AppSearchIndex() {
+        this(Locale.getDefault());
+    }
+
+    @VisibleForTesting
+    AppSearchIndex(Locale locale) {
+        mLocale = locale;
+    }
+
+    /** Returns the apps of {@code entries} matching {@code query}, in the same order. */
+    @WorkerThread
+    ArrayList<AppEntry> search(List<AppEntry> entries, CharSequence query) {
+        final boolean indexChanged = updateIndex(entries);
+        final String normalizedQuery = normalize(query.toString(), mLocale);
+        final List<AppEntry> candidates;
+        if (!indexChanged && mLastQuery != null && normalizedQuery.startsWith(mLastQuery)) {
+            candidates = mLastResults;
+        } else {
+            candidates = entries;
+        }
+
+        final ArrayList<AppEntry> results = new ArrayList<>();
+        for (int i = 0, size = candidates.size(); i < size; i++) {
+            final AppEntry entry = candidates.get(i);
+            if (mIndex.get(entry).matches(normalizedQuery)) {
+                results.add(entry);
+            }
+        }
+        mLastQuery = normalizedQuery;
+        mLastResults = results;
+        return results;
+    }
+
+    /**
+     * Indexes the entries of a new list, reusing the normalized labels of the apps already
+     * indexed, or the labels that changed in the current list.
+     *
+     * @return whether the index changed since the last search
+     */
+    private boolean updateIndex(List<AppEntry> entries) {
+        final boolean newEntries = entries != mIndexedEntries;
+        final Map<AppEntry, IndexedEntry> index =
+                newEntries ? new HashMap<>(entries.size() * 2) : mIndex;
+        boolean changed = newEntries;
+        for (int i = 0, size = entries.size(); i < size; i++) {
+            final AppEntry entry = entries.get(i);
+            final IndexedEntry indexed = mIndex.get(entry);
+            if (indexed != null && indexed.mLabel == entry.label) {
+                if (newEntries) {
+                    index.put(entry, indexed);
+                }
+            } else {
+                index.put(entry, new IndexedEntry(entry, mLocale));
+                changed = true;
+            }
+        }
+        mIndex = index;
+        mIndexedEntries = entries;
+        return changed;
+    }
+
+    /** Case folds {@code text} for {@code locale} and strips its diacritics. */
+    @VisibleForTesting
+    static String normalize(String text, Locale locale) {
+        final String decomposed =
+                Normalizer.normalize(text.toLowerCase(locale), Normalizer.Form.NFD);
+        final StringBuilder builder = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            final char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static final class IndexedEntry {
+        private static final String[] NO_SEGMENTS = new String[0];
+
+        final String mLabel;
+        final String mNormalizedLabel;
+        final String[] mPackageSegments;
+
+        IndexedEntry(AppEntry entry, Locale locale) {
+            mLabel = entry.label;
+            mNormalizedLabel = mLabel != null ? normalize(mLabel, locale) : "";
+            final String packageName = entry.info != null ? entry.info.packageName : null;
+            mPackageSegments = TextUtils.isEmpty(packageName)
+                    ? NO_SEGMENTS : packageName.toLowerCase(Locale.ROOT).split("\\.");
+        }
+
+        boolean matches(String query) {
+            if (mNormalizedLabel.contains(query)) {
+                return true;
+            }
+            for (String segment : mPackageSegments) {
+                if (segment.startsWith(query)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1753,8 +1753,11 @@ public class ManageApplications extends InstrumentedFragment
         /**
          * An array filter that constrains the content of the array adapter with a substring.
          * Item that does not contains the specified substring will be removed from the list.</p>
+         * Matching is done by {@link AppSearchIndex}, which also matches package names.
          */
         private class SearchFilter extends Filter {
+            private final AppSearchIndex mSearchIndex = new AppSearchIndex();
+
             @WorkerThread
             @Override
             protected FilterResults performFiltering(CharSequence query) {
@@ -1762,12 +1765,7 @@ public class ManageApplications extends InstrumentedFragment
                 if (TextUtils.isEmpty(query)) {
                     matchedEntries = mOriginalEntries;
                 } else {
-                    matchedEntries = new ArrayList<>();
-                    for (ApplicationsState.AppEntry entry : mOriginalEntries) {
-                        if (entry.label.toLowerCase().contains(query.toString().toLowerCase())) {
-                            matchedEntries.add(entry);
-                        }
-                    }
+                    matchedEntries = mSearchIndex.search(mOriginalEntries, query);
                 }
                 final FilterResults results = new FilterResults();
                 results.values = matchedEntries;
@@ -100,6 +100,11 @@ public class UserBackupSettingsActivity extends FragmentActivity implements Inde
             new BaseSearchIndexProvider() {
                 private static final String BACKUP_SEARCH_INDEX_KEY = "Backup";
 
+                @Override
+                public boolean isRawDataStatic() {
+                    return true;
+                }
+
                 @Override
                 public List<SearchIndexableRaw> getRawDataToIndex(Context context,
                         boolean enabled) {
@@ -415,6 +415,18 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     public interface UiBlocker {
     }
 
+    /**
+     * Marks a controller whose {@code isAvailable()} may be called from a worker thread,
+     * concurrently with other controllers and with the main thread. Dashboards which opt in to
+     * parallel evaluation only evaluate such controllers off the main thread.
+     *
+     * Only implement it once availability has been checked to read nothing but resources,
+     * system services and final fields, never state changed by the UI or the lifecycle.
+     * May be used in any {@link AbstractPreferenceController}.
+     */
+    public interface ThreadSafeAvailability {
+    }
+
     /**
      * Set the metrics category of the parent fragment.
      *
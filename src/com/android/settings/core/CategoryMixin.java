@@ -36,6 +36,7 @@ import androidx.lifecycle.OnLifecycleEvent;
 
 import com.android.settings.dashboard.CategoryManager;
 import com.android.settingslib.drawer.Tile;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -56,12 +57,16 @@ public class CategoryMixin implements LifecycleObserver {
 
     private final Context mContext;
     private final PackageReceiver mPackageReceiver = new PackageReceiver();
+    private final CategoryManager.CategoriesRevalidatedListener mRevalidatedListener =
+            () -> ThreadUtils.postOnMainThread(this::updateCategories);
     private final List<CategoryListener> mCategoryListeners = new ArrayList<>();
     private int mCategoriesUpdateTaskCount;
     private boolean mFirstOnResume = true;
+    private final int mRevalidationCount;
 
     public CategoryMixin(Context context) {
         mContext = context;
+        mRevalidationCount = CategoryManager.get(context).getRevalidationCount();
     }
 
     /**
@@ -75,12 +80,16 @@ public class CategoryMixin implements LifecycleObserver {
         filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
         filter.addDataScheme(DATA_SCHEME_PKG);
         mContext.registerReceiver(mPackageReceiver, filter);
+        CategoryManager.get(mContext).addCategoriesRevalidatedListener(mRevalidatedListener);
 
         if (mFirstOnResume) {
-            // Skip since all tiles have been refreshed in DashboardFragment.onCreatePreferences().
-            Log.d(TAG, "Skip categories update");
             mFirstOnResume = false;
-            return;
+            // Skip since all tiles have been refreshed in DashboardFragment.onCreatePreferences(),
+            // unless the tiles were loaded from a stale snapshot and replaced since.
+            if (mRevalidationCount == CategoryManager.get(mContext).getRevalidationCount()) {
+                Log.d(TAG, "Skip categories update");
+                return;
+            }
         }
         updateCategories();
     }
@@ -91,6 +100,7 @@ public class CategoryMixin implements LifecycleObserver {
     @OnLifecycleEvent(ON_PAUSE)
     public void onPause() {
         mContext.unregisterReceiver(mPackageReceiver);
+        CategoryManager.get(mContext).removeCategoriesRevalidatedListener(mRevalidatedListener);
     }
 
     /**
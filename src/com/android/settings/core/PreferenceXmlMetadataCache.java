@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Bundle;
+import android.util.LruCache;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process-wide LRU cache of the metadata extracted by
+ * {@link PreferenceXmlParserUtils#extractMetadata(Context, int, int)}.
+ *
+ * <p>The same preference xml is parsed by search indexing, slice indexing and controller
+ * creation. Entries are keyed by xml resource, metadata flags and the resource qualifiers of the
+ * current configuration, and the whole cache is dropped on configuration change.
+ */
+public class PreferenceXmlMetadataCache {
+
+    @VisibleForTesting
+    static final int MAX_ENTRIES = 64;
+
+    private static PreferenceXmlMetadataCache sInstance;
+
+    private final LruCache<String, List<Bundle>> mCache = new LruCache<>(MAX_ENTRIES);
+
+    /** Returns the process-wide instance. */
+    public static synchronized PreferenceXmlMetadataCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new PreferenceXmlMetadataCache();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    PreferenceXmlMetadataCache() {
+    }
+
+    /** Returns a copy of the cached metadata, or null on a cache miss. */
+    List<Bundle> get(Context context, int xmlResId, int flags) {
+        final String key = getKey(context, xmlResId, flags);
+        if (key == null) {
+            return null;
+        }
+        final List<Bundle> metadata = mCache.get(key);
+        return metadata == null ? null : copy(metadata);
+    }
+
+    /** Stores a copy of {@code metadata}, so later changes by the caller are not cached. */
+    void put(Context context, int xmlResId, int flags, List<Bundle> metadata) {
+        final String key = getKey(context, xmlResId, flags);
+        if (key != null) {
+            mCache.put(key, copy(metadata));
+        }
+    }
+
+    /** Drops every entry, e.g. when the configuration or locale changes. */
+    public void clear() {
+        mCache.evictAll();
+    }
+
+    /** Returns hit/miss/eviction counters for {@code SettingsDumpService}. */
+    public JSONObject dump() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        obj.put("size", mCache.size());
+        obj.put("hits", mCache.hitCount());
+        obj.put("misses", mCache.missCount());
+        obj.put("evictions", mCache.evictionCount());
+        return obj;
+    }
+
+    /** Returns null if the context has no configuration, in which case nothing is cached. */
+    private static String getKey(Context context, int xmlResId, int flags) {
+        final Configuration config = context.getResources().getConfiguration();
+        if (config == null) {
+            return null;
+        }
+        return context.getPackageName() + "/" + xmlResId + "/" + flags + "/"
+                + Configuration.resourceQualifierString(config);
+    }
+
+    private static List<Bundle> copy(List<Bundle> metadata) {
+        final List<Bundle> copy = new ArrayList<>(metadata.size());
+        for (Bundle bundle : metadata) {
+            copy.add(new Bundle(bundle));
+        }
+        return copy;
+    }
+}
@@ -179,11 +179,23 @@ public class PreferenceXmlParserUtils {
     @NonNull
     public static List<Bundle> extractMetadata(Context context, @XmlRes int xmlResId, int flags)
             throws IOException, XmlPullParserException {
-        final List<Bundle> metadata = new ArrayList<>();
         if (xmlResId <= 0) {
             Log.d(TAG, xmlResId + " is invalid.");
-            return metadata;
+            return new ArrayList<>();
+        }
+        final PreferenceXmlMetadataCache cache = PreferenceXmlMetadataCache.getInstance();
+        final List<Bundle> cachedMetadata = cache.get(context, xmlResId, flags);
+        if (cachedMetadata != null) {
+            return cachedMetadata;
         }
+        final List<Bundle> metadata = parseMetadata(context, xmlResId, flags);
+        cache.put(context, xmlResId, flags, metadata);
+        return metadata;
+    }
+
+    private static List<Bundle> parseMetadata(Context context, @XmlRes int xmlResId, int flags)
+            throws IOException, XmlPullParserException {
+        final List<Bundle> metadata = new ArrayList<>();
         final XmlResourceParser parser = context.getResources().getXml(xmlResId);
 
         int type;
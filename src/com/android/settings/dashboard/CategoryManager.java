@@ -32,6 +32,7 @@ import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.ProviderTile;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.drawer.TileUtils;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -56,6 +57,10 @@ public class CategoryManager {
 
     private List<DashboardCategory> mCategories;
 
+    private final CategorySnapshot mSnapshot;
+    private final Set<CategoriesRevalidatedListener> mRevalidatedListeners = new ArraySet<>();
+    private int mRevalidationCount;
+
     public static CategoryManager get(Context context) {
         if (sInstance == null) {
             sInstance = new CategoryManager(context);
@@ -68,6 +73,7 @@ public class CategoryManager {
         mCategoryByKeyMap = new ArrayMap<>();
         mInterestingConfigChanges = new InterestingConfigChanges();
         mInterestingConfigChanges.applyNewConfig(context.getResources());
+        mSnapshot = new CategorySnapshot(context);
     }
 
     public synchronized DashboardCategory getTilesByCategory(Context context, String categoryKey) {
@@ -124,6 +130,25 @@ public class CategoryManager {
         return result;
     }
 
+    /**
+     * Registers a listener notified when the categories loaded from the on-disk snapshot turn out
+     * to be stale and are replaced.
+     */
+    public synchronized void addCategoriesRevalidatedListener(
+            CategoriesRevalidatedListener listener) {
+        mRevalidatedListeners.add(listener);
+    }
+
+    public synchronized void removeCategoriesRevalidatedListener(
+            CategoriesRevalidatedListener listener) {
+        mRevalidatedListeners.remove(listener);
+    }
+
+    /** Returns how many times categories loaded from the snapshot were replaced. */
+    public synchronized int getRevalidationCount() {
+        return mRevalidationCount;
+    }
+
     private void logTiles(Context context) {
         if (DEBUG) {
             getTileByComponentMap().forEach((component, tile) -> {
@@ -146,13 +171,22 @@ public class CategoryManager {
                 mTileByComponentCache.clear();
             }
             mCategoryByKeyMap.clear();
-            mCategories = TileUtils.getCategories(context, mTileByComponentCache);
-            for (DashboardCategory category : mCategories) {
-                mCategoryByKeyMap.put(category.key, category);
+            final String versionKey = mSnapshot.getVersionKey();
+            final List<DashboardCategory> snapshotCategories =
+                    firstLoading ? mSnapshot.read(versionKey, mCategoryByKeyMap) : null;
+            if (snapshotCategories != null) {
+                mCategories = snapshotCategories;
+                ThreadUtils.postOnBackgroundThread(
+                        () -> revalidateCategories(context, snapshotCategories));
+            } else {
+                mCategories = loadCategories(context, mTileByComponentCache, mCategoryByKeyMap);
+                // Marshalled right away, before anything like a deny list modifies the
+                // categories. The package state is not recorded here as that needs binder calls,
+                // the next cold start revalidates the snapshot instead.
+                final byte[] snapshot = CategorySnapshot.marshall(mCategories, mCategoryByKeyMap);
+                ThreadUtils.postOnBackgroundThread(() -> mSnapshot.write(versionKey,
+                        CategorySnapshot.PackageState.UNKNOWN, snapshot));
             }
-            backwardCompatCleanupForCategory(mTileByComponentCache, mCategoryByKeyMap);
-            sortCategories(context, mCategoryByKeyMap);
-            filterDuplicateTiles(mCategoryByKeyMap);
             if (firstLoading) {
                 logTiles(context);
 
@@ -173,6 +207,68 @@ public class CategoryManager {
         }
     }
 
+    /** Resolves the tiles of all categories, fills the given maps and returns the categories. */
+    private List<DashboardCategory> loadCategories(Context context,
+            Map<Pair<String, String>, Tile> tileByComponentCache,
+            Map<String, DashboardCategory> categoryByKeyMap) {
+        final List<DashboardCategory> categories =
+                TileUtils.getCategories(context, tileByComponentCache);
+        for (DashboardCategory category : categories) {
+            categoryByKeyMap.put(category.key, category);
+        }
+        backwardCompatCleanupForCategory(tileByComponentCache, categoryByKeyMap);
+        sortCategories(context, categoryByKeyMap);
+        filterDuplicateTiles(categoryByKeyMap);
+        return categories;
+    }
+
+    /**
+     * Resolves the tiles again after the categories were loaded from the snapshot, unless no
+     * package changed since the snapshot was resolved in this boot, and replaces them if they
+     * changed. Runs without holding the lock so pages keep reading the snapshot meanwhile.
+     */
+    @VisibleForTesting
+    void revalidateCategories(Context context, List<DashboardCategory> snapshotCategories) {
+        final CategorySnapshot.PackageState packageState = mSnapshot.getPackageState();
+        if (mSnapshot.isUpToDate(packageState)) {
+            return;
+        }
+        final String versionKey = mSnapshot.getVersionKey();
+        final Map<Pair<String, String>, Tile> tileByComponentCache = new ArrayMap<>();
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+        final List<DashboardCategory> categories =
+                loadCategories(context, tileByComponentCache, categoryByKeyMap);
+        final byte[] data = CategorySnapshot.marshall(categories, categoryByKeyMap);
+        if (mSnapshot.hasData(data)) {
+            synchronized (this) {
+                if (mCategories == snapshotCategories && mTileByComponentCache.isEmpty()) {
+                    // Keep the resolved tiles for the next reload.
+                    mTileByComponentCache.putAll(tileByComponentCache);
+                }
+            }
+            // Only records the package state, so later starts of this boot skip revalidation.
+            mSnapshot.write(versionKey, packageState, data);
+            return;
+        }
+        final List<CategoriesRevalidatedListener> listeners;
+        synchronized (this) {
+            if (mCategories != snapshotCategories) {
+                // Reloaded meanwhile, which is at least as recent as this result.
+                return;
+            }
+            Log.i(TAG, "Category snapshot is stale, replacing it");
+            mTileByComponentCache.clear();
+            mTileByComponentCache.putAll(tileByComponentCache);
+            mCategoryByKeyMap.clear();
+            mCategoryByKeyMap.putAll(categoryByKeyMap);
+            mCategories = categories;
+            mRevalidationCount++;
+            listeners = new ArrayList<>(mRevalidatedListeners);
+        }
+        mSnapshot.write(versionKey, packageState, data);
+        listeners.forEach(CategoriesRevalidatedListener::onCategoriesRevalidated);
+    }
+
     @VisibleForTesting
     synchronized void backwardCompatCleanupForCategory(
             Map<Pair<String, String>, Tile> tileByComponentCache,
@@ -270,4 +366,10 @@ public class CategoryManager {
             }
         }
     }
+
+    /** A listener notified when categories loaded from the snapshot are replaced. */
+    public interface CategoriesRevalidatedListener {
+        /** Called on a background thread once the up to date categories are available. */
+        void onCategoriesRevalidated();
+    }
 }
@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.content.Context;
+import android.content.pm.ChangedPackages;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.SystemProperties;
+import android.provider.Settings;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.drawer.DashboardCategory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk snapshot of the resolved and sorted categories of {@link CategoryManager}.
+ *
+ * <p>Resolving the injected tiles queries the package manager for every category and is one of
+ * the most expensive steps of a cold start. The result only changes when packages change, so
+ * the categories are persisted as a parcel and loaded back on the next start instead. Each
+ * snapshot carries a version key made of the build fingerprint and the Settings APK, which is
+ * computed without any binder call; a snapshot with a different key is treated as missing.
+ *
+ * <p>Each snapshot also records the {@link PackageState} it was resolved in. Package change
+ * sequence numbers restart on every boot, so the state is only comparable within the boot it was
+ * recorded in. An unknown or outdated state does not discard the snapshot, it only means the
+ * snapshot has to be revalidated, see {@link #isUpToDate}.
+ */
+class CategorySnapshot {
+
+    private static final String TAG = "CategorySnapshot";
+
+    /**
+     * Flag for a system property which disables the snapshot, forcing every cold start to
+     * resolve the tiles.
+     */
+    static final String SYSPROP_DISABLE_SNAPSHOT =
+            "debug.com.android.settings.dashboard.disable_category_snapshot";
+
+    private static final String SNAPSHOT_FILE = "dashboard_categories.bin";
+
+    private static final int MAGIC = 0x44434153; // "DCAS"
+    private static final int FORMAT_VERSION = 2;
+
+    private final Context mContext;
+    private final File mFile;
+
+    // Content of the snapshot on disk, as last read or written.
+    @GuardedBy("this")
+    private String mVersionKey;
+    @GuardedBy("this")
+    private PackageState mPackageState = PackageState.UNKNOWN;
+    @GuardedBy("this")
+    private byte[] mData;
+
+    CategorySnapshot(Context context) {
+        mContext = context;
+        mFile = new File(context.getCacheDir(), SNAPSHOT_FILE);
+    }
+
+    /**
+     * Flattens the categories into the snapshot format. Must be called while the categories can
+     * not be modified.
+     *
+     * @param categories the categories returned by
+     * {@link CategoryManager#getCategories(Context)}
+     * @param categoryByKeyMap all categories by key, which may hold more categories than
+     * {@code categories}
+     */
+    static byte[] marshall(List<DashboardCategory> categories,
+            Map<String, DashboardCategory> categoryByKeyMap) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeInt(categoryByKeyMap.size());
+            for (DashboardCategory category : categoryByKeyMap.values()) {
+                parcel.writeBoolean(categories.contains(category));
+                category.writeToParcel(parcel, 0 /* flags */);
+            }
+            return parcel.marshall();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Reads the snapshot back, filling {@code categoryByKeyMap}.
+     *
+     * @return the listed categories, or null if there is no valid snapshot for
+     * {@code versionKey}, in which case {@code categoryByKeyMap} is left untouched.
+     */
+    @Nullable
+    synchronized List<DashboardCategory> read(String versionKey,
+            Map<String, DashboardCategory> categoryByKeyMap) {
+        final byte[] data = readData(versionKey);
+        if (data == null) {
+            return null;
+        }
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(data, 0, data.length);
+            parcel.setDataPosition(0);
+            final int count = parcel.readInt();
+            final List<DashboardCategory> categories = new ArrayList<>(count);
+            final List<DashboardCategory> allCategories = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final boolean listed = parcel.readBoolean();
+                final DashboardCategory category =
+                        DashboardCategory.CREATOR.createFromParcel(parcel);
+                allCategories.add(category);
+                if (listed) {
+                    categories.add(category);
+                }
+            }
+            for (DashboardCategory category : allCategories) {
+                categoryByKeyMap.put(category.key, category);
+            }
+            mData = data;
+            return categories;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Unable to parse snapshot", e);
+            return null;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Persists {@code data} created by {@link #marshall}. Failures are logged and otherwise
+     * ignored, the next cold start simply resolves the tiles again.
+     *
+     * <p>Nothing is written if the snapshot on disk already holds {@code data} for
+     * {@code versionKey}, unless {@code packageState} records a state the snapshot on disk does
+     * not know yet.
+     *
+     * @param packageState the state from before the tiles were resolved, or
+     * {@link PackageState#UNKNOWN} if it was not recorded
+     */
+    synchronized void write(String versionKey, PackageState packageState, byte[] data) {
+        if (isDisabled()) {
+            return;
+        }
+        if (versionKey.equals(mVersionKey) && Arrays.equals(data, mData)
+                && (packageState == PackageState.UNKNOWN
+                        || packageState.equals(mPackageState))) {
+            return;
+        }
+        final File tmpFile = new File(mFile.getParentFile(), SNAPSHOT_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(versionKey);
+            out.writeInt(packageState.mBootCount);
+            out.writeInt(packageState.mSequenceNumber);
+            out.writeInt(data.length);
+            out.write(data);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write snapshot", e);
+            tmpFile.delete();
+            return;
+        }
+        if (!tmpFile.renameTo(mFile)) {
+            Log.w(TAG, "Unable to commit snapshot");
+            tmpFile.delete();
+            return;
+        }
+        mVersionKey = versionKey;
+        mPackageState = packageState;
+        mData = data;
+    }
+
+    /**
+     * Returns the key the snapshot is persisted with. Only reads the build and the Settings APK
+     * path and time stamp, so it is cheap enough for the main thread. An update of Settings
+     * installs a new APK, which changes the key.
+     */
+    String getVersionKey() {
+        final String sourceDir = mContext.getApplicationInfo().sourceDir;
+        return Build.FINGERPRINT + "|" + sourceDir + "|"
+                + (sourceDir == null ? 0 : new File(sourceDir).lastModified());
+    }
+
+    /**
+     * Returns the current package state. It must be recorded before resolving the tiles, so that
+     * a package change during the resolution makes the snapshot outdated. Makes binder calls.
+     */
+    PackageState getPackageState() {
+        final ChangedPackages changedPackages =
+                mContext.getPackageManager().getChangedPackages(0 /* sequenceNumber */);
+        return new PackageState(
+                Settings.Global.getInt(mContext.getContentResolver(),
+                        Settings.Global.BOOT_COUNT, 0),
+                changedPackages == null ? 0 : changedPackages.getSequenceNumber());
+    }
+
+    /**
+     * Returns true if the snapshot last read or written was resolved in {@code currentState},
+     * i.e. during this boot and with no package changed since. Otherwise the snapshot may still
+     * be used, but must be revalidated.
+     */
+    synchronized boolean isUpToDate(PackageState currentState) {
+        return mPackageState != PackageState.UNKNOWN && mPackageState.equals(currentState);
+    }
+
+    /** Returns true if the snapshot last read or written holds {@code data}. */
+    synchronized boolean hasData(byte[] data) {
+        return Arrays.equals(data, mData);
+    }
+
+    @VisibleForTesting
+    File getFile() {
+        return mFile;
+    }
+
+    @Nullable
+    private byte[] readData(String versionKey) {
+        if (isDisabled() || !mFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(mFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || !versionKey.equals(in.readUTF())) {
+                Log.i(TAG, "Stale snapshot");
+                return null;
+            }
+            final PackageState packageState = new PackageState(in.readInt(), in.readInt());
+            final int length = in.readInt();
+            if (length < 0 || length > mFile.length()) {
+                Log.w(TAG, "Corrupted snapshot");
+                return null;
+            }
+            final byte[] data = new byte[length];
+            in.readFully(data);
+            mVersionKey = versionKey;
+            mPackageState = packageState;
+            return data;
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to read snapshot", e);
+            return null;
+        }
+    }
+
+    private static boolean isDisabled() {
+        return SystemProperties.getBoolean(SYSPROP_DISABLE_SNAPSHOT, false);
+    }
+
+    /** The boot and package change sequence number the tiles were resolved in. */
+    static final class PackageState {
+        /** State of a snapshot resolved without recording the package state. */
+        static final PackageState UNKNOWN = new PackageState(-1, -1);
+
+        final int mBootCount;
+        final int mSequenceNumber;
+
+        PackageState(int bootCount, int sequenceNumber) {
+            mBootCount = bootCount;
+            mSequenceNumber = sequenceNumber;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PackageState)) {
+                return false;
+            }
+            final PackageState other = (PackageState) o;
+            return mBootCount == other.mBootCount && mSequenceNumber == other.mSequenceNumber;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mBootCount + mSequenceNumber;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates {@link AbstractPreferenceController#isAvailable()} of the controllers of a page in
+ * parallel.
+ *
+ * <p>Many controllers do binder calls to compute their availability, so evaluating them
+ * concurrently bounds the main thread stall by the slowest controller instead of the sum of all
+ * of them. The caller then applies the result in a single pass. Only controllers marked
+ * {@link BasePreferenceController.ThreadSafeAvailability} are evaluated on the pool, and only
+ * for {@link #getTimeoutMillis()}; the others, and those not done in time, are left out of the
+ * result for the caller to query on its own thread. The cost of every controller in the last
+ * evaluation is kept, and slow controllers are logged.
+ */
+class ControllerAvailabilityEvaluator {
+
+    private static final String TAG = "ControllerAvailability";
+
+    @VisibleForTesting
+    static final long SLOW_CONTROLLER_THRESHOLD_MS = 16;
+    @VisibleForTesting
+    static final long AVAILABILITY_TIMEOUT_MS = 100;
+    private static final int MAX_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private static ExecutorService sExecutor;
+
+    private final ExecutorService mExecutor;
+    private List<ControllerTiming> mLastTimings = Collections.emptyList();
+
+    ControllerAvailabilityEvaluator() {
+        this(getSharedExecutor());
+    }
+
+    @VisibleForTesting
+    ControllerAvailabilityEvaluator(ExecutorService executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Returns the availability of the thread safe controllers in {@code controllerLists}.
+     * Blocks for at most {@link #getTimeoutMillis()}; controllers missing from the result must
+     * be queried by the caller.
+     */
+    Map<AbstractPreferenceController, Boolean> evaluate(
+            Collection<List<AbstractPreferenceController>> controllerLists) {
+        final List<AbstractPreferenceController> controllers = new ArrayList<>();
+        for (List<AbstractPreferenceController> controllerList : controllerLists) {
+            for (AbstractPreferenceController controller : controllerList) {
+                if (controller instanceof BasePreferenceController.ThreadSafeAvailability) {
+                    controllers.add(controller);
+                }
+            }
+        }
+
+        final List<ControllerTiming> timings = new ArrayList<>(controllers.size());
+        final List<Future<Boolean>> futures = new ArrayList<>(controllers.size());
+        for (AbstractPreferenceController controller : controllers) {
+            final ControllerTiming timing =
+                    new ControllerTiming(controller.getClass().getSimpleName());
+            timings.add(timing);
+            futures.add(mExecutor.submit(() -> {
+                final long startTime = SystemClock.elapsedRealtime();
+                final long startCpuTime = SystemClock.currentThreadTimeMillis();
+                try {
+                    return controller.isAvailable();
+                } finally {
+                    timing.mCpuTimeMillis = SystemClock.currentThreadTimeMillis() - startCpuTime;
+                    timing.mWallTimeMillis = SystemClock.elapsedRealtime() - startTime;
+                }
+            }));
+        }
+
+        final long deadline = SystemClock.elapsedRealtime() + getTimeoutMillis();
+        final Map<AbstractPreferenceController, Boolean> availability =
+                new ArrayMap<>(controllers.size());
+        for (int i = 0; i < futures.size(); i++) {
+            final ControllerTiming timing = timings.get(i);
+            final Boolean available = await(futures.get(i), timing, deadline);
+            if (available != null) {
+                availability.put(controllers.get(i), available);
+            }
+            if (timing.mWallTimeMillis > SLOW_CONTROLLER_THRESHOLD_MS) {
+                Log.i(TAG, "Slow controller " + timing);
+            }
+        }
+
+        synchronized (this) {
+            mLastTimings = timings;
+        }
+        return availability;
+    }
+
+    /** Returns the timings of the last {@link #evaluate} call, in controller order. */
+    synchronized List<ControllerTiming> getLastTimings() {
+        return mLastTimings;
+    }
+
+    @VisibleForTesting
+    long getTimeoutMillis() {
+        return AVAILABILITY_TIMEOUT_MS;
+    }
+
+    /** Returns the availability, or null if the caller has to query the controller itself. */
+    private static Boolean await(Future<Boolean> future, ControllerTiming timing,
+            long deadline) {
+        try {
+            return future.get(Math.max(deadline - SystemClock.elapsedRealtime(), 0),
+                    TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The controller is thread safe, a late result is harmless and simply dropped.
+            future.cancel(false /* mayInterruptIfRunning */);
+            timing.mTimedOut = true;
+            Log.w(TAG, "Timed out evaluating " + timing.mClassName + ", querying it serially");
+        } catch (InterruptedException e) {
+            future.cancel(true /* mayInterruptIfRunning */);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Surface controller crashes the same way as when evaluated on the main thread.
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            Log.e(TAG, "Error evaluating availability of " + timing.mClassName, e);
+            return false;
+        }
+        return null;
+    }
+
+    private static synchronized ExecutorService getSharedExecutor() {
+        if (sExecutor == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            final int threads = Math.max(1,
+                    Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    r -> new Thread(r, "ControllerAvailability-" + threadCount.incrementAndGet()));
+            executor.allowCoreThreadTimeOut(true);
+            sExecutor = executor;
+        }
+        return sExecutor;
+    }
+
+    /** Cost of a single controller in the last evaluation. */
+    static class ControllerTiming {
+        final String mClassName;
+        volatile long mWallTimeMillis;
+        volatile long mCpuTimeMillis;
+        volatile boolean mTimedOut;
+
+        ControllerTiming(String className) {
+            mClassName = className;
+        }
+
+        @Override
+        public String toString() {
+            return mClassName + ": wall " + mWallTimeMillis + "ms, cpu " + mCpuTimeMillis + "ms"
+                    + (mTimedOut ? ", timed out" : "");
+        }
+    }
+}
@@ -20,11 +20,13 @@ import android.app.settings.SettingsEnums;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.Log;
 
 import androidx.annotation.CallSuper;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.LifecycleObserver;
 import androidx.preference.Preference;
@@ -47,6 +49,7 @@ import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.ProviderTile;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.search.Indexable;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -56,8 +59,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Base fragment for dashboard style UI containing a list of static and dynamic setting items.
@@ -67,7 +69,6 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         BasePreferenceController.UiBlockListener {
     public static final String CATEGORY = "category";
     private static final String TAG = "DashboardFragment";
-    private static final long TIMEOUT_MILLIS = 50L;
 
     @VisibleForTesting
     final ArrayMap<String, List<DynamicDataObserver>> mDashboardTilePrefKeys = new ArrayMap<>();
@@ -81,6 +82,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     private DashboardTilePlaceholderPreferenceController mPlaceholderPreferenceController;
     private boolean mListeningToCategoryChange;
     private List<String> mSuppressInjectedTileKeys;
+    private ControllerAvailabilityEvaluator mAvailabilityEvaluator;
 
     @Override
     public void onAttach(Context context) {
@@ -225,7 +227,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         super.onResume();
         updatePreferenceStates();
         writeElapsedTimeMetric(SettingsEnums.ACTION_DASHBOARD_VISIBLE_TIME,
-                "isParalleledControllers:false");
+                "isParalleledControllers:" + isParalleledControllers());
     }
 
     @Override
@@ -271,6 +273,16 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         return false;
     }
 
+    /**
+     * Returns true if the availability of the controllers of this page is evaluated in parallel
+     * on a worker pool and then applied in a single pass on the main thread. Only controllers
+     * marked {@link BasePreferenceController.ThreadSafeAvailability} are evaluated off the main
+     * thread, the others are still queried serially.
+     */
+    protected boolean isParalleledControllers() {
+        return false;
+    }
+
     protected <T extends AbstractPreferenceController> T use(Class<T> clazz) {
         List<AbstractPreferenceController> controllerList = mPreferenceControllers.get(clazz);
         if (controllerList != null) {
@@ -365,9 +377,11 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         final PreferenceScreen screen = getPreferenceScreen();
         Collection<List<AbstractPreferenceController>> controllerLists =
                 mPreferenceControllers.values();
+        final Map<AbstractPreferenceController, Boolean> availability =
+                evaluateAvailability(controllerLists);
         for (List<AbstractPreferenceController> controllerList : controllerLists) {
             for (AbstractPreferenceController controller : controllerList) {
-                if (!controller.isAvailable()) {
+                if (!isAvailable(availability, controller)) {
                     continue;
                 }
 
@@ -423,6 +437,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         if (screen == null || mPreferenceControllers == null) {
             return;
         }
+        final Map<AbstractPreferenceController, Boolean> availability =
+                evaluateAvailability(mPreferenceControllers.values());
         for (List<AbstractPreferenceController> controllerList : mPreferenceControllers.values()) {
             for (AbstractPreferenceController controller : controllerList) {
                 final String key = controller.getPreferenceKey();
@@ -430,7 +446,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 if (preference == null) {
                     continue;
                 }
-                final boolean available = controller.isAvailable();
+                final boolean available = isAvailable(availability, controller);
                 if (available) {
                     controller.updateState(preference);
                 }
@@ -448,6 +464,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         }
 
         final boolean visible = mBlockerController.isBlockerFinished();
+        final Map<AbstractPreferenceController, Boolean> availability =
+                evaluateAvailability(preferenceControllers.values());
         for (List<AbstractPreferenceController> controllerList :
                 preferenceControllers.values()) {
             for (AbstractPreferenceController controller : controllerList) {
@@ -459,14 +477,44 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 if (controller instanceof BasePreferenceController.UiBlocker) {
                     final boolean prefVisible =
                             ((BasePreferenceController) controller).getSavedPrefVisibility();
-                    preference.setVisible(visible && controller.isAvailable() && prefVisible);
+                    preference.setVisible(
+                            visible && isAvailable(availability, controller) && prefVisible);
                 } else {
-                    preference.setVisible(visible && controller.isAvailable());
+                    preference.setVisible(visible && isAvailable(availability, controller));
                 }
             }
         }
     }
 
+    /**
+     * Evaluates the availability of all {@code controllerLists} in parallel if this page opted
+     * in through {@link #isParalleledControllers()}.
+     *
+     * @return the availability of every controller, or {@code null} if it is to be queried from
+     * each controller on the calling thread.
+     */
+    @Nullable
+    private Map<AbstractPreferenceController, Boolean> evaluateAvailability(
+            Collection<List<AbstractPreferenceController>> controllerLists) {
+        if (!isParalleledControllers()) {
+            return null;
+        }
+        if (mAvailabilityEvaluator == null) {
+            mAvailabilityEvaluator = new ControllerAvailabilityEvaluator();
+        }
+        return mAvailabilityEvaluator.evaluate(controllerLists);
+    }
+
+    private static boolean isAvailable(
+            @Nullable Map<AbstractPreferenceController, Boolean> availability,
+            AbstractPreferenceController controller) {
+        if (availability == null) {
+            return controller.isAvailable();
+        }
+        final Boolean available = availability.get(controller);
+        return available != null ? available : controller.isAvailable();
+    }
+
     /**
      * Refresh preference items backed by DashboardCategory.
      */
@@ -533,18 +581,38 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             unregisterDynamicDataObservers(entry.getValue());
         }
 
-        // Wait for pending observers to update UI.
+        // Bind dynamic data as each observer delivers it.
         if (!pendingObservers.isEmpty()) {
-            final CountDownLatch mainLatch = new CountDownLatch(1);
-            new Thread(() -> {
-                pendingObservers.forEach(observer ->
-                        awaitObserverLatch(observer.getCountDownLatch()));
-                mainLatch.countDown();
-            }).start();
-            Log.d(tag, "Start waiting observers");
-            awaitObserverLatch(mainLatch);
-            Log.d(tag, "Stop waiting observers");
-            pendingObservers.forEach(DynamicDataObserver::updateUi);
+            updateObserversWhenReady(tag, pendingObservers);
+        }
+    }
+
+    /**
+     * Applies the data of every observer as soon as it is ready, without blocking the UI thread.
+     * Observers whose data is already available are applied right away.
+     */
+    @VisibleForTesting
+    void updateObserversWhenReady(String tag, List<DynamicDataObserver> observers) {
+        final long startTime = SystemClock.elapsedRealtime();
+        final ObserverLatencyTracker latencyTracker = ObserverLatencyTracker.getInstance();
+        final List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (DynamicDataObserver observer : observers) {
+            final CompletableFuture<Void> initialData = observer.getInitialDataFuture();
+            if (initialData.isDone()) {
+                // Nothing was waited for, so there is no latency to record.
+                observer.updateUi();
+                continue;
+            }
+            pending.add(initialData.thenRun(() -> {
+                latencyTracker.record(SystemClock.elapsedRealtime() - startTime);
+                ThreadUtils.postOnMainThread(observer::updateUi);
+            }));
+        }
+        if (!pending.isEmpty()) {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).thenRun(() ->
+                    Log.d(tag, pending.size() + " observers ready in "
+                            + (SystemClock.elapsedRealtime() - startTime) + "ms, "
+                            + latencyTracker));
         }
     }
 
@@ -591,12 +659,4 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             resolver.unregisterContentObserver(observer);
         });
     }
-
-    private void awaitObserverLatch(CountDownLatch latch) {
-        try {
-            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            // Do nothing
-        }
-    }
 }
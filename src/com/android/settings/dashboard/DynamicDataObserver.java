@@ -22,6 +22,7 @@ import android.os.Looper;
 
 import com.android.settingslib.utils.ThreadUtils;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -31,11 +32,13 @@ public abstract class DynamicDataObserver extends ContentObserver {
 
     private Runnable mUpdateRunnable;
     private CountDownLatch mCountDownLatch;
+    private CompletableFuture<Void> mInitialDataFuture;
     private boolean mUpdateDelegated;
 
     protected DynamicDataObserver() {
         super(new Handler(Looper.getMainLooper()));
         mCountDownLatch = new CountDownLatch(1);
+        mInitialDataFuture = new CompletableFuture<>();
         // Load data for the first time
         onDataChanged();
     }
@@ -59,6 +62,14 @@ public abstract class DynamicDataObserver extends ContentObserver {
         return mCountDownLatch;
     }
 
+    /**
+     * Returns a future completed once the first data is ready to be applied by
+     * {@link #updateUi()}.
+     */
+    public CompletableFuture<Void> getInitialDataFuture() {
+        return mInitialDataFuture;
+    }
+
     @Override
     public void onChange(boolean selfChange) {
         onDataChanged();
@@ -70,6 +81,7 @@ public abstract class DynamicDataObserver extends ContentObserver {
         } else {
             mUpdateRunnable = runnable;
             mCountDownLatch.countDown();
+            mInitialDataFuture.complete(null);
         }
     }
 }
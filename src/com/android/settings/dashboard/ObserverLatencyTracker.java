@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Tracks how long injected tiles take to deliver their first dynamic data, over the last
+ * {@link #MAX_SAMPLES} {@link DynamicDataObserver}s the page had to wait for. Observers whose data
+ * was already available when the tiles were bound are not recorded.
+ */
+public class ObserverLatencyTracker {
+
+    @VisibleForTesting
+    static final int MAX_SAMPLES = 128;
+
+    private static final ObserverLatencyTracker sInstance = new ObserverLatencyTracker();
+
+    private final long[] mSamples = new long[MAX_SAMPLES];
+    private int mSampleCount;
+    private int mNextSample;
+    private long mTotalCount;
+
+    /** Returns the process wide tracker. */
+    public static ObserverLatencyTracker getInstance() {
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    ObserverLatencyTracker() {
+    }
+
+    /** Records the latency of one observer. */
+    synchronized void record(long latencyMillis) {
+        mSamples[mNextSample] = latencyMillis;
+        mNextSample = (mNextSample + 1) % MAX_SAMPLES;
+        mSampleCount = Math.min(mSampleCount + 1, MAX_SAMPLES);
+        mTotalCount++;
+    }
+
+    /**
+     * Returns the nearest-rank {@code percentile} of the recorded latencies, or 0 if nothing was
+     * recorded.
+     */
+    synchronized long getPercentile(int percentile) {
+        if (mSampleCount == 0) {
+            return 0;
+        }
+        final long[] sorted = Arrays.copyOf(mSamples, mSampleCount);
+        Arrays.sort(sorted);
+        final int rank = (int) Math.ceil(percentile / 100.0 * mSampleCount);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    /** Dumps the latency percentiles for dumpsys. */
+    public synchronized JSONObject dump() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        obj.put("count", mTotalCount);
+        obj.put("p50_ms", getPercentile(50));
+        obj.put("p90_ms", getPercentile(90));
+        obj.put("p99_ms", getPercentile(99));
+        return obj;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "p50 " + getPercentile(50) + "ms, p90 " + getPercentile(90) + "ms, p99 "
+                + getPercentile(99) + "ms over " + mSampleCount + " observers";
+    }
+}
@@ -24,12 +24,13 @@ import android.provider.Settings;
 import androidx.preference.Preference;
 import androidx.preference.SwitchPreference;
 
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
 public class AutomaticSystemServerHeapDumpPreferenceController extends
         DeveloperOptionsPreferenceController implements Preference.OnPreferenceChangeListener,
-        PreferenceControllerMixin {
+        PreferenceControllerMixin, BasePreferenceController.ThreadSafeAvailability {
 
     private static final String KEY_AUTOMATIC_SYSTEM_SERVER_HEAP_DUMPS =
             "automatic_system_server_heap_dumps";
@@ -27,6 +27,7 @@ import androidx.preference.Preference;
 
 import com.android.settings.R;
 import com.android.settings.bugreporthandler.BugReportHandlerUtil;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
@@ -34,7 +35,7 @@ import com.android.settingslib.development.DeveloperOptionsPreferenceController;
  * PreferenceController for BugReportHandler
  */
 public class BugReportHandlerPreferenceController extends DeveloperOptionsPreferenceController
-        implements PreferenceControllerMixin {
+        implements PreferenceControllerMixin, BasePreferenceController.ThreadSafeAvailability {
 
     private static final String KEY_BUG_REPORT_HANDLER = "bug_report_handler";
 
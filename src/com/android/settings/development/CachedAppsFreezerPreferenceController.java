@@ -30,12 +30,14 @@ import androidx.preference.ListPreference;
 import androidx.preference.Preference;
 
 import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
 
 public class CachedAppsFreezerPreferenceController extends DeveloperOptionsPreferenceController
-        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        BasePreferenceController.ThreadSafeAvailability {
 
     @VisibleForTesting
     private static final String CACHED_APPS_FREEZER_KEY = "cached_apps_freezer";
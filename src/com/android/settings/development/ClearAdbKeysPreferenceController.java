@@ -30,11 +30,12 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.Utils;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
 public class ClearAdbKeysPreferenceController extends DeveloperOptionsPreferenceController
-        implements PreferenceControllerMixin {
+        implements PreferenceControllerMixin, BasePreferenceController.ThreadSafeAvailability {
 
     private static final String TAG = "ClearAdbPrefCtrl";
     private static final String CLEAR_ADB_KEYS = "clear_adb_keys";
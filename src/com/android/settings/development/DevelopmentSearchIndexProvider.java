@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.development;
+
+import android.content.Context;
+
+import com.android.settings.search.GatedPageSearchIndexProvider;
+import com.android.settingslib.development.DevelopmentSettingsEnabler;
+
+/**
+ * Search index provider for pages that are only searchable while developer options are enabled.
+ */
+public class DevelopmentSearchIndexProvider extends GatedPageSearchIndexProvider {
+
+    public DevelopmentSearchIndexProvider() {
+        super();
+    }
+
+    public DevelopmentSearchIndexProvider(int xmlRes) {
+        super(xmlRes);
+    }
+
+    @Override
+    protected boolean isPageSearchEnabled(Context context) {
+        return DevelopmentSettingsEnabler.isDevelopmentSettingsEnabled(context);
+    }
+}
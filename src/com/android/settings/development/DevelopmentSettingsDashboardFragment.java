@@ -430,6 +430,11 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
         return Utils.isMonkeyRunning() ? R.xml.placeholder_prefs : R.xml.development_settings;
     }
 
+    @Override
+    protected boolean isParalleledControllers() {
+        return true;
+    }
+
     @Override
     protected List<AbstractPreferenceController> createPreferenceControllers(Context context) {
         if (Utils.isMonkeyRunning()) {
@@ -656,12 +661,7 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
      * For Search.
      */
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.development_settings) {
-
-                @Override
-                protected boolean isPageSearchEnabled(Context context) {
-                    return DevelopmentSettingsEnabler.isDevelopmentSettingsEnabled(context);
-                }
+            new DevelopmentSearchIndexProvider(R.xml.development_settings) {
 
                 @Override
                 public List<AbstractPreferenceController> createPreferenceControllers(Context
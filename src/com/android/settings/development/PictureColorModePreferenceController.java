@@ -21,6 +21,7 @@ import android.content.Context;
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.PreferenceScreen;
 
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.core.lifecycle.Lifecycle;
 import com.android.settingslib.core.lifecycle.LifecycleObserver;
@@ -29,7 +30,8 @@ import com.android.settingslib.core.lifecycle.events.OnResume;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
 public class PictureColorModePreferenceController extends DeveloperOptionsPreferenceController
-        implements LifecycleObserver, OnResume, OnPause, PreferenceControllerMixin {
+        implements LifecycleObserver, OnResume, OnPause, PreferenceControllerMixin,
+        BasePreferenceController.ThreadSafeAvailability {
 
     private static final String KEY_COLOR_MODE = "picture_color_mode";
 
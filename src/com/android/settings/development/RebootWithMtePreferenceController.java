@@ -22,11 +22,12 @@ import android.text.TextUtils;
 import androidx.preference.Preference;
 
 import com.android.settings.Utils;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
 public class RebootWithMtePreferenceController extends DeveloperOptionsPreferenceController
-        implements PreferenceControllerMixin {
+        implements PreferenceControllerMixin, BasePreferenceController.ThreadSafeAvailability {
 
     private static final String KEY_REBOOT_WITH_MTE = "reboot_with_mte";
 
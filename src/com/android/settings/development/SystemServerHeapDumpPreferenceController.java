@@ -29,11 +29,12 @@ import android.widget.Toast;
 import androidx.preference.Preference;
 
 import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
 public class SystemServerHeapDumpPreferenceController extends DeveloperOptionsPreferenceController
-        implements PreferenceControllerMixin {
+        implements PreferenceControllerMixin, BasePreferenceController.ThreadSafeAvailability {
 
     private static final String KEY_SYSTEM_SERVER_HEAP_DUMP = "system_server_heap_dump";
 
@@ -27,6 +27,7 @@ import android.provider.Settings;
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
 
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.RestrictedLockUtils.EnforcedAdmin;
 import com.android.settingslib.RestrictedLockUtilsInternal;
@@ -40,7 +41,7 @@ import java.util.List;
  */
 public class VerifyAppsOverUsbPreferenceController extends DeveloperOptionsPreferenceController
         implements Preference.OnPreferenceChangeListener, AdbOnChangeListener,
-        PreferenceControllerMixin {
+        PreferenceControllerMixin, BasePreferenceController.ThreadSafeAvailability {
     private static final String VERIFY_APPS_OVER_USB_KEY = "verify_apps_over_usb";
     private static final String PACKAGE_MIME_TYPE = "application/vnd.android.package-archive";
 
@@ -17,14 +17,13 @@
 package com.android.settings.development.qstile;
 
 import android.app.settings.SettingsEnums;
-import android.content.Context;
 import android.provider.SearchIndexableResource;
 
 import com.android.settings.R;
 import com.android.settings.dashboard.DashboardFragment;
+import com.android.settings.development.DevelopmentSearchIndexProvider;
 import com.android.settings.search.BaseSearchIndexProvider;
 import com.android.settingslib.search.Indexable;
-import com.android.settingslib.development.DevelopmentSettingsEnabler;
 import com.android.settingslib.search.SearchIndexable;
 
 import java.util.ArrayList;
@@ -50,11 +49,6 @@ public class DevelopmentTileConfigFragment extends DashboardFragment {
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.development_tile_settings) {
-
-                @Override
-                protected boolean isPageSearchEnabled(Context context) {
-                    return DevelopmentSettingsEnabler.isDevelopmentSettingsEnabled(context);
-                }
+            new DevelopmentSearchIndexProvider(R.xml.development_tile_settings) {
             };
 }
@@ -17,12 +17,11 @@
 package com.android.settings.development.transcode;
 
 import android.app.settings.SettingsEnums;
-import android.content.Context;
 
 import com.android.settings.R;
 import com.android.settings.dashboard.DashboardFragment;
+import com.android.settings.development.DevelopmentSearchIndexProvider;
 import com.android.settings.search.BaseSearchIndexProvider;
-import com.android.settingslib.development.DevelopmentSettingsEnabler;
 import com.android.settingslib.search.SearchIndexable;
 
 /**
@@ -48,11 +47,6 @@ public class TranscodeSettingsFragment extends DashboardFragment {
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.transcode_settings) {
-
-                @Override
-                protected boolean isPageSearchEnabled(Context context) {
-                    return DevelopmentSettingsEnabler.isDevelopmentSettingsEnabled(context);
-                }
+            new DevelopmentSearchIndexProvider(R.xml.transcode_settings) {
             };
 }
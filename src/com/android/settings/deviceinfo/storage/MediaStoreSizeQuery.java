@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.deviceinfo.storage;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.provider.MediaStore;
+import android.provider.MediaStore.Files.FileColumns;
+import android.provider.MediaStore.MediaColumns;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Sums the size of the MediaStore files of a user per storage category.
+ *
+ * <p>All categories are first computed from one query grouped by media type and trashed state.
+ * If MediaStore rejects it, one query per category is used instead.
+ */
+final class MediaStoreSizeQuery {
+    private static final String TAG = "MediaStoreSizeQuery";
+
+    private static final String SIZE_SUM = "sum(" + MediaColumns.SIZE + ")";
+
+    /**
+     * Rows counted by any category: all trashed files, media files, and files with a MIME type.
+     * This leaves out the directories, like the documents and other query does.
+     */
+    private static final String GROUPED_SELECTION = MediaColumns.IS_TRASHED + "=1 OR "
+            + FileColumns.MEDIA_TYPE + " IN (" + FileColumns.MEDIA_TYPE_IMAGE + ","
+            + FileColumns.MEDIA_TYPE_VIDEO + "," + FileColumns.MEDIA_TYPE_AUDIO + ") OR "
+            + FileColumns.MIME_TYPE + " IS NOT NULL";
+
+    private static final String GROUP_BY =
+            FileColumns.MEDIA_TYPE + "," + MediaColumns.IS_TRASHED;
+
+    private MediaStoreSizeQuery() {
+    }
+
+    /** Fills the file based sizes of {@code result} from the MediaStore of {@code resolver}. */
+    static void querySizes(ContentResolver resolver, StorageAsyncLoader.StorageResult result) {
+        if (!queryGroupedSizes(resolver, result)) {
+            queryCategorySizes(resolver, result);
+        }
+    }
+
+    /**
+     * Fills the file based sizes of {@code result} with one grouped query.
+     *
+     * @return false if the query isn't supported, {@code result} is then left untouched
+     */
+    @VisibleForTesting
+    static boolean queryGroupedSizes(ContentResolver resolver,
+            StorageAsyncLoader.StorageResult result) {
+        final Bundle queryArgs = new Bundle();
+        queryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, GROUPED_SELECTION);
+        queryArgs.putString(ContentResolver.QUERY_ARG_SQL_GROUP_BY, GROUP_BY);
+        queryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_INCLUDE);
+
+        long imagesSize = 0;
+        long videosSize = 0;
+        long audioSize = 0;
+        long documentsAndOtherSize = 0;
+        long trashSize = 0;
+        try (Cursor cursor = resolver.query(
+                MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL),
+                new String[] {FileColumns.MEDIA_TYPE, MediaColumns.IS_TRASHED, SIZE_SUM},
+                queryArgs,
+                null /* cancellationSignal */)) {
+            if (cursor == null) {
+                return false;
+            }
+            while (cursor.moveToNext()) {
+                final long size = cursor.getLong(2);
+                if (cursor.getInt(1) != 0) {
+                    trashSize += size;
+                    continue;
+                }
+                switch (cursor.getInt(0)) {
+                    case FileColumns.MEDIA_TYPE_IMAGE:
+                        imagesSize += size;
+                        break;
+                    case FileColumns.MEDIA_TYPE_VIDEO:
+                        videosSize += size;
+                        break;
+                    case FileColumns.MEDIA_TYPE_AUDIO:
+                        audioSize += size;
+                        break;
+                    default:
+                        documentsAndOtherSize += size;
+                        break;
+                }
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Grouped size query not supported, querying each category", e);
+            return false;
+        }
+
+        result.imagesSize = imagesSize;
+        result.videosSize = videosSize;
+        result.audioSize = audioSize;
+        result.documentsAndOtherSize = documentsAndOtherSize;
+        result.trashSize = trashSize;
+        return true;
+    }
+
+    /** Fills the file based sizes of {@code result} with one query per category. */
+    @VisibleForTesting
+    static void queryCategorySizes(ContentResolver resolver,
+            StorageAsyncLoader.StorageResult result) {
+        result.imagesSize = getFilesSize(resolver, MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                null /* queryArgs */);
+        result.videosSize = getFilesSize(resolver, MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
+                null /* queryArgs */);
+        result.audioSize = getFilesSize(resolver, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
+                null /* queryArgs */);
+
+        final Bundle documentsAndOtherQueryArgs = new Bundle();
+        documentsAndOtherQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
+                FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_IMAGE
+                + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_VIDEO
+                + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_AUDIO
+                + " AND " + FileColumns.MIME_TYPE + " IS NOT NULL");
+        result.documentsAndOtherSize = getFilesSize(resolver,
+                MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL),
+                documentsAndOtherQueryArgs);
+
+        final Bundle trashQueryArgs = new Bundle();
+        trashQueryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
+        result.trashSize = getFilesSize(resolver,
+                MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL), trashQueryArgs);
+    }
+
+    private static long getFilesSize(ContentResolver resolver, Uri uri, Bundle queryArgs) {
+        try (Cursor cursor = resolver.query(
+                uri,
+                new String[] {SIZE_SUM},
+                queryArgs,
+                null /* cancellationSignal */)) {
+            if (cursor == null) {
+                return 0L;
+            }
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
+        }
+    }
+}
@@ -24,36 +24,50 @@ import static android.content.pm.ApplicationInfo.CATEGORY_VIDEO;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.PackageManager.NameNotFoundException;
 import android.content.pm.UserInfo;
-import android.database.Cursor;
-import android.net.Uri;
-import android.os.Bundle;
 import android.os.UserHandle;
 import android.os.UserManager;
-import android.provider.MediaStore;
-import android.provider.MediaStore.Files.FileColumns;
-import android.provider.MediaStore.MediaColumns;
+import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.Log;
 import android.util.SparseArray;
 
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.deviceinfo.storage.StorageCacheHelper.PackageStatsCache;
 import com.android.settingslib.applications.StorageStatsSource;
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * StorageAsyncLoader is a Loader which loads categorized app information and external stats for all
- * users
+ * users. The users are loaded in parallel.
+ *
+ * <p>The stats of apps that didn't change since the last load are taken from
+ * {@link StorageCacheHelper}. App data and cache grow without any broadcast, so each load also
+ * queries again the {@link #MAX_REFRESHED_PACKAGES_PER_LOAD} apps with the oldest cached stats:
+ * the cached stats are refreshed a few apps per load instead of all at once.
  */
 public class StorageAsyncLoader
         extends AsyncLoaderCompat<SparseArray<StorageAsyncLoader.StorageResult>> {
     private UserManager mUserManager;
     private static final String TAG = "StorageAsyncLoader";
+    private static final int MAX_PARALLEL_USERS = 4;
+    /** How many apps with cached stats are queried again by each load. */
+    @VisibleForTesting
+    static final int MAX_REFRESHED_PACKAGES_PER_LOAD = 20;
 
     private String mUuid;
     private StorageStatsSource mStatsManager;
@@ -83,82 +97,149 @@ public class StorageAsyncLoader
         Collections.sort(infos,
                 (userInfo, otherUser) -> Integer.compare(userInfo.id, otherUser.id));
 
+        // Users are queried in parallel, but their results are combined in user id order so the
+        // duplicate code size is still blamed on the same users.
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(infos.size(), MAX_PARALLEL_USERS)));
+        final List<Future<UserStats>> futures = new ArrayList<>(infos.size());
         for (UserInfo info : infos) {
-            final StorageResult result = getAppsAndGamesSize(info.id);
-
-            result.imagesSize = getFilesSize(info.id, MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                    null /* queryArgs */);
-            result.videosSize = getFilesSize(info.id, MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                    null /* queryArgs */);
-            result.audioSize = getFilesSize(info.id, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
-                    null /* queryArgs */);
-
-            final Bundle documentsAndOtherQueryArgs = new Bundle();
-            documentsAndOtherQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
-                    FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_IMAGE
-                    + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_VIDEO
-                    + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_AUDIO
-                    + " AND " + FileColumns.MIME_TYPE + " IS NOT NULL");
-            result.documentsAndOtherSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL),
-                    documentsAndOtherQueryArgs);
-
-            final Bundle trashQueryArgs = new Bundle();
-            trashQueryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
-            result.trashSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL), trashQueryArgs);
-
-            results.put(info.id, result);
+            futures.add(executor.submit(() -> getUserStats(info.id)));
+        }
+        try {
+            for (int i = 0; i < infos.size(); i++) {
+                final int userId = infos.get(i).id;
+                final UserStats userStats;
+                try {
+                    userStats = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(
+                            "Unable to load storage stats for user " + userId, e.getCause());
+                }
+                results.put(userId, getStorageResult(userStats));
+            }
+        } catch (InterruptedException e) {
+            Log.w(TAG, "Interrupted while loading storage stats", e);
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
         }
         return results;
     }
 
-    private long getFilesSize(int userId, Uri uri, Bundle queryArgs) {
-        final Context perUserContext;
+    private UserStats getUserStats(int userId) {
+        final UserStats userStats = new UserStats();
+        userStats.apps = getAppsStats(userId);
+        final StorageResult result = userStats.result;
+
+        final ContentResolver resolver = getContentResolverForUser(userId);
+        if (resolver != null) {
+            MediaStoreSizeQuery.querySizes(resolver, result);
+        }
+
+        Log.d(TAG, "Loading external stats");
         try {
-            perUserContext = getContext().createPackageContextAsUser(
+            result.externalStats = mStatsManager.getExternalStorageStats(mUuid,
+                    UserHandle.of(userId));
+        } catch (IOException e) {
+            Log.w(TAG, e);
+        }
+        return userStats;
+    }
+
+    private ContentResolver getContentResolverForUser(int userId) {
+        try {
+            return getContext().createPackageContextAsUser(
                 getContext().getApplicationContext().getPackageName(),
                 0 /* flags= */,
-                UserHandle.of(userId));
+                UserHandle.of(userId)).getContentResolver();
         } catch (NameNotFoundException e) {
             Log.e(TAG, "Not able to get Context for user ID " + userId);
-            return 0L;
-        }
-
-        try (Cursor cursor = perUserContext.getContentResolver().query(
-                uri,
-                new String[] {"sum(" + MediaColumns.SIZE + ")"},
-                queryArgs,
-                null /* cancellationSignal */)) {
-            if (cursor == null) {
-                return 0L;
-            }
-            return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
+            return null;
         }
     }
 
-    private StorageResult getAppsAndGamesSize(int userId) {
+    /**
+     * Returns the stats of every installed app of a user. Only the apps updated since the last
+     * load, whose cached stats are too old, or whose cached stats are among the oldest ones, are
+     * queried.
+     */
+    private List<AppStats> getAppsStats(int userId) {
         Log.d(TAG, "Loading apps");
-        final List<ApplicationInfo> applicationInfos =
-                mPackageManager.getInstalledApplicationsAsUser(0, userId);
-        final StorageResult result = new StorageResult();
+        final List<PackageInfo> packageInfos =
+                mPackageManager.getInstalledPackagesAsUser(0, userId);
+        final List<AppStats> appsStats = new ArrayList<>(packageInfos.size());
+        final StorageCacheHelper cacheHelper = new StorageCacheHelper(getContext(), userId);
+        final ArrayMap<String, PackageStatsCache> cachedStats =
+                new ArrayMap<>(packageInfos.size());
         final UserHandle myUser = UserHandle.of(userId);
-        for (int i = 0, size = applicationInfos.size(); i < size; i++) {
-            final ApplicationInfo app = applicationInfos.get(i);
-
-            StorageStatsSource.AppStorageStats stats;
-            try {
-                stats = mStatsManager.getStatsForPackage(mUuid, app.packageName, myUser);
-            } catch (NameNotFoundException | IOException e) {
-                // This may happen if the package was removed during our calculation.
-                Log.w(TAG, "App unexpectedly not found", e);
+        final PackageStatsCache[] cachedPackageStats = new PackageStatsCache[packageInfos.size()];
+        for (int i = 0; i < cachedPackageStats.length; i++) {
+            if (packageInfos.get(i).applicationInfo != null) {
+                cachedPackageStats[i] =
+                        cacheHelper.retrievePackageStats(mUuid, packageInfos.get(i));
+            }
+        }
+        dropOldestStats(cachedPackageStats, MAX_REFRESHED_PACKAGES_PER_LOAD);
+        int queriedCount = 0;
+        for (int i = 0, size = packageInfos.size(); i < size; i++) {
+            final PackageInfo packageInfo = packageInfos.get(i);
+            final ApplicationInfo app = packageInfo.applicationInfo;
+            if (app == null) {
                 continue;
             }
 
-            final long dataSize = stats.getDataBytes();
-            final long cacheQuota = mStatsManager.getCacheQuotaBytes(mUuid, app.uid);
-            final long cacheBytes = stats.getCacheBytes();
-            long blamedSize = dataSize + stats.getCodeBytes();
+            PackageStatsCache stats = cachedPackageStats[i];
+            if (stats == null) {
+                final StorageStatsSource.AppStorageStats storageStats;
+                try {
+                    storageStats = mStatsManager.getStatsForPackage(mUuid, app.packageName,
+                            myUser);
+                } catch (NameNotFoundException | IOException e) {
+                    // This may happen if the package was removed during our calculation.
+                    Log.w(TAG, "App unexpectedly not found", e);
+                    continue;
+                }
+                stats = new PackageStatsCache(packageInfo);
+                stats.codeBytes = storageStats.getCodeBytes();
+                stats.dataBytes = storageStats.getDataBytes();
+                stats.cacheBytes = storageStats.getCacheBytes();
+                stats.cacheQuotaBytes = mStatsManager.getCacheQuotaBytes(mUuid, app.uid);
+                queriedCount++;
+            }
+            cachedStats.put(app.packageName, stats);
+            appsStats.add(new AppStats(app, stats));
+        }
+        cacheHelper.cachePackageStats(mUuid, cachedStats);
+        Log.d(TAG, "Queried " + queriedCount + "/" + appsStats.size() + " apps for user "
+                + userId);
+        return appsStats;
+    }
+
+    /** Sets the {@code count} oldest stats of {@code stats} to null, so they are queried again. */
+    private static void dropOldestStats(PackageStatsCache[] stats, int count) {
+        final List<Integer> cachedIndices = new ArrayList<>(stats.length);
+        for (int i = 0; i < stats.length; i++) {
+            if (stats[i] != null) {
+                cachedIndices.add(i);
+            }
+        }
+        cachedIndices.sort(Comparator.comparingLong(i -> stats[i].timestamp));
+        for (int i = 0; i < Math.min(count, cachedIndices.size()); i++) {
+            stats[cachedIndices.get(i)] = null;
+        }
+    }
+
+    private StorageResult getStorageResult(UserStats userStats) {
+        final StorageResult result = userStats.result;
+        for (int i = 0, size = userStats.apps.size(); i < size; i++) {
+            final AppStats appStats = userStats.apps.get(i);
+            final ApplicationInfo app = appStats.app;
+            final PackageStatsCache stats = appStats.stats;
+
+            final long dataSize = stats.dataBytes;
+            final long cacheQuota = stats.cacheQuotaBytes;
+            final long cacheBytes = stats.cacheBytes;
+            long blamedSize = dataSize + stats.codeBytes;
             // Technically, we could overages as freeable on the storage settings screen.
             // If the app is using more cache than its quota, we would accidentally subtract the
             // overage from the system size (because it shows up as unused) during our attribution.
@@ -170,7 +251,7 @@ public class StorageAsyncLoader
             // Code bytes may share between different profiles. To know all the duplicate code size
             // and we can get a reasonable system size in StorageItemPreferenceController.
             if (mSeenPackages.contains(app.packageName)) {
-                result.duplicateCodeSize += stats.getCodeBytes();
+                result.duplicateCodeSize += stats.codeBytes;
             } else {
                 mSeenPackages.add(app.packageName);
             }
@@ -194,14 +275,6 @@ public class StorageAsyncLoader
                     break;
             }
         }
-
-        Log.d(TAG, "Loading external stats");
-        try {
-            result.externalStats = mStatsManager.getExternalStorageStats(mUuid,
-                    UserHandle.of(userId));
-        } catch (IOException e) {
-            Log.w(TAG, e);
-        }
         Log.d(TAG, "Obtaining result completed");
         return result;
     }
@@ -228,6 +301,21 @@ public class StorageAsyncLoader
         public StorageStatsSource.ExternalStorageStats externalStats;
     }
 
+    private static class UserStats {
+        final StorageResult result = new StorageResult();
+        List<AppStats> apps;
+    }
+
+    private static class AppStats {
+        final ApplicationInfo app;
+        final PackageStatsCache stats;
+
+        AppStats(ApplicationInfo app, PackageStatsCache stats) {
+            this.app = app;
+            this.stats = stats;
+        }
+    }
+
     /**
      * ResultHandler defines a destination of data which can handle a result from
      * {@link StorageAsyncLoader}.
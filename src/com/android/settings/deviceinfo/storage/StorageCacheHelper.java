@@ -18,9 +18,21 @@ package com.android.settings.deviceinfo.storage;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Map;
 
 /**
  * A utility class to cache and restore the storage size information.
+ *
+ * <p>Besides the size totals shown on the storage page, it keeps the storage stats of each
+ * package per volume, so {@link StorageAsyncLoader} only queries the packages that changed since
+ * the last load and a few with the oldest stats.
  */
 public class StorageCacheHelper {
 
@@ -37,11 +49,27 @@ public class StorageCacheHelper {
     private static final String SYSTEM_SIZE_KEY = "system_size_key";
     private static final String USED_SIZE_KEY = "used_size_key";
 
+    private static final String TAG = "StorageCacheHelper";
+    private static final String PACKAGE_STATS_SHARED_PREFERENCE_SUFFIX = "_packages";
+    private static final String PACKAGE_STATS_KEY_SEPARATOR = "/";
+    private static final String PACKAGE_STATS_VALUE_SEPARATOR = ",";
+
+    /**
+     * How long the stats of an unchanged package are trusted at most. App data and cache grow
+     * without any broadcast; {@link StorageAsyncLoader} also refreshes the oldest stats on each
+     * load, so most are replaced well before.
+     */
+    @VisibleForTesting
+    static final long PACKAGE_STATS_MAX_AGE_MS = 60 * 60 * 1000L;
+
     private final SharedPreferences mSharedPreferences;
+    private final SharedPreferences mPackageStatsPreferences;
 
     public StorageCacheHelper(Context context, int userId) {
         String sharedPrefName = SHARED_PREFERENCE_NAME + userId;
         mSharedPreferences = context.getSharedPreferences(sharedPrefName, Context.MODE_PRIVATE);
+        mPackageStatsPreferences = context.getSharedPreferences(
+                sharedPrefName + PACKAGE_STATS_SHARED_PREFERENCE_SUFFIX, Context.MODE_PRIVATE);
     }
 
     /**
@@ -112,6 +140,69 @@ public class StorageCacheHelper {
         return result;
     }
 
+    /**
+     * Returns the cached stats of a package on the volume {@code uuid}, or null if there's none,
+     * or they were taken for another version of the package or are too old.
+     */
+    @Nullable
+    public PackageStatsCache retrievePackageStats(@Nullable String uuid, PackageInfo info) {
+        final String value = mPackageStatsPreferences.getString(
+                getPackageStatsKey(uuid, info.packageName), null /* defValue */);
+        if (value == null) {
+            return null;
+        }
+        final PackageStatsCache stats = PackageStatsCache.fromString(value);
+        if (stats == null || stats.versionCode != info.getLongVersionCode()
+                || stats.lastUpdateTime != info.lastUpdateTime
+                || Math.abs(System.currentTimeMillis() - stats.timestamp)
+                        >= PACKAGE_STATS_MAX_AGE_MS) {
+            return null;
+        }
+        return stats;
+    }
+
+    /**
+     * Replaces the cached package stats of the volume {@code uuid}, keyed by package name.
+     * Packages no longer in {@code stats} are dropped.
+     */
+    public void cachePackageStats(@Nullable String uuid, Map<String, PackageStatsCache> stats) {
+        final String prefix = getPackageStatsKey(uuid, "");
+        final SharedPreferences.Editor editor = mPackageStatsPreferences.edit();
+        for (String key : mPackageStatsPreferences.getAll().keySet()) {
+            if (key.startsWith(prefix)
+                    && !stats.containsKey(key.substring(prefix.length()))) {
+                editor.remove(key);
+            }
+        }
+        for (Map.Entry<String, PackageStatsCache> entry : stats.entrySet()) {
+            editor.putString(prefix + entry.getKey(), entry.getValue().toString());
+        }
+        editor.apply();
+    }
+
+    /**
+     * Drops the cached stats of a package on all volumes, e.g. once its data is cleared.
+     */
+    public void removePackageStats(String packageName) {
+        final String suffix = PACKAGE_STATS_KEY_SEPARATOR + packageName;
+        final SharedPreferences.Editor editor = mPackageStatsPreferences.edit();
+        for (String key : mPackageStatsPreferences.getAll().keySet()) {
+            if (key.endsWith(suffix)) {
+                editor.remove(key);
+            }
+        }
+        editor.apply();
+    }
+
+    @VisibleForTesting
+    void clearPackageStats() {
+        mPackageStatsPreferences.edit().clear().apply();
+    }
+
+    private static String getPackageStatsKey(@Nullable String uuid, String packageName) {
+        return uuid + PACKAGE_STATS_KEY_SEPARATOR + packageName;
+    }
+
     /**
      *  All the cached data about the file size information.
      */
@@ -127,4 +218,55 @@ public class StorageCacheHelper {
         public long trashSize;
         public long systemSize;
     }
+
+    /**
+     * The storage stats of a package, with the package version they were taken for.
+     */
+    public static class PackageStatsCache {
+        public long versionCode;
+        public long lastUpdateTime;
+        public long timestamp;
+        public long codeBytes;
+        public long dataBytes;
+        public long cacheBytes;
+        public long cacheQuotaBytes;
+
+        public PackageStatsCache() {
+        }
+
+        public PackageStatsCache(PackageInfo info) {
+            versionCode = info.getLongVersionCode();
+            lastUpdateTime = info.lastUpdateTime;
+            timestamp = System.currentTimeMillis();
+        }
+
+        @Override
+        public String toString() {
+            return TextUtils.join(PACKAGE_STATS_VALUE_SEPARATOR, new Object[] {versionCode,
+                    lastUpdateTime, timestamp, codeBytes, dataBytes, cacheBytes,
+                    cacheQuotaBytes});
+        }
+
+        @Nullable
+        static PackageStatsCache fromString(String value) {
+            final String[] fields = value.split(PACKAGE_STATS_VALUE_SEPARATOR);
+            if (fields.length != 7) {
+                return null;
+            }
+            final PackageStatsCache stats = new PackageStatsCache();
+            try {
+                stats.versionCode = Long.parseLong(fields[0]);
+                stats.lastUpdateTime = Long.parseLong(fields[1]);
+                stats.timestamp = Long.parseLong(fields[2]);
+                stats.codeBytes = Long.parseLong(fields[3]);
+                stats.dataBytes = Long.parseLong(fields[4]);
+                stats.cacheBytes = Long.parseLong(fields[5]);
+                stats.cacheQuotaBytes = Long.parseLong(fields[6]);
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Invalid package stats " + value);
+                return null;
+            }
+            return stats;
+        }
+    }
 }
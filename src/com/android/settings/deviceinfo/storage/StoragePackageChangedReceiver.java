@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.deviceinfo.storage;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.UserHandle;
+import android.util.Log;
+
+/**
+ * Drops the cached storage stats of a package once its data is cleared or it's removed.
+ * Installs and updates don't need it, the cached stats are keyed by package version.
+ */
+public class StoragePackageChangedReceiver extends BroadcastReceiver {
+    private static final String TAG = "StoragePkgChangedRcvr";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        final Uri data = intent.getData();
+        final int uid = intent.getIntExtra(Intent.EXTRA_UID, -1 /* defaultValue */);
+        if (data == null || uid < 0) {
+            Log.w(TAG, "Missing package in " + intent);
+            return;
+        }
+        final String packageName = data.getSchemeSpecificPart();
+        Log.d(TAG, "Invalidating storage stats of " + packageName);
+        new StorageCacheHelper(context, UserHandle.getUserId(uid))
+                .removePackageStats(packageName);
+    }
+}
@@ -29,6 +29,7 @@ import androidx.preference.Preference;
 import com.android.settings.R;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
+import com.android.settings.search.GatedPageSearchIndexProvider;
 import com.android.settingslib.search.SearchIndexable;
 
 import java.time.LocalTime;
@@ -174,7 +175,7 @@ public class NightDisplaySettings extends DashboardFragment
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.night_display_settings) {
+            new GatedPageSearchIndexProvider(R.xml.night_display_settings) {
 
                 @Override
                 protected boolean isPageSearchEnabled(Context context) {
@@ -24,6 +24,7 @@ import android.os.Bundle;
 
 import com.android.settings.R;
 import com.android.settings.search.BaseSearchIndexProvider;
+import com.android.settings.search.GatedPageSearchIndexProvider;
 import com.android.settingslib.display.DisplayDensityUtils;
 import com.android.settingslib.search.SearchIndexable;
 
@@ -112,7 +113,7 @@ public class ScreenZoomSettings extends PreviewSeekBarPreferenceFragment {
 
     /** Index provider used to expose this fragment in search. */
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider() {
+            new GatedPageSearchIndexProvider() {
                 @Override
                 protected boolean isPageSearchEnabled(Context context) {
                     return false;
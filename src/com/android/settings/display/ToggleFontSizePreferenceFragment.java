@@ -27,6 +27,7 @@ import android.provider.Settings;
 
 import com.android.settings.R;
 import com.android.settings.search.BaseSearchIndexProvider;
+import com.android.settings.search.GatedPageSearchIndexProvider;
 import com.android.settingslib.search.SearchIndexable;
 
 /**
@@ -111,7 +112,7 @@ public class ToggleFontSizePreferenceFragment extends PreviewSeekBarPreferenceFr
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider() {
+            new GatedPageSearchIndexProvider() {
                 @Override
                 protected boolean isPageSearchEnabled(Context context) {
                     return false;
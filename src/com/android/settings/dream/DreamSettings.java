@@ -39,6 +39,7 @@ import com.android.settings.R;
 import com.android.settings.Utils;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
+import com.android.settings.search.GatedPageSearchIndexProvider;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.dream.DreamBackend;
 import com.android.settingslib.dream.DreamBackend.WhenToDream;
@@ -258,7 +259,7 @@ public class DreamSettings extends DashboardFragment implements OnMainSwitchChan
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new SearchIndexProvider(R.xml.dream_fragment_overview);
 
-    static class SearchIndexProvider extends BaseSearchIndexProvider {
+    static class SearchIndexProvider extends GatedPageSearchIndexProvider {
         SearchIndexProvider(int xmlRes) {
             super(xmlRes);
         }
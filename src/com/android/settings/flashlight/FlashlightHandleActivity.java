@@ -60,6 +60,11 @@ public class FlashlightHandleActivity extends Activity implements Indexable {
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider() {
 
+                @Override
+                public boolean isRawDataStatic() {
+                    return true;
+                }
+
                 @Override
                 public List<SearchIndexableRaw> getRawDataToIndex(Context context,
                         boolean enabled) {
@@ -118,24 +118,32 @@ public class BatteryBroadcastReceiver extends BroadcastReceiver {
                         BatteryManager.EXTRA_HEALTH, BatteryManager.BATTERY_HEALTH_UNKNOWN);
                 if (!Utils.isBatteryPresent(intent)) {
                     Log.w(TAG, "Problem reading the battery meter.");
-                    mBatteryListener.onBatteryChanged(BatteryUpdateType.BATTERY_NOT_PRESENT);
+                    notifyBatteryChanged(BatteryUpdateType.BATTERY_NOT_PRESENT);
                 } else if (forceUpdate) {
-                    mBatteryListener.onBatteryChanged(BatteryUpdateType.MANUAL);
+                    notifyBatteryChanged(BatteryUpdateType.MANUAL);
                 } else if (batteryHealth != mBatteryHealth) {
-                    mBatteryListener.onBatteryChanged(BatteryUpdateType.BATTERY_HEALTH);
+                    notifyBatteryChanged(BatteryUpdateType.BATTERY_HEALTH);
                 } else if(!batteryLevel.equals(mBatteryLevel)) {
-                    mBatteryListener.onBatteryChanged(BatteryUpdateType.BATTERY_LEVEL);
+                    notifyBatteryChanged(BatteryUpdateType.BATTERY_LEVEL);
                 } else if (!batteryStatus.equals(mBatteryStatus)) {
-                    mBatteryListener.onBatteryChanged(BatteryUpdateType.BATTERY_STATUS);
+                    notifyBatteryChanged(BatteryUpdateType.BATTERY_STATUS);
                 }
                 mBatteryLevel = batteryLevel;
                 mBatteryStatus = batteryStatus;
                 mBatteryHealth = batteryHealth;
             } else if (PowerManager.ACTION_POWER_SAVE_MODE_CHANGED.equals(intent.getAction())) {
-                mBatteryListener.onBatteryChanged(BatteryUpdateType.BATTERY_SAVER);
+                notifyBatteryChanged(BatteryUpdateType.BATTERY_SAVER);
             } else if (BatteryUtils.BYPASS_DOCK_DEFENDER_ACTION.equals(intent.getAction())) {
-                mBatteryListener.onBatteryChanged(BatteryUpdateType.BATTERY_STATUS);
+                notifyBatteryChanged(BatteryUpdateType.BATTERY_STATUS);
             }
         }
     }
-}
\ No newline at end of file
+
+    private void notifyBatteryChanged(@BatteryUpdateType int type) {
+        if (type != BatteryUpdateType.MANUAL) {
+            // The cached usage stats no longer match the battery state.
+            BatteryUsageStatsCache.getInstance().invalidate();
+        }
+        mBatteryListener.onBatteryChanged(type);
+    }
+}
@@ -21,11 +21,9 @@ import android.content.res.Resources;
 import android.os.AsyncTask;
 import android.os.BatteryManager;
 import android.os.BatteryStats.HistoryItem;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
 import android.os.SystemClock;
 import android.text.format.Formatter;
-import android.util.Log;
 import android.util.SparseIntArray;
 
 import androidx.annotation.NonNull;
@@ -43,8 +41,6 @@ import com.android.settingslib.utils.PowerUtil;
 import com.android.settingslib.utils.StringUtil;
 
 public class BatteryInfo {
-    private static final String TAG = "BatteryInfo";
-
     public CharSequence chargeLabel;
     public CharSequence remainingLabel;
     public int batteryLevel;
@@ -154,30 +150,14 @@ public class BatteryInfo {
         new AsyncTask<Void, Void, BatteryInfo>() {
             @Override
             protected BatteryInfo doInBackground(Void... params) {
-                boolean shouldCloseBatteryUsageStats = false;
-                BatteryUsageStats stats;
                 if (batteryUsageStats != null) {
-                    stats = batteryUsageStats;
-                } else {
-                    try {
-                        stats = context.getSystemService(BatteryStatsManager.class)
-                                .getBatteryUsageStats();
-                        shouldCloseBatteryUsageStats = true;
-                    } catch (RuntimeException e) {
-                        Log.e(TAG, "getBatteryInfo() from getBatteryUsageStats()", e);
-                        // Use default BatteryUsageStats.
-                        stats = new BatteryUsageStats.Builder(new String[0]).build();
-                    }
-                }
-                final BatteryInfo batteryInfo =
-                        getBatteryInfo(context, stats, shortString);
-                if (shouldCloseBatteryUsageStats) {
-                    try {
-                        stats.close();
-                    } catch (Exception e) {
-                        Log.e(TAG, "BatteryUsageStats.close() failed", e);
-                    }
+                    return getBatteryInfo(context, batteryUsageStats, shortString);
                 }
+                final BatteryUsageStatsCache cache = BatteryUsageStatsCache.getInstance();
+                final BatteryUsageStats stats =
+                        cache.get(context, /* includeBatteryHistory */ false);
+                final BatteryInfo batteryInfo = getBatteryInfo(context, stats, shortString);
+                cache.release(stats);
                 return batteryInfo;
             }
 
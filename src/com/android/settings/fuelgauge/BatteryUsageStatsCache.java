@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge;
+
+import android.content.Context;
+import android.os.BatteryStatsManager;
+import android.os.BatteryUsageStats;
+import android.os.BatteryUsageStatsQuery;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Process-wide cache of {@link BatteryUsageStats} snapshots.
+ *
+ * <p>Opening the battery page makes the usage stats loader, the tip loader, the battery info of
+ * the header and the usage list each query {@link BatteryStatsManager} within a second. This
+ * cache shares one snapshot without battery history between them for {@link #SNAPSHOT_TTL_MS},
+ * and concurrent callers wait for the query already in flight instead of starting their own.
+ * {@link BatteryBroadcastReceiver} invalidates the cache when the battery state changes.
+ *
+ * <p>Snapshots with battery history are never shared. Iterating the history of one instance
+ * from two threads corrupts both iterations, and {@link BatteryInfo} keeps iterating it after
+ * its caller is done with the snapshot, so each such request gets its own query.
+ *
+ * <p>Every snapshot returned by {@link #get} must be handed back to {@link #release} instead of
+ * being closed. A shared snapshot is reference counted and closed once it has been replaced,
+ * has expired or has been invalidated, and its last holder has released it. Snapshots are only
+ * shared between callers of the same {@link BatteryStatsManager} instance.
+ */
+public final class BatteryUsageStatsCache {
+    private static final String TAG = "BatteryUsageStatsCache";
+
+    /** How long a snapshot is shared, long enough to cover the loaders of one page. */
+    @VisibleForTesting
+    static final long SNAPSHOT_TTL_MS = 5 * DateUtils.SECOND_IN_MILLIS;
+
+    private static final BatteryUsageStatsCache sInstance = new BatteryUsageStatsCache();
+
+    private final Object mLock = new Object();
+    @GuardedBy("mLock")
+    private Snapshot mSnapshot;
+    @GuardedBy("mLock")
+    private InFlightQuery mInFlightQuery;
+    // Snapshots which are still held, by identity as BatteryUsageStats has no equals().
+    @GuardedBy("mLock")
+    private final Map<BatteryUsageStats, Snapshot> mHeldSnapshots = new IdentityHashMap<>();
+    @GuardedBy("mLock")
+    private long mGeneration;
+    @GuardedBy("mLock")
+    private int mBinderCallCount;
+    @GuardedBy("mLock")
+    private int mCacheHitCount;
+    @GuardedBy("mLock")
+    private int mCoalescedCallCount;
+
+    public static BatteryUsageStatsCache getInstance() {
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    BatteryUsageStatsCache() {
+    }
+
+    /**
+     * Returns a snapshot of the battery usage stats, querying {@link BatteryStatsManager} only if
+     * there is neither a fresh snapshot nor a query in flight. Falls back to empty stats if the
+     * query fails. The result must be passed to {@link #release} once done with.
+     */
+    @WorkerThread
+    @Nullable
+    public BatteryUsageStats get(Context context, boolean includeBatteryHistory) {
+        final BatteryStatsManager batteryStatsManager =
+                context.getSystemService(BatteryStatsManager.class);
+        if (includeBatteryHistory) {
+            synchronized (mLock) {
+                mBinderCallCount++;
+            }
+            return query(batteryStatsManager, /* includeBatteryHistory */ true);
+        }
+        final CompletableFuture<Snapshot> future;
+        final long generation;
+        synchronized (mLock) {
+            final Snapshot snapshot = mSnapshot;
+            if (snapshot != null && snapshot.mBatteryStatsManager == batteryStatsManager) {
+                if (!isExpired(snapshot)) {
+                    mCacheHitCount++;
+                    logAvoidedCallLocked("cache hit");
+                    return acquireLocked(snapshot);
+                }
+                evictLocked(snapshot);
+            }
+            final InFlightQuery inFlightQuery = mInFlightQuery;
+            if (inFlightQuery != null
+                    && inFlightQuery.mBatteryStatsManager == batteryStatsManager) {
+                mCoalescedCallCount++;
+                logAvoidedCallLocked("coalesced");
+                future = inFlightQuery.mFuture;
+                generation = -1;
+            } else {
+                future = new CompletableFuture<>();
+                mInFlightQuery = new InFlightQuery(batteryStatsManager, future);
+                mBinderCallCount++;
+                generation = mGeneration;
+            }
+        }
+        if (generation < 0) {
+            return await(future, batteryStatsManager);
+        }
+
+        BatteryUsageStats stats = null;
+        boolean isQuerySucceeded = false;
+        Snapshot snapshot = null;
+        try {
+            stats = batteryStatsManager.getBatteryUsageStats(
+                    createQuery(/* includeBatteryHistory */ false));
+            isQuerySucceeded = stats != null;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "get() from getBatteryUsageStats()", e);
+            // Use default BatteryUsageStats.
+            stats = new BatteryUsageStats.Builder(new String[0]).build();
+        } finally {
+            synchronized (mLock) {
+                if (mInFlightQuery != null && mInFlightQuery.mFuture == future) {
+                    mInFlightQuery = null;
+                }
+                if (stats != null) {
+                    snapshot = new Snapshot(
+                            batteryStatsManager, stats, SystemClock.elapsedRealtime());
+                    snapshot.mRefCount = 1;
+                    mHeldSnapshots.put(stats, snapshot);
+                    if (isQuerySucceeded && generation == mGeneration) {
+                        if (mSnapshot != null) {
+                            evictLocked(mSnapshot);
+                        }
+                        mSnapshot = snapshot;
+                    } else {
+                        // Only delivered to the callers waiting for it.
+                        snapshot.mEvicted = true;
+                    }
+                }
+            }
+            future.complete(snapshot);
+        }
+        return stats;
+    }
+
+    /**
+     * Hands back a snapshot returned by {@link #get}. Closes it if it is no longer cached and was
+     * not acquired by anyone else.
+     */
+    public void release(@Nullable BatteryUsageStats stats) {
+        if (stats == null) {
+            return;
+        }
+        synchronized (mLock) {
+            final Snapshot snapshot = mHeldSnapshots.get(stats);
+            if (snapshot != null) {
+                snapshot.mRefCount--;
+                if (snapshot.mRefCount == 0 && (snapshot.mEvicted || isExpired(snapshot))) {
+                    evictLocked(snapshot);
+                }
+                return;
+            }
+        }
+        // Not shared, the caller was its only holder.
+        close(stats);
+    }
+
+    /** Drops all snapshots, queries in flight are still delivered but not cached. */
+    public void invalidate() {
+        synchronized (mLock) {
+            mGeneration++;
+            if (mSnapshot != null) {
+                evictLocked(mSnapshot);
+            }
+            mInFlightQuery = null;
+        }
+    }
+
+    /** Returns the number of queries sent to {@link BatteryStatsManager}. */
+    @VisibleForTesting
+    int getBinderCallCount() {
+        synchronized (mLock) {
+            return mBinderCallCount;
+        }
+    }
+
+    /** Returns the number of requests served without a query of their own. */
+    @VisibleForTesting
+    int getAvoidedBinderCallCount() {
+        synchronized (mLock) {
+            return mCacheHitCount + mCoalescedCallCount;
+        }
+    }
+
+    /** Returns the number of snapshots which are not closed yet. */
+    @VisibleForTesting
+    int getOpenSnapshotCount() {
+        synchronized (mLock) {
+            return mHeldSnapshots.size();
+        }
+    }
+
+    @GuardedBy("mLock")
+    private BatteryUsageStats acquireLocked(Snapshot snapshot) {
+        snapshot.mRefCount++;
+        return snapshot.mStats;
+    }
+
+    /** Stops sharing {@code snapshot}, and closes it unless it is still held. */
+    @GuardedBy("mLock")
+    private void evictLocked(Snapshot snapshot) {
+        if (mSnapshot == snapshot) {
+            mSnapshot = null;
+        }
+        snapshot.mEvicted = true;
+        if (snapshot.mRefCount == 0 && mHeldSnapshots.remove(snapshot.mStats) != null) {
+            close(snapshot.mStats);
+        }
+    }
+
+    @GuardedBy("mLock")
+    private void logAvoidedCallLocked(String reason) {
+        Log.d(TAG, reason + ", avoided " + (mCacheHitCount + mCoalescedCallCount)
+                + " binder calls, made " + mBinderCallCount);
+    }
+
+    private BatteryUsageStats await(CompletableFuture<Snapshot> future,
+            BatteryStatsManager batteryStatsManager) {
+        try {
+            final Snapshot snapshot = future.get();
+            synchronized (mLock) {
+                // Closed if every other holder released it already, it was not cached then.
+                if (snapshot != null && mHeldSnapshots.get(snapshot.mStats) == snapshot) {
+                    return acquireLocked(snapshot);
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            Log.w(TAG, "await() failed, querying directly", e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return query(batteryStatsManager, /* includeBatteryHistory */ false);
+    }
+
+    private boolean isExpired(Snapshot snapshot) {
+        return SystemClock.elapsedRealtime() - snapshot.mTimestamp >= SNAPSHOT_TTL_MS;
+    }
+
+    /** Queries a snapshot which is not shared. */
+    private static BatteryUsageStats query(BatteryStatsManager batteryStatsManager,
+            boolean includeBatteryHistory) {
+        try {
+            return batteryStatsManager.getBatteryUsageStats(createQuery(includeBatteryHistory));
+        } catch (RuntimeException e) {
+            Log.e(TAG, "query() from getBatteryUsageStats()", e);
+            // Use default BatteryUsageStats.
+            return new BatteryUsageStats.Builder(new String[0]).build();
+        }
+    }
+
+    private static void close(BatteryUsageStats stats) {
+        try {
+            stats.close();
+        } catch (Exception e) {
+            Log.e(TAG, "BatteryUsageStats.close() failed", e);
+        }
+    }
+
+    private static BatteryUsageStatsQuery createQuery(boolean includeBatteryHistory) {
+        final BatteryUsageStatsQuery.Builder builder = new BatteryUsageStatsQuery.Builder();
+        if (includeBatteryHistory) {
+            builder.includeBatteryHistory();
+        }
+        return builder.build();
+    }
+
+    private static final class Snapshot {
+        final BatteryStatsManager mBatteryStatsManager;
+        final BatteryUsageStats mStats;
+        final long mTimestamp;
+        int mRefCount;
+        // No longer handed out, closed once the last holder releases it.
+        boolean mEvicted;
+
+        Snapshot(BatteryStatsManager batteryStatsManager, BatteryUsageStats stats,
+                long timestamp) {
+            mBatteryStatsManager = batteryStatsManager;
+            mStats = stats;
+            mTimestamp = timestamp;
+        }
+    }
+
+    private static final class InFlightQuery {
+        final BatteryStatsManager mBatteryStatsManager;
+        final CompletableFuture<Snapshot> mFuture;
+
+        InFlightQuery(BatteryStatsManager batteryStatsManager,
+                CompletableFuture<Snapshot> future) {
+            mBatteryStatsManager = batteryStatsManager;
+            mFuture = future;
+        }
+    }
+}
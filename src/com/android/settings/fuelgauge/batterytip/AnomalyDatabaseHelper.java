@@ -33,7 +33,9 @@ public class AnomalyDatabaseHelper extends SQLiteOpenHelper {
     private static final String TAG = "BatteryDatabaseHelper";
 
     private static final String DATABASE_NAME = "battery_settings.db";
-    private static final int DATABASE_VERSION = 5;
+    private static final int DATABASE_VERSION = 6;
+    /** Last version without the anomaly indices, upgraded in place. */
+    private static final int DATABASE_VERSION_WITHOUT_INDICES = 5;
 
     @Retention(RetentionPolicy.SOURCE)
     @IntDef({State.NEW,
@@ -99,6 +101,15 @@ public class AnomalyDatabaseHelper extends SQLiteOpenHelper {
                     + ")";
 
 
+    private static final String CREATE_ANOMALY_STATE_TIME_INDEX =
+            "CREATE INDEX IF NOT EXISTS anomaly_state_time_index ON " + Tables.TABLE_ANOMALY
+                    + "(" + AnomalyColumns.ANOMALY_STATE + "," + AnomalyColumns.TIME_STAMP_MS
+                    + ")";
+
+    private static final String CREATE_ANOMALY_TIME_INDEX =
+            "CREATE INDEX IF NOT EXISTS anomaly_time_index ON " + Tables.TABLE_ANOMALY
+                    + "(" + AnomalyColumns.TIME_STAMP_MS + ")";
+
     public interface ActionColumns {
         /**
          * The package name of an app been performed an action
@@ -145,6 +156,8 @@ public class AnomalyDatabaseHelper extends SQLiteOpenHelper {
 
     private AnomalyDatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Let queryAllAnomalies() read while BatteryDatabaseManager writes a batch.
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
@@ -154,7 +167,10 @@ public class AnomalyDatabaseHelper extends SQLiteOpenHelper {
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        if (oldVersion < DATABASE_VERSION) {
+        if (oldVersion == DATABASE_VERSION_WITHOUT_INDICES) {
+            Log.i(TAG, "Adding anomaly indices for schema version '" + newVersion + "'.");
+            createIndices(db);
+        } else if (oldVersion < DATABASE_VERSION) {
             Log.w(TAG, "Detected schema version '" + oldVersion + "'. " +
                     "Index needs to be rebuilt for schema version '" + newVersion + "'.");
             // We need to drop the tables and recreate them
@@ -178,9 +194,17 @@ public class AnomalyDatabaseHelper extends SQLiteOpenHelper {
     private void bootstrapDB(SQLiteDatabase db) {
         db.execSQL(CREATE_ANOMALY_TABLE);
         db.execSQL(CREATE_ACTION_TABLE);
+        createIndices(db);
         Log.i(TAG, "Bootstrapped database");
     }
 
+    private void createIndices(SQLiteDatabase db) {
+        // For the (state, time range) query of RestrictAppDetector
+        db.execSQL(CREATE_ANOMALY_STATE_TIME_INDEX);
+        // For the time range cleanup of AnomalyCleanupJobService
+        db.execSQL(CREATE_ANOMALY_TIME_INDEX);
+    }
+
     private void dropTables(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_ANOMALY);
         db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_ACTION);
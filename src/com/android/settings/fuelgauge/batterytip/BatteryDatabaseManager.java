@@ -33,11 +33,14 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.Log;
 import android.util.SparseLongArray;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.fuelgauge.batterytip.AnomalyDatabaseHelper.ActionColumns;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -47,14 +50,32 @@ import java.util.Map;
 /**
  * Database manager for battery data. Now it only contains anomaly data stored in {@link AppInfo}.
  *
- * This manager may be accessed by multi-threads. All the database related methods are synchronized
- * so each operation won't be interfered by other threads.
+ * This manager may be accessed by multi-threads. All the write methods are synchronized so each
+ * write won't be interfered by other threads. Reads are not, the database uses write-ahead logging
+ * so they don't wait for a write in progress.
+ *
+ * Anomalies and actions queued by {@link #enqueueAnomaly} and {@link #enqueueAction} are written
+ * on a background thread, all the rows queued meanwhile in one transaction. Every other method
+ * writes the queued rows first, so it always sees them.
  */
 public class BatteryDatabaseManager {
+    private static final String TAG = "BatteryDatabaseManager";
+
     private static BatteryDatabaseManager sSingleton;
 
     private AnomalyDatabaseHelper mDatabaseHelper;
 
+    private final Object mPendingLock = new Object();
+    @GuardedBy("mPendingLock")
+    private List<ContentValues> mPendingAnomalies = new ArrayList<>();
+    @GuardedBy("mPendingLock")
+    private List<ContentValues> mPendingActions = new ArrayList<>();
+    @GuardedBy("mPendingLock")
+    private boolean mFlushScheduled;
+    // Queued rows taken out of the queues but not committed yet.
+    @GuardedBy("mPendingLock")
+    private boolean mFlushInProgress;
+
     private BatteryDatabaseManager(Context context) {
         mDatabaseHelper = AnomalyDatabaseHelper.getInstance(context);
     }
@@ -84,21 +105,57 @@ public class BatteryDatabaseManager {
     public synchronized boolean insertAnomaly(int uid, String packageName, int type,
             int anomalyState,
             long timestampMs) {
+        flushPendingWritesLocked();
         final SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(UID, uid);
-        values.put(PACKAGE_NAME, packageName);
-        values.put(ANOMALY_TYPE, type);
-        values.put(ANOMALY_STATE, anomalyState);
-        values.put(TIME_STAMP_MS, timestampMs);
+        return db.insertWithOnConflict(TABLE_ANOMALY, null,
+                createAnomalyValues(uid, packageName, type, anomalyState, timestampMs),
+                CONFLICT_IGNORE) != -1;
+    }
 
-        return db.insertWithOnConflict(TABLE_ANOMALY, null, values, CONFLICT_IGNORE) != -1;
+    /**
+     * Queue an anomaly log to be inserted to database in the background, together with the other
+     * anomalies and actions queued meanwhile.
+     *
+     * @see #insertAnomaly(int, String, int, int, long)
+     */
+    public void enqueueAnomaly(int uid, String packageName, int type, int anomalyState,
+            long timestampMs) {
+        final ContentValues values =
+                createAnomalyValues(uid, packageName, type, anomalyState, timestampMs);
+        synchronized (mPendingLock) {
+            mPendingAnomalies.add(values);
+            scheduleFlushLocked();
+        }
+    }
+
+    /**
+     * Queue an action to be inserted, or updated if already existed, in the background.
+     *
+     * @see #insertAction(int, int, String, long)
+     */
+    public void enqueueAction(@AnomalyDatabaseHelper.ActionType int type, int uid,
+            String packageName, long timestampMs) {
+        final ContentValues values = createActionValues(type, uid, packageName, timestampMs);
+        synchronized (mPendingLock) {
+            mPendingActions.add(values);
+            scheduleFlushLocked();
+        }
+    }
+
+    /**
+     * Write all the queued anomalies and actions to database in one transaction.
+     *
+     * @return the number of rows written
+     */
+    public synchronized int flushPendingWrites() {
+        return flushPendingWritesLocked();
     }
 
     /**
      * Query all the anomalies that happened after {@code timestampMsAfter} and with {@code state}.
      */
-    public synchronized List<AppInfo> queryAllAnomalies(long timestampMsAfter, int state) {
+    public List<AppInfo> queryAllAnomalies(long timestampMsAfter, int state) {
+        flushPendingWritesIfNeeded();
         final List<AppInfo> appInfos = new ArrayList<>();
         final SQLiteDatabase db = mDatabaseHelper.getReadableDatabase();
         final String[] projection = {PACKAGE_NAME, ANOMALY_TYPE, UID};
@@ -132,6 +189,7 @@ public class BatteryDatabaseManager {
     }
 
     public synchronized void deleteAllAnomaliesBeforeTimeStamp(long timestampMs) {
+        flushPendingWritesLocked();
         final SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
         db.delete(TABLE_ANOMALY, TIME_STAMP_MS + " < ?",
                 new String[]{String.valueOf(timestampMs)});
@@ -144,6 +202,7 @@ public class BatteryDatabaseManager {
      * @param state    which state to update to
      */
     public synchronized void updateAnomalies(List<AppInfo> appInfos, int state) {
+        flushPendingWritesLocked();
         if (!appInfos.isEmpty()) {
             final int size = appInfos.size();
             final String[] whereArgs = new String[size];
@@ -165,8 +224,9 @@ public class BatteryDatabaseManager {
      * @param type of action been performed
      * @return {@link SparseLongArray} where key is uid and value is timestamp
      */
-    public synchronized SparseLongArray queryActionTime(
+    public SparseLongArray queryActionTime(
             @AnomalyDatabaseHelper.ActionType int type) {
+        flushPendingWritesIfNeeded();
         final SparseLongArray timeStamps = new SparseLongArray();
         final SQLiteDatabase db = mDatabaseHelper.getReadableDatabase();
         final String[] projection = {ActionColumns.UID, ActionColumns.TIME_STAMP_MS};
@@ -193,14 +253,10 @@ public class BatteryDatabaseManager {
      */
     public synchronized boolean insertAction(@AnomalyDatabaseHelper.ActionType int type,
             int uid, String packageName, long timestampMs) {
+        flushPendingWritesLocked();
         final SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
-        final ContentValues values = new ContentValues();
-        values.put(ActionColumns.UID, uid);
-        values.put(ActionColumns.PACKAGE_NAME, packageName);
-        values.put(ActionColumns.ACTION_TYPE, type);
-        values.put(ActionColumns.TIME_STAMP_MS, timestampMs);
-
-        return db.insertWithOnConflict(TABLE_ACTION, null, values, CONFLICT_REPLACE) != -1;
+        return db.insertWithOnConflict(TABLE_ACTION, null,
+                createActionValues(type, uid, packageName, timestampMs), CONFLICT_REPLACE) != -1;
     }
 
     /**
@@ -208,6 +264,7 @@ public class BatteryDatabaseManager {
      */
     public synchronized boolean deleteAction(@AnomalyDatabaseHelper.ActionType int type,
             int uid, String packageName) {
+        flushPendingWritesLocked();
         SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
         final String where =
                 ActionColumns.ACTION_TYPE + " = ? AND " + ActionColumns.UID + " = ? AND "
@@ -217,4 +274,107 @@ public class BatteryDatabaseManager {
 
         return db.delete(TABLE_ACTION, where, whereArgs) != 0;
     }
+
+    @GuardedBy("mPendingLock")
+    private void scheduleFlushLocked() {
+        if (!mFlushScheduled) {
+            mFlushScheduled = true;
+            ThreadUtils.postOnBackgroundThread(this::flushPendingWrites);
+        }
+    }
+
+    @VisibleForTesting
+    boolean isFlushInProgress() {
+        synchronized (mPendingLock) {
+            return mFlushInProgress;
+        }
+    }
+
+    /**
+     * Makes sure every queued row is committed before a read. Only takes the write lock when
+     * rows are queued or a flush is committing them, so reads don't wait for other writes.
+     */
+    private void flushPendingWritesIfNeeded() {
+        synchronized (mPendingLock) {
+            if (mPendingAnomalies.isEmpty() && mPendingActions.isEmpty()
+                    && !mFlushInProgress) {
+                return;
+            }
+        }
+        // Waits for a flush in progress, which holds the lock until it committed.
+        flushPendingWrites();
+    }
+
+    private int flushPendingWritesLocked() {
+        final List<ContentValues> anomalies;
+        final List<ContentValues> actions;
+        synchronized (mPendingLock) {
+            mFlushScheduled = false;
+            if (mPendingAnomalies.isEmpty() && mPendingActions.isEmpty()) {
+                return 0;
+            }
+            anomalies = mPendingAnomalies;
+            actions = mPendingActions;
+            mPendingAnomalies = new ArrayList<>();
+            mPendingActions = new ArrayList<>();
+            mFlushInProgress = true;
+        }
+
+        final int count;
+        try {
+            count = writeRows(anomalies, actions);
+        } finally {
+            synchronized (mPendingLock) {
+                mFlushInProgress = false;
+            }
+        }
+        Log.d(TAG, "Wrote " + count + " of " + (anomalies.size() + actions.size())
+                + " queued rows in one transaction");
+        return count;
+    }
+
+    private int writeRows(List<ContentValues> anomalies, List<ContentValues> actions) {
+        final SQLiteDatabase db = mDatabaseHelper.getWritableDatabase();
+        int count = 0;
+        db.beginTransaction();
+        try {
+            for (int i = 0, size = anomalies.size(); i < size; i++) {
+                if (db.insertWithOnConflict(TABLE_ANOMALY, null, anomalies.get(i),
+                        CONFLICT_IGNORE) != -1) {
+                    count++;
+                }
+            }
+            for (int i = 0, size = actions.size(); i < size; i++) {
+                if (db.insertWithOnConflict(TABLE_ACTION, null, actions.get(i),
+                        CONFLICT_REPLACE) != -1) {
+                    count++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return count;
+    }
+
+    private static ContentValues createAnomalyValues(int uid, String packageName, int type,
+            int anomalyState, long timestampMs) {
+        final ContentValues values = new ContentValues();
+        values.put(UID, uid);
+        values.put(PACKAGE_NAME, packageName);
+        values.put(ANOMALY_TYPE, type);
+        values.put(ANOMALY_STATE, anomalyState);
+        values.put(TIME_STAMP_MS, timestampMs);
+        return values;
+    }
+
+    private static ContentValues createActionValues(@AnomalyDatabaseHelper.ActionType int type,
+            int uid, String packageName, long timestampMs) {
+        final ContentValues values = new ContentValues();
+        values.put(ActionColumns.UID, uid);
+        values.put(ActionColumns.PACKAGE_NAME, packageName);
+        values.put(ActionColumns.ACTION_TYPE, type);
+        values.put(ActionColumns.TIME_STAMP_MS, timestampMs);
+        return values;
+    }
 }
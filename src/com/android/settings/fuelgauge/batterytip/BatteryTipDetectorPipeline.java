@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batterytip;
+
+import android.content.Context;
+import android.os.BatteryUsageStats;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settings.fuelgauge.BatteryInfo;
+import com.android.settings.fuelgauge.batterytip.detectors.BatteryTipDetector;
+import com.android.settings.fuelgauge.batterytip.tips.BatteryTip;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs a set of {@link BatteryTipDetector} concurrently on one shared {@link Input}.
+ *
+ * <p>A pass has a single deadline, {@link #DETECTION_TIMEOUT_MS} after it starts. Detectors still
+ * running then are cancelled, and their default tip, which is not shown, takes their place for
+ * this pass, so one slow detector doesn't hold back the battery tip card. The shared pool runs
+ * every detector right away; a detector stuck past a deadline keeps its thread, but never delays
+ * the detectors of later passes. The latency of each detector is logged and kept for the last
+ * pass.
+ */
+public class BatteryTipDetectorPipeline {
+    private static final String TAG = "BatteryTipDetectorPipeline";
+
+    @VisibleForTesting
+    static final long DETECTION_TIMEOUT_MS = 1000;
+    // Detectors ignoring interrupts may keep their thread, later passes use other ones.
+    private static final int MAX_THREADS = 16;
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private static ExecutorService sExecutor;
+
+    /** Creates a {@link BatteryTipDetector} from the input shared by all detectors of a pass. */
+    public interface DetectorFactory {
+        BatteryTipDetector create(Input input);
+    }
+
+    /** Input taken once per pass and shared by all detectors. */
+    public static final class Input {
+        public final Context context;
+        public final BatteryTipPolicy policy;
+        public final BatteryInfo batteryInfo;
+        public final BatteryUsageStats batteryUsageStats;
+
+        public Input(Context context, BatteryTipPolicy policy, BatteryInfo batteryInfo,
+                BatteryUsageStats batteryUsageStats) {
+            this.context = context;
+            this.policy = policy;
+            this.batteryInfo = batteryInfo;
+            this.batteryUsageStats = batteryUsageStats;
+        }
+    }
+
+    private final List<DetectorFactory> mFactories = new ArrayList<>();
+    private final List<Supplier<BatteryTip>> mDefaultTips = new ArrayList<>();
+    private final ExecutorService mExecutor;
+    private final long mTimeoutMs;
+    private volatile Map<String, Long> mLatencies = new ArrayMap<>();
+
+    public BatteryTipDetectorPipeline() {
+        this(getSharedExecutor(), DETECTION_TIMEOUT_MS);
+    }
+
+    @VisibleForTesting
+    BatteryTipDetectorPipeline(long timeoutMs) {
+        this(getSharedExecutor(), timeoutMs);
+    }
+
+    @VisibleForTesting
+    BatteryTipDetectorPipeline(ExecutorService executor, long timeoutMs) {
+        mExecutor = executor;
+        mTimeoutMs = timeoutMs;
+    }
+
+    /**
+     * Adds a detector to run on every pass.
+     *
+     * @param defaultTip creates the tip used when the detector fails or misses the deadline,
+     * which should be in the {@link BatteryTip.StateType#INVISIBLE} state
+     */
+    public BatteryTipDetectorPipeline addDetector(DetectorFactory factory,
+            Supplier<BatteryTip> defaultTip) {
+        mFactories.add(factory);
+        mDefaultTips.add(defaultTip);
+        return this;
+    }
+
+    /**
+     * Runs all detectors on {@code input} and returns one tip per detector, in the order the
+     * detectors were added. Detectors that fail or miss the deadline contribute their default
+     * tip.
+     */
+    @WorkerThread
+    public List<BatteryTip> detect(Input input) {
+        final int size = mFactories.size();
+        final List<BatteryTip> tips = new ArrayList<>(size);
+        if (size == 0) {
+            return tips;
+        }
+        final long startTime = SystemClock.elapsedRealtime();
+        final long deadline = startTime + mTimeoutMs;
+        final List<DetectorTask> tasks = new ArrayList<>(size);
+        final List<Future<BatteryTip>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final DetectorTask task = new DetectorTask(mFactories.get(i), input);
+            tasks.add(task);
+            try {
+                futures.add(mExecutor.submit(task));
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "No thread to run " + task.getName() + ", using its default tip");
+                futures.add(null);
+            }
+        }
+
+        final Map<String, Long> latencies = new ArrayMap<>(size);
+        for (int i = 0; i < size; i++) {
+            final DetectorTask task = tasks.get(i);
+            BatteryTip tip = futures.get(i) != null
+                    ? await(futures.get(i), task, deadline) : null;
+            if (tip != null) {
+                latencies.put(task.getName(), task.mLatencyMs);
+            } else {
+                tip = mDefaultTips.get(i).get();
+            }
+            tips.add(tip);
+        }
+        mLatencies = latencies;
+        Log.d(TAG, "detect() took " + (SystemClock.elapsedRealtime() - startTime) + " ms, "
+                + latencies.size() + "/" + size + " detectors finished");
+        return tips;
+    }
+
+    /** Returns the latency in milliseconds of each detector that finished in the last pass. */
+    @VisibleForTesting
+    Map<String, Long> getLatencies() {
+        return mLatencies;
+    }
+
+    /** Returns the tip of the detector, or null if it failed or missed the pass deadline. */
+    private static BatteryTip await(Future<BatteryTip> future, DetectorTask task,
+            long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - SystemClock.elapsedRealtime()),
+                    TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Handled below.
+        } catch (InterruptedException e) {
+            Log.w(TAG, "Interrupted while running " + task.getName(), e);
+            future.cancel(true /* mayInterruptIfRunning */);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Failed to run " + task.getName(), e.getCause());
+            return null;
+        }
+        Log.w(TAG, "Timeout running " + task.getName() + ", using its default tip for this pass");
+        future.cancel(true /* mayInterruptIfRunning */);
+        return null;
+    }
+
+    private static synchronized ExecutorService getSharedExecutor() {
+        if (sExecutor == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            // No queue, so a detector never waits behind one stuck past a deadline.
+            sExecutor = new ThreadPoolExecutor(0 /* corePoolSize */, MAX_THREADS,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    r -> new Thread(r, "BatteryTipDetector-" + threadCount.incrementAndGet()));
+        }
+        return sExecutor;
+    }
+
+    private static final class DetectorTask implements Callable<BatteryTip> {
+        private final DetectorFactory mFactory;
+        private final Input mInput;
+        private volatile String mName;
+        private volatile long mLatencyMs;
+
+        DetectorTask(DetectorFactory factory, Input input) {
+            mFactory = factory;
+            mInput = input;
+        }
+
+        @Override
+        public BatteryTip call() {
+            final long startTime = SystemClock.elapsedRealtime();
+            final BatteryTipDetector detector = mFactory.create(mInput);
+            mName = detector.getClass().getSimpleName();
+            final BatteryTip tip = detector.detect();
+            mLatencyMs = SystemClock.elapsedRealtime() - startTime;
+            Log.d(TAG, mName + " took " + mLatencyMs + " ms");
+            return tip;
+        }
+
+        String getName() {
+            return mName != null ? mName : mFactory.getClass().getSimpleName();
+        }
+    }
+}
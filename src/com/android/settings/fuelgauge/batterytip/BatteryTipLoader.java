@@ -21,7 +21,6 @@ import android.os.BatteryUsageStats;
 
 import androidx.annotation.VisibleForTesting;
 
-import com.android.settings.fuelgauge.BatteryInfo;
 import com.android.settings.fuelgauge.BatteryUtils;
 import com.android.settings.fuelgauge.batterytip.detectors.BatteryDefenderDetector;
 import com.android.settings.fuelgauge.batterytip.detectors.DockDefenderDetector;
@@ -29,8 +28,13 @@ import com.android.settings.fuelgauge.batterytip.detectors.EarlyWarningDetector;
 import com.android.settings.fuelgauge.batterytip.detectors.HighUsageDetector;
 import com.android.settings.fuelgauge.batterytip.detectors.LowBatteryDetector;
 import com.android.settings.fuelgauge.batterytip.detectors.SmartBatteryDetector;
+import com.android.settings.fuelgauge.batterytip.tips.BatteryDefenderTip;
 import com.android.settings.fuelgauge.batterytip.tips.BatteryTip;
+import com.android.settings.fuelgauge.batterytip.tips.DockDefenderTip;
+import com.android.settings.fuelgauge.batterytip.tips.EarlyWarningTip;
+import com.android.settings.fuelgauge.batterytip.tips.HighUsageTip;
 import com.android.settings.fuelgauge.batterytip.tips.LowBatteryTip;
+import com.android.settings.fuelgauge.batterytip.tips.SmartBatteryTip;
 import com.android.settings.fuelgauge.batterytip.tips.SummaryTip;
 import com.android.settingslib.fuelgauge.EstimateKt;
 import com.android.settingslib.utils.AsyncLoaderCompat;
@@ -51,6 +55,8 @@ public class BatteryTipLoader extends AsyncLoaderCompat<List<BatteryTip>> {
     private BatteryUsageStats mBatteryUsageStats;
     @VisibleForTesting
     BatteryUtils mBatteryUtils;
+    @VisibleForTesting
+    BatteryTipDetectorPipeline mDetectorPipeline = createDetectorPipeline();
 
     public BatteryTipLoader(Context context, BatteryUsageStats batteryUsageStats) {
         super(context);
@@ -63,19 +69,11 @@ public class BatteryTipLoader extends AsyncLoaderCompat<List<BatteryTip>> {
         if (USE_FAKE_DATA) {
             return getFakeData();
         }
-        final List<BatteryTip> tips = new ArrayList<>();
-        final BatteryTipPolicy policy = new BatteryTipPolicy(getContext());
-        final BatteryInfo batteryInfo = mBatteryUtils.getBatteryInfo(TAG);
         final Context context = getContext();
-
-        tips.add(new LowBatteryDetector(context, policy, batteryInfo).detect());
-        tips.add(new HighUsageDetector(context, policy, mBatteryUsageStats, batteryInfo).detect());
-        tips.add(new SmartBatteryDetector(
-                context, policy, batteryInfo, context.getContentResolver()).detect());
-        tips.add(new EarlyWarningDetector(policy, context).detect());
-        tips.add(new BatteryDefenderDetector(
-                batteryInfo, context.getApplicationContext()).detect());
-        tips.add(new DockDefenderDetector(batteryInfo, context.getApplicationContext()).detect());
+        final BatteryTipDetectorPipeline.Input input = new BatteryTipDetectorPipeline.Input(
+                context, new BatteryTipPolicy(context), mBatteryUtils.getBatteryInfo(TAG),
+                mBatteryUsageStats);
+        final List<BatteryTip> tips = mDetectorPipeline.detect(input);
         Collections.sort(tips);
         return tips;
     }
@@ -84,6 +82,32 @@ public class BatteryTipLoader extends AsyncLoaderCompat<List<BatteryTip>> {
     protected void onDiscardResult(List<BatteryTip> result) {
     }
 
+    private static BatteryTipDetectorPipeline createDetectorPipeline() {
+        // Each detector comes with the tip it returns when there is nothing to show, which is
+        // used if it misses the deadline.
+        return new BatteryTipDetectorPipeline()
+                .addDetector(input -> new LowBatteryDetector(
+                        input.context, input.policy, input.batteryInfo),
+                        () -> new LowBatteryTip(
+                                BatteryTip.StateType.INVISIBLE, false /* powerSaveModeOn */))
+                .addDetector(input -> new HighUsageDetector(input.context, input.policy,
+                        input.batteryUsageStats, input.batteryInfo),
+                        () -> new HighUsageTip(0 /* lastFullChargeTimeMs */, new ArrayList<>()))
+                .addDetector(input -> new SmartBatteryDetector(input.context, input.policy,
+                        input.batteryInfo, input.context.getContentResolver()),
+                        () -> new SmartBatteryTip(BatteryTip.StateType.INVISIBLE))
+                .addDetector(input -> new EarlyWarningDetector(input.policy, input.context),
+                        () -> new EarlyWarningTip(
+                                BatteryTip.StateType.INVISIBLE, false /* powerSaveModeOn */))
+                .addDetector(input -> new BatteryDefenderDetector(
+                        input.batteryInfo, input.context.getApplicationContext()),
+                        () -> new BatteryDefenderTip(BatteryTip.StateType.INVISIBLE))
+                .addDetector(input -> new DockDefenderDetector(
+                        input.batteryInfo, input.context.getApplicationContext()),
+                        () -> new DockDefenderTip(BatteryTip.StateType.INVISIBLE,
+                                BatteryUtils.DockDefenderMode.DISABLED));
+    }
+
     private List<BatteryTip> getFakeData() {
         final List<BatteryTip> tips = new ArrayList<>();
         tips.add(new SummaryTip(BatteryTip.StateType.NEW,
@@ -344,7 +344,7 @@ public class BatteryHistEntry {
                 (int) Math.round(batteryLevel));
     }
 
-    private static double interpolate(double v1, double v2, double ratio) {
+    static double interpolate(double v1, double v2, double ratio) {
         return v1 + ratio * (v2 - v1);
     }
 }
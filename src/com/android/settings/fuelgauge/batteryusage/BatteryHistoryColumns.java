@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columnar representation of a battery history map, keyed by timestamp and
+ * {@link BatteryHistEntry#getKey()}.
+ *
+ * <p>The history of a week holds one {@link BatteryHistEntry} per app per hour. Keeping it as
+ * nested boxed maps, and allocating a new entry for every interpolated value, produces hundreds of
+ * thousands of objects. This class stores the timestamps in a sorted {@code long[]}, interns the
+ * entry keys once, and keeps the values {@link DataProcessor} computes with in primitive columns.
+ * A cell is addressed by {@code row * getKeyCount() + keyIndex}.
+ *
+ * <p>Every present cell references a {@link BatteryHistEntry} carrying the metadata of the app,
+ * such as its uid and package name. Interpolated cells reference the upper entry they were
+ * interpolated from and only materialize a new entry in {@link #toHistoryMap()}.
+ */
+final class BatteryHistoryColumns {
+
+    private static final byte CELL_ABSENT = 0;
+    private static final byte CELL_COPIED = 1;
+    private static final byte CELL_INTERPOLATED = 2;
+
+    private final String[] mKeys;
+    private final long[] mTimestamps;
+    private final int[] mRowSizes;
+    private final long[] mUpperTimestamps;
+    private final double[] mRatios;
+
+    private final byte[] mCellStates;
+    private final BatteryHistEntry[] mEntries;
+    private final BatteryHistEntry[] mLowerEntries;
+    private final double[] mConsumePower;
+    private final long[] mForegroundUsageTimeInMs;
+    private final long[] mBackgroundUsageTimeInMs;
+    private final int[] mBatteryLevels;
+
+    /**
+     * Creates a table without any present cell.
+     *
+     * @param keys the key table, shared with the table the cells are copied from
+     * @param timestamps the sorted row timestamps
+     */
+    BatteryHistoryColumns(String[] keys, long[] timestamps) {
+        mKeys = keys;
+        mTimestamps = timestamps;
+        final int rowCount = timestamps.length;
+        mRowSizes = new int[rowCount];
+        mUpperTimestamps = new long[rowCount];
+        mRatios = new double[rowCount];
+        final int cellCount = rowCount * keys.length;
+        mCellStates = new byte[cellCount];
+        mEntries = new BatteryHistEntry[cellCount];
+        mLowerEntries = new BatteryHistEntry[cellCount];
+        mConsumePower = new double[cellCount];
+        mForegroundUsageTimeInMs = new long[cellCount];
+        mBackgroundUsageTimeInMs = new long[cellCount];
+        mBatteryLevels = new int[cellCount];
+    }
+
+    /** Converts a history map into columns. A {@code null} row is converted into an empty row. */
+    static BatteryHistoryColumns fromHistoryMap(
+            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
+        final long[] timestamps = new long[batteryHistoryMap.size()];
+        int rowCount = 0;
+        for (Long timestamp : batteryHistoryMap.keySet()) {
+            timestamps[rowCount++] = timestamp;
+        }
+        Arrays.sort(timestamps);
+
+        // Interns the keys in the order an ArraySet iterates them, so that diff entries are
+        // created in the same order as when they were computed from maps.
+        final Set<String> keySet = new ArraySet<>();
+        for (Map<String, BatteryHistEntry> entryMap : batteryHistoryMap.values()) {
+            if (entryMap != null) {
+                keySet.addAll(entryMap.keySet());
+            }
+        }
+        final String[] keys = keySet.toArray(new String[0]);
+        final Map<String, Integer> keyIndexes = new ArrayMap<>(keys.length);
+        for (int index = 0; index < keys.length; index++) {
+            keyIndexes.put(keys[index], index);
+        }
+
+        final BatteryHistoryColumns columns = new BatteryHistoryColumns(keys, timestamps);
+        for (int row = 0; row < timestamps.length; row++) {
+            final Map<String, BatteryHistEntry> entryMap = batteryHistoryMap.get(timestamps[row]);
+            if (entryMap == null) {
+                continue;
+            }
+            for (Map.Entry<String, BatteryHistEntry> entry : entryMap.entrySet()) {
+                columns.setEntry(row, keyIndexes.get(entry.getKey()), entry.getValue());
+            }
+        }
+        return columns;
+    }
+
+    int getRowCount() {
+        return mTimestamps.length;
+    }
+
+    int getKeyCount() {
+        return mKeys.length;
+    }
+
+    String[] getKeys() {
+        return mKeys;
+    }
+
+    long getTimestamp(int row) {
+        return mTimestamps[row];
+    }
+
+    /** Returns the row timestamps, boxed for the helpers computing timestamp slots. */
+    List<Long> getTimestampList() {
+        final List<Long> timestampList = new ArrayList<>(mTimestamps.length);
+        for (long timestamp : mTimestamps) {
+            timestampList.add(timestamp);
+        }
+        return timestampList;
+    }
+
+    /** Returns the row of {@code timestamp}, or -1 if there is no such row. */
+    int indexOfTimestamp(long timestamp) {
+        final int row = Arrays.binarySearch(mTimestamps, timestamp);
+        return row < 0 ? -1 : row;
+    }
+
+    /** Returns the number of present cells in {@code row}. */
+    int getRowSize(int row) {
+        return mRowSizes[row];
+    }
+
+    boolean hasEntry(int row, int keyIndex) {
+        return mCellStates[cell(row, keyIndex)] != CELL_ABSENT;
+    }
+
+    /**
+     * Returns the entry holding the metadata of a present cell, which is the upper entry for an
+     * interpolated cell.
+     */
+    @Nullable
+    BatteryHistEntry getEntry(int row, int keyIndex) {
+        return mEntries[cell(row, keyIndex)];
+    }
+
+    double getConsumePower(int row, int keyIndex) {
+        return mConsumePower[cell(row, keyIndex)];
+    }
+
+    long getForegroundUsageTimeInMs(int row, int keyIndex) {
+        return mForegroundUsageTimeInMs[cell(row, keyIndex)];
+    }
+
+    long getBackgroundUsageTimeInMs(int row, int keyIndex) {
+        return mBackgroundUsageTimeInMs[cell(row, keyIndex)];
+    }
+
+    int getBatteryLevel(int row, int keyIndex) {
+        return mBatteryLevels[cell(row, keyIndex)];
+    }
+
+    /** Sets the cell to the values of {@code entry}. */
+    void setEntry(int row, int keyIndex, BatteryHistEntry entry) {
+        final int cell = cell(row, keyIndex);
+        markPresent(row, cell, CELL_COPIED);
+        mEntries[cell] = entry;
+        mLowerEntries[cell] = null;
+        mConsumePower[cell] = entry.mConsumePower;
+        mForegroundUsageTimeInMs[cell] = entry.mForegroundUsageTimeInMs;
+        mBackgroundUsageTimeInMs[cell] = entry.mBackgroundUsageTimeInMs;
+        mBatteryLevels[cell] = entry.mBatteryLevel;
+    }
+
+    /** Copies all cells of {@code sourceRow}, which must share the key table of this table. */
+    void copyRow(BatteryHistoryColumns source, int sourceRow, int row) {
+        final int keyCount = mKeys.length;
+        final int sourceStart = sourceRow * keyCount;
+        final int start = row * keyCount;
+        System.arraycopy(source.mCellStates, sourceStart, mCellStates, start, keyCount);
+        System.arraycopy(source.mEntries, sourceStart, mEntries, start, keyCount);
+        System.arraycopy(source.mLowerEntries, sourceStart, mLowerEntries, start, keyCount);
+        System.arraycopy(source.mConsumePower, sourceStart, mConsumePower, start, keyCount);
+        System.arraycopy(source.mForegroundUsageTimeInMs, sourceStart,
+                mForegroundUsageTimeInMs, start, keyCount);
+        System.arraycopy(source.mBackgroundUsageTimeInMs, sourceStart,
+                mBackgroundUsageTimeInMs, start, keyCount);
+        System.arraycopy(source.mBatteryLevels, sourceStart, mBatteryLevels, start, keyCount);
+        mRowSizes[row] = source.mRowSizes[sourceRow];
+        mUpperTimestamps[row] = source.mUpperTimestamps[sourceRow];
+        mRatios[row] = source.mRatios[sourceRow];
+    }
+
+    /**
+     * Sets the cell to the values interpolated between {@code lowerEntry} and {@code upperEntry},
+     * with the same arithmetic as {@link BatteryHistEntry#interpolate}.
+     */
+    void setInterpolatedEntry(int row, int keyIndex, long upperTimestamp, double ratio,
+            @Nullable BatteryHistEntry lowerEntry, BatteryHistEntry upperEntry) {
+        final int cell = cell(row, keyIndex);
+        markPresent(row, cell, CELL_INTERPOLATED);
+        mUpperTimestamps[row] = upperTimestamp;
+        mRatios[row] = ratio;
+        mEntries[cell] = upperEntry;
+        mLowerEntries[cell] = lowerEntry;
+        mConsumePower[cell] = BatteryHistEntry.interpolate(
+                lowerEntry == null ? 0 : lowerEntry.mConsumePower,
+                upperEntry.mConsumePower,
+                ratio);
+        mForegroundUsageTimeInMs[cell] = Math.round(BatteryHistEntry.interpolate(
+                lowerEntry == null ? 0 : lowerEntry.mForegroundUsageTimeInMs,
+                upperEntry.mForegroundUsageTimeInMs,
+                ratio));
+        mBackgroundUsageTimeInMs[cell] = Math.round(BatteryHistEntry.interpolate(
+                lowerEntry == null ? 0 : lowerEntry.mBackgroundUsageTimeInMs,
+                upperEntry.mBackgroundUsageTimeInMs,
+                ratio));
+        mBatteryLevels[cell] = lowerEntry == null
+                ? upperEntry.mBatteryLevel
+                : (int) Math.round(BatteryHistEntry.interpolate(
+                        lowerEntry.mBatteryLevel, upperEntry.mBatteryLevel, ratio));
+    }
+
+    /** Converts the columns back into a history map, materializing interpolated entries. */
+    Map<Long, Map<String, BatteryHistEntry>> toHistoryMap() {
+        final Map<Long, Map<String, BatteryHistEntry>> historyMap = new HashMap<>();
+        final int keyCount = mKeys.length;
+        for (int row = 0; row < mTimestamps.length; row++) {
+            final Map<String, BatteryHistEntry> entryMap = new HashMap<>();
+            for (int keyIndex = 0; keyIndex < keyCount; keyIndex++) {
+                final int cell = cell(row, keyIndex);
+                switch (mCellStates[cell]) {
+                    case CELL_COPIED:
+                        entryMap.put(mKeys[keyIndex], mEntries[cell]);
+                        break;
+                    case CELL_INTERPOLATED:
+                        entryMap.put(mKeys[keyIndex], BatteryHistEntry.interpolate(
+                                mTimestamps[row], mUpperTimestamps[row], mRatios[row],
+                                mLowerEntries[cell], mEntries[cell]));
+                        break;
+                }
+            }
+            historyMap.put(mTimestamps[row], entryMap);
+        }
+        return historyMap;
+    }
+
+    private void markPresent(int row, int cell, byte state) {
+        if (mCellStates[cell] == CELL_ABSENT) {
+            mRowSizes[row]++;
+        }
+        mCellStates[cell] = state;
+    }
+
+    private int cell(int row, int keyIndex) {
+        return row * mKeys.length + keyIndex;
+    }
+}
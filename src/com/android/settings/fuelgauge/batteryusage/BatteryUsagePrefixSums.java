@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prefix sums of the per-slot usage diffs computed by {@link DataProcessor}, indexed by the key
+ * table of a {@link BatteryHistoryColumns}.
+ *
+ * <p>Slots are appended in chronological order and each usage is folded into the running sums
+ * as it is added, so the usage of any slot range {@code [startSlot, endSlot)} is answered per key
+ * in constant time instead of merging the diff entries of every slot in the range. The daily and
+ * the all-time usage are such ranges.
+ *
+ * <p>Besides the keys of the history, there is one column for the usage of other users, which
+ * is aggregated into a single entry per slot.
+ */
+final class BatteryUsagePrefixSums {
+
+    private final int mKeyCount;
+    private final int mColumnCount;
+    private int mSlotCount;
+
+    // Row i holds the sums of slots [0, i), row 0 is all zeros.
+    private long[] mForegroundUsageTimeInMs;
+    private long[] mBackgroundUsageTimeInMs;
+    private double[] mConsumePower;
+    private int[] mUsageCounts;
+    // The entries of every slot with usage per key, in slot order. The n-th usage of a key is
+    // the first one of a range starting after n usages.
+    private final List<List<BatteryHistEntry>> mEntries;
+
+    /**
+     * @param keyCount the size of the key table
+     * @param expectedSlotCount the number of slots to allocate for, more can be appended
+     */
+    BatteryUsagePrefixSums(int keyCount, int expectedSlotCount) {
+        mKeyCount = keyCount;
+        mColumnCount = keyCount + 1;
+        final int size = (Math.max(expectedSlotCount, 0) + 1) * mColumnCount;
+        mForegroundUsageTimeInMs = new long[size];
+        mBackgroundUsageTimeInMs = new long[size];
+        mConsumePower = new double[size];
+        mUsageCounts = new int[size];
+        mEntries = new ArrayList<>(keyCount);
+        for (int keyIndex = 0; keyIndex < keyCount; keyIndex++) {
+            mEntries.add(new ArrayList<>());
+        }
+    }
+
+    int getKeyCount() {
+        return mKeyCount;
+    }
+
+    int getSlotCount() {
+        return mSlotCount;
+    }
+
+    /** Appends an empty slot, which the following {@code add} calls contribute to. */
+    void appendSlot() {
+        final int requiredSize = (mSlotCount + 2) * mColumnCount;
+        if (requiredSize > mConsumePower.length) {
+            final int newSize = Math.max(requiredSize, mConsumePower.length * 2);
+            mForegroundUsageTimeInMs = Arrays.copyOf(mForegroundUsageTimeInMs, newSize);
+            mBackgroundUsageTimeInMs = Arrays.copyOf(mBackgroundUsageTimeInMs, newSize);
+            mConsumePower = Arrays.copyOf(mConsumePower, newSize);
+            mUsageCounts = Arrays.copyOf(mUsageCounts, newSize);
+        }
+        final int from = mSlotCount * mColumnCount;
+        final int to = from + mColumnCount;
+        System.arraycopy(mForegroundUsageTimeInMs, from, mForegroundUsageTimeInMs, to,
+                mColumnCount);
+        System.arraycopy(mBackgroundUsageTimeInMs, from, mBackgroundUsageTimeInMs, to,
+                mColumnCount);
+        System.arraycopy(mConsumePower, from, mConsumePower, to, mColumnCount);
+        System.arraycopy(mUsageCounts, from, mUsageCounts, to, mColumnCount);
+        mSlotCount++;
+    }
+
+    /** Adds the usage of a key in the last appended slot, at most once per key and slot. */
+    void addUsage(int keyIndex, long foregroundUsageTimeInMs, long backgroundUsageTimeInMs,
+            double consumePower, BatteryHistEntry entry) {
+        final int index = lastRow() + keyIndex;
+        mForegroundUsageTimeInMs[index] += foregroundUsageTimeInMs;
+        mBackgroundUsageTimeInMs[index] += backgroundUsageTimeInMs;
+        mConsumePower[index] += consumePower;
+        mUsageCounts[index]++;
+        mEntries.get(keyIndex).add(entry);
+    }
+
+    /** Adds the power consumed by other users in the last appended slot. */
+    void addOtherUsersConsumePower(double consumePower) {
+        final int index = lastRow() + mKeyCount;
+        mConsumePower[index] += consumePower;
+        mUsageCounts[index]++;
+    }
+
+    /** Returns whether the key has any usage in {@code [startSlot, endSlot)}. */
+    boolean hasUsage(int startSlot, int endSlot, int keyIndex) {
+        return getUsageCount(startSlot, endSlot, keyIndex) > 0;
+    }
+
+    long getForegroundUsageTimeInMs(int startSlot, int endSlot, int keyIndex) {
+        return mForegroundUsageTimeInMs[index(endSlot, keyIndex)]
+                - mForegroundUsageTimeInMs[index(startSlot, keyIndex)];
+    }
+
+    long getBackgroundUsageTimeInMs(int startSlot, int endSlot, int keyIndex) {
+        return mBackgroundUsageTimeInMs[index(endSlot, keyIndex)]
+                - mBackgroundUsageTimeInMs[index(startSlot, keyIndex)];
+    }
+
+    double getConsumePower(int startSlot, int endSlot, int keyIndex) {
+        return mConsumePower[index(endSlot, keyIndex)]
+                - mConsumePower[index(startSlot, keyIndex)];
+    }
+
+    /** Returns the entry of the first slot in {@code [startSlot, endSlot)} using the key. */
+    @Nullable
+    BatteryHistEntry getFirstEntry(int startSlot, int endSlot, int keyIndex) {
+        return hasUsage(startSlot, endSlot, keyIndex)
+                ? mEntries.get(keyIndex).get(mUsageCounts[index(startSlot, keyIndex)])
+                : null;
+    }
+
+    boolean hasOtherUsersUsage(int startSlot, int endSlot) {
+        return getUsageCount(startSlot, endSlot, mKeyCount) > 0;
+    }
+
+    double getOtherUsersConsumePower(int startSlot, int endSlot) {
+        return getConsumePower(startSlot, endSlot, mKeyCount);
+    }
+
+    private int getUsageCount(int startSlot, int endSlot, int column) {
+        return mUsageCounts[index(endSlot, column)] - mUsageCounts[index(startSlot, column)];
+    }
+
+    private int lastRow() {
+        if (mSlotCount == 0) {
+            throw new IllegalStateException("no slot appended");
+        }
+        return mSlotCount * mColumnCount;
+    }
+
+    private int index(int slot, int column) {
+        if (slot < 0 || slot > mSlotCount) {
+            throw new IndexOutOfBoundsException("slot " + slot + " of " + mSlotCount);
+        }
+        return slot * mColumnCount + column;
+    }
+}
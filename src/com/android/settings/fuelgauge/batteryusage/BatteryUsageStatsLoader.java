@@ -17,43 +17,52 @@
 package com.android.settings.fuelgauge.batteryusage;
 
 import android.content.Context;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
-import android.os.BatteryUsageStatsQuery;
-import android.util.Log;
+import android.util.ArraySet;
 
+import com.android.settings.fuelgauge.BatteryUsageStatsCache;
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
+import java.util.Set;
+
 /**
- * Loader to get new {@link BatteryUsageStats} in the background
+ * Loader to get new {@link BatteryUsageStats} in the background. The result is shared through
+ * {@link BatteryUsageStatsCache} and must be released to it instead of being closed. Results
+ * delivered to the callbacks are released by them, the loader releases the ones it drops without
+ * delivering.
  */
 public class BatteryUsageStatsLoader extends AsyncLoaderCompat<BatteryUsageStats> {
     private static final String TAG = "BatteryUsageStatsLoader";
-    private final BatteryStatsManager mBatteryStatsManager;
+    private final Context mContext;
     private final boolean mIncludeBatteryHistory;
+    // Only accessed on the main thread.
+    private final Set<BatteryUsageStats> mDeliveredResults = new ArraySet<>();
 
     public BatteryUsageStatsLoader(Context context, boolean includeBatteryHistory) {
         super(context);
-        mBatteryStatsManager = context.getSystemService(BatteryStatsManager.class);
+        mContext = context;
         mIncludeBatteryHistory = includeBatteryHistory;
     }
 
     @Override
     public BatteryUsageStats loadInBackground() {
-        final BatteryUsageStatsQuery.Builder builder = new BatteryUsageStatsQuery.Builder();
-        if (mIncludeBatteryHistory) {
-            builder.includeBatteryHistory();
-        }
-        try {
-            return mBatteryStatsManager.getBatteryUsageStats(builder.build());
-        } catch (RuntimeException e) {
-            Log.e(TAG, "loadInBackground() for getBatteryUsageStats()", e);
-            // Use default BatteryUsageStats.
-            return new BatteryUsageStats.Builder(new String[0]).build();
+        return BatteryUsageStatsCache.getInstance().get(mContext, mIncludeBatteryHistory);
+    }
+
+    @Override
+    public void deliverResult(BatteryUsageStats data) {
+        if (data != null && isStarted()) {
+            mDeliveredResults.add(data);
         }
+        super.deliverResult(data);
     }
 
     @Override
     protected void onDiscardResult(BatteryUsageStats result) {
+        if (mDeliveredResults.remove(result)) {
+            // Owned by the callbacks now.
+            return;
+        }
+        BatteryUsageStatsCache.getInstance().release(result);
     }
 }
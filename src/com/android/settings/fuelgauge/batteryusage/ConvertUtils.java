@@ -24,7 +24,6 @@ import android.os.UserHandle;
 import android.os.UserManager;
 import android.text.format.DateFormat;
 import android.text.format.DateUtils;
-import android.util.ArraySet;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -49,9 +48,6 @@ import java.util.TimeZone;
 public final class ConvertUtils {
     private static final boolean DEBUG = false;
     private static final String TAG = "ConvertUtils";
-    private static final Map<String, BatteryHistEntry> EMPTY_BATTERY_MAP = new HashMap<>();
-    private static final BatteryHistEntry EMPTY_BATTERY_HIST_ENTRY =
-            new BatteryHistEntry(new ContentValues());
     // Maximum total time value for each slot cumulative data at most 2 hours.
     private static final float TOTAL_TIME_THRESHOLD = DateUtils.HOUR_IN_MILLIS * 2;
 
@@ -178,6 +174,21 @@ public final class ConvertUtils {
         if (batteryHistoryMap == null || batteryHistoryMap.isEmpty()) {
             return new HashMap<>();
         }
+        return getIndexedUsageMap(context, timeSlotSize, batteryHistoryKeys,
+                BatteryHistoryColumns.fromHistoryMap(batteryHistoryMap),
+                purgeLowPercentageAndFakeData);
+    }
+
+    /** Columnar variant of {@link #getIndexedUsageMap(Context, int, long[], Map, boolean)}. */
+    static Map<Integer, List<BatteryDiffEntry>> getIndexedUsageMap(
+            final Context context,
+            final int timeSlotSize,
+            final long[] batteryHistoryKeys,
+            final BatteryHistoryColumns batteryHistory,
+            final boolean purgeLowPercentageAndFakeData) {
+        if (batteryHistory.getRowCount() == 0) {
+            return new HashMap<>();
+        }
         final Map<Integer, List<BatteryDiffEntry>> resultMap = new HashMap<>();
         // Each time slot usage diff data =
         //     Math.abs(timestamp[i+2] data - timestamp[i+1] data) +
@@ -185,75 +196,62 @@ public final class ConvertUtils {
         // since we want to aggregate every two hours data into a single time slot.
         final int timestampStride = 2;
         for (int index = 0; index < timeSlotSize; index++) {
-            final Long currentTimestamp =
-                    Long.valueOf(batteryHistoryKeys[index * timestampStride]);
-            final Long nextTimestamp =
-                    Long.valueOf(batteryHistoryKeys[index * timestampStride + 1]);
-            final Long nextTwoTimestamp =
-                    Long.valueOf(batteryHistoryKeys[index * timestampStride + 2]);
             // Fetches BatteryHistEntry data from corresponding time slot.
-            final Map<String, BatteryHistEntry> currentBatteryHistMap =
-                    batteryHistoryMap.getOrDefault(currentTimestamp, EMPTY_BATTERY_MAP);
-            final Map<String, BatteryHistEntry> nextBatteryHistMap =
-                    batteryHistoryMap.getOrDefault(nextTimestamp, EMPTY_BATTERY_MAP);
-            final Map<String, BatteryHistEntry> nextTwoBatteryHistMap =
-                    batteryHistoryMap.getOrDefault(nextTwoTimestamp, EMPTY_BATTERY_MAP);
+            final int currentRow = batteryHistory.indexOfTimestamp(
+                    batteryHistoryKeys[index * timestampStride]);
+            final int nextRow = batteryHistory.indexOfTimestamp(
+                    batteryHistoryKeys[index * timestampStride + 1]);
+            final int nextTwoRow = batteryHistory.indexOfTimestamp(
+                    batteryHistoryKeys[index * timestampStride + 2]);
             // We should not get the empty list since we have at least one fake data to record
             // the battery level and status in each time slot, the empty list is used to
             // represent there is no enough data to apply interpolation arithmetic.
-            if (currentBatteryHistMap.isEmpty()
-                    || nextBatteryHistMap.isEmpty()
-                    || nextTwoBatteryHistMap.isEmpty()) {
+            if (currentRow < 0 || batteryHistory.getRowSize(currentRow) == 0
+                    || nextRow < 0 || batteryHistory.getRowSize(nextRow) == 0
+                    || nextTwoRow < 0 || batteryHistory.getRowSize(nextTwoRow) == 0) {
                 resultMap.put(Integer.valueOf(index), new ArrayList<BatteryDiffEntry>());
                 continue;
             }
 
-            // Collects all keys in these three time slot records as all populations.
-            final Set<String> allBatteryHistEntryKeys = new ArraySet<>();
-            allBatteryHistEntryKeys.addAll(currentBatteryHistMap.keySet());
-            allBatteryHistEntryKeys.addAll(nextBatteryHistMap.keySet());
-            allBatteryHistEntryKeys.addAll(nextTwoBatteryHistMap.keySet());
-
             double totalConsumePower = 0.0;
             final List<BatteryDiffEntry> batteryDiffEntryList = new ArrayList<>();
             // Adds a specific time slot BatteryDiffEntry list into result map.
             resultMap.put(Integer.valueOf(index), batteryDiffEntryList);
 
-            // Calculates all packages diff usage data in a specific time slot.
-            for (String key : allBatteryHistEntryKeys) {
-                final BatteryHistEntry currentEntry =
-                        currentBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
-                final BatteryHistEntry nextEntry =
-                        nextBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
-                final BatteryHistEntry nextTwoEntry =
-                        nextTwoBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
+            // Calculates all packages diff usage data in a specific time slot. Keys missing in
+            // all three time slot records are skipped, missing values count as zero.
+            for (int keyIndex = 0; keyIndex < batteryHistory.getKeyCount(); keyIndex++) {
+                final boolean hasCurrentEntry = batteryHistory.hasEntry(currentRow, keyIndex);
+                final boolean hasNextEntry = batteryHistory.hasEntry(nextRow, keyIndex);
+                final boolean hasNextTwoEntry = batteryHistory.hasEntry(nextTwoRow, keyIndex);
+                if (!hasCurrentEntry && !hasNextEntry && !hasNextTwoEntry) {
+                    continue;
+                }
                 // Cumulative values is a specific time slot for a specific app.
                 long foregroundUsageTimeInMs =
                         getDiffValue(
-                                currentEntry.mForegroundUsageTimeInMs,
-                                nextEntry.mForegroundUsageTimeInMs,
-                                nextTwoEntry.mForegroundUsageTimeInMs);
+                                batteryHistory.getForegroundUsageTimeInMs(currentRow, keyIndex),
+                                batteryHistory.getForegroundUsageTimeInMs(nextRow, keyIndex),
+                                batteryHistory.getForegroundUsageTimeInMs(nextTwoRow, keyIndex));
                 long backgroundUsageTimeInMs =
                         getDiffValue(
-                                currentEntry.mBackgroundUsageTimeInMs,
-                                nextEntry.mBackgroundUsageTimeInMs,
-                                nextTwoEntry.mBackgroundUsageTimeInMs);
+                                batteryHistory.getBackgroundUsageTimeInMs(currentRow, keyIndex),
+                                batteryHistory.getBackgroundUsageTimeInMs(nextRow, keyIndex),
+                                batteryHistory.getBackgroundUsageTimeInMs(nextTwoRow, keyIndex));
                 double consumePower =
                         getDiffValue(
-                                currentEntry.mConsumePower,
-                                nextEntry.mConsumePower,
-                                nextTwoEntry.mConsumePower);
+                                batteryHistory.getConsumePower(currentRow, keyIndex),
+                                batteryHistory.getConsumePower(nextRow, keyIndex),
+                                batteryHistory.getConsumePower(nextTwoRow, keyIndex));
                 // Excludes entry since we don't have enough data to calculate.
                 if (foregroundUsageTimeInMs == 0
                         && backgroundUsageTimeInMs == 0
                         && consumePower == 0) {
                     continue;
                 }
-                final BatteryHistEntry selectedBatteryEntry =
-                        selectBatteryHistEntry(currentEntry, nextEntry, nextTwoEntry);
-                if (selectedBatteryEntry == null) {
-                    continue;
-                }
+                final BatteryHistEntry selectedBatteryEntry = batteryHistory.getEntry(
+                        hasCurrentEntry ? currentRow : hasNextEntry ? nextRow : nextTwoRow,
+                        keyIndex);
                 // Forces refine the cumulative value since it may introduce deviation
                 // error since we will apply the interpolation arithmetic.
                 final float totalUsageTimeInMs =
@@ -264,7 +262,7 @@ public final class ConvertUtils {
                         Log.w(TAG, String.format("abnormal usage time %d|%d for:\n%s",
                                 Duration.ofMillis(foregroundUsageTimeInMs).getSeconds(),
                                 Duration.ofMillis(backgroundUsageTimeInMs).getSeconds(),
-                                currentEntry));
+                                selectedBatteryEntry));
                     }
                     foregroundUsageTimeInMs =
                             Math.round(foregroundUsageTimeInMs * ratio);
@@ -397,20 +395,6 @@ public final class ConvertUtils {
         return (v2 > v1 ? v2 - v1 : 0) + (v3 > v2 ? v3 - v2 : 0);
     }
 
-    private static BatteryHistEntry selectBatteryHistEntry(
-            BatteryHistEntry entry1,
-            BatteryHistEntry entry2,
-            BatteryHistEntry entry3) {
-        if (entry1 != null && entry1 != EMPTY_BATTERY_HIST_ENTRY) {
-            return entry1;
-        } else if (entry2 != null && entry2 != EMPTY_BATTERY_HIST_ENTRY) {
-            return entry2;
-        } else {
-            return entry3 != null && entry3 != EMPTY_BATTERY_HIST_ENTRY
-                    ? entry3 : null;
-        }
-    }
-
     @VisibleForTesting
     static Locale getLocale(Context context) {
         if (context == null) {
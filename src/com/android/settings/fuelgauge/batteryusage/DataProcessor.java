@@ -22,22 +22,20 @@ import android.app.settings.SettingsEnums;
 import android.content.ContentValues;
 import android.content.Context;
 import android.os.AsyncTask;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
-import android.os.BatteryUsageStatsQuery;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.UserHandle;
 import android.os.UserManager;
 import android.text.TextUtils;
 import android.text.format.DateUtils;
-import android.util.ArraySet;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 
 import com.android.internal.annotations.VisibleForTesting;
 import com.android.settings.Utils;
+import com.android.settings.fuelgauge.BatteryUsageStatsCache;
 import com.android.settings.fuelgauge.BatteryUtils;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
@@ -47,7 +45,6 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -68,9 +65,6 @@ public final class DataProcessor {
     // Maximum total time value for each hourly slot cumulative data at most 2 hours.
     private static final float TOTAL_HOURLY_TIME_THRESHOLD = DateUtils.HOUR_IN_MILLIS * 2;
     private static final long MIN_TIME_SLOT = DateUtils.HOUR_IN_MILLIS * 2;
-    private static final Map<String, BatteryHistEntry> EMPTY_BATTERY_MAP = new HashMap<>();
-    private static final BatteryHistEntry EMPTY_BATTERY_HIST_ENTRY =
-            new BatteryHistEntry(new ContentValues());
 
     @VisibleForTesting
     static final double PERCENTAGE_OF_TOTAL_THRESHOLD = 1f;
@@ -109,11 +103,12 @@ public final class DataProcessor {
         }
         handler = handler != null ? handler : new Handler(Looper.getMainLooper());
         // Process raw history map data into hourly timestamps.
-        final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap =
-                getHistoryMapWithExpectedTimestamps(context, batteryHistoryMap);
-        // Wrap and processed history map into easy-to-use format for UI rendering.
+        final BatteryHistoryColumns processedBatteryHistory =
+                getHistoryColumnsWithExpectedTimestamps(
+                        context, BatteryHistoryColumns.fromHistoryMap(batteryHistoryMap));
+        // Wrap and processed history data into easy-to-use format for UI rendering.
         final BatteryLevelData batteryLevelData =
-                getLevelDataThroughProcessedHistoryMap(context, processedBatteryHistoryMap);
+                getLevelDataThroughProcessedHistory(context, processedBatteryHistory);
         if (batteryLevelData == null) {
             loadBatteryUsageDataFromBatteryStatsService(
                     context, handler, asyncResponseDelegate);
@@ -127,7 +122,7 @@ public final class DataProcessor {
                 handler,
                 asyncResponseDelegate,
                 batteryLevelData.getHourlyBatteryLevelsPerDay(),
-                processedBatteryHistoryMap).execute();
+                processedBatteryHistory).execute();
 
         return batteryLevelData;
     }
@@ -145,17 +140,18 @@ public final class DataProcessor {
             return null;
         }
         // Process raw history map data into hourly timestamps.
-        final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap =
-                getHistoryMapWithExpectedTimestamps(context, batteryHistoryMap);
-        // Wrap and processed history map into easy-to-use format for UI rendering.
+        final BatteryHistoryColumns processedBatteryHistory =
+                getHistoryColumnsWithExpectedTimestamps(
+                        context, BatteryHistoryColumns.fromHistoryMap(batteryHistoryMap));
+        // Wrap and processed history data into easy-to-use format for UI rendering.
         final BatteryLevelData batteryLevelData =
-                getLevelDataThroughProcessedHistoryMap(context, processedBatteryHistoryMap);
+                getLevelDataThroughProcessedHistory(context, processedBatteryHistory);
         return batteryLevelData == null
                 ? null
                 : getBatteryUsageMap(
                         context,
                         batteryLevelData.getHourlyBatteryLevelsPerDay(),
-                        processedBatteryHistoryMap);
+                        processedBatteryHistory);
     }
 
     /**
@@ -182,23 +178,37 @@ public final class DataProcessor {
     static Map<Long, Map<String, BatteryHistEntry>> getHistoryMapWithExpectedTimestamps(
             Context context,
             final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
+        return getHistoryColumnsWithExpectedTimestamps(
+                context, BatteryHistoryColumns.fromHistoryMap(batteryHistoryMap)).toHistoryMap();
+    }
+
+    /**
+     * Columnar variant of {@link #getHistoryMapWithExpectedTimestamps}. The returned columns
+     * share the key table of {@code batteryHistory}.
+     */
+    @VisibleForTesting
+    static BatteryHistoryColumns getHistoryColumnsWithExpectedTimestamps(
+            Context context, final BatteryHistoryColumns batteryHistory) {
         final long startTime = System.currentTimeMillis();
-        final List<Long> rawTimestampList = new ArrayList<>(batteryHistoryMap.keySet());
-        final Map<Long, Map<String, BatteryHistEntry>> resultMap = new HashMap();
-        if (rawTimestampList.isEmpty()) {
+        if (batteryHistory.getRowCount() == 0) {
             Log.d(TAG, "empty batteryHistoryMap in getHistoryMapWithExpectedTimestamps()");
-            return resultMap;
+            return batteryHistory;
         }
-        Collections.sort(rawTimestampList);
+        final List<Long> rawTimestampList = batteryHistory.getTimestampList();
         final List<Long> expectedTimestampList = getTimestampSlots(rawTimestampList);
-        final boolean isFromFullCharge =
-                isFromFullCharge(batteryHistoryMap.get(rawTimestampList.get(0)));
+        final long[] expectedTimestamps = new long[expectedTimestampList.size()];
+        for (int index = 0; index < expectedTimestamps.length; index++) {
+            expectedTimestamps[index] = expectedTimestampList.get(index);
+        }
+        final BatteryHistoryColumns result =
+                new BatteryHistoryColumns(batteryHistory.getKeys(), expectedTimestamps);
+        final boolean isFromFullCharge = isFromFullCharge(batteryHistory, /*row=*/ 0);
         interpolateHistory(
                 context, rawTimestampList, expectedTimestampList, isFromFullCharge,
-                batteryHistoryMap, resultMap);
+                batteryHistory, result);
         Log.d(TAG, String.format("getHistoryMapWithExpectedTimestamps() size=%d in %d/ms",
-                resultMap.size(), (System.currentTimeMillis() - startTime)));
-        return resultMap;
+                result.getRowCount(), (System.currentTimeMillis() - startTime)));
+        return result;
     }
 
     @VisibleForTesting
@@ -206,8 +216,14 @@ public final class DataProcessor {
     static BatteryLevelData getLevelDataThroughProcessedHistoryMap(
             Context context,
             final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap) {
-        final List<Long> timestampList = new ArrayList<>(processedBatteryHistoryMap.keySet());
-        Collections.sort(timestampList);
+        return getLevelDataThroughProcessedHistory(
+                context, BatteryHistoryColumns.fromHistoryMap(processedBatteryHistoryMap));
+    }
+
+    @Nullable
+    private static BatteryLevelData getLevelDataThroughProcessedHistory(
+            Context context, final BatteryHistoryColumns processedBatteryHistory) {
+        final List<Long> timestampList = processedBatteryHistory.getTimestampList();
         final List<Long> dailyTimestamps = getDailyTimestamps(timestampList);
         // There should be at least the start and end timestamps. Otherwise, return null to not show
         // data in usage chart.
@@ -217,10 +233,10 @@ public final class DataProcessor {
 
         final List<List<Long>> hourlyTimestamps = getHourlyTimestamps(dailyTimestamps);
         final BatteryLevelData.PeriodBatteryLevelData dailyLevelData =
-                getPeriodBatteryLevelData(context, processedBatteryHistoryMap, dailyTimestamps);
+                getPeriodBatteryLevelData(context, processedBatteryHistory, dailyTimestamps);
         final List<BatteryLevelData.PeriodBatteryLevelData> hourlyLevelData =
                 getHourlyPeriodBatteryLevelData(
-                        context, processedBatteryHistoryMap, hourlyTimestamps);
+                        context, processedBatteryHistory, hourlyTimestamps);
         return new BatteryLevelData(dailyLevelData, hourlyLevelData);
     }
 
@@ -316,6 +332,28 @@ public final class DataProcessor {
         return BatteryStatus.isCharged(firstHistEntry.mBatteryStatus, firstHistEntry.mBatteryLevel);
     }
 
+    private static boolean isFromFullCharge(final BatteryHistoryColumns history, final int row) {
+        if (history.getRowSize(row) == 0) {
+            Log.d(TAG, "empty entryList in isFromFullCharge()");
+            return false;
+        }
+        // The hist entries in the same timestamp should have same battery status and level.
+        // Checking the first one should be enough.
+        final BatteryHistEntry firstHistEntry = getFirstEntry(history, row);
+        return BatteryStatus.isCharged(firstHistEntry.mBatteryStatus, firstHistEntry.mBatteryLevel);
+    }
+
+    @Nullable
+    private static BatteryHistEntry getFirstEntry(
+            final BatteryHistoryColumns history, final int row) {
+        for (int keyIndex = 0; keyIndex < history.getKeyCount(); keyIndex++) {
+            if (history.hasEntry(row, keyIndex)) {
+                return history.getEntry(row, keyIndex);
+            }
+        }
+        return null;
+    }
+
     @VisibleForTesting
     static long[] findNearestTimestamp(final List<Long> timestamps, final long target) {
         final long[] results = new long[] {Long.MIN_VALUE, Long.MAX_VALUE};
@@ -374,17 +412,26 @@ public final class DataProcessor {
             final Context context,
             final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
             final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
-        if (batteryHistoryMap.isEmpty()) {
+        return getBatteryUsageMap(context, hourlyBatteryLevelsPerDay,
+                BatteryHistoryColumns.fromHistoryMap(batteryHistoryMap));
+    }
+
+    @Nullable
+    private static Map<Integer, Map<Integer, BatteryDiffData>> getBatteryUsageMap(
+            final Context context,
+            final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
+            final BatteryHistoryColumns batteryHistory) {
+        if (batteryHistory.getRowCount() == 0) {
             return null;
         }
         final Map<Integer, Map<Integer, BatteryDiffData>> resultMap = new HashMap<>();
         // Insert diff data from [0][0] to [maxDailyIndex][maxHourlyIndex].
-        insertHourlyUsageDiffData(
-                context, hourlyBatteryLevelsPerDay, batteryHistoryMap, resultMap);
+        final BatteryUsagePrefixSums usagePrefixSums = insertHourlyUsageDiffData(
+                context, hourlyBatteryLevelsPerDay, batteryHistory, resultMap);
         // Insert diff data from [0][SELECTED_INDEX_ALL] to [maxDailyIndex][SELECTED_INDEX_ALL].
-        insertDailyUsageDiffData(hourlyBatteryLevelsPerDay, resultMap);
+        insertDailyUsageDiffData(context, hourlyBatteryLevelsPerDay, usagePrefixSums, resultMap);
         // Insert diff data [SELECTED_INDEX_ALL][SELECTED_INDEX_ALL].
-        insertAllUsageDiffData(resultMap);
+        insertAllUsageDiffData(context, usagePrefixSums, resultMap);
         // Compute the apps number before purge. Must put before purgeLowPercentageAndFakeData.
         final int countOfAppBeforePurge = getCountOfApps(resultMap);
         purgeLowPercentageAndFakeData(context, resultMap);
@@ -495,12 +542,10 @@ public final class DataProcessor {
     private static BatteryDiffData getBatteryDiffDataFromBatteryStatsService(
             final Context context) {
         BatteryDiffData batteryDiffData = null;
+        BatteryUsageStats batteryUsageStats = null;
         try {
-            final BatteryUsageStatsQuery batteryUsageStatsQuery =
-                    new BatteryUsageStatsQuery.Builder().includeBatteryHistory().build();
-            final BatteryUsageStats batteryUsageStats =
-                    context.getSystemService(BatteryStatsManager.class)
-                            .getBatteryUsageStats(batteryUsageStatsQuery);
+            batteryUsageStats = BatteryUsageStatsCache.getInstance()
+                    .get(context, /* includeBatteryHistory */ true);
 
             if (batteryUsageStats == null) {
                 Log.w(TAG, "batteryUsageStats is null content");
@@ -512,6 +557,8 @@ public final class DataProcessor {
             batteryDiffData = generateBatteryDiffData(context, batteryEntryList, batteryUsageStats);
         } catch (RuntimeException e) {
             Log.e(TAG, "load batteryUsageStats:" + e);
+        } finally {
+            BatteryUsageStatsCache.getInstance().release(batteryUsageStats);
         }
 
         return batteryDiffData;
@@ -562,8 +609,8 @@ public final class DataProcessor {
             final List<Long> rawTimestampList,
             final List<Long> expectedTimestampSlots,
             final boolean isFromFullCharge,
-            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
-            final Map<Long, Map<String, BatteryHistEntry>> resultMap) {
+            final BatteryHistoryColumns batteryHistory,
+            final BatteryHistoryColumns result) {
         if (rawTimestampList.isEmpty() || expectedTimestampSlots.isEmpty()) {
             return;
         }
@@ -576,14 +623,14 @@ public final class DataProcessor {
         // more than 1 hour.
         if (isFromFullCharge || expectedStartTimestamp < rawStartTimestamp) {
             startIndex = 1;
-            resultMap.put(expectedStartTimestamp, batteryHistoryMap.get(rawStartTimestamp));
+            result.copyRow(batteryHistory, /*sourceRow=*/ 0, /*row=*/ 0);
         }
         final int expectedTimestampSlotsSize = expectedTimestampSlots.size();
         for (int index = startIndex; index < expectedTimestampSlotsSize; index++) {
             final long currentSlot = expectedTimestampSlots.get(index);
             final boolean isStartOrEnd = index == 0 || index == expectedTimestampSlotsSize - 1;
             interpolateHistoryForSlot(
-                    context, currentSlot, rawTimestampList, batteryHistoryMap, resultMap,
+                    context, currentSlot, index, rawTimestampList, batteryHistory, result,
                     isStartOrEnd);
         }
     }
@@ -591,9 +638,10 @@ public final class DataProcessor {
     private static void interpolateHistoryForSlot(
             Context context,
             final long currentSlot,
+            final int slotRow,
             final List<Long> rawTimestampList,
-            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
-            final Map<Long, Map<String, BatteryHistEntry>> resultMap,
+            final BatteryHistoryColumns batteryHistory,
+            final BatteryHistoryColumns result,
             final boolean isStartOrEnd) {
         final long[] nearestTimestamps = findNearestTimestamp(rawTimestampList, currentSlot);
         final long lowerTimestamp = nearestTimestamps[0];
@@ -601,42 +649,39 @@ public final class DataProcessor {
         // Case 1: upper timestamp is zero since scheduler is delayed!
         if (upperTimestamp == 0) {
             log(context, "job scheduler is delayed", currentSlot, null);
-            resultMap.put(currentSlot, new HashMap<>());
             return;
         }
         // Case 2: upper timestamp is closed to the current timestamp.
         if ((upperTimestamp - currentSlot)
                 < MAX_DIFF_SECONDS_OF_UPPER_TIMESTAMP * DateUtils.SECOND_IN_MILLIS) {
             log(context, "force align into the nearest slot", currentSlot, null);
-            resultMap.put(currentSlot, batteryHistoryMap.get(upperTimestamp));
+            result.copyRow(
+                    batteryHistory, batteryHistory.indexOfTimestamp(upperTimestamp), slotRow);
             return;
         }
         // Case 3: lower timestamp is zero before starting to collect data.
         if (lowerTimestamp == 0) {
             log(context, "no lower timestamp slot data", currentSlot, null);
-            resultMap.put(currentSlot, new HashMap<>());
             return;
         }
         interpolateHistoryForSlot(context,
-                currentSlot, lowerTimestamp, upperTimestamp, batteryHistoryMap, resultMap,
+                currentSlot, slotRow, lowerTimestamp, upperTimestamp, batteryHistory, result,
                 isStartOrEnd);
     }
 
     private static void interpolateHistoryForSlot(
             Context context,
             final long currentSlot,
+            final int slotRow,
             final long lowerTimestamp,
             final long upperTimestamp,
-            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
-            final Map<Long, Map<String, BatteryHistEntry>> resultMap,
+            final BatteryHistoryColumns batteryHistory,
+            final BatteryHistoryColumns result,
             final boolean isStartOrEnd) {
-        final Map<String, BatteryHistEntry> lowerEntryDataMap =
-                batteryHistoryMap.get(lowerTimestamp);
-        final Map<String, BatteryHistEntry> upperEntryDataMap =
-                batteryHistoryMap.get(upperTimestamp);
+        final int lowerRow = batteryHistory.indexOfTimestamp(lowerTimestamp);
+        final int upperRow = batteryHistory.indexOfTimestamp(upperTimestamp);
         // Verifies whether the lower data is valid to use or not by checking boot time.
-        final BatteryHistEntry upperEntryDataFirstEntry =
-                upperEntryDataMap.values().stream().findFirst().get();
+        final BatteryHistEntry upperEntryDataFirstEntry = getFirstEntry(batteryHistory, upperRow);
         final long upperEntryDataBootTimestamp =
                 upperEntryDataFirstEntry.mTimestamp - upperEntryDataFirstEntry.mBootTimestamp;
         // Lower data is captured before upper data corresponding device is booting.
@@ -647,21 +692,22 @@ public final class DataProcessor {
             // Provides an opportunity to force align the slot directly.
             if ((upperTimestamp - currentSlot) < 10 * DateUtils.MINUTE_IN_MILLIS) {
                 log(context, "force align into the nearest slot", currentSlot, null);
-                resultMap.put(currentSlot, upperEntryDataMap);
+                result.copyRow(batteryHistory, upperRow, slotRow);
             } else {
                 log(context, "in the different booting section", currentSlot, null);
-                resultMap.put(currentSlot, new HashMap<>());
             }
             return;
         }
         log(context, "apply interpolation arithmetic", currentSlot, null);
-        final Map<String, BatteryHistEntry> newHistEntryMap = new HashMap<>();
         final double timestampLength = upperTimestamp - lowerTimestamp;
         final double timestampDiff = currentSlot - lowerTimestamp;
         // Applies interpolation arithmetic for each BatteryHistEntry.
-        for (String entryKey : upperEntryDataMap.keySet()) {
-            final BatteryHistEntry lowerEntry = lowerEntryDataMap.get(entryKey);
-            final BatteryHistEntry upperEntry = upperEntryDataMap.get(entryKey);
+        for (int keyIndex = 0; keyIndex < batteryHistory.getKeyCount(); keyIndex++) {
+            if (!batteryHistory.hasEntry(upperRow, keyIndex)) {
+                continue;
+            }
+            final BatteryHistEntry lowerEntry = batteryHistory.getEntry(lowerRow, keyIndex);
+            final BatteryHistEntry upperEntry = batteryHistory.getEntry(upperRow, keyIndex);
             // Checks whether there is any abnormal battery reset conditions.
             if (lowerEntry != null) {
                 final boolean invalidForegroundUsageTime =
@@ -669,25 +715,23 @@ public final class DataProcessor {
                 final boolean invalidBackgroundUsageTime =
                         lowerEntry.mBackgroundUsageTimeInMs > upperEntry.mBackgroundUsageTimeInMs;
                 if (invalidForegroundUsageTime || invalidBackgroundUsageTime) {
-                    newHistEntryMap.put(entryKey, upperEntry);
+                    result.setEntry(slotRow, keyIndex, upperEntry);
                     log(context, "abnormal reset condition is found", currentSlot, upperEntry);
                     continue;
                 }
             }
-            final BatteryHistEntry newEntry =
-                    BatteryHistEntry.interpolate(
-                            currentSlot,
-                            upperTimestamp,
-                            /*ratio=*/ timestampDiff / timestampLength,
-                            lowerEntry,
-                            upperEntry);
-            newHistEntryMap.put(entryKey, newEntry);
+            result.setInterpolatedEntry(
+                    slotRow,
+                    keyIndex,
+                    upperTimestamp,
+                    /*ratio=*/ timestampDiff / timestampLength,
+                    lowerEntry,
+                    upperEntry);
             if (lowerEntry == null) {
                 log(context, "cannot find lower entry data", currentSlot, upperEntry);
                 continue;
             }
         }
-        resultMap.put(currentSlot, newHistEntryMap);
     }
 
     /**
@@ -749,49 +793,58 @@ public final class DataProcessor {
 
     private static List<BatteryLevelData.PeriodBatteryLevelData> getHourlyPeriodBatteryLevelData(
             Context context,
-            final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap,
+            final BatteryHistoryColumns processedBatteryHistory,
             final List<List<Long>> timestamps) {
         final List<BatteryLevelData.PeriodBatteryLevelData> levelData = new ArrayList<>();
         timestamps.forEach(
                 timestampList -> levelData.add(
                         getPeriodBatteryLevelData(
-                                context, processedBatteryHistoryMap, timestampList)));
+                                context, processedBatteryHistory, timestampList)));
         return levelData;
     }
 
     private static BatteryLevelData.PeriodBatteryLevelData getPeriodBatteryLevelData(
             Context context,
-            final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap,
+            final BatteryHistoryColumns processedBatteryHistory,
             final List<Long> timestamps) {
         final List<Integer> levels = new ArrayList<>();
         timestamps.forEach(
-                timestamp -> levels.add(getLevel(context, processedBatteryHistoryMap, timestamp)));
+                timestamp -> levels.add(getLevel(context, processedBatteryHistory, timestamp)));
         return new BatteryLevelData.PeriodBatteryLevelData(timestamps, levels);
     }
 
     private static Integer getLevel(
             Context context,
-            final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap,
+            final BatteryHistoryColumns processedBatteryHistory,
             final long timestamp) {
-        final Map<String, BatteryHistEntry> entryMap = processedBatteryHistoryMap.get(timestamp);
-        if (entryMap == null || entryMap.isEmpty()) {
+        final int row = processedBatteryHistory.indexOfTimestamp(timestamp);
+        final int rowSize = row < 0 ? 0 : processedBatteryHistory.getRowSize(row);
+        if (rowSize == 0) {
             Log.e(TAG, "abnormal entry list in the timestamp:"
                     + utcToLocalTime(context, timestamp));
             return null;
         }
         // Averages the battery level in each time slot to avoid corner conditions.
         float batteryLevelCounter = 0;
-        for (BatteryHistEntry entry : entryMap.values()) {
-            batteryLevelCounter += entry.mBatteryLevel;
+        for (int keyIndex = 0; keyIndex < processedBatteryHistory.getKeyCount(); keyIndex++) {
+            if (processedBatteryHistory.hasEntry(row, keyIndex)) {
+                batteryLevelCounter += processedBatteryHistory.getBatteryLevel(row, keyIndex);
+            }
         }
-        return Math.round(batteryLevelCounter / entryMap.size());
+        return Math.round(batteryLevelCounter / rowSize);
     }
 
-    private static void insertHourlyUsageDiffData(
+    /**
+     * Inserts the hourly diff data and returns the prefix sums of all hourly slots, in the order
+     * of the days and hours.
+     */
+    private static BatteryUsagePrefixSums insertHourlyUsageDiffData(
             Context context,
             final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
-            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
+            final BatteryHistoryColumns batteryHistory,
             final Map<Integer, Map<Integer, BatteryDiffData>> resultMap) {
+        final BatteryUsagePrefixSums usagePrefixSums = new BatteryUsagePrefixSums(
+                batteryHistory.getKeyCount(), getSlotCount(hourlyBatteryLevelsPerDay));
         final int currentUserId = context.getUserId();
         final UserHandle userHandle =
                 Utils.getManagedProfile(context.getSystemService(UserManager.class));
@@ -816,37 +869,60 @@ public final class DataProcessor {
                                 workProfileUserId,
                                 hourlyIndex,
                                 timestamps,
-                                batteryHistoryMap);
+                                batteryHistory,
+                                usagePrefixSums);
                 dailyDiffMap.put(hourlyIndex, hourlyBatteryDiffData);
             }
         }
+        return usagePrefixSums;
     }
 
     private static void insertDailyUsageDiffData(
+            Context context,
             final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
+            final BatteryUsagePrefixSums usagePrefixSums,
             final Map<Integer, Map<Integer, BatteryDiffData>> resultMap) {
+        int startSlot = 0;
         for (int index = 0; index < hourlyBatteryLevelsPerDay.size(); index++) {
             Map<Integer, BatteryDiffData> dailyUsageMap = resultMap.get(index);
             if (dailyUsageMap == null) {
                 dailyUsageMap = new HashMap<>();
                 resultMap.put(index, dailyUsageMap);
             }
+            final int endSlot = startSlot + getSlotCount(hourlyBatteryLevelsPerDay.get(index));
             dailyUsageMap.put(
                     SELECTED_INDEX_ALL,
-                    getAccumulatedUsageDiffData(dailyUsageMap.values()));
+                    getAccumulatedUsageDiffData(context, usagePrefixSums, startSlot, endSlot));
+            startSlot = endSlot;
         }
     }
 
     private static void insertAllUsageDiffData(
+            Context context,
+            final BatteryUsagePrefixSums usagePrefixSums,
             final Map<Integer, Map<Integer, BatteryDiffData>> resultMap) {
-        final List<BatteryDiffData> diffDataList = new ArrayList<>();
-        resultMap.keySet().forEach(
-                key -> diffDataList.add(resultMap.get(key).get(SELECTED_INDEX_ALL)));
         final Map<Integer, BatteryDiffData> allUsageMap = new HashMap<>();
-        allUsageMap.put(SELECTED_INDEX_ALL, getAccumulatedUsageDiffData(diffDataList));
+        allUsageMap.put(SELECTED_INDEX_ALL, getAccumulatedUsageDiffData(
+                context, usagePrefixSums, /*startSlot=*/ 0, usagePrefixSums.getSlotCount()));
         resultMap.put(SELECTED_INDEX_ALL, allUsageMap);
     }
 
+    private static int getSlotCount(
+            final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay) {
+        int slotCount = 0;
+        for (BatteryLevelData.PeriodBatteryLevelData hourlyBatteryLevels
+                : hourlyBatteryLevelsPerDay) {
+            slotCount += getSlotCount(hourlyBatteryLevels);
+        }
+        return slotCount;
+    }
+
+    private static int getSlotCount(
+            @Nullable final BatteryLevelData.PeriodBatteryLevelData hourlyBatteryLevels) {
+        return hourlyBatteryLevels == null
+                ? 0 : Math.max(hourlyBatteryLevels.getTimestamps().size() - 1, 0);
+    }
+
     @Nullable
     private static BatteryDiffData insertHourlyUsageDiffDataPerSlot(
             Context context,
@@ -854,72 +930,64 @@ public final class DataProcessor {
             final int workProfileUserId,
             final int currentIndex,
             final List<Long> timestamps,
-            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
+            final BatteryHistoryColumns batteryHistory,
+            final BatteryUsagePrefixSums usagePrefixSums) {
         final List<BatteryDiffEntry> appEntries = new ArrayList<>();
         final List<BatteryDiffEntry> systemEntries = new ArrayList<>();
+        usagePrefixSums.appendSlot();
 
-        final Long currentTimestamp = timestamps.get(currentIndex);
-        final Long nextTimestamp = currentTimestamp + DateUtils.HOUR_IN_MILLIS;
-        final Long nextTwoTimestamp = nextTimestamp + DateUtils.HOUR_IN_MILLIS;
+        final long currentTimestamp = timestamps.get(currentIndex);
+        final long nextTimestamp = currentTimestamp + DateUtils.HOUR_IN_MILLIS;
+        final long nextTwoTimestamp = nextTimestamp + DateUtils.HOUR_IN_MILLIS;
         // Fetches BatteryHistEntry data from corresponding time slot.
-        final Map<String, BatteryHistEntry> currentBatteryHistMap =
-                batteryHistoryMap.getOrDefault(currentTimestamp, EMPTY_BATTERY_MAP);
-        final Map<String, BatteryHistEntry> nextBatteryHistMap =
-                batteryHistoryMap.getOrDefault(nextTimestamp, EMPTY_BATTERY_MAP);
-        final Map<String, BatteryHistEntry> nextTwoBatteryHistMap =
-                batteryHistoryMap.getOrDefault(nextTwoTimestamp, EMPTY_BATTERY_MAP);
+        final int currentRow = batteryHistory.indexOfTimestamp(currentTimestamp);
+        final int nextRow = batteryHistory.indexOfTimestamp(nextTimestamp);
+        final int nextTwoRow = batteryHistory.indexOfTimestamp(nextTwoTimestamp);
         // We should not get the empty list since we have at least one fake data to record
         // the battery level and status in each time slot, the empty list is used to
         // represent there is no enough data to apply interpolation arithmetic.
-        if (currentBatteryHistMap.isEmpty()
-                || nextBatteryHistMap.isEmpty()
-                || nextTwoBatteryHistMap.isEmpty()) {
+        if (currentRow < 0 || batteryHistory.getRowSize(currentRow) == 0
+                || nextRow < 0 || batteryHistory.getRowSize(nextRow) == 0
+                || nextTwoRow < 0 || batteryHistory.getRowSize(nextTwoRow) == 0) {
             return null;
         }
 
-        // Collects all keys in these three time slot records as all populations.
-        final Set<String> allBatteryHistEntryKeys = new ArraySet<>();
-        allBatteryHistEntryKeys.addAll(currentBatteryHistMap.keySet());
-        allBatteryHistEntryKeys.addAll(nextBatteryHistMap.keySet());
-        allBatteryHistEntryKeys.addAll(nextTwoBatteryHistMap.keySet());
-
         double totalConsumePower = 0.0;
         double consumePowerFromOtherUsers = 0f;
-        // Calculates all packages diff usage data in a specific time slot.
-        for (String key : allBatteryHistEntryKeys) {
-            final BatteryHistEntry currentEntry =
-                    currentBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
-            final BatteryHistEntry nextEntry =
-                    nextBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
-            final BatteryHistEntry nextTwoEntry =
-                    nextTwoBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
+        // Calculates all packages diff usage data in a specific time slot. Keys missing in all
+        // three time slot records are skipped, missing values count as zero.
+        for (int keyIndex = 0; keyIndex < batteryHistory.getKeyCount(); keyIndex++) {
+            final boolean hasCurrentEntry = batteryHistory.hasEntry(currentRow, keyIndex);
+            final boolean hasNextEntry = batteryHistory.hasEntry(nextRow, keyIndex);
+            final boolean hasNextTwoEntry = batteryHistory.hasEntry(nextTwoRow, keyIndex);
+            if (!hasCurrentEntry && !hasNextEntry && !hasNextTwoEntry) {
+                continue;
+            }
             // Cumulative values is a specific time slot for a specific app.
             long foregroundUsageTimeInMs =
                     getDiffValue(
-                            currentEntry.mForegroundUsageTimeInMs,
-                            nextEntry.mForegroundUsageTimeInMs,
-                            nextTwoEntry.mForegroundUsageTimeInMs);
+                            batteryHistory.getForegroundUsageTimeInMs(currentRow, keyIndex),
+                            batteryHistory.getForegroundUsageTimeInMs(nextRow, keyIndex),
+                            batteryHistory.getForegroundUsageTimeInMs(nextTwoRow, keyIndex));
             long backgroundUsageTimeInMs =
                     getDiffValue(
-                            currentEntry.mBackgroundUsageTimeInMs,
-                            nextEntry.mBackgroundUsageTimeInMs,
-                            nextTwoEntry.mBackgroundUsageTimeInMs);
+                            batteryHistory.getBackgroundUsageTimeInMs(currentRow, keyIndex),
+                            batteryHistory.getBackgroundUsageTimeInMs(nextRow, keyIndex),
+                            batteryHistory.getBackgroundUsageTimeInMs(nextTwoRow, keyIndex));
             double consumePower =
                     getDiffValue(
-                            currentEntry.mConsumePower,
-                            nextEntry.mConsumePower,
-                            nextTwoEntry.mConsumePower);
+                            batteryHistory.getConsumePower(currentRow, keyIndex),
+                            batteryHistory.getConsumePower(nextRow, keyIndex),
+                            batteryHistory.getConsumePower(nextTwoRow, keyIndex));
             // Excludes entry since we don't have enough data to calculate.
             if (foregroundUsageTimeInMs == 0
                     && backgroundUsageTimeInMs == 0
                     && consumePower == 0) {
                 continue;
             }
-            final BatteryHistEntry selectedBatteryEntry =
-                    selectBatteryHistEntry(currentEntry, nextEntry, nextTwoEntry);
-            if (selectedBatteryEntry == null) {
-                continue;
-            }
+            final BatteryHistEntry selectedBatteryEntry = batteryHistory.getEntry(
+                    hasCurrentEntry ? currentRow : hasNextEntry ? nextRow : nextTwoRow,
+                    keyIndex);
             // Forces refine the cumulative value since it may introduce deviation error since we
             // will apply the interpolation arithmetic.
             final float totalUsageTimeInMs =
@@ -930,7 +998,7 @@ public final class DataProcessor {
                     Log.w(TAG, String.format("abnormal usage time %d|%d for:\n%s",
                             Duration.ofMillis(foregroundUsageTimeInMs).getSeconds(),
                             Duration.ofMillis(backgroundUsageTimeInMs).getSeconds(),
-                            currentEntry));
+                            selectedBatteryEntry));
                 }
                 foregroundUsageTimeInMs =
                         Math.round(foregroundUsageTimeInMs * ratio);
@@ -956,10 +1024,13 @@ public final class DataProcessor {
                 } else {
                     appEntries.add(currentBatteryDiffEntry);
                 }
+                usagePrefixSums.addUsage(keyIndex, foregroundUsageTimeInMs,
+                        backgroundUsageTimeInMs, consumePower, selectedBatteryEntry);
             }
         }
         if (consumePowerFromOtherUsers != 0) {
             systemEntries.add(createOtherUsersEntry(context, consumePowerFromOtherUsers));
+            usagePrefixSums.addOtherUsersConsumePower(consumePowerFromOtherUsers);
         }
 
         // If there is no data, return null instead of empty item.
@@ -981,26 +1052,41 @@ public final class DataProcessor {
                 && batteryHistEntry.mUserId != workProfileUserId;
     }
 
+    /**
+     * Accumulates the usage of the hourly slots in {@code [startSlot, endSlot)}, with one entry
+     * per key carrying the metadata of its first slot in the range.
+     */
     @Nullable
     private static BatteryDiffData getAccumulatedUsageDiffData(
-            final Collection<BatteryDiffData> diffEntryListData) {
+            Context context,
+            final BatteryUsagePrefixSums usagePrefixSums,
+            final int startSlot,
+            final int endSlot) {
         double totalConsumePower = 0f;
         final Map<String, BatteryDiffEntry> diffEntryMap = new HashMap<>();
         final List<BatteryDiffEntry> appEntries = new ArrayList<>();
         final List<BatteryDiffEntry> systemEntries = new ArrayList<>();
 
-        for (BatteryDiffData diffEntryList : diffEntryListData) {
-            if (diffEntryList == null) {
+        for (int keyIndex = 0; keyIndex < usagePrefixSums.getKeyCount(); keyIndex++) {
+            final BatteryHistEntry firstEntry =
+                    usagePrefixSums.getFirstEntry(startSlot, endSlot, keyIndex);
+            if (firstEntry == null) {
                 continue;
             }
-            for (BatteryDiffEntry entry : diffEntryList.getAppDiffEntryList()) {
-                computeUsageDiffDataPerEntry(entry, diffEntryMap);
-                totalConsumePower += entry.mConsumePower;
-            }
-            for (BatteryDiffEntry entry : diffEntryList.getSystemDiffEntryList()) {
-                computeUsageDiffDataPerEntry(entry, diffEntryMap);
-                totalConsumePower += entry.mConsumePower;
-            }
+            final BatteryDiffEntry entry = new BatteryDiffEntry(
+                    context,
+                    usagePrefixSums.getForegroundUsageTimeInMs(startSlot, endSlot, keyIndex),
+                    usagePrefixSums.getBackgroundUsageTimeInMs(startSlot, endSlot, keyIndex),
+                    usagePrefixSums.getConsumePower(startSlot, endSlot, keyIndex),
+                    firstEntry);
+            diffEntryMap.put(firstEntry.getKey(), entry);
+            totalConsumePower += entry.mConsumePower;
+        }
+        if (usagePrefixSums.hasOtherUsersUsage(startSlot, endSlot)) {
+            final BatteryDiffEntry entry = createOtherUsersEntry(
+                    context, usagePrefixSums.getOtherUsersConsumePower(startSlot, endSlot));
+            diffEntryMap.put(entry.mBatteryHistEntry.getKey(), entry);
+            totalConsumePower += entry.mConsumePower;
         }
 
         final Collection<BatteryDiffEntry> diffEntryList = diffEntryMap.values();
@@ -1017,24 +1103,6 @@ public final class DataProcessor {
         return diffEntryList.isEmpty() ? null : new BatteryDiffData(appEntries, systemEntries);
     }
 
-    private static void computeUsageDiffDataPerEntry(
-            final BatteryDiffEntry entry,
-            final Map<String, BatteryDiffEntry> diffEntryMap) {
-        final String key = entry.mBatteryHistEntry.getKey();
-        final BatteryDiffEntry oldBatteryDiffEntry = diffEntryMap.get(key);
-        // Creates new BatteryDiffEntry if we don't have it.
-        if (oldBatteryDiffEntry == null) {
-            diffEntryMap.put(key, entry.clone());
-        } else {
-            // Sums up some field data into the existing one.
-            oldBatteryDiffEntry.mForegroundUsageTimeInMs +=
-                    entry.mForegroundUsageTimeInMs;
-            oldBatteryDiffEntry.mBackgroundUsageTimeInMs +=
-                    entry.mBackgroundUsageTimeInMs;
-            oldBatteryDiffEntry.mConsumePower += entry.mConsumePower;
-        }
-    }
-
     // Removes low percentage data and fake usage data, which will be zero value.
     private static void purgeLowPercentageAndFakeData(
             final Context context,
@@ -1169,17 +1237,6 @@ public final class DataProcessor {
         return (v2 > v1 ? v2 - v1 : 0) + (v3 > v2 ? v3 - v2 : 0);
     }
 
-    @Nullable
-    private static BatteryHistEntry selectBatteryHistEntry(
-            final BatteryHistEntry... batteryHistEntries) {
-        for (BatteryHistEntry entry : batteryHistEntries) {
-            if (entry != null && entry != EMPTY_BATTERY_HIST_ENTRY) {
-                return entry;
-            }
-        }
-        return null;
-    }
-
     private static BatteryDiffEntry createOtherUsersEntry(
             Context context, final double consumePower) {
         final ContentValues values = new ContentValues();
@@ -1228,19 +1285,19 @@ public final class DataProcessor {
         final Handler mHandler;
         final UsageMapAsyncResponse mAsyncResponseDelegate;
         private List<BatteryLevelData.PeriodBatteryLevelData> mHourlyBatteryLevelsPerDay;
-        private Map<Long, Map<String, BatteryHistEntry>> mBatteryHistoryMap;
+        private BatteryHistoryColumns mBatteryHistory;
 
         private ComputeUsageMapAndLoadItemsTask(
                 Context context,
                 Handler handler,
                 final UsageMapAsyncResponse asyncResponseDelegate,
                 final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
-                final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
+                final BatteryHistoryColumns batteryHistory) {
             mApplicationContext = context.getApplicationContext();
             mHandler = handler;
             mAsyncResponseDelegate = asyncResponseDelegate;
             mHourlyBatteryLevelsPerDay = hourlyBatteryLevelsPerDay;
-            mBatteryHistoryMap = batteryHistoryMap;
+            mBatteryHistory = batteryHistory;
         }
 
         @Override
@@ -1248,7 +1305,7 @@ public final class DataProcessor {
             if (mApplicationContext == null
                     || mHandler == null
                     || mAsyncResponseDelegate == null
-                    || mBatteryHistoryMap == null
+                    || mBatteryHistory == null
                     || mHourlyBatteryLevelsPerDay == null) {
                 Log.e(TAG, "invalid input for ComputeUsageMapAndLoadItemsTask()");
                 return null;
@@ -1256,7 +1313,7 @@ public final class DataProcessor {
             final long startTime = System.currentTimeMillis();
             final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap =
                     getBatteryUsageMap(
-                            mApplicationContext, mHourlyBatteryLevelsPerDay, mBatteryHistoryMap);
+                            mApplicationContext, mHourlyBatteryLevelsPerDay, mBatteryHistory);
             loadLabelAndIcon(batteryUsageMap);
             Log.d(TAG, String.format("execute ComputeUsageMapAndLoadItemsTask in %d/ms",
                     (System.currentTimeMillis() - startTime)));
@@ -1268,7 +1325,7 @@ public final class DataProcessor {
                 final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageMap) {
             mApplicationContext = null;
             mHourlyBatteryLevelsPerDay = null;
-            mBatteryHistoryMap = null;
+            mBatteryHistory = null;
             // Post results back to main thread to refresh UI.
             if (mHandler != null && mAsyncResponseDelegate != null) {
                 mHandler.post(() -> {
@@ -1288,7 +1345,7 @@ public final class DataProcessor {
                 Handler handler,
                 final UsageMapAsyncResponse asyncResponseDelegate) {
             super(context, handler, asyncResponseDelegate, /*hourlyBatteryLevelsPerDay=*/ null,
-                    /*batteryHistoryMap=*/ null);
+                    /*batteryHistory=*/ null);
         }
 
         @Override
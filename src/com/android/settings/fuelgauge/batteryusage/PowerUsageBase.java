@@ -22,7 +22,6 @@ import android.content.Context;
 import android.os.BatteryUsageStats;
 import android.os.Bundle;
 import android.os.UserManager;
-import android.util.Log;
 
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
@@ -32,6 +31,7 @@ import androidx.loader.content.Loader;
 
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.fuelgauge.BatteryBroadcastReceiver;
+import com.android.settings.fuelgauge.BatteryUsageStatsCache;
 import com.android.settings.fuelgauge.BatteryUtils;
 
 import java.lang.annotation.Retention;
@@ -159,13 +159,17 @@ public abstract class PowerUsageBase extends DashboardFragment {
         @Override
         public void onLoadFinished(Loader<BatteryUsageStats> loader,
                 BatteryUsageStats batteryUsageStats) {
-            closeBatteryUsageStatsIfNeeded();
+            if (batteryUsageStats != mBatteryUsageStats) {
+                // The loader delivers the same result again when restarted.
+                closeBatteryUsageStatsIfNeeded();
+            }
             mBatteryUsageStats = batteryUsageStats;
             PowerUsageBase.this.onLoadFinished(mRefreshType);
         }
 
         @Override
         public void onLoaderReset(Loader<BatteryUsageStats> loader) {
+            closeBatteryUsageStatsIfNeeded();
         }
     }
 
@@ -173,12 +177,8 @@ public abstract class PowerUsageBase extends DashboardFragment {
         if (mBatteryUsageStats == null) {
             return;
         }
-        try {
-            mBatteryUsageStats.close();
-        } catch (Exception e) {
-            Log.e(TAG, "BatteryUsageStats.close() failed", e);
-        } finally {
-            mBatteryUsageStats = null;
-        }
+        // Shared through BatteryUsageStatsCache, which closes it once nobody holds it.
+        BatteryUsageStatsCache.getInstance().release(mBatteryUsageStats);
+        mBatteryUsageStats = null;
     }
 }
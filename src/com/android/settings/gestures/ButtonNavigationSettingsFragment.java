@@ -25,6 +25,7 @@ import android.content.Context;
 import com.android.settings.R;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
+import com.android.settings.search.GatedPageSearchIndexProvider;
 import com.android.settingslib.search.SearchIndexable;
 
 /**
@@ -55,7 +56,7 @@ public class ButtonNavigationSettingsFragment extends DashboardFragment {
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.button_navigation_settings) {
+            new GatedPageSearchIndexProvider(R.xml.button_navigation_settings) {
 
                 @Override
                 protected boolean isPageSearchEnabled(Context context) {
@@ -27,6 +27,7 @@ import android.view.WindowManager;
 import com.android.settings.R;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
+import com.android.settings.search.GatedPageSearchIndexProvider;
 import com.android.settings.widget.LabeledSeekBarPreference;
 import com.android.settings.widget.SeekBarPreference;
 import com.android.settingslib.search.SearchIndexable;
@@ -161,7 +162,7 @@ public class GestureNavigationSettingsFragment extends DashboardFragment {
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.gesture_navigation_settings) {
+            new GatedPageSearchIndexProvider(R.xml.gesture_navigation_settings) {
 
                 @Override
                 protected boolean isPageSearchEnabled(Context context) {
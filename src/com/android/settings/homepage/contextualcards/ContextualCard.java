@@ -68,6 +68,7 @@ public class ContextualCard {
     private final boolean mIsPendingDismiss;
     private final boolean mHasInlineAction;
     private final Slice mSlice;
+    private final boolean mIsFromSnapshot;
 
     public String getName() {
         return mName;
@@ -133,6 +134,10 @@ public class ContextualCard {
         return mSlice;
     }
 
+    public boolean isFromSnapshot() {
+        return mIsFromSnapshot;
+    }
+
     public Builder mutate() {
         return mBuilder;
     }
@@ -154,6 +159,7 @@ public class ContextualCard {
         mIsPendingDismiss = builder.mIsPendingDismiss;
         mHasInlineAction = builder.mHasInlineAction;
         mSlice = builder.mSlice;
+        mIsFromSnapshot = builder.mIsFromSnapshot;
     }
 
     ContextualCard(Cursor c) {
@@ -188,6 +194,8 @@ public class ContextualCard {
         mBuilder.setHasInlineAction(mHasInlineAction);
         mSlice = null;
         mBuilder.setSlice(mSlice);
+        mIsFromSnapshot = false;
+        mBuilder.setIsFromSnapshot(mIsFromSnapshot);
     }
 
     @Override
@@ -235,6 +243,7 @@ public class ContextualCard {
         private boolean mIsPendingDismiss;
         private boolean mHasInlineAction;
         private Slice mSlice;
+        private boolean mIsFromSnapshot;
 
         public Builder setName(String name) {
             mName = name;
@@ -314,6 +323,14 @@ public class ContextualCard {
             return this;
         }
 
+        /**
+         * Mark a card restored by {@link ContextualCardSnapshot}, whose slice isn't live yet.
+         */
+        public Builder setIsFromSnapshot(boolean isFromSnapshot) {
+            mIsFromSnapshot = isFromSnapshot;
+            return this;
+        }
+
         public ContextualCard build() {
             return new ContextualCard(this);
         }
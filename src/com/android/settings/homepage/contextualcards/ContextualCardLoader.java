@@ -27,7 +27,9 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.provider.Settings;
+import android.text.format.DateUtils;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -41,11 +43,14 @@ import com.android.settingslib.utils.AsyncLoaderCompat;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeoutException;
 
 public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>> {
 
@@ -57,6 +62,16 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
 
     private static final String TAG = "ContextualCardLoader";
     private static final long ELIGIBILITY_CHECKER_TIMEOUT_MS = 400;
+    // Slice binding ignores interrupts, so checks that timed out may keep their thread.
+    private static final int ELIGIBILITY_CHECKER_MAX_THREADS = 16;
+    private static final long ELIGIBILITY_CHECKER_KEEP_ALIVE_MS = 30 * DateUtils.SECOND_IN_MILLIS;
+    private static final long ELIGIBLE_CARD_CACHE_TTL_MS = 10 * DateUtils.SECOND_IN_MILLIS;
+
+    // Shared by all loads, every check gets a thread right away and threads time out once the
+    // homepage stops refreshing.
+    private static final ThreadPoolExecutor sEligibilityExecutor = createEligibilityExecutor();
+    private static final EligibleCardCache sEligibleCardCache =
+            new EligibleCardCache(ELIGIBLE_CARD_CACHE_TTL_MS);
 
     private final ContentObserver mObserver = new ContentObserver(
             new Handler(Looper.getMainLooper())) {
@@ -73,6 +88,7 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
     Uri mNotifyUri;
 
     private final Context mContext;
+    private volatile List<Future<ContextualCard>> mPendingChecks;
 
     ContextualCardLoader(Context context) {
         super(context);
@@ -100,6 +116,20 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
 
     }
 
+    @Override
+    public void cancelLoadInBackground() {
+        super.cancelLoadInBackground();
+        // A newer load is coming, stop checking cards for the stale one.
+        final List<Future<ContextualCard>> pendingChecks = mPendingChecks;
+        if (pendingChecks != null) {
+            for (Future<ContextualCard> check : pendingChecks) {
+                if (check != null) {
+                    check.cancel(true /* mayInterruptIfRunning */);
+                }
+            }
+        }
+    }
+
     @NonNull
     @Override
     public List<ContextualCard> loadInBackground() {
@@ -188,42 +218,75 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
             return candidates;
         }
 
-        final ExecutorService executor = Executors.newFixedThreadPool(candidates.size());
-        final List<ContextualCard> cards = new ArrayList<>();
-        List<Future<ContextualCard>> eligibleCards = new ArrayList<>();
-
-        final List<EligibleCardChecker> checkers = candidates.stream()
-                .map(card -> new EligibleCardChecker(mContext, card))
-                .collect(Collectors.toList());
-        try {
-            eligibleCards = executor.invokeAll(checkers, ELIGIBILITY_CHECKER_TIMEOUT_MS,
-                    TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.w(TAG, "Failed to get eligible states for all cards", e);
+        if (CardContentProvider.REFRESH_CARD_URI.equals(mNotifyUri)) {
+            // Cards asked to be refreshed, their eligibility may have changed.
+            sEligibleCardCache.clear();
         }
-        executor.shutdown();
 
-        // Collect future and eligible cards
-        for (int i = 0; i < eligibleCards.size(); i++) {
-            final Future<ContextualCard> cardFuture = eligibleCards.get(i);
-            if (cardFuture.isCancelled()) {
-                Log.w(TAG, "Timeout getting eligible state for card: "
-                        + candidates.get(i).getSliceUri());
-                continue;
+        // One deadline for the whole load, checks run in parallel.
+        final long deadline = SystemClock.elapsedRealtime() + ELIGIBILITY_CHECKER_TIMEOUT_MS;
+        final List<Future<ContextualCard>> eligibleCards = new ArrayList<>(candidates.size());
+        for (ContextualCard card : candidates) {
+            final EligibleCardChecker checker =
+                    new EligibleCardChecker(mContext, card, sEligibleCardCache);
+            try {
+                eligibleCards.add(sEligibilityExecutor.submit(checker));
+            } catch (RejectedExecutionException e) {
+                // Every thread is held by a check stuck in a binder call, skip the card.
+                Log.w(TAG, "No thread to check card: " + card.getSliceUri());
+                eligibleCards.add(null);
             }
+        }
+        mPendingChecks = eligibleCards;
 
-            try {
-                final ContextualCard card = cardFuture.get();
-                if (card != null) {
-                    cards.add(card);
+        // Collect future and eligible cards
+        final List<ContextualCard> cards = new ArrayList<>();
+        try {
+            for (int i = 0; i < eligibleCards.size(); i++) {
+                final Future<ContextualCard> cardFuture = eligibleCards.get(i);
+                if (cardFuture == null) {
+                    continue;
+                }
+                try {
+                    final ContextualCard card = cardFuture.get(
+                            Math.max(0, deadline - SystemClock.elapsedRealtime()),
+                            TimeUnit.MILLISECONDS);
+                    if (card != null) {
+                        cards.add(card);
+                    }
+                } catch (TimeoutException e) {
+                    cardFuture.cancel(true /* mayInterruptIfRunning */);
+                    Log.w(TAG, "Timeout getting eligible state for card: "
+                            + candidates.get(i).getSliceUri());
+                } catch (CancellationException e) {
+                    Log.d(TAG, "Stale load, cancelled eligible state for card: "
+                            + candidates.get(i).getSliceUri());
+                } catch (ExecutionException e) {
+                    Log.w(TAG, "Failed to get eligible state for card", e);
+                } catch (InterruptedException e) {
+                    Log.w(TAG, "Failed to get eligible states for all cards", e);
+                    Thread.currentThread().interrupt();
+                    for (int j = i; j < eligibleCards.size(); j++) {
+                        if (eligibleCards.get(j) != null) {
+                            eligibleCards.get(j).cancel(true /* mayInterruptIfRunning */);
+                        }
+                    }
+                    break;
                 }
-            } catch (Exception e) {
-                Log.w(TAG, "Failed to get eligible state for card", e);
             }
+        } finally {
+            mPendingChecks = null;
         }
         return cards;
     }
 
+    private static ThreadPoolExecutor createEligibilityExecutor() {
+        // No queue: a check never waits behind checks stuck past their deadline.
+        return new ThreadPoolExecutor(0 /* corePoolSize */, ELIGIBILITY_CHECKER_MAX_THREADS,
+                ELIGIBILITY_CHECKER_KEEP_ALIVE_MS, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>());
+    }
+
     private boolean isLargeCard(ContextualCard card) {
         return card.getSliceUri().equals(CONTEXTUAL_WIFI_SLICE_URI)
                 || card.getSliceUri().equals(BLUETOOTH_DEVICES_SLICE_URI);
@@ -50,6 +50,7 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnSaveInstanceState;
 import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -69,6 +70,10 @@ import java.util.stream.Collectors;
  * {@link ContextualCardController} will end up building a list of {@link ContextualCard} for
  * {@link ContextualCardsAdapter} and {@link BaseAdapter#notifyDataSetChanged()} will be called to
  * get the page refreshed.
+ *
+ * On a cold start, the slice cards displayed last time are restored from
+ * {@link ContextualCardSnapshot} and shown until {@link ContextualCardLoader} delivers the fresh
+ * cards, which then replace them through {@link ContextualCardsDiffCallback}.
  */
 public class ContextualCardManager implements ContextualCardLoader.CardContentLoaderListener,
         ContextualCardUpdateListener, LifecycleObserver, OnSaveInstanceState {
@@ -97,6 +102,12 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
     boolean mIsFirstLaunch;
     @VisibleForTesting
     List<String> mSavedCards;
+    @VisibleForTesting
+    boolean mIsShowingSnapshot;
+    @VisibleForTesting
+    boolean mHasLoadedCards;
+
+    private final ContextualCardSnapshot mSnapshot;
 
     public ContextualCardManager(Context context, Lifecycle lifecycle, Bundle savedInstanceState) {
         mContext = context;
@@ -104,6 +115,7 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
         mContextualCards = new ArrayList<>();
         mLifecycleObservers = new ArrayList<>();
         mControllerRendererPool = new ControllerRendererPool();
+        mSnapshot = new ContextualCardSnapshot(context);
         mLifecycle.addObserver(this);
         if (savedInstanceState == null) {
             mIsFirstLaunch = true;
@@ -123,6 +135,9 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
             return;
         }
         mStartTime = System.currentTimeMillis();
+        if (mIsFirstLaunch && mSavedCards == null && mContextualCards.isEmpty()) {
+            showSnapshotCards();
+        }
         final CardContentLoaderCallbacks cardContentLoaderCallbacks =
                 new CardContentLoaderCallbacks(mContext);
         cardContentLoaderCallbacks.setListener(this);
@@ -139,6 +154,34 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
         }
     }
 
+    private void showSnapshotCards() {
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final List<ContextualCard> cards = mSnapshot.read();
+            if (cards != null && !cards.isEmpty()) {
+                ThreadUtils.postOnMainThread(() -> onSnapshotCardsLoaded(cards));
+            }
+        });
+    }
+
+    @VisibleForTesting
+    void onSnapshotCardsLoaded(List<ContextualCard> cards) {
+        if (mHasLoadedCards) {
+            // The fresh cards won the race, nothing to show meanwhile.
+            return;
+        }
+        Log.d(TAG, "Showing " + cards.size() + " cards from snapshot after "
+                + (System.currentTimeMillis() - mStartTime) + " ms");
+        mIsShowingSnapshot = true;
+        onContextualCardUpdated(cards.stream().collect(groupingBy(ContextualCard::getCardType)));
+    }
+
+    private void writeSnapshot(List<ContextualCard> cards) {
+        final List<ContextualCard> sliceCards = cards.stream()
+                .filter(card -> card.getCardType() == ContextualCard.CardType.SLICE)
+                .collect(Collectors.toList());
+        ThreadUtils.postOnBackgroundThread(() -> mSnapshot.write(sliceCards));
+    }
+
     private void loadCardControllers() {
         for (ContextualCard card : mContextualCards) {
             setupController(card.getCardType());
@@ -233,6 +276,7 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
     public void onFinishCardLoading(List<ContextualCard> cards) {
         final long loadTime = System.currentTimeMillis() - mStartTime;
         Log.d(TAG, "Total loading time = " + loadTime);
+        mHasLoadedCards = true;
 
         final List<ContextualCard> cardsToKeep = getCardsToKeep(cards);
 
@@ -246,28 +290,35 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
             metricsFeatureProvider.action(mContext,
                     SettingsEnums.ACTION_CONTEXTUAL_CARD_SHOW,
                     ContextualCardLogUtils.buildCardListLog(cardsToKeep));
+            writeSnapshot(mContextualCards);
             return;
         }
 
         final long timeoutLimit = getCardLoaderTimeout();
-        if (loadTime <= timeoutLimit) {
+        // Cards from the snapshot are already on screen, so the fresh ones replace them however
+        // long they took.
+        if (loadTime <= timeoutLimit || mIsShowingSnapshot) {
             onContextualCardUpdated(cards.stream()
                     .collect(groupingBy(ContextualCard::getCardType)));
             metricsFeatureProvider.action(mContext,
                     SettingsEnums.ACTION_CONTEXTUAL_CARD_SHOW,
                     ContextualCardLogUtils.buildCardListLog(cards));
+            writeSnapshot(mContextualCards);
         } else {
             // log timeout occurrence
             metricsFeatureProvider.action(SettingsEnums.PAGE_UNKNOWN,
                     SettingsEnums.ACTION_CONTEXTUAL_CARD_LOAD_TIMEOUT,
                     SettingsEnums.SETTINGS_HOMEPAGE,
                     null /* key */, (int) loadTime /* value */);
+            // Not shown this time, but worth showing right away on the next cold start.
+            writeSnapshot(getCardsWithViewType(sortCards(cards)));
         }
         //only log homepage display upon a fresh launch
         final long totalTime = System.currentTimeMillis() - mStartTime;
         metricsFeatureProvider.action(mContext,
                 SettingsEnums.ACTION_CONTEXTUAL_HOME_SHOW, (int) totalTime);
 
+        mIsShowingSnapshot = false;
         mIsFirstLaunch = false;
     }
 
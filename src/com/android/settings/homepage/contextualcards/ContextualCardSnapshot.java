@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.slice.Slice;
+import androidx.slice.SliceUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-disk snapshot of the slice cards last displayed on the homepage, with their rendered
+ * slices.
+ *
+ * <p>{@link ContextualCardManager} shows the snapshot on a cold start while
+ * {@link ContextualCardLoader} checks and binds the fresh cards, so the first cards don't wait
+ * for slice binding. Slices are serialized with {@link SliceUtils}; their actions are converted
+ * and do nothing until the live slice replaces the snapshot. Each snapshot carries a version key
+ * made of the build fingerprint, the Settings package update time and the locales; a snapshot
+ * with a different key is treated as missing.
+ */
+class ContextualCardSnapshot {
+
+    private static final String TAG = "ContextualCardSnapshot";
+
+    private static final String SNAPSHOT_FILE = "contextual_cards.bin";
+
+    private static final int MAGIC = 0x43435353; // "CCSS"
+    private static final int FORMAT_VERSION = 1;
+    private static final String SLICE_ENCODING = "UTF-8";
+    private static final int MAX_IMAGE_SIZE_PX = 256;
+
+    private final Context mContext;
+    private final File mFile;
+
+    ContextualCardSnapshot(Context context) {
+        mContext = context.getApplicationContext();
+        mFile = new File(mContext.getCacheDir(), SNAPSHOT_FILE);
+    }
+
+    /**
+     * Reads the snapshot back.
+     *
+     * @return the cards, or null if there is no valid snapshot for the current version key
+     */
+    @WorkerThread
+    @Nullable
+    List<ContextualCard> read() {
+        if (!mFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(mFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || !getVersionKey().equals(in.readUTF())) {
+                Log.i(TAG, "Stale snapshot");
+                return null;
+            }
+            final int count = in.readInt();
+            final List<ContextualCard> cards = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                cards.add(readCard(in));
+            }
+            return cards;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Unable to read snapshot", e);
+            return null;
+        }
+    }
+
+    /**
+     * Persists the slice cards of {@code cards}. Failures are logged and otherwise ignored, the
+     * next cold start simply waits for the loader.
+     */
+    @WorkerThread
+    void write(List<ContextualCard> cards) {
+        final File tmpFile = new File(mFile.getParentFile(), SNAPSHOT_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(getVersionKey());
+            out.writeInt(cards.size());
+            for (ContextualCard card : cards) {
+                writeCard(out, card);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write snapshot", e);
+            tmpFile.delete();
+            return;
+        }
+        if (!tmpFile.renameTo(mFile)) {
+            Log.w(TAG, "Unable to commit snapshot");
+            tmpFile.delete();
+        }
+    }
+
+    @VisibleForTesting
+    String getVersionKey() {
+        long lastUpdateTime = 0;
+        try {
+            lastUpdateTime = mContext.getPackageManager()
+                    .getPackageInfo(mContext.getPackageName(), 0 /* flags */).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Unable to find package " + mContext.getPackageName());
+        }
+        return Build.FINGERPRINT + "|" + lastUpdateTime + "|"
+                + mContext.getResources().getConfiguration().getLocales().toLanguageTags();
+    }
+
+    @VisibleForTesting
+    File getFile() {
+        return mFile;
+    }
+
+    private void writeCard(DataOutputStream out, ContextualCard card) throws IOException {
+        out.writeUTF(card.getName());
+        out.writeInt(card.getCardType());
+        out.writeDouble(card.getRankingScore());
+        out.writeUTF(card.getTextSliceUri());
+        out.writeInt(card.getCategory());
+        writeNullableString(out, card.getPackageName());
+        out.writeLong(card.getAppVersion());
+        out.writeBoolean(card.isLargeCard());
+        out.writeInt(card.getViewType());
+        out.writeBoolean(card.hasInlineAction());
+        final byte[] slice = serializeSlice(card.getSlice());
+        out.writeInt(slice.length);
+        out.write(slice);
+    }
+
+    private ContextualCard readCard(DataInputStream in) throws IOException {
+        final ContextualCard.Builder builder = new ContextualCard.Builder()
+                .setName(in.readUTF())
+                .setCardType(in.readInt())
+                .setRankingScore(in.readDouble())
+                .setSliceUri(Uri.parse(in.readUTF()))
+                .setCategory(in.readInt())
+                .setPackageName(readNullableString(in))
+                .setAppVersion(in.readLong())
+                .setIsLargeCard(in.readBoolean())
+                .setViewType(in.readInt())
+                .setHasInlineAction(in.readBoolean())
+                .setIsFromSnapshot(true);
+        final int length = in.readInt();
+        if (length < 0 || length > mFile.length()) {
+            throw new IOException("Corrupted snapshot");
+        }
+        final byte[] slice = new byte[length];
+        in.readFully(slice);
+        return builder.setSlice(parseSlice(slice)).build();
+    }
+
+    private byte[] serializeSlice(@Nullable Slice slice) {
+        if (slice == null) {
+            return new byte[0];
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            SliceUtils.serializeSlice(slice, mContext, out, new SliceUtils.SerializeOptions()
+                    .setActionMode(SliceUtils.SerializeOptions.MODE_CONVERT)
+                    .setImageMode(SliceUtils.SerializeOptions.MODE_CONVERT)
+                    .setMaxImageWidth(MAX_IMAGE_SIZE_PX)
+                    .setMaxImageHeight(MAX_IMAGE_SIZE_PX));
+        } catch (IllegalArgumentException e) {
+            // The card is still restored, its slice shows once bound.
+            Log.w(TAG, "Unable to serialize slice " + slice.getUri(), e);
+            return new byte[0];
+        }
+        return out.toByteArray();
+    }
+
+    @Nullable
+    private Slice parseSlice(byte[] data) {
+        if (data.length == 0) {
+            return null;
+        }
+        try {
+            return SliceUtils.parseSlice(mContext, new ByteArrayInputStream(data), SLICE_ENCODING,
+                    (uri, context, intent) ->
+                            Log.d(TAG, "Ignoring action on snapshot of " + uri));
+        } catch (IOException | SliceUtils.SliceParseException e) {
+            Log.w(TAG, "Unable to parse slice", e);
+            return null;
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, @Nullable String value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
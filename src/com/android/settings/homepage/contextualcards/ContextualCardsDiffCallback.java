@@ -55,7 +55,13 @@ public class ContextualCardsDiffCallback extends DiffUtil.Callback {
 
     @Override
     public boolean areContentsTheSame(int oldCardPosition, int newCardPosition) {
+        final ContextualCard oldCard = mOldCards.get(oldCardPosition);
         final ContextualCard newCard = mNewCards.get(newCardPosition);
+        // A card restored from the snapshot is replaced by the freshly loaded one, which may
+        // also come with a different layout.
+        if (oldCard.isFromSnapshot() || oldCard.getViewType() != newCard.getViewType()) {
+            return false;
+        }
         // Sticky, important, or toggleable slices need to be updated continuously, which means
         // their contents may change. So here we assume the content will always be different to
         // force view rebinding.
@@ -63,6 +69,6 @@ public class ContextualCardsDiffCallback extends DiffUtil.Callback {
                 || newCard.hasInlineAction()) {
             return false;
         }
-        return mOldCards.get(oldCardPosition).equals(newCard);
+        return oldCard.equals(newCard);
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+
+import androidx.annotation.GuardedBy;
+
+/**
+ * Remembers for a short time the cards {@link EligibleCardChecker} found not eligible, so
+ * refreshing the homepage again right away doesn't bind their slices again. Only the eligibility
+ * result is kept: slices of eligible cards are always bound fresh, so the homepage never shows an
+ * outdated slice.
+ */
+final class EligibleCardCache {
+
+    private final long mTtlMs;
+    // Slice URI to the time it was found not eligible.
+    @GuardedBy("this")
+    private final ArrayMap<Uri, Long> mIneligibleCards = new ArrayMap<>();
+
+    EligibleCardCache(long ttlMs) {
+        mTtlMs = ttlMs;
+    }
+
+    /** Returns true if the card of {@code uri} was found not eligible within the time to live. */
+    synchronized boolean isIneligible(Uri uri) {
+        final Long timestamp = mIneligibleCards.get(uri);
+        if (timestamp == null) {
+            return false;
+        }
+        if (SystemClock.elapsedRealtime() - timestamp >= mTtlMs) {
+            mIneligibleCards.remove(uri);
+            return false;
+        }
+        return true;
+    }
+
+    /** Records the eligibility of the card of {@code uri}. */
+    synchronized void put(Uri uri, boolean eligible) {
+        if (eligible) {
+            mIneligibleCards.remove(uri);
+        } else {
+            mIneligibleCards.put(uri, SystemClock.elapsedRealtime());
+        }
+    }
+
+    synchronized void clear() {
+        mIneligibleCards.clear();
+    }
+}
@@ -25,6 +25,7 @@ import android.net.Uri;
 import android.os.AsyncTask;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.slice.Slice;
 import androidx.slice.SliceMetadata;
@@ -43,13 +44,23 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
     private static final String TAG = "EligibleCardChecker";
 
     private final Context mContext;
+    @Nullable
+    private final EligibleCardCache mCache;
+    private final long mCreationTime;
+    private boolean mIsCacheHit;
 
     @VisibleForTesting
     ContextualCard mCard;
 
     EligibleCardChecker(Context context, ContextualCard card) {
+        this(context, card, null /* cache */);
+    }
+
+    EligibleCardChecker(Context context, ContextualCard card, @Nullable EligibleCardCache cache) {
         mContext = context;
         mCard = card;
+        mCache = cache;
+        mCreationTime = System.currentTimeMillis();
     }
 
     @Override
@@ -73,11 +84,15 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
             result = null;
         }
         // Log individual card loading time
+        final long latency = System.currentTimeMillis() - startTime;
         metricsFeatureProvider.action(SettingsEnums.PAGE_UNKNOWN,
                 SettingsEnums.ACTION_CONTEXTUAL_CARD_LOAD,
                 SettingsEnums.SETTINGS_HOMEPAGE,
                 mCard.getTextSliceUri() /* key */,
-                (int) (System.currentTimeMillis() - startTime) /* value */);
+                (int) latency /* value */);
+        Log.d(TAG, "Checked " + mCard.getTextSliceUri() + " in " + latency + " ms after waiting "
+                + (startTime - mCreationTime) + " ms"
+                + (mIsCacheHit ? ", cached as not eligible" : ""));
 
         return result;
     }
@@ -93,12 +108,23 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
             return false;
         }
 
+        if (mCache != null && mCache.isIneligible(uri)) {
+            mIsCacheHit = true;
+            return false;
+        }
+
         final Slice slice = bindSlice(uri);
 
         if (slice == null || slice.hasHint(HINT_ERROR)) {
             Log.w(TAG, "Failed to bind slice, not eligible for display " + uri);
+            if (mCache != null) {
+                mCache.put(uri, false /* eligible */);
+            }
             return false;
         }
+        if (mCache != null) {
+            mCache.put(uri, true /* eligible */);
+        }
 
         mCard = card.mutate().setSlice(slice).build();
 
@@ -329,6 +329,11 @@ public class LocaleListEditor extends RestrictedSettingsFragment {
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider() {
+                @Override
+                public boolean isRawDataStatic() {
+                    return true;
+                }
+
                 @Override
                 public List<SearchIndexableRaw> getRawDataToIndex(Context context,
                         boolean enabled) {
@@ -34,6 +34,7 @@ import androidx.preference.SwitchPreference;
 
 import com.android.settings.AirplaneModeEnabler;
 import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.TogglePreferenceController;
 import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnDestroy;
@@ -42,7 +43,8 @@ import com.android.settingslib.core.lifecycle.events.OnStop;
 
 public class AirplaneModePreferenceController extends TogglePreferenceController
         implements LifecycleObserver, OnStart, OnStop, OnDestroy,
-        AirplaneModeEnabler.OnAirplaneModeChangedListener {
+        AirplaneModeEnabler.OnAirplaneModeChangedListener,
+        BasePreferenceController.ThreadSafeAvailability {
 
     public static final int REQUEST_CODE_EXIT_ECM = 1;
 
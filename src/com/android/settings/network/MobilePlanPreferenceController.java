@@ -38,6 +38,7 @@ import android.util.Log;
 import androidx.preference.Preference;
 
 import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.Utils;
 import com.android.settingslib.core.AbstractPreferenceController;
@@ -48,7 +49,8 @@ import com.android.settingslib.core.lifecycle.events.OnSaveInstanceState;
 import java.util.List;
 
 public class MobilePlanPreferenceController extends AbstractPreferenceController
-        implements PreferenceControllerMixin, LifecycleObserver, OnCreate, OnSaveInstanceState {
+        implements PreferenceControllerMixin, LifecycleObserver, OnCreate, OnSaveInstanceState,
+        BasePreferenceController.ThreadSafeAvailability {
 
     public interface MobilePlanPreferenceHost {
         void showMobilePlanMessageDialog();
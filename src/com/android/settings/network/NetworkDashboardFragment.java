@@ -65,6 +65,11 @@ public class NetworkDashboardFragment extends DashboardFragment implements
         return R.xml.network_provider_internet;
     }
 
+    @Override
+    protected boolean isParalleledControllers() {
+        return true;
+    }
+
     @Override
     public void onAttach(Context context) {
         super.onAttach(context);
@@ -56,7 +56,8 @@ import java.net.InetAddress;
 import java.util.List;
 
 public class PrivateDnsPreferenceController extends BasePreferenceController
-        implements PreferenceControllerMixin, LifecycleObserver, OnStart, OnStop {
+        implements PreferenceControllerMixin, LifecycleObserver, OnStart, OnStop,
+        BasePreferenceController.ThreadSafeAvailability {
     private static final String KEY_PRIVATE_DNS_SETTINGS = "private_dns_settings";
 
     private static final Uri[] SETTINGS_URIS = new Uri[]{
@@ -40,6 +40,7 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.FeatureFlags;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.TetherUtil;
@@ -54,7 +55,8 @@ import com.android.settingslib.core.lifecycle.events.OnResume;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class TetherPreferenceController extends AbstractPreferenceController implements
-        PreferenceControllerMixin, LifecycleObserver, OnCreate, OnResume, OnPause, OnDestroy {
+        PreferenceControllerMixin, LifecycleObserver, OnCreate, OnResume, OnPause, OnDestroy,
+        BasePreferenceController.ThreadSafeAvailability {
 
     private static final String KEY_TETHER_SETTINGS = "tether_settings";
 
@@ -40,6 +40,7 @@ import com.android.internal.net.VpnConfig;
 import com.android.internal.net.VpnProfile;
 import com.android.settings.R;
 import com.android.settings.Utils;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.vpn2.VpnInfoPreference;
 import com.android.settingslib.RestrictedLockUtilsInternal;
@@ -54,7 +55,8 @@ import java.util.List;
 import java.util.function.Function;
 
 public class VpnPreferenceController extends AbstractPreferenceController
-        implements PreferenceControllerMixin, LifecycleObserver, OnResume, OnPause {
+        implements PreferenceControllerMixin, LifecycleObserver, OnResume, OnPause,
+        BasePreferenceController.ThreadSafeAvailability {
 
     private static final String KEY_VPN_SETTINGS = "vpn_settings";
     private static final NetworkRequest REQUEST = new NetworkRequest.Builder()
@@ -50,14 +50,17 @@ import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.RemoteException;
 import android.os.ServiceManager;
+import android.os.SystemClock;
 import android.os.UserHandle;
 import android.provider.Settings;
 import android.service.notification.ConversationChannelWrapper;
 import android.service.notification.NotificationListenerFilter;
 import android.text.format.DateUtils;
+import android.util.ArrayMap;
 import android.util.IconDrawableFactory;
 import android.util.Log;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.internal.util.CollectionUtils;
@@ -85,6 +88,16 @@ public class NotificationBackend {
     static INotificationManager sINM = INotificationManager.Stub.asInterface(
             ServiceManager.getService(Context.NOTIFICATION_SERVICE));
 
+    /**
+     * How long a {@link ChannelSnapshot} answers channel queries before NoMan is asked again.
+     * Changes made through this class invalidate the snapshot of the package right away.
+     */
+    @VisibleForTesting
+    static final long CHANNEL_SNAPSHOT_TTL_MS = 5 * DateUtils.SECOND_IN_MILLIS;
+    private static final Object sChannelSnapshotLock = new Object();
+    @GuardedBy("sChannelSnapshotLock")
+    private static final ArrayMap<String, ChannelSnapshot> sChannelSnapshots = new ArrayMap<>();
+
     public AppRow loadAppRow(Context context, PackageManager pm, ApplicationInfo app) {
         final AppRow row = new AppRow();
         row.pkg = app.packageName;
@@ -100,8 +113,9 @@ public class NotificationBackend {
         row.showBadge = canShowBadge(row.pkg, row.uid);
         row.bubblePreference = getBubblePreference(row.pkg, row.uid);
         row.userId = UserHandle.getUserId(row.uid);
-        row.blockedChannelCount = getBlockedChannelCount(row.pkg, row.uid);
-        row.channelCount = getChannelCount(row.pkg, row.uid);
+        final ChannelSnapshot channels = getChannelSnapshot(row.pkg, row.uid);
+        row.blockedChannelCount = channels.blockedChannelCount;
+        row.channelCount = channels.channelCount;
         recordAggregatedUsageEvents(context, row);
         return row;
     }
@@ -273,11 +287,54 @@ public class NotificationBackend {
     }
 
     public ParceledListSlice<NotificationChannelGroup> getGroups(String pkg, int uid) {
+        return new ParceledListSlice<>(new ArrayList<>(getChannelSnapshot(pkg, uid).groups));
+    }
+
+    /**
+     * Returns the channel groups and channel counts of the package, read from NoMan with one call
+     * and kept for {@link #CHANNEL_SNAPSHOT_TTL_MS}.
+     */
+    public ChannelSnapshot getChannelSnapshot(String pkg, int uid) {
+        final String key = getChannelSnapshotKey(pkg, uid);
+        synchronized (sChannelSnapshotLock) {
+            final ChannelSnapshot snapshot = sChannelSnapshots.get(key);
+            if (snapshot != null && !snapshot.isExpired()) {
+                return snapshot;
+            }
+        }
+        final ParceledListSlice<NotificationChannelGroup> groups;
         try {
-            return sINM.getNotificationChannelGroupsForPackage(pkg, uid, false);
+            groups = sINM.getNotificationChannelGroupsForPackage(pkg, uid, true);
         } catch (Exception e) {
             Log.w(TAG, "Error calling NoMan", e);
-            return ParceledListSlice.emptyList();
+            return new ChannelSnapshot(new ArrayList<>());
+        }
+        final ChannelSnapshot snapshot = new ChannelSnapshot(
+                groups == null ? new ArrayList<>() : groups.getList());
+        synchronized (sChannelSnapshotLock) {
+            for (int i = sChannelSnapshots.size() - 1; i >= 0; i--) {
+                if (sChannelSnapshots.valueAt(i).isExpired()) {
+                    sChannelSnapshots.removeAt(i);
+                }
+            }
+            sChannelSnapshots.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    private static String getChannelSnapshotKey(String pkg, int uid) {
+        return pkg + "|" + uid;
+    }
+
+    private static void invalidateChannelSnapshot(String pkg, int uid) {
+        synchronized (sChannelSnapshotLock) {
+            sChannelSnapshots.remove(getChannelSnapshotKey(pkg, uid));
+        }
+    }
+
+    private static void invalidateChannelSnapshots() {
+        synchronized (sChannelSnapshotLock) {
+            sChannelSnapshots.clear();
         }
     }
 
@@ -362,6 +419,7 @@ public class NotificationBackend {
         } catch (Exception e) {
             Log.w(TAG, "Error calling NoMan", e);
         }
+        invalidateChannelSnapshot(pkg, uid);
     }
 
     public void updateChannelGroup(String pkg, int uid, NotificationChannelGroup group) {
@@ -370,36 +428,30 @@ public class NotificationBackend {
         } catch (Exception e) {
             Log.w(TAG, "Error calling NoMan", e);
         }
+        invalidateChannelSnapshot(pkg, uid);
     }
 
     public int getDeletedChannelCount(String pkg, int uid) {
-        try {
-            return sINM.getDeletedChannelCount(pkg, uid);
-        } catch (Exception e) {
-            Log.w(TAG, "Error calling NoMan", e);
-            return 0;
-        }
+        return getChannelSnapshot(pkg, uid).deletedChannelCount;
     }
 
     public int getBlockedChannelCount(String pkg, int uid) {
-        try {
-            return sINM.getBlockedChannelCount(pkg, uid);
-        } catch (Exception e) {
-            Log.w(TAG, "Error calling NoMan", e);
-            return 0;
-        }
+        return getChannelSnapshot(pkg, uid).blockedChannelCount;
     }
 
     public boolean onlyHasDefaultChannel(String pkg, int uid) {
-        try {
-            return sINM.onlyHasDefaultChannel(pkg, uid);
-        } catch (Exception e) {
-            Log.w(TAG, "Error calling NoMan", e);
-            return false;
-        }
+        return getChannelSnapshot(pkg, uid).onlyHasDefaultChannel;
     }
 
     public int getChannelCount(String pkg, int uid) {
+        // The app lists only need the count, which is cheaper to ask for than the whole snapshot.
+        synchronized (sChannelSnapshotLock) {
+            final ChannelSnapshot snapshot =
+                    sChannelSnapshots.get(getChannelSnapshotKey(pkg, uid));
+            if (snapshot != null && !snapshot.isExpired()) {
+                return snapshot.channelCount;
+            }
+        }
         try {
             return sINM.getNumNotificationChannelsForPackage(pkg, uid, false);
         } catch (Exception e) {
@@ -585,6 +637,7 @@ public class NotificationBackend {
         } catch (Exception e) {
             Log.w(TAG, "Error calling NoMan", e);
         }
+        invalidateChannelSnapshot(pkg, uid);
     }
 
     public ShortcutInfo getConversationInfo(Context context, String pkg, int uid, String id) {
@@ -628,6 +681,7 @@ public class NotificationBackend {
         } catch (Exception e) {
             Log.w(TAG, "Error calling NoMan", e);
         }
+        invalidateChannelSnapshots();
     }
 
     public NotificationListenerFilter getListenerFilter(ComponentName cn, int userId) {
@@ -660,6 +714,7 @@ public class NotificationBackend {
     @VisibleForTesting
     void setNm(INotificationManager inm) {
         sINM = inm;
+        invalidateChannelSnapshots();
     }
 
     /**
@@ -698,4 +753,59 @@ public class NotificationBackend {
         public Map<String, NotificationsSentState> sentByChannel;
         public NotificationsSentState sentByApp;
     }
+
+    /**
+     * The channels of a package as returned by one NoMan call, with the counts the app
+     * notification screens ask for.
+     */
+    public static class ChannelSnapshot {
+        // Same as getGroups used to return: deleted channels and the groups left empty are gone.
+        public final List<NotificationChannelGroup> groups = new ArrayList<>();
+        public final int channelCount;
+        public final int blockedChannelCount;
+        public final int deletedChannelCount;
+        public final boolean onlyHasDefaultChannel;
+        private final long mTimestamp = SystemClock.elapsedRealtime();
+
+        ChannelSnapshot(List<NotificationChannelGroup> groupsWithDeleted) {
+            int channelCount = 0;
+            int blockedChannelCount = 0;
+            int deletedChannelCount = 0;
+            NotificationChannel onlyChannel = null;
+            for (NotificationChannelGroup group : groupsWithDeleted) {
+                final List<NotificationChannel> channels = new ArrayList<>();
+                for (NotificationChannel channel : group.getChannels()) {
+                    onlyChannel = channel;
+                    if (channel.isDeleted()) {
+                        deletedChannelCount++;
+                        continue;
+                    }
+                    channelCount++;
+                    if (channel.getImportance() == IMPORTANCE_NONE) {
+                        blockedChannelCount++;
+                    }
+                    channels.add(channel);
+                }
+                if (channels.isEmpty()) {
+                    continue;
+                }
+                if (channels.size() == group.getChannels().size()) {
+                    groups.add(group);
+                } else {
+                    final NotificationChannelGroup liveGroup = group.clone();
+                    liveGroup.setChannels(channels);
+                    groups.add(liveGroup);
+                }
+            }
+            this.channelCount = channelCount;
+            this.blockedChannelCount = blockedChannelCount;
+            this.deletedChannelCount = deletedChannelCount;
+            onlyHasDefaultChannel = channelCount + deletedChannelCount == 1
+                    && NotificationChannel.DEFAULT_CHANNEL_ID.equals(onlyChannel.getId());
+        }
+
+        boolean isExpired() {
+            return SystemClock.elapsedRealtime() - mTimestamp >= CHANNEL_SNAPSHOT_TTL_MS;
+        }
+    }
 }
@@ -38,6 +38,7 @@ import com.android.settings.RingtonePreference;
 import com.android.settings.core.OnActivityResultListener;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
+import com.android.settings.search.GatedPageSearchIndexProvider;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.core.lifecycle.Lifecycle;
 import com.android.settingslib.search.SearchIndexable;
@@ -159,7 +160,7 @@ public class SoundWorkSettings extends DashboardFragment implements OnActivityRe
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.sound_work_settings) {
+            new GatedPageSearchIndexProvider(R.xml.sound_work_settings) {
                 @Override
                 protected boolean isPageSearchEnabled(Context context) {
                     return isSupportWorkProfileSound(context);
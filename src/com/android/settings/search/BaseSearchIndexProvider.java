@@ -51,6 +51,18 @@ import java.util.List;
  */
 public class BaseSearchIndexProvider implements Indexable.SearchIndexProvider {
 
+    /**
+     * Returned by {@link #getDynamicStateHash(Context)} when the provider cannot cheaply describe
+     * its dynamic state. Such providers are compared on a hash of their results instead.
+     */
+    public static final long DYNAMIC_STATE_UNKNOWN = 0;
+
+    /**
+     * State hash for a page whose search is disabled. All its keys come from xml and it has no
+     * dynamic raw data, so the state does not depend on anything else.
+     */
+    public static final long DYNAMIC_STATE_PAGE_SEARCH_DISABLED = 1;
+
     private static final String TAG = "BaseSearchIndex";
     private int mXmlRes = 0;
 
@@ -167,6 +179,30 @@ public class BaseSearchIndexProvider implements Indexable.SearchIndexProvider {
         return null;
     }
 
+    /**
+     * Returns a cheap hash of the state backing {@link #getNonIndexableKeys(Context)} and
+     * {@link #getDynamicRawDataToIndex(Context, boolean)}. Two equal hashes must imply equal
+     * results, so the search index can skip providers whose hash has not changed without
+     * computing them.
+     * <p/>
+     * The default implementation returns {@link #DYNAMIC_STATE_UNKNOWN}, in which case the
+     * results are computed and hashed.
+     */
+    public long getDynamicStateHash(Context context) {
+        return DYNAMIC_STATE_UNKNOWN;
+    }
+
+    /**
+     * Returns true if {@link #getRawDataToIndex(Context, boolean)} only depends on the build and
+     * the locale, so its rows can be kept in {@link SearchIndexableSnapshot}. Providers whose raw
+     * data checks device state, such as installed packages or overlays, must return false.
+     * <p/>
+     * The default implementation returns false.
+     */
+    public boolean isRawDataStatic() {
+        return false;
+    }
+
     /**
      * Returns true if the page should be considered in search query. If return false, entire page
      * will be suppressed during search query.
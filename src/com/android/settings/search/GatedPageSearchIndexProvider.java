@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import android.content.Context;
+
+/**
+ * Search index provider for a page whose only dynamic state is whether its search is enabled.
+ *
+ * <p>Subclasses must not add non-indexable keys or dynamic raw data beyond what
+ * {@link BaseSearchIndexProvider} derives from xml, and {@link #isPageSearchEnabled(Context)}
+ * must be cheap since it is checked on every delta query.
+ */
+public abstract class GatedPageSearchIndexProvider extends BaseSearchIndexProvider {
+
+    public GatedPageSearchIndexProvider() {
+        super();
+    }
+
+    public GatedPageSearchIndexProvider(int xmlRes) {
+        super(xmlRes);
+    }
+
+    @Override
+    public long getDynamicStateHash(Context context) {
+        return isPageSearchEnabled(context)
+                ? DYNAMIC_STATE_UNKNOWN : DYNAMIC_STATE_PAGE_SEARCH_DISABLED;
+    }
+
+    @Override
+    protected abstract boolean isPageSearchEnabled(Context context);
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.android.settings.search.SettingsSearchIndexablesProvider.getBundleName;
+
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.search.SearchIndexableData;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Fans out a per-provider computation, such as non-indexable keys, across a bounded thread pool.
+ *
+ * <p>Many providers block on binder calls, so running them concurrently shortens the overall
+ * query. Each provider is given {@link #getProviderTimeoutMillis()} from the moment it starts
+ * running. A provider exceeding it contributes the keys it returned last time, and keeps running
+ * so the next query gets fresh keys; if it never returned before, the query waits for it. Keys
+ * hide settings from search, so a slow provider must never make the result shorter. Results are
+ * merged in the order of the input bundles regardless of completion order, and the timing of the
+ * last run is kept for {@link #dump(PrintWriter)}.
+ */
+class NonIndexableKeysCollector {
+
+    private static final String TAG = "NonIndexableKeysColl";
+
+    @VisibleForTesting
+    static final long PROVIDER_TIMEOUT_MS = 2000;
+    private static final long SLOW_PROVIDER_THRESHOLD_MS = 100;
+    private static final int MAX_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    /** Computes the result of a single provider. May return null. */
+    interface ProviderFunction {
+        List<String> apply(SearchIndexableData bundle);
+    }
+
+    private final ExecutorService mExecutor;
+    @GuardedBy("mLastKnownKeys")
+    private final ArrayMap<String, List<String>> mLastKnownKeys = new ArrayMap<>();
+    private List<ProviderTiming> mLastTimings = Collections.emptyList();
+    private long mLastWallTimeMillis;
+
+    NonIndexableKeysCollector() {
+        this(createExecutor());
+    }
+
+    @VisibleForTesting
+    NonIndexableKeysCollector(ExecutorService executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Runs {@code function} for every bundle and returns the concatenation of all non-null
+     * results, in bundle order.
+     */
+    List<String> collect(Collection<SearchIndexableData> bundles, ProviderFunction function) {
+        final long startTime = SystemClock.elapsedRealtime();
+        final List<ProviderTiming> timings = new ArrayList<>(bundles.size());
+        final List<Future<List<String>>> futures = new ArrayList<>(bundles.size());
+        for (SearchIndexableData bundle : bundles) {
+            final ProviderTiming timing = new ProviderTiming(getBundleName(bundle));
+            timings.add(timing);
+            futures.add(mExecutor.submit(() -> {
+                timing.mStartTime = SystemClock.elapsedRealtime();
+                timing.mStarted = true;
+                final long startCpuTime = SystemClock.currentThreadTimeMillis();
+                try {
+                    final List<String> keys = function.apply(bundle);
+                    synchronized (mLastKnownKeys) {
+                        mLastKnownKeys.put(timing.mClassName,
+                                keys == null ? Collections.emptyList() : new ArrayList<>(keys));
+                    }
+                    return keys;
+                } finally {
+                    timing.mCpuTimeMillis = SystemClock.currentThreadTimeMillis() - startCpuTime;
+                    timing.mWallTimeMillis = SystemClock.elapsedRealtime() - timing.mStartTime;
+                }
+            }));
+        }
+
+        final List<String> result = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            final ProviderTiming timing = timings.get(i);
+            final List<String> keys = await(futures.get(i), timing);
+            if (keys != null) {
+                timing.mKeyCount = keys.size();
+                result.addAll(keys);
+            }
+            if (timing.mWallTimeMillis > SLOW_PROVIDER_THRESHOLD_MS) {
+                Log.i(TAG, "Slow provider " + timing);
+            }
+        }
+
+        synchronized (this) {
+            mLastTimings = timings;
+            mLastWallTimeMillis = SystemClock.elapsedRealtime() - startTime;
+        }
+        return result;
+    }
+
+    /**
+     * Runs {@code function} for every bundle on the same pool and waits for all of them, without
+     * a timeout. Returns the non-null results keyed by bundle name; a provider which fails is
+     * logged and left out.
+     */
+    <T> Map<String, T> computeAll(Collection<SearchIndexableData> bundles,
+            Function<SearchIndexableData, T> function) {
+        final List<Future<T>> futures = new ArrayList<>(bundles.size());
+        for (SearchIndexableData bundle : bundles) {
+            futures.add(mExecutor.submit(() -> function.apply(bundle)));
+        }
+
+        final Map<String, T> results = new ArrayMap<>(bundles.size());
+        int i = 0;
+        for (SearchIndexableData bundle : bundles) {
+            final Future<T> future = futures.get(i++);
+            try {
+                final T result = future.get();
+                if (result != null) {
+                    results.put(getBundleName(bundle), result);
+                }
+            } catch (InterruptedException e) {
+                for (int j = i - 1; j < futures.size(); j++) {
+                    futures.get(j).cancel(true /* mayInterruptIfRunning */);
+                }
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                // Propagate crashes requested through SYSPROP_CRASH_ON_ERROR.
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                Log.e(TAG, "Error trying to get results from: " + getBundleName(bundle), e);
+            }
+        }
+        return results;
+    }
+
+    /** Returns the timings of the last {@link #collect} call, in bundle order. */
+    synchronized List<ProviderTiming> getLastTimings() {
+        return mLastTimings;
+    }
+
+    /** Returns the wall-clock duration of the last {@link #collect} call. */
+    synchronized long getLastWallTimeMillis() {
+        return mLastWallTimeMillis;
+    }
+
+    /** Prints the timings of the last run, slowest provider first. */
+    void dump(PrintWriter writer) {
+        final List<ProviderTiming> timings;
+        final long wallTime;
+        synchronized (this) {
+            timings = new ArrayList<>(mLastTimings);
+            wallTime = mLastWallTimeMillis;
+        }
+        long cpuTime = 0;
+        for (ProviderTiming timing : timings) {
+            cpuTime += timing.mCpuTimeMillis;
+        }
+        timings.sort((a, b) -> Long.compare(b.mWallTimeMillis, a.mWallTimeMillis));
+        writer.println("Non-indexable keys: " + timings.size() + " providers, wall time "
+                + wallTime + "ms, sum of cpu time " + cpuTime + "ms");
+        for (ProviderTiming timing : timings) {
+            writer.println("  " + timing);
+        }
+    }
+
+    @VisibleForTesting
+    long getProviderTimeoutMillis() {
+        return PROVIDER_TIMEOUT_MS;
+    }
+
+    private List<String> await(Future<List<String>> future, ProviderTiming timing) {
+        try {
+            while (true) {
+                if (!timing.mStarted) {
+                    // Still queued behind other providers, the timeout has not started yet.
+                    try {
+                        return future.get(getProviderTimeoutMillis(), TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        continue;
+                    }
+                }
+                final long remaining = timing.mStartTime + getProviderTimeoutMillis()
+                        - SystemClock.elapsedRealtime();
+                try {
+                    return future.get(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    timing.mTimedOut = true;
+                }
+                final List<String> lastKnownKeys;
+                synchronized (mLastKnownKeys) {
+                    lastKnownKeys = mLastKnownKeys.get(timing.mClassName);
+                }
+                if (lastKnownKeys != null) {
+                    // The provider keeps running and refreshes its keys for the next query.
+                    Log.w(TAG, "Timed out getting non-indexable keys from: " + timing.mClassName
+                            + ", using the last known keys");
+                    return lastKnownKeys;
+                }
+                Log.w(TAG, "Timed out getting non-indexable keys from: " + timing.mClassName
+                        + ", waiting since there are no known keys");
+                return future.get();
+            }
+        } catch (InterruptedException e) {
+            future.cancel(true /* mayInterruptIfRunning */);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Propagate crashes requested through SYSPROP_CRASH_ON_ERROR.
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            Log.e(TAG, "Error trying to get non-indexable keys from: " + timing.mClassName, e);
+        }
+        return null;
+    }
+
+    private static ExecutorService createExecutor() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        final int threads = Math.max(1,
+                Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> new Thread(r, "SearchIndexables-" + threadCount.incrementAndGet()));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** Timing of a single provider in the last run. */
+    static class ProviderTiming {
+        final String mClassName;
+        volatile boolean mStarted;
+        volatile long mStartTime;
+        volatile long mWallTimeMillis;
+        volatile long mCpuTimeMillis;
+        volatile boolean mTimedOut;
+        int mKeyCount;
+
+        ProviderTiming(String className) {
+            mClassName = className;
+        }
+
+        @Override
+        public String toString() {
+            return mClassName + ": wall " + mWallTimeMillis + "ms, cpu " + mCpuTimeMillis
+                    + "ms, keys " + mKeyCount + (mTimedOut ? ", timed out" : "");
+        }
+    }
+}
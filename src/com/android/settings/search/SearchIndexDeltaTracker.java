@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.android.settings.search.BaseSearchIndexProvider.DYNAMIC_STATE_UNKNOWN;
+import static com.android.settings.search.SettingsSearchIndexablesProvider.getBundleName;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.search.Indexable;
+import com.android.settingslib.search.SearchIndexableData;
+import com.android.settingslib.search.SearchIndexableRaw;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the dynamic state hash of every {@link BaseSearchIndexProvider} so the search index can
+ * ask which providers changed since a previously returned token.
+ *
+ * <p>Providers with a cheap {@link BaseSearchIndexProvider#getDynamicStateHash(Context)} are
+ * compared on that hash. For the others the tracker loads their non-indexable keys and dynamic
+ * raw data, all at once through the {@link ResultLoader}, and compares a hash of those; the
+ * loaded results are handed back in the {@link Delta} so the caller doesn't compute them twice.
+ *
+ * <p>A token encodes the tracker epoch (unique per process) and a generation counter which is
+ * bumped whenever at least one provider is found changed. Tokens from another epoch, including
+ * {@link #NO_TOKEN}, report every provider as changed.
+ */
+class SearchIndexDeltaTracker {
+
+    private static final String TAG = "SearchIndexDeltaTracker";
+
+    static final long NO_TOKEN = 0;
+
+    private final long mEpoch;
+    private final Map<String, Long> mStateHashes = new ArrayMap<>();
+    private final Map<String, Long> mChangedGenerations = new ArrayMap<>();
+    private long mGeneration;
+
+    SearchIndexDeltaTracker() {
+        this(SystemClock.elapsedRealtime());
+    }
+
+    @VisibleForTesting
+    SearchIndexDeltaTracker(long epoch) {
+        // Keep the epoch non-zero so that no valid token equals NO_TOKEN.
+        mEpoch = (epoch & 0x7fffffffL) | 1L;
+    }
+
+    /**
+     * Refreshes the state hash of every provider in {@code bundles} and returns the bundles that
+     * changed since {@code sinceToken}, along with the token to pass on the next call.
+     *
+     * <p>Providers without a cheap hash are handed to {@code loader} in a single call, outside the
+     * tracker lock, so concurrent queries don't wait on each other's providers.
+     */
+    Delta getChangedSince(Context context, Collection<SearchIndexableData> bundles,
+            long sinceToken, ResultLoader loader) {
+        final Map<String, Long> hashes = new ArrayMap<>(bundles.size());
+        final List<SearchIndexableData> bundlesToLoad = new ArrayList<>();
+        for (SearchIndexableData bundle : bundles) {
+            final long hash = getStateHash(context, bundle);
+            if (hash == DYNAMIC_STATE_UNKNOWN) {
+                bundlesToLoad.add(bundle);
+            } else {
+                hashes.put(getBundleName(bundle), hash);
+            }
+        }
+        final Map<String, Result> results = bundlesToLoad.isEmpty()
+                ? new ArrayMap<>() : loader.loadResults(bundlesToLoad);
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            hashes.put(entry.getKey(), entry.getValue().getHash());
+        }
+
+        synchronized (this) {
+            final List<String> changedNow = new ArrayList<>();
+            for (SearchIndexableData bundle : bundles) {
+                final String name = getBundleName(bundle);
+                final Long hash = hashes.get(name);
+                final Long previousHash = mStateHashes.get(name);
+                if (hash == null) {
+                    // Failed to load, report it as changed and compare afresh next time.
+                    mStateHashes.remove(name);
+                    changedNow.add(name);
+                } else if (previousHash == null || !previousHash.equals(hash)) {
+                    mStateHashes.put(name, hash);
+                    changedNow.add(name);
+                }
+            }
+            if (!changedNow.isEmpty()) {
+                mGeneration++;
+                for (String name : changedNow) {
+                    mChangedGenerations.put(name, mGeneration);
+                }
+            }
+
+            final boolean sameEpoch = (sinceToken >>> 32) == mEpoch;
+            final long sinceGeneration = sinceToken & 0xffffffffL;
+            final List<SearchIndexableData> changed = new ArrayList<>();
+            for (SearchIndexableData bundle : bundles) {
+                final Long generation = mChangedGenerations.get(getBundleName(bundle));
+                if (!sameEpoch || generation == null || generation > sinceGeneration) {
+                    changed.add(bundle);
+                }
+            }
+            return new Delta((mEpoch << 32) | mGeneration, changed, results);
+        }
+    }
+
+    private static long getStateHash(Context context, SearchIndexableData bundle) {
+        final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+        if (!(provider instanceof BaseSearchIndexProvider)) {
+            return DYNAMIC_STATE_UNKNOWN;
+        }
+        try {
+            return ((BaseSearchIndexProvider) provider).getDynamicStateHash(context);
+        } catch (Exception e) {
+            Log.w(TAG, "Error getting state hash from: " + getBundleName(bundle), e);
+            return DYNAMIC_STATE_UNKNOWN;
+        }
+    }
+
+    /** Loads the results of providers which can't describe their state cheaply. */
+    interface ResultLoader {
+        /**
+         * Returns the result of every bundle keyed by bundle name. A bundle which failed to load
+         * is left out.
+         */
+        Map<String, Result> loadResults(List<SearchIndexableData> bundles);
+    }
+
+    /** Non-indexable keys and dynamic raw data of a provider. */
+    static class Result {
+        private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+
+        @Nullable
+        final List<String> nonIndexableKeys;
+        final List<SearchIndexableRaw> dynamicRawData;
+
+        Result(@Nullable List<String> nonIndexableKeys, List<SearchIndexableRaw> dynamicRawData) {
+            this.nonIndexableKeys = nonIndexableKeys;
+            this.dynamicRawData = dynamicRawData;
+        }
+
+        @VisibleForTesting
+        long getHash() {
+            long hash = FNV_OFFSET_BASIS;
+            if (nonIndexableKeys != null) {
+                for (String key : nonIndexableKeys) {
+                    hash = mix(hash, key);
+                }
+            }
+            // Keeps a key from hashing the same as a raw data field.
+            hash = mix(hash, "|");
+            for (SearchIndexableRaw raw : dynamicRawData) {
+                hash = mix(hash, raw.title);
+                hash = mix(hash, raw.summaryOn);
+                hash = mix(hash, raw.summaryOff);
+                hash = mix(hash, raw.entries);
+                hash = mix(hash, raw.keywords);
+                hash = mix(hash, raw.screenTitle);
+                hash = mix(hash, raw.className);
+                hash = mix(hash, String.valueOf(raw.iconResId));
+                hash = mix(hash, raw.intentAction);
+                hash = mix(hash, raw.intentTargetPackage);
+                hash = mix(hash, raw.intentTargetClass);
+                hash = mix(hash, raw.key);
+                hash = mix(hash, String.valueOf(raw.userId));
+            }
+            return hash == DYNAMIC_STATE_UNKNOWN ? FNV_OFFSET_BASIS : hash;
+        }
+
+        private static long mix(long hash, @Nullable String value) {
+            if (value == null) {
+                return (hash ^ 0xff) * FNV_PRIME;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+            // Separates consecutive values.
+            return (hash ^ 0xfe) * FNV_PRIME;
+        }
+    }
+
+    /** Providers changed since a token, and the token describing the current state. */
+    static class Delta {
+        final long token;
+        final List<SearchIndexableData> changedBundles;
+        /** Results loaded while computing the delta, keyed by bundle name. */
+        final Map<String, Result> results;
+
+        Delta(long token, List<SearchIndexableData> changedBundles, Map<String, Result> results) {
+            this.token = token;
+            this.changedBundles = changedBundles;
+            this.results = results;
+        }
+    }
+}
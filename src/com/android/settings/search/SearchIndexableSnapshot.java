@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.MatrixCursor;
+import android.os.Build;
+import android.os.SystemProperties;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Binary snapshot of the static indexable data served by
+ * {@link SettingsSearchIndexablesProvider}.
+ *
+ * <p>XML resources and static raw data only change with the Settings build or the device locale,
+ * so the provider computes them once, persists the cursor rows here and streams them back on
+ * subsequent queries instead of walking every {@code SearchIndexProvider} again. Each snapshot
+ * file carries a version key made of the build fingerprint, the Settings package update time and
+ * the current locales; a snapshot with a different key is treated as missing. Raw data is only
+ * snapshotted for providers which declare it static with
+ * {@link BaseSearchIndexProvider#isRawDataStatic()}.
+ */
+class SearchIndexableSnapshot {
+
+    private static final String TAG = "SearchIndexSnapshot";
+
+    /**
+     * Flag for a system property which disables the snapshot, forcing every query to walk all
+     * providers. Used by benchmarks to compare both paths.
+     */
+    static final String SYSPROP_DISABLE_SNAPSHOT =
+            "debug.com.android.settings.search.disable_snapshot";
+
+    private static final String SNAPSHOT_DIR = "search_snapshot";
+    static final String SECTION_XML_RES = "xml_res";
+    static final String SECTION_RAW = "raw";
+
+    private static final int MAGIC = 0x53495353; // "SISS"
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_INT = 1;
+    private static final byte TYPE_STRING = 2;
+
+    private final Context mContext;
+    private final File mDir;
+    private final String mBuildKey;
+
+    SearchIndexableSnapshot(Context context) {
+        mContext = context;
+        mDir = new File(context.getCacheDir(), SNAPSHOT_DIR);
+        mBuildKey = getBuildKey(context);
+    }
+
+    /**
+     * Streams the rows of {@code section} into {@code cursor}.
+     *
+     * @return true if a valid snapshot was found, false if the caller must discard
+     * {@code cursor} and compute the rows.
+     */
+    boolean read(String section, MatrixCursor cursor) {
+        if (isDisabled()) {
+            return false;
+        }
+        final File file = getFile(section);
+        if (!file.exists()) {
+            return false;
+        }
+        final int columnCount = cursor.getColumnCount();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || !getVersionKey().equals(in.readUTF()) || in.readInt() != columnCount) {
+                Log.i(TAG, "Stale snapshot for " + section);
+                return false;
+            }
+            final int rowCount = in.readInt();
+            final Object[] row = new Object[columnCount];
+            for (int i = 0; i < rowCount; i++) {
+                for (int column = 0; column < columnCount; column++) {
+                    row[column] = readValue(in);
+                }
+                cursor.addRow(row);
+            }
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to read snapshot for " + section, e);
+            // The cursor may hold a partial result, the caller must discard it.
+            return false;
+        }
+    }
+
+    /**
+     * Persists {@code rows} for {@code section}. Failures are logged and otherwise ignored, the
+     * next query simply computes the rows again.
+     */
+    void write(String section, int columnCount, List<Object[]> rows) {
+        if (isDisabled()) {
+            return;
+        }
+        if (!mDir.exists() && !mDir.mkdirs()) {
+            Log.w(TAG, "Unable to create " + mDir);
+            return;
+        }
+        final File file = getFile(section);
+        // Queries run on binder threads, each writer needs its own file until the rename.
+        final File tmpFile;
+        try {
+            tmpFile = File.createTempFile(section, ".tmp", mDir);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to create snapshot file for " + section, e);
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(getVersionKey());
+            out.writeInt(columnCount);
+            out.writeInt(rows.size());
+            for (Object[] row : rows) {
+                for (int column = 0; column < columnCount; column++) {
+                    writeValue(out, row[column]);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Unable to write snapshot for " + section, e);
+            tmpFile.delete();
+            return;
+        }
+        if (!tmpFile.renameTo(file)) {
+            Log.w(TAG, "Unable to commit snapshot for " + section);
+            tmpFile.delete();
+        }
+    }
+
+    @VisibleForTesting
+    File getFile(String section) {
+        return new File(mDir, section + ".bin");
+    }
+
+    private static boolean isDisabled() {
+        return SystemProperties.getBoolean(SYSPROP_DISABLE_SNAPSHOT, false);
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_INT:
+                return in.readInt();
+            case TYPE_STRING:
+                return in.readUTF();
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof CharSequence) {
+            out.writeByte(TYPE_STRING);
+            out.writeUTF(value.toString());
+        } else {
+            throw new IllegalArgumentException("Unsupported column type " + value.getClass());
+        }
+    }
+
+    /** The locale is resolved on each call since it may change during the process lifetime. */
+    private String getVersionKey() {
+        return mBuildKey + "|"
+                + mContext.getResources().getConfiguration().getLocales().toLanguageTags();
+    }
+
+    private static String getBuildKey(Context context) {
+        long lastUpdateTime = 0;
+        try {
+            lastUpdateTime = context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0 /* flags */).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Unable to find package " + context.getPackageName());
+        }
+        return Build.FINGERPRINT + "|" + lastUpdateTime;
+    }
+}
@@ -45,11 +45,14 @@ import static android.provider.SearchIndexablesContract.SLICE_URI_PAIRS_COLUMNS;
 
 import static com.android.settings.dashboard.DashboardFragmentRegistry.CATEGORY_KEY_TO_PARENT_MAP;
 
+import android.Manifest;
 import android.content.ContentResolver;
+import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.MatrixCursor;
 import android.net.Uri;
+import android.os.Bundle;
 import android.provider.SearchIndexableResource;
 import android.provider.SearchIndexablesContract;
 import android.provider.SearchIndexablesProvider;
@@ -77,6 +80,8 @@ import com.android.settingslib.search.Indexable;
 import com.android.settingslib.search.SearchIndexableData;
 import com.android.settingslib.search.SearchIndexableRaw;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -93,6 +98,22 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     public static final String SYSPROP_CRASH_ON_ERROR =
             "debug.com.android.settings.search.crash_on_error";
 
+    /**
+     * {@link #call} method returning the non-indexable keys of providers changed since a token.
+     */
+    public static final String METHOD_GET_NON_INDEXABLE_KEYS_DELTA = "getNonIndexableKeysDelta";
+    /** Token to pass as {@code arg} on the next delta call. */
+    public static final String EXTRA_DELTA_TOKEN = "delta_token";
+    /** Class names of the providers changed since the given token. */
+    public static final String EXTRA_CHANGED_CLASSES = "changed_classes";
+    /** Bundle mapping each changed provider class name to its non-indexable keys. */
+    public static final String EXTRA_NON_INDEXABLE_KEYS = "non_indexable_keys";
+    /**
+     * Bundle mapping each changed provider class name to its dynamic raw data, as a list of
+     * {@link ContentValues} keyed by {@code INDEXABLES_RAW_COLUMNS}.
+     */
+    public static final String EXTRA_DYNAMIC_RAW_DATA = "dynamic_raw_data";
+
     private static final String TAG = "SettingsSearchProvider";
 
     private static final Collection<String> INVALID_KEYS;
@@ -100,6 +121,11 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     // Search enabled states for injection (key: category key, value: search enabled)
     private Map<String, Boolean> mSearchEnabledByCategoryKeyMap;
 
+    private final SearchIndexDeltaTracker mDeltaTracker = new SearchIndexDeltaTracker();
+    private final NonIndexableKeysCollector mNonIndexableKeysCollector =
+            new NonIndexableKeysCollector();
+    private SearchIndexableSnapshot mSnapshot;
+
     static {
         INVALID_KEYS = new ArraySet<>();
         INVALID_KEYS.add(null);
@@ -112,9 +138,18 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         return true;
     }
 
+    /**
+     * Gets a Cursor of XML resources. The rows are static for a given build and locale, so they
+     * are served from {@link SearchIndexableSnapshot} once computed.
+     */
     @Override
     public Cursor queryXmlResources(String[] projection) {
-        final MatrixCursor cursor = new MatrixCursor(INDEXABLES_XML_RES_COLUMNS);
+        final MatrixCursor snapshotCursor = new MatrixCursor(INDEXABLES_XML_RES_COLUMNS);
+        if (getSnapshot().read(SearchIndexableSnapshot.SECTION_XML_RES, snapshotCursor)) {
+            return snapshotCursor;
+        }
+
+        final List<Object[]> rows = new ArrayList<>();
         final List<SearchIndexableResource> resources =
                 getSearchIndexableResourcesFromProvider(getContext());
         for (SearchIndexableResource val : resources) {
@@ -126,23 +161,38 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
             ref[COLUMN_INDEX_XML_RES_INTENT_ACTION] = val.intentAction;
             ref[COLUMN_INDEX_XML_RES_INTENT_TARGET_PACKAGE] = val.intentTargetPackage;
             ref[COLUMN_INDEX_XML_RES_INTENT_TARGET_CLASS] = null; // intent target class
-            cursor.addRow(ref);
+            rows.add(ref);
         }
+        getSnapshot().write(SearchIndexableSnapshot.SECTION_XML_RES,
+                INDEXABLES_XML_RES_COLUMNS.length, rows);
 
-        return cursor;
+        return createCursor(INDEXABLES_XML_RES_COLUMNS, rows);
     }
 
     /**
-     * Gets a Cursor of RawData. We use those data in search indexing time
+     * Gets a Cursor of RawData. We use those data in search indexing time. The rows of providers
+     * with static raw data are served from {@link SearchIndexableSnapshot} once computed, the
+     * others are computed on every query.
      */
     @Override
     public Cursor queryRawData(String[] projection) {
-        final MatrixCursor cursor = new MatrixCursor(INDEXABLES_RAW_COLUMNS);
-        final List<SearchIndexableRaw> raws = getSearchIndexableRawFromProvider(getContext());
-        for (SearchIndexableRaw val : raws) {
-            cursor.addRow(createIndexableRawColumnObjects(val));
+        final Context context = getContext();
+        MatrixCursor cursor = new MatrixCursor(INDEXABLES_RAW_COLUMNS);
+        if (!getSnapshot().read(SearchIndexableSnapshot.SECTION_RAW, cursor)) {
+            final List<Object[]> rows = new ArrayList<>();
+            for (SearchIndexableRaw val : getSearchIndexableRawFromProvider(context,
+                    true /* staticRawData */)) {
+                rows.add(createIndexableRawColumnObjects(val));
+            }
+            getSnapshot().write(SearchIndexableSnapshot.SECTION_RAW,
+                    INDEXABLES_RAW_COLUMNS.length, rows);
+            cursor = createCursor(INDEXABLES_RAW_COLUMNS, rows);
         }
 
+        for (SearchIndexableRaw val : getSearchIndexableRawFromProvider(context,
+                false /* staticRawData */)) {
+            cursor.addRow(createIndexableRawColumnObjects(val));
+        }
         return cursor;
     }
 
@@ -195,6 +245,92 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         return cursor;
     }
 
+    /**
+     * Handles {@link #METHOD_GET_NON_INDEXABLE_KEYS_DELTA}, which returns the non-indexable keys
+     * and dynamic raw data of only the providers whose dynamic state changed since the token
+     * passed as {@code arg}. An empty or unknown token returns every provider.
+     */
+    @Override
+    public Bundle call(String method, String arg, Bundle extras) {
+        if (!METHOD_GET_NON_INDEXABLE_KEYS_DELTA.equals(method)) {
+            return super.call(method, arg, extras);
+        }
+        final Context context = getContext();
+        context.enforceCallingOrSelfPermission(Manifest.permission.READ_SEARCH_INDEXABLES, TAG);
+
+        long sinceToken = SearchIndexDeltaTracker.NO_TOKEN;
+        if (!TextUtils.isEmpty(arg)) {
+            try {
+                sinceToken = Long.parseLong(arg);
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Invalid delta token " + arg);
+            }
+        }
+
+        final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(context)
+                .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
+        final SearchIndexDeltaTracker.Delta delta = mDeltaTracker.getChangedSince(context,
+                bundles, sinceToken, bundlesToLoad -> loadResults(context, bundlesToLoad));
+
+        // Providers found changed on their cheap hash still need their results loaded.
+        final List<SearchIndexableData> bundlesToLoad = new ArrayList<>();
+        for (SearchIndexableData bundle : delta.changedBundles) {
+            if (!delta.results.containsKey(getBundleName(bundle))) {
+                bundlesToLoad.add(bundle);
+            }
+        }
+        final Map<String, SearchIndexDeltaTracker.Result> results = new ArrayMap<>();
+        results.putAll(delta.results);
+        if (!bundlesToLoad.isEmpty()) {
+            results.putAll(loadResults(context, bundlesToLoad));
+        }
+
+        final ArrayList<String> changedClasses = new ArrayList<>();
+        final Bundle nonIndexableKeys = new Bundle();
+        final Bundle dynamicRawData = new Bundle();
+        for (SearchIndexableData bundle : delta.changedBundles) {
+            final String className = getBundleName(bundle);
+            final SearchIndexDeltaTracker.Result result = results.get(className);
+            if (result == null) {
+                // Failed to load, the tracker reports it again on the next query.
+                continue;
+            }
+            changedClasses.add(className);
+            nonIndexableKeys.putStringArrayList(className, result.nonIndexableKeys == null
+                    ? new ArrayList<>() : new ArrayList<>(result.nonIndexableKeys));
+            final ArrayList<ContentValues> rawValues = new ArrayList<>();
+            for (SearchIndexableRaw raw : result.dynamicRawData) {
+                rawValues.add(createIndexableRawContentValues(raw));
+            }
+            dynamicRawData.putParcelableArrayList(className, rawValues);
+        }
+        if (DEBUG) {
+            Log.d(TAG, "Delta since " + sinceToken + ": " + changedClasses.size() + " of "
+                    + bundles.size() + " providers changed");
+        }
+
+        final Bundle result = new Bundle();
+        result.putString(EXTRA_DELTA_TOKEN, String.valueOf(delta.token));
+        result.putStringArrayList(EXTRA_CHANGED_CLASSES, changedClasses);
+        result.putBundle(EXTRA_NON_INDEXABLE_KEYS, nonIndexableKeys);
+        result.putBundle(EXTRA_DYNAMIC_RAW_DATA, dynamicRawData);
+        return result;
+    }
+
+    /** Loads the results of {@code bundles} in parallel on the non-indexable keys pool. */
+    private Map<String, SearchIndexDeltaTracker.Result> loadResults(Context context,
+            List<SearchIndexableData> bundles) {
+        return mNonIndexableKeysCollector.computeAll(bundles,
+                bundle -> new SearchIndexDeltaTracker.Result(
+                        getNonIndexableKeysFromBundle(context, bundle),
+                        getDynamicSearchIndexableRawData(context, bundle)));
+    }
+
+    @Override
+    public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        mNonIndexableKeysCollector.dump(writer);
+    }
+
     @Override
     public Cursor querySiteMapPairs() {
         final MatrixCursor cursor = new MatrixCursor(SITE_MAP_COLUMNS);
@@ -274,51 +410,56 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(context)
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
 
-        final List<String> nonIndexableKeys = new ArrayList<>();
-
-        for (SearchIndexableData bundle : bundles) {
-            final long startTime = System.currentTimeMillis();
-            Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
-            List<String> providerNonIndexableKeys;
-            try {
-                providerNonIndexableKeys = provider.getNonIndexableKeys(context);
-            } catch (Exception e) {
-                // Catch a generic crash. In the absence of the catch, the background thread will
-                // silently fail anyway, so we aren't losing information by catching the exception.
-                // We crash when the system property exists so that we can test if crashes need to
-                // be fixed.
-                // The gain is that if there is a crash in a specific controller, we don't lose all
-                // non-indexable keys, but we can still find specific crashes in development.
-                if (System.getProperty(SYSPROP_CRASH_ON_ERROR) != null) {
-                    throw new RuntimeException(e);
-                }
-                Log.e(TAG, "Error trying to get non-indexable keys from: "
-                        + bundle.getTargetClass().getName(), e);
-                continue;
-            }
-
-            if (providerNonIndexableKeys == null || providerNonIndexableKeys.isEmpty()) {
-                if (DEBUG) {
-                    final long totalTime = System.currentTimeMillis() - startTime;
-                    Log.d(TAG, "No indexable, total time " + totalTime);
-                }
-                continue;
-            }
+        return mNonIndexableKeysCollector.collect(bundles,
+                bundle -> getNonIndexableKeysFromBundle(context, bundle));
+    }
 
-            if (providerNonIndexableKeys.removeAll(INVALID_KEYS)) {
-                Log.v(TAG, provider + " tried to add an empty non-indexable key");
+    /**
+     * Returns the valid non-indexable keys of a single provider, or null if it has none or
+     * failed to compute them.
+     */
+    @Nullable
+    private List<String> getNonIndexableKeysFromBundle(Context context,
+            SearchIndexableData bundle) {
+        final long startTime = System.currentTimeMillis();
+        Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+        List<String> providerNonIndexableKeys;
+        try {
+            providerNonIndexableKeys = provider.getNonIndexableKeys(context);
+        } catch (Exception e) {
+            // Catch a generic crash. In the absence of the catch, the background thread will
+            // silently fail anyway, so we aren't losing information by catching the exception.
+            // We crash when the system property exists so that we can test if crashes need to
+            // be fixed.
+            // The gain is that if there is a crash in a specific controller, we don't lose all
+            // non-indexable keys, but we can still find specific crashes in development.
+            if (System.getProperty(SYSPROP_CRASH_ON_ERROR) != null) {
+                throw new RuntimeException(e);
             }
+            Log.e(TAG, "Error trying to get non-indexable keys from: "
+                    + getBundleName(bundle), e);
+            return null;
+        }
 
+        if (providerNonIndexableKeys == null || providerNonIndexableKeys.isEmpty()) {
             if (DEBUG) {
                 final long totalTime = System.currentTimeMillis() - startTime;
-                Log.d(TAG, "Non-indexables " + providerNonIndexableKeys.size() + ", total time "
-                        + totalTime);
+                Log.d(TAG, "No indexable, total time " + totalTime);
             }
+            return null;
+        }
 
-            nonIndexableKeys.addAll(providerNonIndexableKeys);
+        if (providerNonIndexableKeys.removeAll(INVALID_KEYS)) {
+            Log.v(TAG, provider + " tried to add an empty non-indexable key");
         }
 
-        return nonIndexableKeys;
+        if (DEBUG) {
+            final long totalTime = System.currentTimeMillis() - startTime;
+            Log.d(TAG, "Non-indexables " + providerNonIndexableKeys.size() + ", total time "
+                    + totalTime);
+        }
+
+        return providerNonIndexableKeys;
     }
 
     private List<SearchIndexableResource> getSearchIndexableResourcesFromProvider(Context context) {
@@ -347,13 +488,23 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         return resourceList;
     }
 
-    private List<SearchIndexableRaw> getSearchIndexableRawFromProvider(Context context) {
+    /**
+     * Returns the raw data of the providers which declare it static if {@code staticRawData} is
+     * set, of all other providers otherwise.
+     */
+    private List<SearchIndexableRaw> getSearchIndexableRawFromProvider(Context context,
+            boolean staticRawData) {
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(context)
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
         final List<SearchIndexableRaw> rawList = new ArrayList<>();
 
         for (SearchIndexableData bundle : bundles) {
             Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+            final boolean isStatic = provider instanceof BaseSearchIndexProvider
+                    && ((BaseSearchIndexProvider) provider).isRawDataStatic();
+            if (isStatic != staticRawData) {
+                continue;
+            }
             final List<SearchIndexableRaw> providerRaws = provider.getRawDataToIndex(context,
                     true /* enabled */);
 
@@ -457,6 +608,45 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         return true;
     }
 
+    /**
+     * Returns a name identifying the provider of {@code bundle}, falling back to the provider
+     * class when the bundle has no target class.
+     */
+    static String getBundleName(SearchIndexableData bundle) {
+        if (bundle.getTargetClass() != null) {
+            return bundle.getTargetClass().getName();
+        }
+        return String.valueOf(bundle.getSearchIndexProvider());
+    }
+
+    private synchronized SearchIndexableSnapshot getSnapshot() {
+        if (mSnapshot == null) {
+            mSnapshot = new SearchIndexableSnapshot(getContext());
+        }
+        return mSnapshot;
+    }
+
+    private static MatrixCursor createCursor(String[] columns, List<Object[]> rows) {
+        final MatrixCursor cursor = new MatrixCursor(columns, rows.size());
+        for (Object[] row : rows) {
+            cursor.addRow(row);
+        }
+        return cursor;
+    }
+
+    private static ContentValues createIndexableRawContentValues(SearchIndexableRaw raw) {
+        final Object[] ref = createIndexableRawColumnObjects(raw);
+        final ContentValues values = new ContentValues(ref.length);
+        for (int i = 0; i < ref.length; i++) {
+            if (ref[i] instanceof Integer) {
+                values.put(INDEXABLES_RAW_COLUMNS[i], (Integer) ref[i]);
+            } else {
+                values.put(INDEXABLES_RAW_COLUMNS[i], (String) ref[i]);
+            }
+        }
+        return values;
+    }
+
     private static Object[] createIndexableRawColumnObjects(SearchIndexableRaw raw) {
         final Object[] ref = new Object[INDEXABLES_RAW_COLUMNS.length];
         ref[COLUMN_INDEX_RAW_TITLE] = raw.title;
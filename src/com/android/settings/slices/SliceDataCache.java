@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
+import android.util.LruCache;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.io.PrintWriter;
+
+/**
+ * Bounded cache of the {@link SliceData} bound by {@link SettingsSliceProvider}.
+ *
+ * <p>{@link SliceData} only holds the indexed metadata of a slice: its key, title, summary,
+ * icon and controller class. None of it depends on setting values, the toggle state, summary and
+ * availability are read from the controller every time the slice is bound. Settings changes
+ * therefore don't need to invalidate the cache, only changes to the index or the resources do.
+ *
+ * <p>Entries are strongly referenced so hot slices, such as the ones shown in panels, survive
+ * garbage collection. An entry is dropped when it is older than {@link #TTL_MILLIS}, when the
+ * slice index is rewritten, or when {@link #clear()} is called. Hit rate and latency counters are
+ * printed by {@link #dump(PrintWriter)}.
+ */
+class SliceDataCache {
+
+    @VisibleForTesting
+    static final int MAX_ENTRIES = 32;
+    @VisibleForTesting
+    static final long TTL_MILLIS = 30 * DateUtils.MINUTE_IN_MILLIS;
+
+    private final Context mContext;
+    private final LruCache<Uri, Entry> mCache;
+
+    private long mHits;
+    private long mMisses;
+    private long mExpirations;
+    private long mInvalidations;
+    private long mLoadCount;
+    private long mLoadTotalMillis;
+    private long mLoadMaxMillis;
+    private long mBindCount;
+    private long mBindTotalMicros;
+    private long mBindMaxMicros;
+
+    SliceDataCache(Context context) {
+        mContext = context;
+        mCache = new LruCache<>(MAX_ENTRIES);
+    }
+
+    /**
+     * @return the cached {@link SliceData} of {@code uri}, or {@code null} if it is missing or
+     * no longer valid.
+     */
+    SliceData get(Uri uri) {
+        final Entry entry = mCache.get(uri);
+        synchronized (this) {
+            if (entry == null) {
+                mMisses++;
+                return null;
+            }
+            if (elapsedRealtime() - entry.mLoadTime > TTL_MILLIS
+                    || entry.mIndexGeneration != getIndexGeneration()) {
+                mCache.remove(uri);
+                mExpirations++;
+                mMisses++;
+                return null;
+            }
+            mHits++;
+            return entry.mSliceData;
+        }
+    }
+
+    void put(Uri uri, SliceData sliceData) {
+        mCache.put(uri, new Entry(sliceData, elapsedRealtime(), getIndexGeneration()));
+    }
+
+    void remove(Uri uri) {
+        mCache.remove(uri);
+    }
+
+    /** Drops every entry, for instance when the configuration changes. */
+    synchronized void clear() {
+        mCache.evictAll();
+        mInvalidations++;
+    }
+
+    /** Records the time taken to load a {@link SliceData} on a cache miss. */
+    synchronized void recordLoad(long millis) {
+        mLoadCount++;
+        mLoadTotalMillis += millis;
+        mLoadMaxMillis = Math.max(mLoadMaxMillis, millis);
+    }
+
+    /** Records the time taken to bind a slice served from the cache. */
+    synchronized void recordBind(long micros) {
+        mBindCount++;
+        mBindTotalMicros += micros;
+        mBindMaxMicros = Math.max(mBindMaxMicros, micros);
+    }
+
+    @VisibleForTesting
+    synchronized long getHitCount() {
+        return mHits;
+    }
+
+    @VisibleForTesting
+    synchronized long getMissCount() {
+        return mMisses;
+    }
+
+    synchronized void dump(PrintWriter writer) {
+        final long requests = mHits + mMisses;
+        writer.println("SliceData cache: " + mCache.size() + "/" + mCache.maxSize() + " entries");
+        writer.println("  hits: " + mHits + ", misses: " + mMisses + ", hit rate: "
+                + (requests == 0 ? 0 : mHits * 100 / requests) + "%");
+        writer.println("  expirations: " + mExpirations + ", evictions: "
+                + mCache.evictionCount() + ", invalidations: " + mInvalidations);
+        writer.println("  loads: " + mLoadCount + ", avg " + average(mLoadTotalMillis, mLoadCount)
+                + "ms, max " + mLoadMaxMillis + "ms");
+        writer.println("  cached binds: " + mBindCount + ", avg "
+                + average(mBindTotalMicros, mBindCount) + "us, max " + mBindMaxMicros + "us");
+    }
+
+    @VisibleForTesting
+    long elapsedRealtime() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    private int getIndexGeneration() {
+        return SlicesDatabaseHelper.getInstance(mContext).getSliceDataCacheGeneration();
+    }
+
+    private static long average(long total, long count) {
+        return count == 0 ? 0 : total / count;
+    }
+
+    private static class Entry {
+        final SliceData mSliceData;
+        final long mLoadTime;
+        final int mIndexGeneration;
+
+        Entry(SliceData sliceData, long loadTime, int indexGeneration) {
+            mSliceData = sliceData;
+            mLoadTime = loadTime;
+            mIndexGeneration = indexGeneration;
+        }
+    }
+}
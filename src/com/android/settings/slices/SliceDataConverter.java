@@ -19,6 +19,7 @@ package com.android.settings.slices;
 import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_CONTROLLER;
 import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_ICON;
 import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_PREF_TYPE;
 import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_SUMMARY;
 import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_TITLE;
 import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_UNAVAILABLE_SLICE_SUBTITLE;
@@ -28,6 +29,7 @@ import android.app.settings.SettingsEnums;
 import android.content.ComponentName;
 import android.content.ContentResolver;
 import android.content.Context;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.content.pm.ServiceInfo;
@@ -39,10 +41,12 @@ import android.provider.SearchIndexableResource;
 import android.provider.SettingsSlicesContract;
 import android.text.TextUtils;
 import android.util.AttributeSet;
+import android.util.Base64;
 import android.util.Log;
 import android.util.Xml;
 import android.view.accessibility.AccessibilityManager;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
@@ -52,7 +56,6 @@ import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceXmlParserUtils;
 import com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag;
 import com.android.settings.dashboard.DashboardFragment;
-import com.android.settings.notification.RingerModeAffectedVolumePreferenceController;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 import com.android.settingslib.search.Indexable.SearchIndexProvider;
@@ -62,6 +65,9 @@ import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -81,8 +87,19 @@ class SliceDataConverter {
 
     private static final String NODE_NAME_PREFERENCE_SCREEN = "PreferenceScreen";
 
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+
+    private static final int SLICE_METADATA_FLAGS = MetadataFlag.FLAG_NEED_KEY
+            | MetadataFlag.FLAG_NEED_PREF_CONTROLLER
+            | MetadataFlag.FLAG_NEED_PREF_TYPE
+            | MetadataFlag.FLAG_NEED_PREF_TITLE
+            | MetadataFlag.FLAG_NEED_PREF_ICON
+            | MetadataFlag.FLAG_NEED_PREF_SUMMARY
+            | MetadataFlag.FLAG_UNAVAILABLE_SLICE_SUBTITLE;
+
     private final MetricsFeatureProvider mMetricsFeatureProvider;
     private Context mContext;
+    private String mPackageVersion;
 
     public SliceDataConverter(Context context) {
         mContext = context;
@@ -102,28 +119,89 @@ class SliceDataConverter {
     public List<SliceData> getSliceData() {
         List<SliceData> sliceData = new ArrayList<>();
 
-        final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(mContext)
-                .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
+        for (SearchIndexableData bundle : getSearchIndexableData()) {
+            sliceData.addAll(getSliceDataFromBundle(bundle));
+        }
 
-        for (SearchIndexableData bundle : bundles) {
-            final String fragmentName = bundle.getTargetClass().getName();
+        final List<SliceData> a11ySliceData = getAccessibilitySliceData();
+        sliceData.addAll(a11ySliceData);
+        return sliceData;
+    }
 
-            final SearchIndexProvider provider = bundle.getSearchIndexProvider();
+    /**
+     * @return the sources converted by {@link #getSliceDataFromBundle(SearchIndexableData)}.
+     */
+    Collection<SearchIndexableData> getSearchIndexableData() {
+        return FeatureFactory.getFactory(mContext)
+                .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
+    }
 
-            // CodeInspection test guards against the null check. Keep check in case of bad actors.
-            if (provider == null) {
-                Log.e(TAG, fragmentName + " dose not implement Search Index Provider");
-                continue;
-            }
+    /**
+     * @return the {@link SliceData} of a single search indexable source. Safe to call
+     * concurrently for different sources.
+     */
+    List<SliceData> getSliceDataFromBundle(SearchIndexableData bundle) {
+        final String fragmentName = bundle.getTargetClass().getName();
+
+        final SearchIndexProvider provider = bundle.getSearchIndexProvider();
 
-            final List<SliceData> providerSliceData = getSliceDataFromProvider(provider,
-                    fragmentName);
-            sliceData.addAll(providerSliceData);
+        // CodeInspection test guards against the null check. Keep check in case of bad actors.
+        if (provider == null) {
+            Log.e(TAG, fragmentName + " dose not implement Search Index Provider");
+            return new ArrayList<>();
         }
 
-        final List<SliceData> a11ySliceData = getAccessibilitySliceData();
-        sliceData.addAll(a11ySliceData);
-        return sliceData;
+        return getSliceDataFromProvider(provider, fragmentName);
+    }
+
+    /**
+     * @return a fingerprint of everything {@link #getSliceDataFromBundle(SearchIndexableData)}
+     * reads for {@code bundle} that only changes with an update: the XML resources and their
+     * parsed metadata, the current locale, and the version of the Settings package, which covers
+     * what each controller returns for its slice URI and type. No controller is instantiated.
+     * Controller availability is not part of the index and is checked when slices are queried.
+     * {@code null} if the source cannot be fingerprinted and must always be converted.
+     */
+    @Nullable
+    String getFingerprint(SearchIndexableData bundle) {
+        final SearchIndexProvider provider = bundle.getSearchIndexProvider();
+        if (provider == null) {
+            return null;
+        }
+        try {
+            final MessageDigest digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+            updateDigest(digest, mContext.getResources().getConfiguration().getLocales()
+                    .toLanguageTags());
+            updateDigest(digest, getPackageVersion());
+            final List<SearchIndexableResource> resList =
+                    provider.getXmlResourcesToIndex(mContext, true /* enabled */);
+            if (resList != null) {
+                for (SearchIndexableResource resource : resList) {
+                    if (resource.xmlResId == 0) {
+                        continue;
+                    }
+                    updateDigest(digest, String.valueOf(resource.xmlResId));
+                    updateDigest(digest, getScreenTitle(resource.xmlResId));
+                    for (Bundle metadata : PreferenceXmlParserUtils.extractMetadata(mContext,
+                            resource.xmlResId, SLICE_METADATA_FLAGS)) {
+                        updateDigest(digest, metadata.getString(METADATA_PREF_TYPE));
+                        updateDigest(digest, metadata.getString(METADATA_KEY));
+                        updateDigest(digest, metadata.getString(METADATA_CONTROLLER));
+                        updateDigest(digest, metadata.getString(METADATA_TITLE));
+                        updateDigest(digest, metadata.getString(METADATA_SUMMARY));
+                        updateDigest(digest, String.valueOf(metadata.getInt(METADATA_ICON)));
+                        updateDigest(digest,
+                                metadata.getString(METADATA_UNAVAILABLE_SLICE_SUBTITLE));
+                    }
+                }
+            }
+            return Base64.encodeToString(digest.digest(), Base64.NO_WRAP);
+        } catch (NoSuchAlgorithmException e) {
+            Log.e(TAG, "Unable to fingerprint slice sources", e);
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to fingerprint " + bundle.getTargetClass(), e);
+        }
+        return null;
     }
 
     private List<SliceData> getSliceDataFromProvider(SearchIndexProvider provider,
@@ -161,35 +239,13 @@ class SliceDataConverter {
 
         try {
             parser = mContext.getResources().getXml(xmlResId);
-
-            int type;
-            while ((type = parser.next()) != XmlPullParser.END_DOCUMENT
-                    && type != XmlPullParser.START_TAG) {
-                // Parse next until start tag is found
-            }
-
-            String nodeName = parser.getName();
-            if (!NODE_NAME_PREFERENCE_SCREEN.equals(nodeName)) {
-                throw new RuntimeException(
-                        "XML document must start with <PreferenceScreen> tag; found"
-                                + nodeName + " at " + parser.getPositionDescription());
-            }
-
-            final AttributeSet attrs = Xml.asAttributeSet(parser);
-            final String screenTitle = PreferenceXmlParserUtils.getDataTitle(mContext, attrs);
+            final String screenTitle = getScreenTitle(parser);
 
             // TODO (b/67996923) Investigate if we need headers for Slices, since they never
             // correspond to an actual setting.
 
             final List<Bundle> metadata = PreferenceXmlParserUtils.extractMetadata(mContext,
-                    xmlResId,
-                    MetadataFlag.FLAG_NEED_KEY
-                            | MetadataFlag.FLAG_NEED_PREF_CONTROLLER
-                            | MetadataFlag.FLAG_NEED_PREF_TYPE
-                            | MetadataFlag.FLAG_NEED_PREF_TITLE
-                            | MetadataFlag.FLAG_NEED_PREF_ICON
-                            | MetadataFlag.FLAG_NEED_PREF_SUMMARY
-                            | MetadataFlag.FLAG_UNAVAILABLE_SLICE_SUBTITLE);
+                    xmlResId, SLICE_METADATA_FLAGS);
 
             for (Bundle bundle : metadata) {
                 // TODO (b/67996923) Non-controller Slices should become intent-only slices.
@@ -202,11 +258,9 @@ class SliceDataConverter {
                 final String key = bundle.getString(METADATA_KEY);
                 final BasePreferenceController controller = SliceBuilderUtils
                         .getPreferenceController(mContext, controllerClassName, key);
-                // Only add pre-approved Slices available on the device.
-                // Always index RingerModeAffected slices so they are available for panel
-                if (!controller.isSliceable()
-                        || !(controller.isAvailable()
-                        || controller instanceof RingerModeAffectedVolumePreferenceController)) {
+                // Only add pre-approved Slices. Availability is checked when slices are queried,
+                // see SlicesDatabaseAccessor#getSliceUris.
+                if (!controller.isSliceable()) {
                     continue;
                 }
                 final String title = bundle.getString(METADATA_TITLE);
@@ -263,7 +317,53 @@ class SliceDataConverter {
         return xmlSliceData;
     }
 
-    private List<SliceData> getAccessibilitySliceData() {
+    private synchronized String getPackageVersion()
+            throws PackageManager.NameNotFoundException {
+        if (mPackageVersion == null) {
+            final PackageInfo info = mContext.getPackageManager().getPackageInfo(
+                    mContext.getPackageName(), 0 /* flags */);
+            mPackageVersion = info.getLongVersionCode() + ":" + info.lastUpdateTime;
+        }
+        return mPackageVersion;
+    }
+
+    private String getScreenTitle(int xmlResId) throws IOException, XmlPullParserException {
+        try (XmlResourceParser parser = mContext.getResources().getXml(xmlResId)) {
+            return getScreenTitle(parser);
+        }
+    }
+
+    private String getScreenTitle(XmlResourceParser parser)
+            throws IOException, XmlPullParserException {
+        int type;
+        while ((type = parser.next()) != XmlPullParser.END_DOCUMENT
+                && type != XmlPullParser.START_TAG) {
+            // Parse next until start tag is found
+        }
+
+        String nodeName = parser.getName();
+        if (!NODE_NAME_PREFERENCE_SCREEN.equals(nodeName)) {
+            throw new RuntimeException(
+                    "XML document must start with <PreferenceScreen> tag; found"
+                            + nodeName + " at " + parser.getPositionDescription());
+        }
+
+        final AttributeSet attrs = Xml.asAttributeSet(parser);
+        return PreferenceXmlParserUtils.getDataTitle(mContext, attrs);
+    }
+
+    private static void updateDigest(MessageDigest digest, @Nullable String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        // Separate values so that moving characters across fields changes the fingerprint.
+        digest.update((byte) 0);
+    }
+
+    /**
+     * @return the {@link SliceData} of the accessibility services allowed as slices.
+     */
+    List<SliceData> getAccessibilitySliceData() {
         final List<SliceData> sliceData = new ArrayList<>();
 
         final String accessibilityControllerClassName =
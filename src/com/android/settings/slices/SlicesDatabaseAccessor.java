@@ -24,21 +24,33 @@ import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.os.Binder;
 import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
 import android.util.Pair;
 
 import androidx.slice.Slice;
 
+import com.android.settings.core.BasePreferenceController;
+import com.android.settings.notification.RingerModeAffectedVolumePreferenceController;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Class used to map a {@link Uri} from {@link SettingsSliceProvider} to a Slice.
+ *
+ * <p>Lookups by key are answered from an in-memory copy of the index, loaded once from the
+ * database and kept by {@link SlicesDatabaseHelper} until the index is rewritten.
  */
 public class SlicesDatabaseAccessor {
 
+    private static final String TAG = "SlicesDatabaseAccessor";
+
     public static final String[] SELECT_COLUMNS_ALL = {
             IndexColumns.KEY,
             IndexColumns.TITLE,
@@ -72,6 +84,10 @@ public class SlicesDatabaseAccessor {
         if (pathData == null) {
             throw new IllegalStateException("Invalid Slices uri: " + uri);
         }
+        final SliceData cachedData = getCachedSliceData(pathData.second /* key */);
+        if (cachedData != null) {
+            return copySliceData(cachedData, uri, pathData.first /* isIntentOnly */);
+        }
         try (Cursor cursor = getIndexedSliceData(pathData.second /* key */)) {
             return buildSliceData(cursor, uri, pathData.first /* isIntentOnly */);
         }
@@ -83,6 +99,10 @@ public class SlicesDatabaseAccessor {
      * Used when handling the action of the {@link Slice}.
      */
     public SliceData getSliceDataFromKey(String key) {
+        final SliceData cachedData = getCachedSliceData(key);
+        if (cachedData != null) {
+            return cachedData;
+        }
         try (Cursor cursor = getIndexedSliceData(key)) {
             return buildSliceData(cursor, null /* uri */, false /* isIntentOnly */);
         }
@@ -90,14 +110,15 @@ public class SlicesDatabaseAccessor {
 
     /**
      * @return a list of Slice {@link Uri}s based on their visibility {@param isPublicSlice } and
-     * {@param authority}.
+     * {@param authority}. Only slices whose controller is available on the device are returned.
      */
     public List<Uri> getSliceUris(String authority, boolean isPublicSlice) {
         verifyIndexing();
         final List<Uri> uris = new ArrayList<>();
         final String whereClause = IndexColumns.PUBLIC_SLICE + (isPublicSlice ? "=1" : "=0");
         final SQLiteDatabase database = mHelper.getReadableDatabase();
-        final String[] columns = new String[]{IndexColumns.SLICE_URI};
+        final String[] columns = new String[]{IndexColumns.SLICE_URI, IndexColumns.KEY,
+                IndexColumns.CONTROLLER};
         try (Cursor resultCursor = database.query(TABLE_SLICES_INDEX, columns,
                 whereClause /* where */, null /* selection */, null /* groupBy */,
                 null /* having */, null /* orderBy */)) {
@@ -107,8 +128,10 @@ public class SlicesDatabaseAccessor {
 
             do {
                 final Uri uri = Uri.parse(resultCursor.getString(0 /* SLICE_URI */));
-                if (TextUtils.isEmpty(authority)
-                        || TextUtils.equals(authority, uri.getAuthority())) {
+                if ((TextUtils.isEmpty(authority)
+                        || TextUtils.equals(authority, uri.getAuthority()))
+                        && isSliceAvailable(resultCursor.getString(2 /* CONTROLLER */),
+                                resultCursor.getString(1 /* KEY */))) {
                     uris.add(uri);
                 }
             } while (resultCursor.moveToNext());
@@ -116,6 +139,22 @@ public class SlicesDatabaseAccessor {
         return uris;
     }
 
+    /**
+     * Availability is not indexed, so that the index only changes with the XML and the Settings
+     * package. Always returns RingerModeAffected slices so they are available for panel.
+     */
+    private boolean isSliceAvailable(String controllerClassName, String key) {
+        try {
+            final BasePreferenceController controller = SliceBuilderUtils
+                    .getPreferenceController(mContext, controllerClassName, key);
+            return controller.isAvailable()
+                    || controller instanceof RingerModeAffectedVolumePreferenceController;
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to check availability of slice " + key, e);
+            return false;
+        }
+    }
+
     private Cursor getIndexedSliceData(String path) {
         verifyIndexing();
 
@@ -142,6 +181,64 @@ public class SlicesDatabaseAccessor {
         return resultCursor;
     }
 
+    /**
+     * @return the indexed {@link SliceData} of {@code key} without a uri, or {@code null} if the
+     * key has no single valid row, in which case the caller falls back to the database so
+     * errors are reported as before.
+     */
+    private SliceData getCachedSliceData(String key) {
+        verifyIndexing();
+        Map<String, SliceData> cache = mHelper.getSliceDataCache();
+        if (cache == null) {
+            final int generation = mHelper.getSliceDataCacheGeneration();
+            cache = loadSliceData();
+            mHelper.setSliceDataCache(cache, generation);
+        }
+        return cache.get(key);
+    }
+
+    private Map<String, SliceData> loadSliceData() {
+        final Map<String, SliceData> sliceData = new ArrayMap<>();
+        final Set<String> duplicateKeys = new ArraySet<>();
+        final SQLiteDatabase database = mHelper.getReadableDatabase();
+        try (Cursor cursor = database.query(TABLE_SLICES_INDEX, SELECT_COLUMNS_ALL,
+                null /* where */, null /* selection */, null /* groupBy */, null /* having */,
+                null /* orderBy */)) {
+            while (cursor.moveToNext()) {
+                final String key = cursor.getString(cursor.getColumnIndex(IndexColumns.KEY));
+                if (sliceData.containsKey(key) || duplicateKeys.contains(key)) {
+                    sliceData.remove(key);
+                    duplicateKeys.add(key);
+                    continue;
+                }
+                try {
+                    sliceData.put(key, buildSliceData(cursor, null /* uri */,
+                            false /* isIntentOnly */));
+                } catch (SliceData.InvalidSliceDataException e) {
+                    Log.w(TAG, "Invalid indexed slice data for " + key, e);
+                }
+            }
+        }
+        return sliceData;
+    }
+
+    private static SliceData copySliceData(SliceData data, Uri uri, boolean isIntentOnly) {
+        return new SliceData.Builder()
+                .setKey(data.getKey())
+                .setTitle(data.getTitle())
+                .setSummary(data.getSummary())
+                .setScreenTitle(data.getScreenTitle())
+                .setKeywords(data.getKeywords())
+                .setIcon(data.getIconResource())
+                .setFragmentName(data.getFragmentClassName())
+                .setPreferenceControllerClassName(data.getPreferenceController())
+                .setUri(uri)
+                .setSliceType(isIntentOnly ? SliceData.SliceType.INTENT : data.getSliceType())
+                .setUnavailableSliceSubtitle(data.getUnavailableSliceSubtitle())
+                .setHighlightMenuRes(data.getHighlightMenuRes())
+                .build();
+    }
+
     private String buildKeyMatchWhereClause() {
         return new StringBuilder(IndexColumns.KEY)
                 .append(" = ?")
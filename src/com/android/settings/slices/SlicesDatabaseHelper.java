@@ -25,6 +25,7 @@ import android.util.Log;
 import androidx.annotation.VisibleForTesting;
 
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Defines the schema for the Slices database.
@@ -36,10 +37,11 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "slices_index.db";
     private static final String SHARED_PREFS_TAG = "slices_shared_prefs";
 
-    private static final int DATABASE_VERSION = 9;
+    private static final int DATABASE_VERSION = 10;
 
     public interface Tables {
         String TABLE_SLICES_INDEX = "slices_index";
+        String TABLE_SLICES_FINGERPRINTS = "slices_fingerprints";
     }
 
     public interface IndexColumns {
@@ -108,6 +110,24 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
          * Resource ID for the menu entry of the setting.
          */
         String HIGHLIGHT_MENU_RESOURCE = "highlight_menu";
+
+        /**
+         * Name of the source the row was converted from, used to replace the rows of a single
+         * source on reindex.
+         */
+        String SOURCE = "source";
+    }
+
+    public interface FingerprintColumns {
+        /**
+         * Primary key of the table. Name of the source, matches {@link IndexColumns#SOURCE}.
+         */
+        String SOURCE = "source";
+
+        /**
+         * Content fingerprint of the source when its rows were last written.
+         */
+        String FINGERPRINT = "fingerprint";
     }
 
     private static final String CREATE_SLICES_TABLE =
@@ -138,13 +158,30 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
                     + IndexColumns.PUBLIC_SLICE
                     + ", "
                     + IndexColumns.HIGHLIGHT_MENU_RESOURCE
-                    + " INTEGER DEFAULT 0 "
+                    + " INTEGER DEFAULT 0, "
+                    + IndexColumns.SOURCE
+                    + ");";
+
+    private static final String CREATE_FINGERPRINTS_TABLE =
+            "CREATE TABLE " + Tables.TABLE_SLICES_FINGERPRINTS
+                    + "("
+                    + FingerprintColumns.SOURCE
+                    + " TEXT PRIMARY KEY, "
+                    + FingerprintColumns.FINGERPRINT
+                    + " TEXT"
                     + ");";
 
     private final Context mContext;
 
     private static SlicesDatabaseHelper sSingleton;
 
+    /**
+     * Every indexed row keyed by slice key, loaded once by {@link SlicesDatabaseAccessor} and
+     * dropped whenever the index is rewritten.
+     */
+    private Map<String, SliceData> mSliceDataCache;
+    private int mSliceDataCacheGeneration;
+
     public static synchronized SlicesDatabaseHelper getInstance(Context context) {
         if (sSingleton == null) {
             sSingleton = new SlicesDatabaseHelper(context.getApplicationContext());
@@ -182,6 +219,7 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
                 .apply();
         dropTables(db);
         createDatabases(db);
+        invalidateSliceDataCache();
     }
 
     /**
@@ -202,13 +240,49 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
         return isBuildIndexed() && isLocaleIndexed();
     }
 
+    /**
+     * @return the in-memory copy of the index, or {@code null} if it has not been loaded since the
+     * index was last written.
+     */
+    synchronized Map<String, SliceData> getSliceDataCache() {
+        return mSliceDataCache;
+    }
+
+    /**
+     * @return a token to pass to {@link #setSliceDataCache(Map, int)}, taken before loading the
+     * in-memory copy of the index.
+     */
+    synchronized int getSliceDataCacheGeneration() {
+        return mSliceDataCacheGeneration;
+    }
+
+    /**
+     * Stores the in-memory copy of the index, unless the index was written since
+     * {@code generation} was taken.
+     */
+    synchronized void setSliceDataCache(Map<String, SliceData> sliceDataCache, int generation) {
+        if (generation == mSliceDataCacheGeneration) {
+            mSliceDataCache = sliceDataCache;
+        }
+    }
+
+    /**
+     * Drops the in-memory copy of the index. Must be called after the index is written.
+     */
+    synchronized void invalidateSliceDataCache() {
+        mSliceDataCache = null;
+        mSliceDataCacheGeneration++;
+    }
+
     private void createDatabases(SQLiteDatabase db) {
         db.execSQL(CREATE_SLICES_TABLE);
+        db.execSQL(CREATE_FINGERPRINTS_TABLE);
         Log.d(TAG, "Created databases");
     }
 
     private void dropTables(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_SLICES_INDEX);
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_SLICES_FINGERPRINTS);
     }
 
     private void setBuildIndexed() {
@@ -18,7 +18,11 @@ package com.android.settings.slices;
 
 import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -26,19 +30,63 @@ import androidx.annotation.VisibleForTesting;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.overlay.FeatureFactory;
+import com.android.settings.slices.SlicesDatabaseHelper.FingerprintColumns;
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 import com.android.settings.slices.SlicesDatabaseHelper.Tables;
+import com.android.settingslib.search.SearchIndexableData;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Manages the conversion of {@link DashboardFragment} and {@link BasePreferenceController} to
  * indexable data {@link SliceData} to be stored for Slices.
+ *
+ * <p>Sources are converted in parallel on a small thread pool and streamed into the database in
+ * source order, with at most {@link #MAX_PENDING_SOURCES} converted sources held in memory.
+ * Each source is stored with a content fingerprint from
+ * {@link SliceDataConverter#getFingerprint(SearchIndexableData)}, and a reindex only rewrites the
+ * rows of sources whose fingerprint changed.
  */
 class SlicesIndexer implements Runnable {
 
     private static final String TAG = "SlicesIndexer";
 
+    @VisibleForTesting
+    static final int MAX_PENDING_SOURCES = 8;
+    private static final int MAX_CONVERTER_THREADS = 4;
+
+    @VisibleForTesting
+    static final String SOURCE_ACCESSIBILITY = "accessibility_services";
+
+    private static final String INSERT_SLICE_SQL = "INSERT OR REPLACE INTO "
+            + Tables.TABLE_SLICES_INDEX + " ("
+            + IndexColumns.KEY + ", "
+            + IndexColumns.SLICE_URI + ", "
+            + IndexColumns.TITLE + ", "
+            + IndexColumns.SUMMARY + ", "
+            + IndexColumns.SCREENTITLE + ", "
+            + IndexColumns.KEYWORDS + ", "
+            + IndexColumns.ICON_RESOURCE + ", "
+            + IndexColumns.FRAGMENT + ", "
+            + IndexColumns.CONTROLLER + ", "
+            + IndexColumns.SLICE_TYPE + ", "
+            + IndexColumns.UNAVAILABLE_SLICE_SUBTITLE + ", "
+            + IndexColumns.PUBLIC_SLICE + ", "
+            + IndexColumns.HIGHLIGHT_MENU_RESOURCE + ", "
+            + IndexColumns.SOURCE
+            + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SOURCE_WHERE_CLAUSE = IndexColumns.SOURCE + " = ?";
+    private static final String FINGERPRINT_WHERE_CLAUSE = FingerprintColumns.SOURCE + " = ?";
+
     private Context mContext;
 
     private SlicesDatabaseHelper mHelper;
@@ -71,55 +119,199 @@ class SlicesIndexer implements Runnable {
         long startTime = System.currentTimeMillis();
         database.beginTransaction();
         try {
-            mHelper.reconstruct(database);
-            List<SliceData> indexData = getSliceData();
-            insertSliceData(database, indexData);
+            final int count = streamSliceData(database);
 
             mHelper.setIndexedState();
 
             // TODO (b/71503044) Log indexing time.
-            Log.d(TAG,
-                    "Indexing slices database took: " + (System.currentTimeMillis() - startTime));
+            Log.d(TAG, "Indexing " + count + " slices took: "
+                    + (System.currentTimeMillis() - startTime));
             database.setTransactionSuccessful();
         } finally {
             database.endTransaction();
+            mHelper.invalidateSliceDataCache();
+        }
+    }
+
+    /**
+     * Converts every source whose fingerprint changed in parallel and replaces its rows in source
+     * order as results become available. Rows of sources which no longer exist are removed.
+     *
+     * @return the number of inserted rows.
+     */
+    @VisibleForTesting
+    int streamSliceData(SQLiteDatabase database) {
+        final SliceDataConverter converter = getSliceDataConverter();
+        final Map<String, String> fingerprints = getFingerprints(database);
+        final Set<String> removedSources = new ArraySet<>(fingerprints.keySet());
+        final Set<String> writtenSources = new ArraySet<>();
+        final SQLiteStatement statement = database.compileStatement(INSERT_SLICE_SQL);
+        final ExecutorService executor = Executors.newFixedThreadPool(MAX_CONVERTER_THREADS);
+        final Deque<Future<SourceData>> pending = new ArrayDeque<>();
+        int count = 0;
+        int skipped = 0;
+        try {
+            for (SearchIndexableData bundle : converter.getSearchIndexableData()) {
+                final String source = bundle.getTargetClass().getName();
+                final String previousFingerprint = fingerprints.get(source);
+                removedSources.remove(source);
+                pending.addLast(executor.submit(
+                        () -> convertSource(converter, bundle, source, previousFingerprint)));
+                if (pending.size() >= MAX_PENDING_SOURCES) {
+                    final SourceData data = awaitSourceData(pending.removeFirst());
+                    count += writeSourceData(database, statement, writtenSources, data);
+                    skipped += data != null && data.mSliceData == null ? 1 : 0;
+                }
+            }
+            while (!pending.isEmpty()) {
+                final SourceData data = awaitSourceData(pending.removeFirst());
+                count += writeSourceData(database, statement, writtenSources, data);
+                skipped += data != null && data.mSliceData == null ? 1 : 0;
+            }
+            // Installed accessibility services are not fingerprinted, always rewrite them.
+            removedSources.remove(SOURCE_ACCESSIBILITY);
+            count += writeSourceData(database, statement, writtenSources, new SourceData(
+                    SOURCE_ACCESSIBILITY, null /* fingerprint */,
+                    converter.getAccessibilitySliceData()));
+            for (String source : removedSources) {
+                final String[] whereArgs = {source};
+                database.delete(Tables.TABLE_SLICES_INDEX, SOURCE_WHERE_CLAUSE, whereArgs);
+                database.delete(Tables.TABLE_SLICES_FINGERPRINTS, FINGERPRINT_WHERE_CLAUSE,
+                        whereArgs);
+            }
+        } finally {
+            for (Future<SourceData> future : pending) {
+                future.cancel(true /* mayInterruptIfRunning */);
+            }
+            executor.shutdownNow();
+            statement.close();
         }
+        Log.d(TAG, "Skipped " + skipped + " unchanged slice sources");
+        return count;
     }
 
     @VisibleForTesting
     List<SliceData> getSliceData() {
-        return FeatureFactory.getFactory(mContext)
-                .getSlicesFeatureProvider()
-                .getSliceDataConverter(mContext)
-                .getSliceData();
+        return getSliceDataConverter().getSliceData();
     }
 
     @VisibleForTesting
     void insertSliceData(SQLiteDatabase database, List<SliceData> indexData) {
-        ContentValues values;
+        final SQLiteStatement statement = database.compileStatement(INSERT_SLICE_SQL);
+        try {
+            insertSliceData(statement, null /* source */, indexData);
+        } finally {
+            statement.close();
+        }
+    }
 
+    private int insertSliceData(SQLiteStatement statement, String source,
+            List<SliceData> indexData) {
         for (SliceData dataRow : indexData) {
-            values = new ContentValues();
-            values.put(IndexColumns.KEY, dataRow.getKey());
-            values.put(IndexColumns.SLICE_URI, dataRow.getUri().toString());
-            values.put(IndexColumns.TITLE, dataRow.getTitle());
-            values.put(IndexColumns.SUMMARY, dataRow.getSummary());
-            final CharSequence screenTitle = dataRow.getScreenTitle();
-            if (screenTitle != null) {
-                values.put(IndexColumns.SCREENTITLE, screenTitle.toString());
+            statement.clearBindings();
+            bindString(statement, 1, dataRow.getKey());
+            bindString(statement, 2, dataRow.getUri().toString());
+            bindString(statement, 3, dataRow.getTitle());
+            bindString(statement, 4, dataRow.getSummary());
+            bindString(statement, 5, dataRow.getScreenTitle());
+            bindString(statement, 6, dataRow.getKeywords());
+            statement.bindLong(7, dataRow.getIconResource());
+            bindString(statement, 8, dataRow.getFragmentClassName());
+            bindString(statement, 9, dataRow.getPreferenceController());
+            statement.bindLong(10, dataRow.getSliceType());
+            bindString(statement, 11, dataRow.getUnavailableSliceSubtitle());
+            statement.bindLong(12, dataRow.isPublicSlice() ? 1 : 0);
+            statement.bindLong(13, dataRow.getHighlightMenuRes());
+            bindString(statement, 14, source);
+            statement.executeInsert();
+        }
+        return indexData.size();
+    }
+
+    private SliceDataConverter getSliceDataConverter() {
+        return FeatureFactory.getFactory(mContext)
+                .getSlicesFeatureProvider()
+                .getSliceDataConverter(mContext);
+    }
+
+    /**
+     * Replaces the rows and the fingerprint of a source. {@code data} without slice data marks
+     * an unchanged source and is left untouched. Stored rows are only dropped the first time a
+     * source is written in a pass, so repeated sources append to each other.
+     */
+    private int writeSourceData(SQLiteDatabase database, SQLiteStatement statement,
+            Set<String> writtenSources, SourceData data) {
+        if (data == null || data.mSliceData == null) {
+            return 0;
+        }
+        if (writtenSources.add(data.mSource)) {
+            database.delete(Tables.TABLE_SLICES_INDEX, SOURCE_WHERE_CLAUSE,
+                    new String[]{data.mSource});
+        }
+        // Sources without a fingerprint are stored with an empty one, which never matches, so
+        // they are tracked for removal but always converted again.
+        final ContentValues values = new ContentValues();
+        values.put(FingerprintColumns.SOURCE, data.mSource);
+        values.put(FingerprintColumns.FINGERPRINT,
+                data.mFingerprint == null ? "" : data.mFingerprint);
+        database.replaceOrThrow(Tables.TABLE_SLICES_FINGERPRINTS, null /* nullColumnHack */,
+                values);
+        return insertSliceData(statement, data.mSource, data.mSliceData);
+    }
+
+    private static Map<String, String> getFingerprints(SQLiteDatabase database) {
+        final Map<String, String> fingerprints = new ArrayMap<>();
+        final String[] columns = {FingerprintColumns.SOURCE, FingerprintColumns.FINGERPRINT};
+        try (Cursor cursor = database.query(Tables.TABLE_SLICES_FINGERPRINTS, columns,
+                null /* where */, null /* selection */, null /* groupBy */, null /* having */,
+                null /* orderBy */)) {
+            while (cursor.moveToNext()) {
+                fingerprints.put(cursor.getString(0), cursor.getString(1));
             }
-            values.put(IndexColumns.KEYWORDS, dataRow.getKeywords());
-            values.put(IndexColumns.ICON_RESOURCE, dataRow.getIconResource());
-            values.put(IndexColumns.FRAGMENT, dataRow.getFragmentClassName());
-            values.put(IndexColumns.CONTROLLER, dataRow.getPreferenceController());
-            values.put(IndexColumns.SLICE_TYPE, dataRow.getSliceType());
-            values.put(IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
-                    dataRow.getUnavailableSliceSubtitle());
-            values.put(IndexColumns.PUBLIC_SLICE, dataRow.isPublicSlice());
-            values.put(IndexColumns.HIGHLIGHT_MENU_RESOURCE, dataRow.getHighlightMenuRes());
-
-            database.replaceOrThrow(Tables.TABLE_SLICES_INDEX, null /* nullColumnHack */,
-                    values);
+        }
+        return fingerprints;
+    }
+
+    private static SourceData convertSource(SliceDataConverter converter,
+            SearchIndexableData bundle, String source, String previousFingerprint) {
+        final String fingerprint = converter.getFingerprint(bundle);
+        if (fingerprint != null && fingerprint.equals(previousFingerprint)) {
+            return new SourceData(source, fingerprint, null /* sliceData */);
+        }
+        return new SourceData(source, fingerprint, converter.getSliceDataFromBundle(bundle));
+    }
+
+    private static SourceData awaitSourceData(Future<SourceData> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // The converter already handles errors per source, keep the stored rows and move on.
+            Log.w(TAG, "Failed to convert slice data", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, CharSequence value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value.toString());
+        }
+    }
+
+    /** The result of converting a single source. */
+    private static class SourceData {
+        final String mSource;
+        final String mFingerprint;
+        /** {@code null} if the source is unchanged since it was last indexed. */
+        final List<SliceData> mSliceData;
+
+        SourceData(String source, String fingerprint, List<SliceData> sliceData) {
+            mSource = source;
+            mFingerprint = fingerprint;
+            mSliceData = sliceData;
         }
     }
 }
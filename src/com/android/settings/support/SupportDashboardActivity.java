@@ -57,6 +57,11 @@ public class SupportDashboardActivity extends Activity implements Indexable {
             new BaseSearchIndexProvider() {
                 private static final String SUPPORT_SEARCH_INDEX_KEY = "support_dashboard_activity";
 
+                @Override
+                public boolean isRawDataStatic() {
+                    return true;
+                }
+
                 @Override
                 public List<SearchIndexableRaw> getRawDataToIndex(Context context,
                         boolean enabled) {
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.tests.perf;
+
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+
+import static junit.framework.TestCase.assertNotNull;
+
+import android.app.Instrumentation;
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.provider.SearchIndexablesContract;
+import android.support.test.uiautomator.UiDevice;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the time Settings needs to serve a full reindex of its static search data with and
+ * without the on-disk search indexable snapshot.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SearchIndexablesBenchmarkTest {
+
+    private static final String AUTHORITY = "com.android.settings";
+    private static final String SYSPROP_DISABLE_SNAPSHOT =
+            "debug.com.android.settings.search.disable_snapshot";
+    private static final int TEST_TIME = 10;
+
+    private Bundle mBundle;
+    private UiDevice mDevice;
+    private Instrumentation mInstrumentation;
+    private ContentResolver mResolver;
+
+    @Before
+    public void setUp() throws Exception {
+        mBundle = new Bundle();
+        mInstrumentation = getInstrumentation();
+        mDevice = UiDevice.getInstance(mInstrumentation);
+        mResolver = mInstrumentation.getTargetContext().getContentResolver();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        setSnapshotDisabled(false);
+        mInstrumentation.sendStatus(0, mBundle);
+    }
+
+    @Test
+    public void reindexPerformanceTest() throws Exception {
+        setSnapshotDisabled(true);
+        final List<Long> withoutSnapshot = measureReindex();
+
+        setSnapshotDisabled(false);
+        // Prime the snapshot, the first query after enabling it writes the file.
+        queryStaticData();
+        final List<Long> withSnapshot = measureReindex();
+
+        putResultToBundle("without_snapshot", withoutSnapshot);
+        putResultToBundle("with_snapshot", withSnapshot);
+    }
+
+    private List<Long> measureReindex() {
+        final List<Long> results = new ArrayList<>();
+        for (int i = 0; i < TEST_TIME; i++) {
+            final long startTime = SystemClock.elapsedRealtime();
+            queryStaticData();
+            results.add(SystemClock.elapsedRealtime() - startTime);
+        }
+        return results;
+    }
+
+    private void queryStaticData() {
+        drain(SearchIndexablesContract.INDEXABLES_XML_RES_PATH,
+                SearchIndexablesContract.INDEXABLES_XML_RES_COLUMNS);
+        drain(SearchIndexablesContract.INDEXABLES_RAW_PATH,
+                SearchIndexablesContract.INDEXABLES_RAW_COLUMNS);
+    }
+
+    private void drain(String path, String[] columns) {
+        final Uri uri = new Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(AUTHORITY)
+                .appendPath(path)
+                .build();
+        try (Cursor cursor = mResolver.query(uri, columns, null, null, null)) {
+            assertNotNull(cursor);
+            while (cursor.moveToNext()) {
+                cursor.getString(0);
+            }
+        }
+    }
+
+    private void setSnapshotDisabled(boolean disabled) throws Exception {
+        mDevice.executeShellCommand(
+                "setprop " + SYSPROP_DISABLE_SNAPSHOT + " " + disabled);
+    }
+
+    private void putResultToBundle(String name, List<Long> results) {
+        Collections.sort(results);
+        final long sum = results.stream().mapToLong(Long::longValue).sum();
+        mBundle.putString(String.format("SearchIndexablesBenchmarkTest_%s_%s", name, "min"),
+                String.valueOf(results.get(0)));
+        mBundle.putString(String.format("SearchIndexablesBenchmarkTest_%s_%s", name, "max"),
+                String.valueOf(results.get(results.size() - 1)));
+        mBundle.putString(String.format("SearchIndexablesBenchmarkTest_%s_%s", name, "avg"),
+                String.valueOf(sum / results.size()));
+        mBundle.putString(String.format("SearchIndexablesBenchmarkTest_%s_%s", name, "median"),
+                String.valueOf(results.get(results.size() / 2)));
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.AppOpsManager;
+import android.app.AppOpsManager.OpEntry;
+import android.app.AppOpsManager.PackageOps;
+import android.content.pm.IPackageManager;
+import android.content.pm.PackageInfo;
+import android.content.pm.ParceledListSlice;
+import android.os.RemoteException;
+import android.os.SystemClock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppOpsStateCacheTest {
+    private static final String PERMISSION = "android.permission.SYSTEM_ALERT_WINDOW";
+    private static final String PACKAGE_NAME = "com.android.app";
+    private static final int USER_ID = 0;
+    private static final int UID = 10001;
+    private static final int OP_A = AppOpsManager.OP_SYSTEM_ALERT_WINDOW;
+    private static final int OP_B = AppOpsManager.OP_WRITE_SETTINGS;
+
+    @Mock
+    private IPackageManager mPackageManager;
+    @Mock
+    private AppOpsManager mAppOpsManager;
+
+    private AppOpsStateCache mCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mCache = new AppOpsStateCache();
+    }
+
+    @Test
+    public void getAppOpPermissionPackages_twice_queriesOnce() throws RemoteException {
+        when(mPackageManager.getAppOpPermissionPackages(PERMISSION))
+                .thenReturn(new String[] {PACKAGE_NAME});
+
+        mCache.getAppOpPermissionPackages(mPackageManager, PERMISSION);
+        final String[] packages = mCache.getAppOpPermissionPackages(mPackageManager, PERMISSION);
+
+        assertThat(packages).asList().containsExactly(PACKAGE_NAME);
+        verify(mPackageManager, times(1)).getAppOpPermissionPackages(PERMISSION);
+    }
+
+    @Test
+    public void isPackageAvailable_cachedPerUser() throws RemoteException {
+        when(mPackageManager.isPackageAvailable(PACKAGE_NAME, USER_ID)).thenReturn(true);
+        when(mPackageManager.isPackageAvailable(PACKAGE_NAME, USER_ID + 10)).thenReturn(false);
+
+        assertThat(mCache.isPackageAvailable(mPackageManager, PACKAGE_NAME, USER_ID)).isTrue();
+        assertThat(mCache.isPackageAvailable(mPackageManager, PACKAGE_NAME, USER_ID)).isTrue();
+        assertThat(mCache.isPackageAvailable(mPackageManager, PACKAGE_NAME, USER_ID + 10))
+                .isFalse();
+
+        verify(mPackageManager, times(1)).isPackageAvailable(PACKAGE_NAME, USER_ID);
+        verify(mPackageManager, times(1)).isPackageAvailable(PACKAGE_NAME, USER_ID + 10);
+    }
+
+    @Test
+    public void getPackagesHoldingPermissions_nullSlice_returnsEmptyList()
+            throws RemoteException {
+        when(mPackageManager.getPackagesHoldingPermissions(any(), anyInt(), anyInt()))
+                .thenReturn(null);
+
+        assertThat(mCache.getPackagesHoldingPermissions(mPackageManager,
+                new String[] {PERMISSION}, USER_ID)).isEmpty();
+    }
+
+    @Test
+    public void getPackagesHoldingPermissions_samePermissions_queriesOnce()
+            throws RemoteException {
+        final PackageInfo packageInfo = new PackageInfo();
+        packageInfo.packageName = PACKAGE_NAME;
+        when(mPackageManager.getPackagesHoldingPermissions(any(), anyInt(), anyInt()))
+                .thenReturn(new ParceledListSlice<>(Collections.singletonList(packageInfo)));
+
+        mCache.getPackagesHoldingPermissions(mPackageManager, new String[] {PERMISSION}, USER_ID);
+        final List<PackageInfo> packageInfos = mCache.getPackagesHoldingPermissions(
+                mPackageManager, new String[] {PERMISSION}, USER_ID);
+
+        assertThat(packageInfos).containsExactly(packageInfo);
+        verify(mPackageManager, times(1)).getPackagesHoldingPermissions(any(), anyInt(),
+                anyInt());
+    }
+
+    @Test
+    public void getPackagesForOps_knownOps_filtersForEachCaller() {
+        when(mAppOpsManager.getPackagesForOps(new int[] {OP_A}))
+                .thenReturn(Collections.singletonList(newPackageOps(OP_A)));
+        when(mAppOpsManager.getPackagesForOps(new int[] {OP_A, OP_B}))
+                .thenReturn(Collections.singletonList(newPackageOps(OP_A, OP_B)));
+
+        // The first caller teaches the cache about OP_A, the second one queries both ops.
+        mCache.getPackagesForOps(mPackageManager, mAppOpsManager, new int[] {OP_A});
+        final List<PackageOps> opsB =
+                mCache.getPackagesForOps(mPackageManager, mAppOpsManager, new int[] {OP_B});
+        final List<PackageOps> opsA =
+                mCache.getPackagesForOps(mPackageManager, mAppOpsManager, new int[] {OP_A});
+
+        assertThat(opsB).hasSize(1);
+        assertThat(opsB.get(0).getOps()).hasSize(1);
+        assertThat(opsB.get(0).getOps().get(0).getOp()).isEqualTo(OP_B);
+        assertThat(opsA.get(0).getOps()).hasSize(1);
+        assertThat(opsA.get(0).getOps().get(0).getOp()).isEqualTo(OP_A);
+        verify(mAppOpsManager, times(2)).getPackagesForOps(any(int[].class));
+    }
+
+    @Test
+    public void getPackagesForOps_noMatchingEntry_dropsPackage() {
+        when(mAppOpsManager.getPackagesForOps(any(int[].class)))
+                .thenReturn(Collections.singletonList(newPackageOps(OP_A)));
+
+        mCache.getPackagesForOps(mPackageManager, mAppOpsManager, new int[] {OP_A});
+
+        assertThat(mCache.getPackagesForOps(mPackageManager, mAppOpsManager, new int[] {OP_B}))
+                .isEmpty();
+    }
+
+    @Test
+    public void queryInFlight_otherQueriesNotBlocked_sameQueryWaits() throws Exception {
+        final CountDownLatch queryStarted = new CountDownLatch(1);
+        final CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(mPackageManager.getAppOpPermissionPackages(PERMISSION)).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await();
+            return new String[] {PACKAGE_NAME};
+        });
+        when(mPackageManager.isPackageAvailable(PACKAGE_NAME, USER_ID)).thenReturn(true);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<String[]> first = executor.submit(
+                    () -> mCache.getAppOpPermissionPackages(mPackageManager, PERMISSION));
+            assertThat(queryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            final Future<String[]> second = executor.submit(
+                    () -> mCache.getAppOpPermissionPackages(mPackageManager, PERMISSION));
+
+            // Answered while the first query is still in flight.
+            assertThat(mCache.isPackageAvailable(mPackageManager, PACKAGE_NAME, USER_ID))
+                    .isTrue();
+            assertThat(second.isDone()).isFalse();
+
+            releaseQuery.countDown();
+            assertThat(second.get(5, TimeUnit.SECONDS))
+                    .isSameInstanceAs(first.get(5, TimeUnit.SECONDS));
+        } finally {
+            releaseQuery.countDown();
+            executor.shutdownNow();
+        }
+        verify(mPackageManager, times(1)).getAppOpPermissionPackages(PERMISSION);
+    }
+
+    @Test
+    public void queryFailed_notCached() throws RemoteException {
+        when(mPackageManager.isPackageAvailable(PACKAGE_NAME, USER_ID))
+                .thenThrow(new RemoteException())
+                .thenReturn(true);
+
+        try {
+            mCache.isPackageAvailable(mPackageManager, PACKAGE_NAME, USER_ID);
+        } catch (RemoteException expected) {
+            // Expected, the next call asks again.
+        }
+
+        assertThat(mCache.isPackageAvailable(mPackageManager, PACKAGE_NAME, USER_ID)).isTrue();
+        verify(mPackageManager, times(2)).isPackageAvailable(PACKAGE_NAME, USER_ID);
+    }
+
+    @Test
+    public void invalidate_queriesAgain() throws RemoteException {
+        mCache.getAppOpPermissionPackages(mPackageManager, PERMISSION);
+
+        mCache.invalidate();
+        mCache.getAppOpPermissionPackages(mPackageManager, PERMISSION);
+
+        verify(mPackageManager, times(2)).getAppOpPermissionPackages(PERMISSION);
+    }
+
+    @Test
+    public void differentPackageManager_queriesAgain() throws RemoteException {
+        final IPackageManager otherPackageManager = mock(IPackageManager.class);
+
+        mCache.isPackageAvailable(mPackageManager, PACKAGE_NAME, USER_ID);
+        mCache.isPackageAvailable(otherPackageManager, PACKAGE_NAME, USER_ID);
+
+        verify(mPackageManager).isPackageAvailable(anyString(), anyInt());
+        verify(otherPackageManager).isPackageAvailable(anyString(), anyInt());
+    }
+
+    @Test
+    public void snapshotExpired_queriesAgain() throws RemoteException {
+        mCache.getAppOpPermissionPackages(mPackageManager, PERMISSION);
+
+        // Advances the Robolectric clock.
+        SystemClock.sleep(AppOpsStateCache.SNAPSHOT_TTL_MS);
+        mCache.getAppOpPermissionPackages(mPackageManager, PERMISSION);
+
+        assertThat(mCache.getBinderCallCount()).isEqualTo(2);
+    }
+
+    private static PackageOps newPackageOps(int... ops) {
+        final OpEntry[] entries = new OpEntry[ops.length];
+        for (int i = 0; i < ops.length; i++) {
+            entries[i] = new OpEntry(ops[i], AppOpsManager.MODE_ALLOWED, Collections.emptyMap());
+        }
+        return new PackageOps(PACKAGE_NAME, UID, Arrays.asList(entries));
+    }
+}
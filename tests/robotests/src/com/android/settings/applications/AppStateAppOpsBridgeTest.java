@@ -18,6 +18,8 @@ package com.android.settings.applications;
 
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.Manifest;
@@ -39,6 +41,8 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.Collections;
+
 @RunWith(RobolectricTestRunner.class)
 public final class AppStateAppOpsBridgeTest {
 
@@ -63,6 +67,27 @@ public final class AppStateAppOpsBridgeTest {
         // should not crash
     }
 
+    @Test
+    public void getNumPackagesDeclaredPermission_twoBridges_shareQueries()
+            throws RemoteException {
+        when(mUserManager.getUserProfiles())
+                .thenReturn(Collections.singletonList(UserHandle.of(0)));
+        when(mUserManager.getProcessUserId()).thenReturn(0);
+        when(mContext.getPackageName()).thenReturn("com.android.settings");
+        when(mPackageManagerService.getAppOpPermissionPackages(anyString()))
+                .thenReturn(new String[] {"pkg1"});
+        when(mPackageManagerService.isPackageAvailable("pkg1", 0)).thenReturn(true);
+        AppOpsStateCache.getInstance().invalidate();
+
+        Truth.assertThat(new TestAppStateAppOpsBridge().getNumPackagesDeclaredPermission())
+                .isEqualTo(1);
+        Truth.assertThat(new TestAppStateAppOpsBridge().getNumPackagesDeclaredPermission())
+                .isEqualTo(1);
+
+        verify(mPackageManagerService, times(1)).getAppOpPermissionPackages(anyString());
+        verify(mPackageManagerService, times(1)).isPackageAvailable("pkg1", 0);
+    }
+
     @Test
     public void permissionState_modeDefault_IsPermissible() {
         AppStateAppOpsBridge.PermissionState permissionState =
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.os.Binder;
+import android.os.Parcel;
+import android.os.ParcelFileDescriptor;
+import android.os.RemoteException;
+import android.os.SystemClock;
+
+import com.android.internal.app.procstats.IProcessStats;
+import com.android.internal.app.procstats.ProcessStats;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class ProcStatsCacheTest {
+    private static final long DURATION_3H = ProcessStatsBase.sDurations[0];
+    private static final long DURATION_6H = ProcessStatsBase.sDurations[1];
+
+    @Rule
+    public final TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private IProcessStats mProcessStats;
+
+    private ProcStatsCache mCache;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        final File statsFile = newStatsFile();
+        when(mProcessStats.asBinder()).thenReturn(new Binder());
+        when(mProcessStats.getStatsOverTime(anyLong())).thenAnswer(invocation ->
+                ParcelFileDescriptor.open(statsFile, ParcelFileDescriptor.MODE_READ_ONLY));
+        mCache = new ProcStatsCache();
+    }
+
+    @Test
+    public void get_sameDuration_readsOnce() throws RemoteException {
+        final ProcessStats stats = mCache.get(mProcessStats, DURATION_3H, false);
+
+        assertThat(mCache.get(mProcessStats, DURATION_3H, false)).isSameInstanceAs(stats);
+        verify(mProcessStats, times(1)).getStatsOverTime(DURATION_3H);
+    }
+
+    @Test
+    public void get_otherDuration_readsAgain() throws RemoteException {
+        final ProcessStats stats = mCache.get(mProcessStats, DURATION_3H, false);
+
+        assertThat(mCache.get(mProcessStats, DURATION_6H, false)).isNotSameInstanceAs(stats);
+        assertThat(mCache.get(mProcessStats, DURATION_3H, false)).isSameInstanceAs(stats);
+        assertThat(mCache.getReadCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_statsExpired_readsAgain() {
+        mCache.get(mProcessStats, DURATION_3H, false);
+
+        // Advances the Robolectric clock.
+        SystemClock.sleep(ProcStatsCache.STATS_TTL_MS);
+        mCache.get(mProcessStats, DURATION_3H, false);
+
+        assertThat(mCache.getReadCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_otherService_readsAgain() throws Exception {
+        final IProcessStats otherProcessStats = mock(IProcessStats.class);
+        when(otherProcessStats.asBinder()).thenReturn(new Binder());
+        when(otherProcessStats.getStatsOverTime(anyLong())).thenAnswer(invocation ->
+                ParcelFileDescriptor.open(newStatsFile(), ParcelFileDescriptor.MODE_READ_ONLY));
+
+        mCache.get(mProcessStats, DURATION_3H, false);
+        mCache.get(otherProcessStats, DURATION_3H, false);
+
+        verify(otherProcessStats).getStatsOverTime(DURATION_3H);
+    }
+
+    @Test
+    public void get_serviceFails_returnsNullAndDoesNotCache() throws RemoteException {
+        when(mProcessStats.getStatsOverTime(anyLong())).thenThrow(new RemoteException());
+
+        assertThat(mCache.get(mProcessStats, DURATION_3H, false)).isNull();
+        assertThat(mCache.get(mProcessStats, DURATION_3H, false)).isNull();
+        assertThat(mCache.getReadCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidate_readsAgain() {
+        mCache.get(mProcessStats, DURATION_3H, false);
+
+        mCache.invalidate();
+        mCache.get(mProcessStats, DURATION_3H, false);
+
+        assertThat(mCache.getReadCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_forceRead_readsAgain() {
+        final ProcessStats stats = mCache.get(mProcessStats, DURATION_3H, false);
+
+        final ProcessStats forcedStats = mCache.get(mProcessStats, DURATION_3H, true);
+
+        assertThat(forcedStats).isNotSameInstanceAs(stats);
+        assertThat(mCache.get(mProcessStats, DURATION_3H, false)).isSameInstanceAs(forcedStats);
+        assertThat(mCache.getReadCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_readError_returnsNullAndDoesNotCache() throws Exception {
+        final File emptyFile = mTemporaryFolder.newFile();
+        when(mProcessStats.getStatsOverTime(anyLong())).thenAnswer(invocation ->
+                ParcelFileDescriptor.open(emptyFile, ParcelFileDescriptor.MODE_READ_ONLY));
+
+        assertThat(mCache.get(mProcessStats, DURATION_3H, false)).isNull();
+        assertThat(mCache.get(mProcessStats, DURATION_3H, false)).isNull();
+        assertThat(mCache.getReadCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void statsExpired_evicted() {
+        mCache.get(mProcessStats, DURATION_3H, false);
+        mCache.get(mProcessStats, DURATION_6H, false);
+
+        ShadowLooper.idleMainLooper(ProcStatsCache.STATS_TTL_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(mCache.getCachedStatsCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void prefetch_allCached_doesNotRead() {
+        mCache.get(mProcessStats, DURATION_3H, false);
+        mCache.get(mProcessStats, DURATION_6H, false);
+
+        mCache.prefetch(mProcessStats, new long[] {DURATION_3H, DURATION_6H});
+
+        assertThat(mCache.getReadCount()).isEqualTo(2);
+    }
+
+    private File newStatsFile() throws IOException {
+        final File file = mTemporaryFolder.newFile();
+        final Parcel parcel = Parcel.obtain();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            new ProcessStats(false).writeToParcel(parcel, 0);
+            out.write(parcel.marshall());
+        } finally {
+            parcel.recycle();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.os.UserHandle;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import com.android.settings.R;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+
+@RunWith(RobolectricTestRunner.class)
+public class RunningProcessesViewTest {
+
+    private Context mContext;
+    private RunningState mState;
+    private RunningProcessesView mView;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mState = RunningState.getInstance(mContext);
+        mView = new RunningProcessesView(mContext, null /* attrs */);
+        mView.mState = mState;
+    }
+
+    @After
+    public void tearDown() {
+        mState.mBackgroundThread.quit();
+        RunningState.sInstance = null;
+    }
+
+    @Test
+    public void refreshItems_sameItemsInNewList_returnsFalse() {
+        final RunningState.MergedItem item = newItem("App");
+        mState.mMergedItems = newList(item);
+        final RunningProcessesView.ServiceListAdapter adapter =
+                mView.new ServiceListAdapter(mState);
+
+        mState.mMergedItems = newList(item);
+
+        assertThat(adapter.refreshItems()).isFalse();
+        assertThat(adapter.mItems).containsExactly(item);
+    }
+
+    @Test
+    public void refreshItems_itemAdded_returnsTrue() {
+        final RunningState.MergedItem item = newItem("App");
+        mState.mMergedItems = newList(item);
+        final RunningProcessesView.ServiceListAdapter adapter =
+                mView.new ServiceListAdapter(mState);
+        final RunningState.MergedItem newItem = newItem("Other app");
+
+        mState.mMergedItems = newList(item, newItem);
+
+        assertThat(adapter.refreshItems()).isTrue();
+        assertThat(adapter.mItems).containsExactly(item, newItem).inOrder();
+    }
+
+    @Test
+    public void rebindChangedItems_labelChanged_rebindsOnlyThatRow() {
+        final RunningState.MergedItem changedItem = newItem("App");
+        final RunningState.MergedItem sameItem = newItem("Other app");
+        final RunningProcessesView.ActiveItem changedRow = bind(changedItem);
+        final RunningProcessesView.ActiveItem sameRow = bind(sameItem);
+
+        changedItem.mDisplayLabel = "Renamed app";
+        mView.rebindChangedItems();
+
+        final RunningProcessesView.ActiveItem reboundRow =
+                mView.mActiveItems.get(changedRow.mRootView);
+        assertThat(reboundRow).isNotSameInstanceAs(changedRow);
+        assertThat(reboundRow.mHolder.name.getText().toString()).isEqualTo("Renamed app");
+        assertThat(mView.mActiveItems.get(sameRow.mRootView)).isSameInstanceAs(sameRow);
+    }
+
+    @Test
+    public void rebindChangedItems_nothingChanged_keepsRows() {
+        final RunningProcessesView.ActiveItem row = bind(newItem("App"));
+
+        mView.rebindChangedItems();
+
+        assertThat(mView.mActiveItems.get(row.mRootView)).isSameInstanceAs(row);
+    }
+
+    private RunningProcessesView.ActiveItem bind(RunningState.MergedItem item) {
+        final View view = LayoutInflater.from(mContext)
+                .inflate(R.layout.running_processes_item, null /* root */);
+        final RunningProcessesView.ActiveItem row =
+                new RunningProcessesView.ViewHolder(view).bind(mState, item, mView.mBuilder);
+        mView.mActiveItems.put(view, row);
+        return row;
+    }
+
+    private static RunningState.MergedItem newItem(String label) {
+        final RunningState.MergedItem item = new RunningState.MergedItem(UserHandle.myUserId());
+        item.mDisplayLabel = label;
+        item.mDescription = label + " description";
+        return item;
+    }
+
+    private static ArrayList<RunningState.MergedItem> newList(RunningState.MergedItem... items) {
+        final ArrayList<RunningState.MergedItem> list = new ArrayList<>();
+        for (RunningState.MergedItem item : items) {
+            list.add(item);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.app.ActivityManager;
+import android.app.ActivityManager.RunningAppProcessInfo;
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class RunningStateTest {
+
+    private static final int UID = 10001;
+    private static final String PROCESS_NAME = "com.android.test";
+
+    private Context mContext;
+    private RunningState mState;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mState = RunningState.getInstance(mContext);
+    }
+
+    @After
+    public void tearDown() {
+        synchronized (mState.mLock) {
+            mState.mResumed = false;
+        }
+        mState.mBackgroundHandler.removeCallbacksAndMessages(null);
+        mState.mBackgroundThread.quit();
+        RunningState.sInstance = null;
+    }
+
+    @Test
+    public void update_sameProcesses_skipsRebuildingItems() {
+        mState.update(mContext, new ArrayList<>(), newProcesses(100));
+        final int sequence = mState.mSequence;
+
+        mState.update(mContext, new ArrayList<>(), newProcesses(100));
+
+        assertThat(mState.mSequence).isEqualTo(sequence);
+        assertThat(mState.mUnchangedUpdates).isEqualTo(1);
+    }
+
+    @Test
+    public void update_processChanged_rebuildsItems() {
+        mState.update(mContext, new ArrayList<>(), newProcesses(100));
+        final int sequence = mState.mSequence;
+
+        mState.update(mContext, new ArrayList<>(), newProcesses(101));
+
+        assertThat(mState.mSequence).isEqualTo(sequence + 1);
+        assertThat(mState.mUnchangedUpdates).isEqualTo(0);
+    }
+
+    @Test
+    public void getContentsUpdateDelay_unchangedUpdates_backsOffUpToMax() {
+        mState.update(mContext, new ArrayList<>(), newProcesses(100));
+        assertThat(mState.getContentsUpdateDelay()).isEqualTo(RunningState.CONTENTS_UPDATE_DELAY);
+
+        mState.update(mContext, new ArrayList<>(), newProcesses(100));
+        assertThat(mState.getContentsUpdateDelay())
+                .isEqualTo(2 * RunningState.CONTENTS_UPDATE_DELAY);
+
+        for (int i = 0; i < 5; i++) {
+            mState.update(mContext, new ArrayList<>(), newProcesses(100));
+        }
+        assertThat(mState.getContentsUpdateDelay())
+                .isEqualTo(RunningState.MAX_CONTENTS_UPDATE_DELAY);
+    }
+
+    @Test
+    public void getContentsUpdateDelay_processChanged_resetsBackoff() {
+        for (int i = 0; i < 4; i++) {
+            mState.update(mContext, new ArrayList<>(), newProcesses(100));
+        }
+        assertThat(mState.getContentsUpdateDelay())
+                .isEqualTo(RunningState.MAX_CONTENTS_UPDATE_DELAY);
+
+        mState.update(mContext, new ArrayList<>(), newProcesses(100, 101));
+
+        assertThat(mState.getContentsUpdateDelay()).isEqualTo(RunningState.CONTENTS_UPDATE_DELAY);
+    }
+
+    @Test
+    public void onUidImportance_resumed_schedulesUpdate() {
+        synchronized (mState.mLock) {
+            mState.mResumed = true;
+        }
+
+        getImportanceListener().onUidImportance(UID,
+                RunningAppProcessInfo.IMPORTANCE_FOREGROUND);
+
+        assertThat(mState.mImportanceUpdatePending).isTrue();
+        assertThat(mState.mBackgroundHandler.hasMessages(RunningState.MSG_UPDATE_CONTENTS))
+                .isTrue();
+    }
+
+    @Test
+    public void onUidImportance_paused_doesNotScheduleUpdate() {
+        getImportanceListener().onUidImportance(UID,
+                RunningAppProcessInfo.IMPORTANCE_FOREGROUND);
+
+        assertThat(mState.mImportanceUpdatePending).isFalse();
+        assertThat(mState.mBackgroundHandler.hasMessages(RunningState.MSG_UPDATE_CONTENTS))
+                .isFalse();
+    }
+
+    private ActivityManager.OnUidImportanceListener getImportanceListener() {
+        return ReflectionHelpers.getField(mState, "mUidImportanceListener");
+    }
+
+    /**
+     * Returns persistent processes, which are neither shown nor measured, so the updates don't
+     * need package or memory information.
+     */
+    private static List<RunningAppProcessInfo> newProcesses(int... pids) {
+        final List<RunningAppProcessInfo> processes = new ArrayList<>();
+        for (int pid : pids) {
+            final RunningAppProcessInfo process =
+                    new RunningAppProcessInfo(PROCESS_NAME, pid, null /* pkgList */);
+            process.uid = UID;
+            process.importance = RunningAppProcessInfo.IMPORTANCE_SERVICE;
+            process.flags = RunningAppProcessInfo.FLAG_PERSISTENT;
+            processes.add(process);
+        }
+        return processes;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import android.content.pm.ApplicationInfo;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppSearchIndexTest {
+
+    private AppSearchIndex mIndex;
+    private ArrayList<AppEntry> mEntries;
+
+    @Before
+    public void setUp() {
+        mIndex = new AppSearchIndex(Locale.US);
+        mEntries = new ArrayList<>();
+        mEntries.add(createAppEntry("Café Finder", "com.example.finder"));
+        mEntries.add(createAppEntry("Calculator", "com.android.calculator2"));
+        mEntries.add(createAppEntry("Maps", "com.google.android.apps.maps"));
+        mEntries.add(createAppEntry("Messages", "com.google.android.apps.messaging"));
+    }
+
+    @Test
+    public void normalize_shouldFoldCaseAndStripDiacritics() {
+        assertThat(AppSearchIndex.normalize("Crème Brûlée", Locale.US))
+                .isEqualTo("creme brulee");
+    }
+
+    @Test
+    public void normalize_turkishLocale_shouldFoldDottedCapitalI() {
+        assertThat(AppSearchIndex.normalize("İzmir", new Locale("tr"))).isEqualTo("izmir");
+    }
+
+    @Test
+    public void search_substringOfLabel_shouldMatch() {
+        assertThat(mIndex.search(mEntries, "CULA")).containsExactly(mEntries.get(1));
+    }
+
+    @Test
+    public void search_withoutDiacritics_shouldMatchLabelWithDiacritics() {
+        assertThat(mIndex.search(mEntries, "cafe")).containsExactly(mEntries.get(0));
+    }
+
+    @Test
+    public void search_packageSegmentPrefix_shouldMatch() {
+        assertThat(mIndex.search(mEntries, "messag")).containsExactly(mEntries.get(3));
+        assertThat(mIndex.search(mEntries, "goog"))
+                .containsExactly(mEntries.get(2), mEntries.get(3)).inOrder();
+    }
+
+    @Test
+    public void search_middleOfPackageSegment_shouldNotMatch() {
+        assertThat(mIndex.search(mEntries, "oogle")).isEmpty();
+    }
+
+    @Test
+    public void search_extendedQuery_shouldNarrowPreviousResults() {
+        assertThat(mIndex.search(mEntries, "ma")).containsExactly(mEntries.get(2));
+        assertThat(mIndex.search(mEntries, "map")).containsExactly(mEntries.get(2));
+        assertThat(mIndex.search(mEntries, "mapz")).isEmpty();
+        assertThat(mIndex.search(mEntries, "m"))
+                .containsExactly(mEntries.get(2), mEntries.get(3)).inOrder();
+    }
+
+    @Test
+    public void search_labelChanged_shouldUseNewLabel() {
+        mIndex.search(mEntries, "ca");
+        mEntries.get(2).label = "Carte";
+
+        assertThat(mIndex.search(mEntries, "car")).containsExactly(mEntries.get(2));
+    }
+
+    @Test
+    public void search_newEntries_shouldOnlySearchNewEntries() {
+        mIndex.search(mEntries, "c");
+        final ArrayList<AppEntry> entries = new ArrayList<>(mEntries.subList(0, 1));
+
+        assertThat(mIndex.search(entries, "ca")).containsExactly(mEntries.get(0));
+    }
+
+    private static AppEntry createAppEntry(String label, String packageName) {
+        final AppEntry entry = mock(AppEntry.class);
+        entry.label = label;
+        entry.info = new ApplicationInfo();
+        entry.info.packageName = packageName;
+        return entry;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEY;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.os.Bundle;
+
+import com.android.settings.R;
+import com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceXmlMetadataCacheTest {
+
+    private static final int FLAGS = MetadataFlag.FLAG_NEED_KEY;
+
+    private Context mContext;
+    private PreferenceXmlMetadataCache mCache;
+
+    @Before
+    public void setUp() {
+        mContext = getApplicationContext();
+        mCache = new PreferenceXmlMetadataCache();
+    }
+
+    @Test
+    public void get_notCached_returnsNull() throws Exception {
+        assertThat(mCache.get(mContext, R.xml.display_settings, FLAGS)).isNull();
+        assertThat(mCache.dump().getInt("misses")).isEqualTo(1);
+    }
+
+    @Test
+    public void get_cached_returnsCopy() throws Exception {
+        mCache.put(mContext, R.xml.display_settings, FLAGS, createMetadata("key"));
+
+        final List<Bundle> first = mCache.get(mContext, R.xml.display_settings, FLAGS);
+        first.get(0).putString(METADATA_KEY, "changed");
+        final List<Bundle> second = mCache.get(mContext, R.xml.display_settings, FLAGS);
+
+        assertThat(second.get(0).getString(METADATA_KEY)).isEqualTo("key");
+        assertThat(mCache.dump().getInt("hits")).isEqualTo(2);
+    }
+
+    @Test
+    public void get_otherFlags_returnsNull() {
+        mCache.put(mContext, R.xml.display_settings, FLAGS, createMetadata("key"));
+
+        assertThat(mCache.get(mContext, R.xml.display_settings,
+                FLAGS | MetadataFlag.FLAG_NEED_PREF_TITLE)).isNull();
+    }
+
+    @Test
+    public void get_otherLocale_returnsNull() {
+        mCache.put(mContext, R.xml.display_settings, FLAGS, createMetadata("key"));
+
+        RuntimeEnvironment.setQualifiers("fr");
+
+        assertThat(mCache.get(mContext, R.xml.display_settings, FLAGS)).isNull();
+    }
+
+    @Test
+    public void clear_removesEntries() {
+        mCache.put(mContext, R.xml.display_settings, FLAGS, createMetadata("key"));
+
+        mCache.clear();
+
+        assertThat(mCache.get(mContext, R.xml.display_settings, FLAGS)).isNull();
+    }
+
+    @Test
+    public void extractMetadata_calledTwice_returnsEqualMetadata() throws Exception {
+        final List<Bundle> first = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.display_settings, FLAGS);
+        final List<Bundle> second = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.display_settings, FLAGS);
+
+        assertThat(second).hasSize(first.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertThat(second.get(i).getString(METADATA_KEY))
+                    .isEqualTo(first.get(i).getString(METADATA_KEY));
+        }
+    }
+
+    private static List<Bundle> createMetadata(String key) {
+        final Bundle bundle = new Bundle();
+        bundle.putString(METADATA_KEY, key);
+        final List<Bundle> metadata = new ArrayList<>();
+        metadata.add(bundle);
+        return metadata;
+    }
+}
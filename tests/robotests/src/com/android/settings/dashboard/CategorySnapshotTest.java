@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.os.Bundle;
+import android.util.ArrayMap;
+
+import com.android.settingslib.drawer.ActivityTile;
+import com.android.settingslib.drawer.CategoryKey;
+import com.android.settingslib.drawer.DashboardCategory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public class CategorySnapshotTest {
+
+    private static final String VERSION_KEY = "version";
+    private static final CategorySnapshot.PackageState PACKAGE_STATE =
+            new CategorySnapshot.PackageState(3 /* bootCount */, 7 /* sequenceNumber */);
+
+    private Context mContext;
+    private CategorySnapshot mSnapshot;
+    private DashboardCategory mListedCategory;
+    private Map<String, DashboardCategory> mCategoryByKeyMap;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mSnapshot = new CategorySnapshot(mContext);
+
+        final ActivityInfo activityInfo = new ActivityInfo();
+        activityInfo.packageName = "pkg";
+        activityInfo.name = "class";
+        activityInfo.applicationInfo = new ApplicationInfo();
+        activityInfo.metaData = new Bundle();
+        mListedCategory = new DashboardCategory(CategoryKey.CATEGORY_HOMEPAGE);
+        mListedCategory.addTile(new ActivityTile(activityInfo, CategoryKey.CATEGORY_HOMEPAGE));
+        final DashboardCategory compatCategory =
+                new DashboardCategory(CategoryKey.CATEGORY_ACCOUNT);
+        compatCategory.addTile(new ActivityTile(activityInfo, CategoryKey.CATEGORY_ACCOUNT));
+        mCategoryByKeyMap = new ArrayMap<>();
+        mCategoryByKeyMap.put(mListedCategory.key, mListedCategory);
+        mCategoryByKeyMap.put(compatCategory.key, compatCategory);
+    }
+
+    @After
+    public void tearDown() {
+        mSnapshot.getFile().delete();
+    }
+
+    @Test
+    public void read_noSnapshot_returnsNull() {
+        assertThat(mSnapshot.read(VERSION_KEY, new ArrayMap<>())).isNull();
+    }
+
+    @Test
+    public void read_afterWrite_restoresCategories() {
+        mSnapshot.write(VERSION_KEY, PACKAGE_STATE, CategorySnapshot.marshall(
+                Collections.singletonList(mListedCategory), mCategoryByKeyMap));
+
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+        final List<DashboardCategory> categories = mSnapshot.read(VERSION_KEY, categoryByKeyMap);
+
+        assertThat(categories).hasSize(1);
+        assertThat(categories.get(0).key).isEqualTo(CategoryKey.CATEGORY_HOMEPAGE);
+        assertThat(categories.get(0).getTilesCount()).isEqualTo(1);
+        assertThat(categoryByKeyMap.keySet()).containsExactly(
+                CategoryKey.CATEGORY_HOMEPAGE, CategoryKey.CATEGORY_ACCOUNT);
+        assertThat(categoryByKeyMap.get(CategoryKey.CATEGORY_HOMEPAGE))
+                .isSameInstanceAs(categories.get(0));
+        assertThat(categoryByKeyMap.get(CategoryKey.CATEGORY_ACCOUNT).getTile(0).getIntent()
+                .getComponent().getClassName()).isEqualTo("class");
+    }
+
+    @Test
+    public void read_differentVersionKey_returnsNull() {
+        mSnapshot.write(VERSION_KEY, PACKAGE_STATE, CategorySnapshot.marshall(
+                Collections.singletonList(mListedCategory), mCategoryByKeyMap));
+
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+
+        assertThat(mSnapshot.read("other", categoryByKeyMap)).isNull();
+        assertThat(categoryByKeyMap).isEmpty();
+    }
+
+    @Test
+    public void isUpToDate_snapshotOfSamePackageState_returnsTrue() {
+        mSnapshot.write(VERSION_KEY, PACKAGE_STATE, CategorySnapshot.marshall(
+                Collections.singletonList(mListedCategory), mCategoryByKeyMap));
+
+        final CategorySnapshot snapshot = new CategorySnapshot(mContext);
+        snapshot.read(VERSION_KEY, new ArrayMap<>());
+
+        assertThat(snapshot.isUpToDate(
+                new CategorySnapshot.PackageState(3 /* bootCount */, 7 /* sequenceNumber */)))
+                .isTrue();
+    }
+
+    @Test
+    public void isUpToDate_afterReboot_returnsFalseButKeepsSnapshot() {
+        mSnapshot.write(VERSION_KEY, PACKAGE_STATE, CategorySnapshot.marshall(
+                Collections.singletonList(mListedCategory), mCategoryByKeyMap));
+
+        final CategorySnapshot snapshot = new CategorySnapshot(mContext);
+
+        assertThat(snapshot.read(VERSION_KEY, new ArrayMap<>())).hasSize(1);
+        assertThat(snapshot.isUpToDate(
+                new CategorySnapshot.PackageState(4 /* bootCount */, 7 /* sequenceNumber */)))
+                .isFalse();
+    }
+
+    @Test
+    public void isUpToDate_unknownPackageState_returnsFalse() {
+        mSnapshot.write(VERSION_KEY, CategorySnapshot.PackageState.UNKNOWN,
+                CategorySnapshot.marshall(
+                        Collections.singletonList(mListedCategory), mCategoryByKeyMap));
+
+        assertThat(mSnapshot.isUpToDate(CategorySnapshot.PackageState.UNKNOWN)).isFalse();
+    }
+
+    @Test
+    public void write_sameDataWithUnknownPackageState_skipsWrite() {
+        final byte[] data = CategorySnapshot.marshall(
+                Collections.singletonList(mListedCategory), mCategoryByKeyMap);
+        mSnapshot.write(VERSION_KEY, PACKAGE_STATE, data);
+        mSnapshot.getFile().setLastModified(0);
+
+        mSnapshot.write(VERSION_KEY, CategorySnapshot.PackageState.UNKNOWN, data);
+
+        assertThat(mSnapshot.getFile().lastModified()).isEqualTo(0);
+        assertThat(mSnapshot.isUpToDate(PACKAGE_STATE)).isTrue();
+    }
+
+    @Test
+    public void read_corruptedSnapshot_returnsNull() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(mSnapshot.getFile())) {
+            out.write(new byte[] {1, 2, 3});
+        }
+
+        assertThat(mSnapshot.read(VERSION_KEY, new ArrayMap<>())).isNull();
+    }
+
+    @Test
+    public void marshall_sameCategories_returnsSameBytes() {
+        final List<DashboardCategory> categories = Collections.singletonList(mListedCategory);
+
+        assertThat(CategorySnapshot.marshall(categories, mCategoryByKeyMap))
+                .isEqualTo(CategorySnapshot.marshall(categories, mCategoryByKeyMap));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+@RunWith(RobolectricTestRunner.class)
+public class ControllerAvailabilityEvaluatorTest {
+
+    private ControllerAvailabilityEvaluator mEvaluator;
+
+    @Before
+    public void setUp() {
+        mEvaluator = new ControllerAvailabilityEvaluator(Executors.newFixedThreadPool(2));
+    }
+
+    @Test
+    public void evaluate_returnsAvailabilityOfEveryController() {
+        final AbstractPreferenceController available = mockThreadSafeController();
+        final AbstractPreferenceController unavailable = mockThreadSafeController();
+        final AbstractPreferenceController sameClass = mockThreadSafeController();
+        when(available.isAvailable()).thenReturn(true);
+        when(unavailable.isAvailable()).thenReturn(false);
+        when(sameClass.isAvailable()).thenReturn(true);
+
+        final Map<AbstractPreferenceController, Boolean> result = mEvaluator.evaluate(
+                Arrays.asList(Arrays.asList(available, sameClass),
+                        Collections.singletonList(unavailable)));
+
+        assertThat(result).containsExactly(available, true, sameClass, true, unavailable, false);
+        assertThat(mEvaluator.getLastTimings()).hasSize(3);
+    }
+
+    @Test
+    public void evaluate_controllerNotThreadSafe_leftToCaller() {
+        final AbstractPreferenceController controller = mock(AbstractPreferenceController.class);
+
+        final Map<AbstractPreferenceController, Boolean> result = mEvaluator.evaluate(
+                Collections.singletonList(Collections.singletonList(controller)));
+
+        assertThat(result).isEmpty();
+        verify(controller, never()).isAvailable();
+    }
+
+    @Test
+    public void evaluate_controllerTimesOut_leftToCaller() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AbstractPreferenceController slow = mockThreadSafeController();
+        final AbstractPreferenceController fast = mockThreadSafeController();
+        when(slow.isAvailable()).thenAnswer(invocation -> {
+            release.await();
+            return true;
+        });
+        when(fast.isAvailable()).thenReturn(true);
+        mEvaluator = new ControllerAvailabilityEvaluator(Executors.newFixedThreadPool(2)) {
+            @Override
+            long getTimeoutMillis() {
+                return 50;
+            }
+        };
+
+        try {
+            final Map<AbstractPreferenceController, Boolean> result = mEvaluator.evaluate(
+                    Collections.singletonList(Arrays.asList(slow, fast)));
+
+            assertThat(result).containsExactly(fast, true);
+            assertThat(mEvaluator.getLastTimings().get(0).mTimedOut).isTrue();
+            assertThat(mEvaluator.getLastTimings().get(1).mTimedOut).isFalse();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void evaluate_controllerThrows_rethrows() {
+        final AbstractPreferenceController controller = mockThreadSafeController();
+        when(controller.isAvailable()).thenThrow(new IllegalStateException());
+        final List<AbstractPreferenceController> controllers =
+                Collections.singletonList(controller);
+
+        mEvaluator.evaluate(Collections.singletonList(controllers));
+    }
+
+    private static AbstractPreferenceController mockThreadSafeController() {
+        return mock(AbstractPreferenceController.class, withSettings()
+                .extraInterfaces(BasePreferenceController.ThreadSafeAvailability.class));
+    }
+}
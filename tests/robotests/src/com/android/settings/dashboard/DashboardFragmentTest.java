@@ -56,11 +56,13 @@ import com.android.settingslib.drawer.ActivityTile;
 import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.ProviderTile;
 
+import org.json.JSONException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
@@ -70,6 +72,7 @@ import org.robolectric.util.ReflectionHelpers;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -274,6 +277,58 @@ public class DashboardFragmentTest {
         verify(mockController2).getPreferenceKey();
     }
 
+    @Test
+    public void updateState_paralleledControllers_onlyUpdatesAvailableControllers() {
+        final AbstractPreferenceController availableController =
+                mock(AbstractPreferenceController.class);
+        final AbstractPreferenceController unavailableController =
+                mock(AbstractPreferenceController.class);
+        final Preference preference = new Preference(mContext);
+        when(availableController.getPreferenceKey()).thenReturn("available");
+        when(availableController.isAvailable()).thenReturn(true);
+        when(unavailableController.getPreferenceKey()).thenReturn("unavailable");
+        when(unavailableController.isAvailable()).thenReturn(false);
+        when(mTestFragment.mScreen.findPreference("available")).thenReturn(preference);
+        when(mTestFragment.mScreen.findPreference("unavailable")).thenReturn(preference);
+        mTestFragment.addPreferenceController(availableController);
+        mTestFragment.addPreferenceController(unavailableController);
+        mTestFragment.mParalleledControllers = true;
+
+        mTestFragment.updatePreferenceStates();
+
+        verify(availableController).isAvailable();
+        verify(availableController).updateState(preference);
+        verify(unavailableController).isAvailable();
+        verify(unavailableController, never()).updateState(any(Preference.class));
+    }
+
+    @Test
+    public void updateObserversWhenReady_dataReady_updatesImmediately() throws JSONException {
+        final TestDynamicDataObserver observer = new TestDynamicDataObserver();
+        observer.deliverData();
+        final long latencyCount = getObserverLatencyCount();
+
+        mTestFragment.updateObserversWhenReady("TEST_FRAG", Collections.singletonList(observer));
+
+        assertThat(observer.mUpdated).isTrue();
+        assertThat(getObserverLatencyCount()).isEqualTo(latencyCount);
+    }
+
+    @Test
+    public void updateObserversWhenReady_dataPending_updatesWhenDelivered() throws JSONException {
+        final TestDynamicDataObserver observer = new TestDynamicDataObserver();
+        final long latencyCount = getObserverLatencyCount();
+
+        mTestFragment.updateObserversWhenReady("TEST_FRAG", Collections.singletonList(observer));
+        assertThat(observer.mUpdated).isFalse();
+
+        observer.deliverData();
+        Robolectric.flushForegroundThreadScheduler();
+
+        assertThat(observer.mUpdated).isTrue();
+        assertThat(getObserverLatencyCount()).isEqualTo(latencyCount + 1);
+    }
+
     @Test
     public void onExpandButtonClick_shouldLogAdvancedButtonExpand() {
         final MetricsFeatureProvider metricsFeatureProvider
@@ -398,6 +453,7 @@ public class DashboardFragmentTest {
         private final ContentResolver mContentResolver;
 
         public final PreferenceScreen mScreen;
+        public boolean mParalleledControllers;
 
         public TestFragment(Context context) {
             mContext = context;
@@ -431,6 +487,11 @@ public class DashboardFragmentTest {
             return "TEST_FRAG";
         }
 
+        @Override
+        protected boolean isParalleledControllers() {
+            return mParalleledControllers;
+        }
+
         @Override
         protected int getPreferenceScreenResId() {
             return 0;
@@ -455,6 +516,8 @@ public class DashboardFragmentTest {
 
     private static class TestDynamicDataObserver extends DynamicDataObserver {
 
+        private boolean mUpdated;
+
         @Override
         public Uri getUri() {
             return Uri.parse("content://abc");
@@ -463,6 +526,14 @@ public class DashboardFragmentTest {
         @Override
         public void onDataChanged() {
         }
+
+        void deliverData() {
+            post(() -> mUpdated = true);
+        }
+    }
+
+    private static long getObserverLatencyCount() throws JSONException {
+        return ObserverLatencyTracker.getInstance().dump().getLong("count");
     }
 
     @Implements(PreferenceFragmentCompat.class)
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class ObserverLatencyTrackerTest {
+
+    private ObserverLatencyTracker mTracker;
+
+    @Before
+    public void setUp() {
+        mTracker = new ObserverLatencyTracker();
+    }
+
+    @Test
+    public void getPercentile_noSamples_returnsZero() {
+        assertThat(mTracker.getPercentile(50)).isEqualTo(0);
+    }
+
+    @Test
+    public void getPercentile_returnsNearestRank() {
+        for (int i = 1; i <= 100; i++) {
+            mTracker.record(i);
+        }
+
+        assertThat(mTracker.getPercentile(50)).isEqualTo(50);
+        assertThat(mTracker.getPercentile(90)).isEqualTo(90);
+        assertThat(mTracker.getPercentile(99)).isEqualTo(99);
+    }
+
+    @Test
+    public void record_overCapacity_keepsLatestSamples() {
+        for (int i = 0; i < ObserverLatencyTracker.MAX_SAMPLES; i++) {
+            mTracker.record(1000);
+        }
+        for (int i = 0; i < ObserverLatencyTracker.MAX_SAMPLES; i++) {
+            mTracker.record(1);
+        }
+
+        assertThat(mTracker.getPercentile(99)).isEqualTo(1);
+    }
+}
@@ -94,6 +94,11 @@ public class DevelopmentSettingsDashboardFragmentTest {
                 .isEqualTo(MetricsProto.MetricsEvent.DEVELOPMENT);
     }
 
+    @Test
+    public void isParalleledControllers_shouldBeTrue() {
+        assertThat(mDashboard.isParalleledControllers()).isTrue();
+    }
+
     @Test
     public void searchIndex_shouldIndexFromPrefXml() {
         final List<SearchIndexableResource> index =
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.deviceinfo.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.provider.MediaStore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowContentResolver;
+
+@RunWith(RobolectricTestRunner.class)
+public class MediaStoreSizeQueryTest {
+    private static final int ROWS = 1000;
+
+    private FakeMediaProvider mProvider;
+    private ContentResolver mResolver;
+
+    @Before
+    public void setUp() {
+        final Context context = RuntimeEnvironment.application;
+        mProvider = new FakeMediaProvider();
+        ShadowContentResolver.registerProviderInternal(MediaStore.AUTHORITY, mProvider);
+        mResolver = context.getContentResolver();
+        mProvider.insertFiles(ROWS);
+    }
+
+    @After
+    public void tearDown() {
+        mProvider.close();
+    }
+
+    @Test
+    public void queryGroupedSizes_shouldMatchCategorySizes() {
+        final StorageAsyncLoader.StorageResult expected = new StorageAsyncLoader.StorageResult();
+        MediaStoreSizeQuery.queryCategorySizes(mResolver, expected);
+        final StorageAsyncLoader.StorageResult actual = new StorageAsyncLoader.StorageResult();
+
+        assertThat(MediaStoreSizeQuery.queryGroupedSizes(mResolver, actual)).isTrue();
+
+        assertThat(expected.imagesSize).isGreaterThan(0L);
+        assertThat(expected.trashSize).isGreaterThan(0L);
+        assertSameSizes(actual, expected);
+    }
+
+    @Test
+    public void querySizes_groupingRejected_shouldFallBackToCategorySizes() {
+        final StorageAsyncLoader.StorageResult expected = new StorageAsyncLoader.StorageResult();
+        MediaStoreSizeQuery.queryCategorySizes(mResolver, expected);
+        mProvider.mRejectGrouping = true;
+        final StorageAsyncLoader.StorageResult actual = new StorageAsyncLoader.StorageResult();
+
+        MediaStoreSizeQuery.querySizes(mResolver, actual);
+
+        assertSameSizes(actual, expected);
+    }
+
+    @Test
+    public void queryGroupedSizes_groupingRejected_shouldKeepResultUntouched() {
+        mProvider.mRejectGrouping = true;
+        final StorageAsyncLoader.StorageResult result = new StorageAsyncLoader.StorageResult();
+        result.imagesSize = 1L;
+
+        assertThat(MediaStoreSizeQuery.queryGroupedSizes(mResolver, result)).isFalse();
+        assertThat(result.imagesSize).isEqualTo(1L);
+    }
+
+    private static void assertSameSizes(StorageAsyncLoader.StorageResult actual,
+            StorageAsyncLoader.StorageResult expected) {
+        assertThat(actual.imagesSize).isEqualTo(expected.imagesSize);
+        assertThat(actual.videosSize).isEqualTo(expected.videosSize);
+        assertThat(actual.audioSize).isEqualTo(expected.audioSize);
+        assertThat(actual.documentsAndOtherSize).isEqualTo(expected.documentsAndOtherSize);
+        assertThat(actual.trashSize).isEqualTo(expected.trashSize);
+    }
+}
@@ -19,7 +19,9 @@ package com.android.settings.deviceinfo.storage;
 import static com.google.common.truth.Truth.assertThat;
 
 import android.content.Context;
+import android.content.pm.PackageInfo;
 import android.os.UserHandle;
+import android.util.ArrayMap;
 
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
@@ -41,6 +43,9 @@ public class StorageCacheHelperTest {
     private static final long FAKE_TOTAL_SIZE = 256000L;
     private static final long FAKE_TOTAL_USED_SIZE = 50000L;
     private static final long FAKE_USED_SIZE = 6500L;
+    private static final long FAKE_DATA_SIZE = 1200L;
+    private static final String FAKE_UUID = "uuid";
+    private static final String FAKE_PACKAGE_NAME = "com.android.test";
 
     private Context mContext;
     private StorageCacheHelper mHelper;
@@ -90,6 +95,91 @@ public class StorageCacheHelperTest {
         assertThat(mHelper.retrieveUsedSize()).isEqualTo(FAKE_USED_SIZE);
     }
 
+    @Test
+    public void cachePackageStats_samePackageVersion_shouldReturnCachedStats() {
+        final PackageInfo info = getFakePackageInfo();
+        mHelper.cachePackageStats(FAKE_UUID, getFakePackageStats(info));
+
+        final StorageCacheHelper.PackageStatsCache stats =
+                mHelper.retrievePackageStats(FAKE_UUID, info);
+
+        assertThat(stats.dataBytes).isEqualTo(FAKE_DATA_SIZE);
+    }
+
+    @Test
+    public void cachePackageStats_packageUpdated_shouldReturnNull() {
+        final PackageInfo info = getFakePackageInfo();
+        mHelper.cachePackageStats(FAKE_UUID, getFakePackageStats(info));
+
+        info.lastUpdateTime++;
+
+        assertThat(mHelper.retrievePackageStats(FAKE_UUID, info)).isNull();
+    }
+
+    @Test
+    public void cachePackageStats_otherVolume_shouldReturnNull() {
+        final PackageInfo info = getFakePackageInfo();
+        mHelper.cachePackageStats(FAKE_UUID, getFakePackageStats(info));
+
+        assertThat(mHelper.retrievePackageStats(null /* uuid */, info)).isNull();
+    }
+
+    @Test
+    public void cachePackageStats_staleStats_shouldReturnNull() {
+        final PackageInfo info = getFakePackageInfo();
+        final ArrayMap<String, StorageCacheHelper.PackageStatsCache> stats =
+                getFakePackageStats(info);
+        stats.get(FAKE_PACKAGE_NAME).timestamp -= StorageCacheHelper.PACKAGE_STATS_MAX_AGE_MS;
+        mHelper.cachePackageStats(FAKE_UUID, stats);
+
+        assertThat(mHelper.retrievePackageStats(FAKE_UUID, info)).isNull();
+    }
+
+    @Test
+    public void cachePackageStats_packageMissing_shouldDropStats() {
+        final PackageInfo info = getFakePackageInfo();
+        mHelper.cachePackageStats(FAKE_UUID, getFakePackageStats(info));
+
+        mHelper.cachePackageStats(FAKE_UUID, new ArrayMap<>());
+
+        assertThat(mHelper.retrievePackageStats(FAKE_UUID, info)).isNull();
+    }
+
+    @Test
+    public void removePackageStats_shouldDropStats() {
+        final PackageInfo info = getFakePackageInfo();
+        mHelper.cachePackageStats(FAKE_UUID, getFakePackageStats(info));
+
+        mHelper.removePackageStats(FAKE_PACKAGE_NAME);
+
+        assertThat(mHelper.retrievePackageStats(FAKE_UUID, info)).isNull();
+    }
+
+    @Test
+    public void cachePackageStats_shouldNotCountAsCachedSizeInfo() {
+        mHelper.cachePackageStats(FAKE_UUID, getFakePackageStats(getFakePackageInfo()));
+
+        assertThat(mHelper.hasCachedSizeInfo()).isFalse();
+    }
+
+    private PackageInfo getFakePackageInfo() {
+        final PackageInfo info = new PackageInfo();
+        info.packageName = FAKE_PACKAGE_NAME;
+        info.setLongVersionCode(3L);
+        info.lastUpdateTime = 100L;
+        return info;
+    }
+
+    private ArrayMap<String, StorageCacheHelper.PackageStatsCache> getFakePackageStats(
+            PackageInfo info) {
+        final StorageCacheHelper.PackageStatsCache stats =
+                new StorageCacheHelper.PackageStatsCache(info);
+        stats.dataBytes = FAKE_DATA_SIZE;
+        final ArrayMap<String, StorageCacheHelper.PackageStatsCache> result = new ArrayMap<>();
+        result.put(info.packageName, stats);
+        return result;
+    }
+
     private StorageCacheHelper.StorageCache getFakeStorageCache() {
         StorageCacheHelper.StorageCache result = new StorageCacheHelper.StorageCache();
         result.trashSize = FAKE_TRASH_SIZE;
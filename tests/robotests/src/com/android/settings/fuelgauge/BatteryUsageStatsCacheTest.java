@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.os.BatteryStatsManager;
+import android.os.BatteryUsageStats;
+import android.os.BatteryUsageStatsQuery;
+import android.os.SystemClock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class BatteryUsageStatsCacheTest {
+
+    @Mock
+    private BatteryStatsManager mBatteryStatsManager;
+    @Mock
+    private BatteryUsageStats mBatteryUsageStats;
+
+    private Context mContext;
+    private BatteryUsageStatsCache mCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mBatteryStatsManager).when(mContext).getSystemService(
+                Context.BATTERY_STATS_SERVICE);
+        when(mBatteryStatsManager.getBatteryUsageStats(any(BatteryUsageStatsQuery.class)))
+                .thenReturn(mBatteryUsageStats);
+        mCache = new BatteryUsageStatsCache();
+    }
+
+    @Test
+    public void get_twice_queriesOnce() {
+        assertThat(mCache.get(mContext, /* includeBatteryHistory */ false))
+                .isSameInstanceAs(mBatteryUsageStats);
+        assertThat(mCache.get(mContext, /* includeBatteryHistory */ false))
+                .isSameInstanceAs(mBatteryUsageStats);
+
+        verify(mBatteryStatsManager).getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+        assertThat(mCache.getBinderCallCount()).isEqualTo(1);
+        assertThat(mCache.getAvoidedBinderCallCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_withHistory_neverShared() {
+        mCache.get(mContext, /* includeBatteryHistory */ true);
+        mCache.get(mContext, /* includeBatteryHistory */ true);
+        mCache.get(mContext, /* includeBatteryHistory */ false);
+
+        verify(mBatteryStatsManager, times(3))
+                .getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+        assertThat(mCache.getAvoidedBinderCallCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void release_withHistory_closesIt() throws Exception {
+        final BatteryUsageStats stats = mCache.get(mContext, /* includeBatteryHistory */ true);
+
+        mCache.release(stats);
+
+        verify(mBatteryUsageStats).close();
+    }
+
+    @Test
+    public void release_cachedSnapshot_keepsItOpen() throws Exception {
+        mCache.release(mCache.get(mContext, /* includeBatteryHistory */ false));
+        mCache.release(mCache.get(mContext, /* includeBatteryHistory */ false));
+
+        verify(mBatteryUsageStats, never()).close();
+        assertThat(mCache.getOpenSnapshotCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidate_heldSnapshot_closesItOnLastRelease() throws Exception {
+        final BatteryUsageStats first = mCache.get(mContext, /* includeBatteryHistory */ false);
+        final BatteryUsageStats second = mCache.get(mContext, /* includeBatteryHistory */ false);
+
+        mCache.invalidate();
+        mCache.release(first);
+        verify(mBatteryUsageStats, never()).close();
+        mCache.release(second);
+
+        verify(mBatteryUsageStats).close();
+        assertThat(mCache.getOpenSnapshotCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void invalidate_releasedSnapshot_closesIt() throws Exception {
+        mCache.release(mCache.get(mContext, /* includeBatteryHistory */ false));
+
+        mCache.invalidate();
+
+        verify(mBatteryUsageStats).close();
+        assertThat(mCache.getOpenSnapshotCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void get_expiredSnapshot_closesItAndQueriesAgain() throws Exception {
+        final BatteryUsageStats newStats = mock(BatteryUsageStats.class);
+        when(mBatteryStatsManager.getBatteryUsageStats(any(BatteryUsageStatsQuery.class)))
+                .thenReturn(mBatteryUsageStats, newStats);
+        mCache.release(mCache.get(mContext, /* includeBatteryHistory */ false));
+        // Advances the Robolectric clock.
+        SystemClock.sleep(BatteryUsageStatsCache.SNAPSHOT_TTL_MS);
+
+        assertThat(mCache.get(mContext, /* includeBatteryHistory */ false))
+                .isSameInstanceAs(newStats);
+        verify(mBatteryUsageStats).close();
+        assertThat(mCache.getOpenSnapshotCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_historyAfterWithoutHistory_queriesAgain() {
+        mCache.get(mContext, /* includeBatteryHistory */ false);
+        mCache.get(mContext, /* includeBatteryHistory */ true);
+
+        verify(mBatteryStatsManager, times(2))
+                .getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+    }
+
+    @Test
+    public void get_afterInvalidate_queriesAgain() {
+        mCache.get(mContext, /* includeBatteryHistory */ false);
+
+        mCache.invalidate();
+        mCache.get(mContext, /* includeBatteryHistory */ false);
+
+        verify(mBatteryStatsManager, times(2))
+                .getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+    }
+
+    @Test
+    public void get_queryFails_returnsDefaultStatsAndDoesNotCache() {
+        when(mBatteryStatsManager.getBatteryUsageStats(any(BatteryUsageStatsQuery.class)))
+                .thenThrow(new RuntimeException());
+
+        assertThat(mCache.get(mContext, /* includeBatteryHistory */ false)).isNotNull();
+        mCache.get(mContext, /* includeBatteryHistory */ false);
+
+        verify(mBatteryStatsManager, times(2))
+                .getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+    }
+
+    @Test
+    public void get_differentBatteryStatsManager_queriesAgain() {
+        mCache.get(mContext, /* includeBatteryHistory */ false);
+        final Context otherContext = spy(RuntimeEnvironment.application);
+        final BatteryStatsManager otherBatteryStatsManager =
+                mock(BatteryStatsManager.class);
+        doReturn(otherBatteryStatsManager).when(otherContext).getSystemService(
+                Context.BATTERY_STATS_SERVICE);
+
+        mCache.get(otherContext, /* includeBatteryHistory */ false);
+
+        verify(otherBatteryStatsManager).getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+    }
+
+    @Test
+    public void get_concurrentCallers_shareOneQuery() throws Exception {
+        final CountDownLatch queryStarted = new CountDownLatch(1);
+        final CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(mBatteryStatsManager.getBatteryUsageStats(any(BatteryUsageStatsQuery.class)))
+                .thenAnswer(invocation -> {
+                    queryStarted.countDown();
+                    releaseQuery.await(5, TimeUnit.SECONDS);
+                    return mBatteryUsageStats;
+                });
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<BatteryUsageStats> first = executor.submit(
+                    () -> mCache.get(mContext, /* includeBatteryHistory */ false));
+            assertThat(queryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            final Future<BatteryUsageStats> second = executor.submit(
+                    () -> mCache.get(mContext, /* includeBatteryHistory */ false));
+            while (mCache.getAvoidedBinderCallCount() == 0) {
+                Thread.sleep(10);
+            }
+            releaseQuery.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isSameInstanceAs(mBatteryUsageStats);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isSameInstanceAs(mBatteryUsageStats);
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(mBatteryStatsManager).getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+        assertThat(mCache.getBinderCallCount()).isEqualTo(1);
+    }
+}
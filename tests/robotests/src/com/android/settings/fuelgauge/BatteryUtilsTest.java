@@ -367,7 +367,7 @@ public class BatteryUtilsTest {
     public void testSetForceAppStandby_restrictApp_recordTime() {
         mBatteryUtils.setForceAppStandby(UID, HIGH_SDK_PACKAGE, AppOpsManager.MODE_IGNORED);
 
-        verify(mBatteryDatabaseManager).insertAction(
+        verify(mBatteryDatabaseManager).enqueueAction(
                 eq(AnomalyDatabaseHelper.ActionType.RESTRICTION), eq(UID),
                 eq(HIGH_SDK_PACKAGE), anyLong());
     }
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batterytip;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.SparseLongArray;
+
+import com.android.settings.testutils.DatabaseTestUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class BatteryDatabaseManagerTest {
+    private static final String PACKAGE_NAME = "com.android.package";
+    private static final int ANOMALY_TYPE = 1;
+    private static final long TIMESTAMP = 1000L;
+    private static final int THREAD_COUNT = 8;
+    private static final int ANOMALIES_PER_THREAD = 500;
+
+    private Context mContext;
+    private BatteryDatabaseManager mDatabaseManager;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mDatabaseManager = BatteryDatabaseManager.getInstance(mContext);
+    }
+
+    @After
+    public void cleanUp() {
+        DatabaseTestUtils.clearDb(mContext);
+    }
+
+    @Test
+    public void enqueueAnomaly_visibleToQuery() {
+        mDatabaseManager.enqueueAnomaly(1, PACKAGE_NAME, ANOMALY_TYPE,
+                AnomalyDatabaseHelper.State.NEW, TIMESTAMP);
+
+        assertThat(mDatabaseManager.queryAllAnomalies(0, AnomalyDatabaseHelper.State.NEW))
+                .containsExactly(new AppInfo.Builder()
+                        .setUid(1)
+                        .setPackageName(PACKAGE_NAME)
+                        .addAnomalyType(ANOMALY_TYPE)
+                        .build());
+    }
+
+    @Test
+    public void enqueueAction_thenDeleteAction_keepsOrder() {
+        mDatabaseManager.enqueueAction(AnomalyDatabaseHelper.ActionType.RESTRICTION, 1,
+                PACKAGE_NAME, TIMESTAMP);
+        mDatabaseManager.deleteAction(AnomalyDatabaseHelper.ActionType.RESTRICTION, 1,
+                PACKAGE_NAME);
+
+        assertThat(mDatabaseManager.queryActionTime(
+                AnomalyDatabaseHelper.ActionType.RESTRICTION).size()).isEqualTo(0);
+    }
+
+    @Test
+    public void flushPendingWrites_nothingQueued_returnsZero() {
+        assertThat(mDatabaseManager.flushPendingWrites()).isEqualTo(0);
+    }
+
+    @Test
+    public void onCreate_createsAnomalyIndices() {
+        final List<String> indices = new ArrayList<>();
+        try (Cursor cursor = AnomalyDatabaseHelper.getInstance(mContext).getReadableDatabase()
+                .rawQuery("SELECT name FROM sqlite_master WHERE type = 'index'", null)) {
+            while (cursor.moveToNext()) {
+                indices.add(cursor.getString(0));
+            }
+        }
+
+        assertThat(indices).containsAtLeast("anomaly_state_time_index", "anomaly_time_index");
+    }
+
+    @Test
+    public void queryAllAnomalies_flushInProgress_seesFlushedRows() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final SQLiteDatabase db =
+                AnomalyDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        final Future<List<AppInfo>> query;
+        // Keeps the flush from committing until the query is waiting.
+        db.beginTransaction();
+        try {
+            mDatabaseManager.enqueueAnomaly(1, PACKAGE_NAME, ANOMALY_TYPE,
+                    AnomalyDatabaseHelper.State.NEW, TIMESTAMP);
+            executor.submit(mDatabaseManager::flushPendingWrites);
+            final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (!mDatabaseManager.isFlushInProgress()
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(mDatabaseManager.isFlushInProgress()).isTrue();
+            query = executor.submit(() -> mDatabaseManager.queryAllAnomalies(0,
+                    AnomalyDatabaseHelper.State.NEW));
+        } finally {
+            db.endTransaction();
+        }
+
+        assertThat(query.get(10, TimeUnit.SECONDS)).hasSize(1);
+        executor.shutdown();
+    }
+
+    @Test
+    public void enqueueAnomaly_concurrentWriters_allPersisted() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT + 1);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREAD_COUNT; thread++) {
+            final int firstUid = thread * ANOMALIES_PER_THREAD;
+            futures.add(executor.submit(() -> {
+                startLatch.await();
+                for (int i = 0; i < ANOMALIES_PER_THREAD; i++) {
+                    final int uid = firstUid + i;
+                    mDatabaseManager.enqueueAnomaly(uid, PACKAGE_NAME + uid, ANOMALY_TYPE,
+                            uid % 2 == 0 ? AnomalyDatabaseHelper.State.NEW
+                                    : AnomalyDatabaseHelper.State.AUTO_HANDLED,
+                            TIMESTAMP + i);
+                }
+                return null;
+            }));
+        }
+        // A reader running alongside the writers.
+        futures.add(executor.submit(() -> {
+            startLatch.await();
+            for (int i = 0; i < 20; i++) {
+                mDatabaseManager.queryAllAnomalies(0, AnomalyDatabaseHelper.State.NEW);
+            }
+            return null;
+        }));
+
+        startLatch.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        mDatabaseManager.flushPendingWrites();
+
+        final int total = THREAD_COUNT * ANOMALIES_PER_THREAD;
+        assertThat(mDatabaseManager.queryAllAnomalies(0, AnomalyDatabaseHelper.State.NEW))
+                .hasSize(total / 2);
+        assertThat(mDatabaseManager.queryAllAnomalies(0,
+                AnomalyDatabaseHelper.State.AUTO_HANDLED)).hasSize(total / 2);
+        assertThat(mDatabaseManager.queryAllAnomalies(TIMESTAMP + ANOMALIES_PER_THREAD,
+                AnomalyDatabaseHelper.State.NEW)).isEmpty();
+    }
+
+    @Test
+    public void enqueueAction_concurrentWriters_keepsLatestPerApp() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREAD_COUNT; thread++) {
+            final int firstUid = thread * ANOMALIES_PER_THREAD;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < ANOMALIES_PER_THREAD; i++) {
+                    mDatabaseManager.enqueueAction(AnomalyDatabaseHelper.ActionType.RESTRICTION,
+                            firstUid + i, PACKAGE_NAME, TIMESTAMP);
+                    mDatabaseManager.enqueueAction(AnomalyDatabaseHelper.ActionType.RESTRICTION,
+                            firstUid + i, PACKAGE_NAME, TIMESTAMP + 1);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        final SparseLongArray timestamps =
+                mDatabaseManager.queryActionTime(AnomalyDatabaseHelper.ActionType.RESTRICTION);
+        assertThat(timestamps.size()).isEqualTo(THREAD_COUNT * ANOMALIES_PER_THREAD);
+        for (int i = 0; i < timestamps.size(); i++) {
+            assertThat(timestamps.valueAt(i)).isEqualTo(TIMESTAMP + 1);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batterytip;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.settings.fuelgauge.batterytip.detectors.BatteryTipDetector;
+import com.android.settings.fuelgauge.batterytip.tips.BatteryTip;
+import com.android.settings.fuelgauge.batterytip.tips.LowBatteryTip;
+import com.android.settings.fuelgauge.batterytip.tips.SmartBatteryTip;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class BatteryTipDetectorPipelineTest {
+    private static final long TIMEOUT_MS = 200;
+
+    private final CountDownLatch mReleaseLatch = new CountDownLatch(1);
+    private BatteryTipDetectorPipeline.Input mInput;
+    private BatteryTip mLowBatteryTip;
+    private BatteryTip mSmartBatteryTip;
+    private BatteryTip mDefaultTip;
+
+    @Before
+    public void setUp() {
+        mInput = new BatteryTipDetectorPipeline.Input(RuntimeEnvironment.application,
+                /* policy */ null, /* batteryInfo */ null, /* batteryUsageStats */ null);
+        mLowBatteryTip = new LowBatteryTip(BatteryTip.StateType.NEW, false /* powerSaveModeOn */);
+        mSmartBatteryTip = new SmartBatteryTip(BatteryTip.StateType.NEW);
+        mDefaultTip = new SmartBatteryTip(BatteryTip.StateType.INVISIBLE);
+    }
+
+    @After
+    public void tearDown() {
+        mReleaseLatch.countDown();
+    }
+
+    @Test
+    public void detect_returnsTipsInDetectorOrder() {
+        final BatteryTipDetectorPipeline pipeline = new BatteryTipDetectorPipeline(TIMEOUT_MS)
+                .addDetector(input -> new FakeDetector(mSmartBatteryTip), () -> mDefaultTip)
+                .addDetector(input -> new FakeDetector(mLowBatteryTip), () -> mDefaultTip);
+
+        final List<BatteryTip> tips = pipeline.detect(mInput);
+
+        assertThat(tips).containsExactly(mSmartBatteryTip, mLowBatteryTip).inOrder();
+    }
+
+    @Test
+    public void detect_sharesInputWithAllDetectors() {
+        final BatteryTipDetectorPipeline.Input[] inputs = new BatteryTipDetectorPipeline.Input[2];
+        final BatteryTipDetectorPipeline pipeline = new BatteryTipDetectorPipeline(TIMEOUT_MS)
+                .addDetector(input -> {
+                    inputs[0] = input;
+                    return new FakeDetector(mLowBatteryTip);
+                }, () -> mDefaultTip)
+                .addDetector(input -> {
+                    inputs[1] = input;
+                    return new FakeDetector(mSmartBatteryTip);
+                }, () -> mDefaultTip);
+
+        pipeline.detect(mInput);
+
+        assertThat(inputs[0]).isSameInstanceAs(mInput);
+        assertThat(inputs[1]).isSameInstanceAs(mInput);
+    }
+
+    @Test
+    public void detect_detectorMissesDeadline_usesItsDefaultTip() {
+        final BatteryTipDetectorPipeline pipeline = new BatteryTipDetectorPipeline(TIMEOUT_MS)
+                .addDetector(input -> new FakeDetector(mLowBatteryTip), () -> mDefaultTip)
+                .addDetector(input -> new BlockingDetector(mSmartBatteryTip), () -> mDefaultTip);
+
+        final List<BatteryTip> tips = pipeline.detect(mInput);
+
+        assertThat(tips).containsExactly(mLowBatteryTip, mDefaultTip).inOrder();
+        assertThat(pipeline.getLatencies().keySet()).containsExactly("FakeDetector");
+    }
+
+    @Test
+    public void detect_detectorThrows_usesItsDefaultTip() {
+        final BatteryTipDetectorPipeline pipeline = new BatteryTipDetectorPipeline(TIMEOUT_MS)
+                .addDetector(input -> () -> {
+                    throw new IllegalStateException();
+                }, () -> mDefaultTip)
+                .addDetector(input -> new FakeDetector(mLowBatteryTip), () -> mDefaultTip);
+
+        assertThat(pipeline.detect(mInput)).containsExactly(mDefaultTip, mLowBatteryTip).inOrder();
+    }
+
+    @Test
+    public void detect_detectorsMissPassDeadlineTogether_laterOneUsesItsDefaultTip() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final BatteryTipDetectorPipeline pipeline =
+                new BatteryTipDetectorPipeline(executor, TIMEOUT_MS)
+                        .addDetector(input -> new SlowDetector(mSmartBatteryTip),
+                                () -> mDefaultTip)
+                        .addDetector(input -> new SlowDetector(mLowBatteryTip),
+                                () -> mDefaultTip);
+
+        try {
+            assertThat(pipeline.detect(mInput))
+                    .containsExactly(mSmartBatteryTip, mDefaultTip).inOrder();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void detect_detectorsStuckInEarlierPass_doNotDelayLaterPass() {
+        final BatteryTipDetectorPipeline stuckPipeline = new BatteryTipDetectorPipeline(TIMEOUT_MS);
+        for (int i = 0; i < 4; i++) {
+            stuckPipeline.addDetector(input -> new StuckDetector(mSmartBatteryTip),
+                    () -> mDefaultTip);
+        }
+        stuckPipeline.detect(mInput);
+
+        final BatteryTipDetectorPipeline pipeline = new BatteryTipDetectorPipeline(TIMEOUT_MS)
+                .addDetector(input -> new FakeDetector(mLowBatteryTip), () -> mDefaultTip);
+
+        assertThat(pipeline.detect(mInput)).containsExactly(mLowBatteryTip);
+    }
+
+    @Test
+    public void detect_noDetector_returnsEmptyList() {
+        assertThat(new BatteryTipDetectorPipeline(TIMEOUT_MS).detect(mInput)).isEmpty();
+    }
+
+    private static class FakeDetector implements BatteryTipDetector {
+        private final BatteryTip mTip;
+
+        FakeDetector(BatteryTip tip) {
+            mTip = tip;
+        }
+
+        @Override
+        public BatteryTip detect() {
+            return mTip;
+        }
+    }
+
+    /** Takes most of the timeout, so two of them in a row miss the deadline. */
+    private static class SlowDetector extends FakeDetector {
+        SlowDetector(BatteryTip tip) {
+            super(tip);
+        }
+
+        @Override
+        public BatteryTip detect() {
+            try {
+                Thread.sleep(TIMEOUT_MS * 3 / 4);
+            } catch (InterruptedException e) {
+                // Cancelled by the pipeline.
+            }
+            return super.detect();
+        }
+    }
+
+    private class BlockingDetector extends FakeDetector {
+        BlockingDetector(BatteryTip tip) {
+            super(tip);
+        }
+
+        @Override
+        public BatteryTip detect() {
+            try {
+                mReleaseLatch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // Cancelled by the pipeline.
+            }
+            return super.detect();
+        }
+    }
+
+    /** Ignores interrupts, like a detector blocked in a binder call. */
+    private class StuckDetector extends FakeDetector {
+        StuckDetector(BatteryTip tip) {
+            super(tip);
+        }
+
+        @Override
+        public BatteryTip detect() {
+            while (true) {
+                try {
+                    mReleaseLatch.await(10, TimeUnit.SECONDS);
+                    return super.detect();
+                } catch (InterruptedException e) {
+                    // Ignored.
+                }
+            }
+        }
+    }
+}
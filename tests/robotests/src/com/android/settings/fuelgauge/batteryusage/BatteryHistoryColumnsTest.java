@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+import android.util.ArraySet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryHistoryColumnsTest {
+
+    private static final long TIMESTAMP1 = 1000L;
+    private static final long TIMESTAMP2 = 2000L;
+    private static final long TIMESTAMP3 = 3000L;
+
+    @Test
+    public void fromHistoryMap_sortsTimestampsAndKeepsValues() {
+        final Map<Long, Map<String, BatteryHistEntry>> historyMap = new HashMap<>();
+        historyMap.put(TIMESTAMP2, createEntryMap(createEntry(2, 20.0, 200L, 50)));
+        historyMap.put(TIMESTAMP1, createEntryMap(
+                createEntry(1, 5.0, 100L, 60), createEntry(2, 10.0, 50L, 60)));
+
+        final BatteryHistoryColumns columns = BatteryHistoryColumns.fromHistoryMap(historyMap);
+
+        assertThat(columns.getRowCount()).isEqualTo(2);
+        assertThat(columns.getTimestamp(0)).isEqualTo(TIMESTAMP1);
+        assertThat(columns.getTimestamp(1)).isEqualTo(TIMESTAMP2);
+        assertThat(columns.getRowSize(0)).isEqualTo(2);
+        assertThat(columns.getRowSize(1)).isEqualTo(1);
+        final int keyIndex = Arrays.asList(columns.getKeys()).indexOf("2");
+        assertThat(columns.getConsumePower(1, keyIndex)).isEqualTo(20.0);
+        assertThat(columns.getForegroundUsageTimeInMs(1, keyIndex)).isEqualTo(200L);
+        assertThat(columns.getBatteryLevel(1, keyIndex)).isEqualTo(50);
+        assertThat(columns.hasEntry(1, Arrays.asList(columns.getKeys()).indexOf("1"))).isFalse();
+    }
+
+    @Test
+    public void fromHistoryMap_keysInArraySetOrder() {
+        final Map<Long, Map<String, BatteryHistEntry>> historyMap = new HashMap<>();
+        historyMap.put(TIMESTAMP1, createEntryMap(createEntry(30, 1.0, 1L, 1)));
+        historyMap.put(TIMESTAMP2, createEntryMap(
+                createEntry(4, 1.0, 1L, 1), createEntry(100, 1.0, 1L, 1)));
+        final Set<String> expectedKeys = new ArraySet<>();
+        historyMap.values().forEach(entryMap -> expectedKeys.addAll(entryMap.keySet()));
+
+        final BatteryHistoryColumns columns = BatteryHistoryColumns.fromHistoryMap(historyMap);
+
+        assertThat(columns.getKeys()).asList().containsExactlyElementsIn(expectedKeys).inOrder();
+    }
+
+    @Test
+    public void indexOfTimestamp_missingTimestamp_returnsMinusOne() {
+        final Map<Long, Map<String, BatteryHistEntry>> historyMap = new HashMap<>();
+        historyMap.put(TIMESTAMP1, createEntryMap(createEntry(1, 1.0, 1L, 1)));
+
+        final BatteryHistoryColumns columns = BatteryHistoryColumns.fromHistoryMap(historyMap);
+
+        assertThat(columns.indexOfTimestamp(TIMESTAMP1)).isEqualTo(0);
+        assertThat(columns.indexOfTimestamp(TIMESTAMP2)).isEqualTo(-1);
+    }
+
+    @Test
+    public void setInterpolatedEntry_matchesBatteryHistEntryInterpolate() {
+        final BatteryHistEntry lowerEntry = createEntry(1, 10.0, 1000L, 80);
+        final BatteryHistEntry upperEntry = createEntry(1, 30.0, 3000L, 60);
+        final BatteryHistoryColumns columns =
+                new BatteryHistoryColumns(new String[] {"1"}, new long[] {TIMESTAMP2});
+
+        columns.setInterpolatedEntry(/*row=*/ 0, /*keyIndex=*/ 0, TIMESTAMP3, /*ratio=*/ 0.25,
+                lowerEntry, upperEntry);
+
+        final BatteryHistEntry expectedEntry = BatteryHistEntry.interpolate(
+                TIMESTAMP2, TIMESTAMP3, /*ratio=*/ 0.25, lowerEntry, upperEntry);
+        assertThat(columns.getConsumePower(0, 0)).isEqualTo(expectedEntry.mConsumePower);
+        assertThat(columns.getForegroundUsageTimeInMs(0, 0))
+                .isEqualTo(expectedEntry.mForegroundUsageTimeInMs);
+        assertThat(columns.getBatteryLevel(0, 0)).isEqualTo(expectedEntry.mBatteryLevel);
+        assertThat(columns.getEntry(0, 0)).isSameInstanceAs(upperEntry);
+        final BatteryHistEntry materializedEntry = columns.toHistoryMap().get(TIMESTAMP2).get("1");
+        assertThat(materializedEntry.mTimestamp).isEqualTo(TIMESTAMP2);
+        assertThat(materializedEntry.mConsumePower).isEqualTo(expectedEntry.mConsumePower);
+        assertThat(materializedEntry.mBatteryLevel).isEqualTo(expectedEntry.mBatteryLevel);
+    }
+
+    @Test
+    public void copyRow_copiesAllCells() {
+        final Map<Long, Map<String, BatteryHistEntry>> historyMap = new HashMap<>();
+        final BatteryHistEntry entry = createEntry(1, 5.0, 100L, 60);
+        historyMap.put(TIMESTAMP1, createEntryMap(entry));
+        final BatteryHistoryColumns source = BatteryHistoryColumns.fromHistoryMap(historyMap);
+        final BatteryHistoryColumns columns =
+                new BatteryHistoryColumns(source.getKeys(), new long[] {TIMESTAMP1, TIMESTAMP2});
+
+        columns.copyRow(source, /*sourceRow=*/ 0, /*row=*/ 1);
+
+        assertThat(columns.getRowSize(0)).isEqualTo(0);
+        assertThat(columns.getRowSize(1)).isEqualTo(1);
+        final Map<Long, Map<String, BatteryHistEntry>> result = columns.toHistoryMap();
+        assertThat(result.get(TIMESTAMP1)).isEmpty();
+        assertThat(result.get(TIMESTAMP2).get("1")).isSameInstanceAs(entry);
+    }
+
+    private static Map<String, BatteryHistEntry> createEntryMap(BatteryHistEntry... entries) {
+        final Map<String, BatteryHistEntry> entryMap = new HashMap<>();
+        for (BatteryHistEntry entry : entries) {
+            entryMap.put(entry.getKey(), entry);
+        }
+        return entryMap;
+    }
+
+    private static BatteryHistEntry createEntry(long uid, double consumePower,
+            long foregroundUsageTimeInMs, int batteryLevel) {
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_UID, uid);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        values.put(BatteryHistEntry.KEY_CONSUME_POWER, consumePower);
+        values.put(BatteryHistEntry.KEY_FOREGROUND_USAGE_TIME, foregroundUsageTimeInMs);
+        values.put(BatteryHistEntry.KEY_BACKGROUND_USAGE_TIME, 0L);
+        values.put(BatteryHistEntry.KEY_BATTERY_LEVEL, batteryLevel);
+        return new BatteryHistEntry(values);
+    }
+}
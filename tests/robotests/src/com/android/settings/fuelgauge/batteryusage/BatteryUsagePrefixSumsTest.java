@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryUsagePrefixSumsTest {
+
+    private BatteryHistEntry mEntry1;
+    private BatteryHistEntry mEntry2;
+    private BatteryUsagePrefixSums mPrefixSums;
+
+    @Before
+    public void setUp() {
+        mEntry1 = createEntry(/*uid=*/ 1L);
+        mEntry2 = createEntry(/*uid=*/ 1L);
+        // Slot 0: key 0 and other users, slot 1: nothing, slot 2: key 0 and key 1.
+        mPrefixSums = new BatteryUsagePrefixSums(/*keyCount=*/ 2, /*expectedSlotCount=*/ 1);
+        mPrefixSums.appendSlot();
+        mPrefixSums.addUsage(/*keyIndex=*/ 0, 10L, 20L, 1.5, mEntry1);
+        mPrefixSums.addOtherUsersConsumePower(3.0);
+        mPrefixSums.appendSlot();
+        mPrefixSums.appendSlot();
+        mPrefixSums.addUsage(/*keyIndex=*/ 0, 5L, 6L, 2.0, mEntry2);
+        mPrefixSums.addUsage(/*keyIndex=*/ 1, 7L, 8L, 4.0, mEntry2);
+    }
+
+    @Test
+    public void appendSlot_beyondExpectedCount_keepsSums() {
+        assertThat(mPrefixSums.getSlotCount()).isEqualTo(3);
+        assertThat(mPrefixSums.getConsumePower(0, 3, /*keyIndex=*/ 0)).isEqualTo(3.5);
+        assertThat(mPrefixSums.getForegroundUsageTimeInMs(0, 3, /*keyIndex=*/ 0)).isEqualTo(15L);
+        assertThat(mPrefixSums.getBackgroundUsageTimeInMs(0, 3, /*keyIndex=*/ 0)).isEqualTo(26L);
+    }
+
+    @Test
+    public void getConsumePower_subRange_returnsRangeSum() {
+        assertThat(mPrefixSums.getConsumePower(1, 3, /*keyIndex=*/ 0)).isEqualTo(2.0);
+        assertThat(mPrefixSums.getConsumePower(0, 2, /*keyIndex=*/ 1)).isEqualTo(0.0);
+        assertThat(mPrefixSums.getConsumePower(2, 3, /*keyIndex=*/ 1)).isEqualTo(4.0);
+    }
+
+    @Test
+    public void hasUsage_emptyRange_returnsFalse() {
+        assertThat(mPrefixSums.hasUsage(1, 2, /*keyIndex=*/ 0)).isFalse();
+        assertThat(mPrefixSums.hasUsage(2, 2, /*keyIndex=*/ 0)).isFalse();
+        assertThat(mPrefixSums.hasUsage(0, 2, /*keyIndex=*/ 1)).isFalse();
+        assertThat(mPrefixSums.getFirstEntry(0, 2, /*keyIndex=*/ 1)).isNull();
+    }
+
+    @Test
+    public void getFirstEntry_returnsEntryOfFirstSlotInRange() {
+        assertThat(mPrefixSums.getFirstEntry(0, 3, /*keyIndex=*/ 0)).isSameInstanceAs(mEntry1);
+        assertThat(mPrefixSums.getFirstEntry(1, 3, /*keyIndex=*/ 0)).isSameInstanceAs(mEntry2);
+    }
+
+    @Test
+    public void getOtherUsersConsumePower_returnsRangeSum() {
+        assertThat(mPrefixSums.hasOtherUsersUsage(0, 1)).isTrue();
+        assertThat(mPrefixSums.getOtherUsersConsumePower(0, 3)).isEqualTo(3.0);
+        assertThat(mPrefixSums.hasOtherUsersUsage(1, 3)).isFalse();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getConsumePower_slotNotAppended_throwsException() {
+        mPrefixSums.getConsumePower(0, 4, /*keyIndex=*/ 0);
+    }
+
+    private static BatteryHistEntry createEntry(long uid) {
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_UID, uid);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        return new BatteryHistEntry(values);
+    }
+}
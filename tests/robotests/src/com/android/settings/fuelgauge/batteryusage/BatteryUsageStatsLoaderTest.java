@@ -19,6 +19,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -83,4 +84,15 @@ public class BatteryUsageStatsLoaderTest {
         assertThat(queryFlags
                 & BatteryUsageStatsQuery.FLAG_BATTERY_USAGE_STATS_INCLUDE_HISTORY).isNotEqualTo(0);
     }
+
+    @Test
+    public void testOnDiscardResult_notDelivered_releasesResult() throws Exception {
+        BatteryUsageStatsLoader loader = new BatteryUsageStatsLoader(
+                mContext, /* includeBatteryHistory */ true);
+
+        loader.onDiscardResult(mBatteryUsageStats);
+
+        // Not shared through the cache, so releasing it closes it.
+        verify(mBatteryUsageStats).close();
+    }
 }
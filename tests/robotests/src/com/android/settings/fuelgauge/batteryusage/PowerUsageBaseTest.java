@@ -18,6 +18,8 @@ package com.android.settings.fuelgauge.batteryusage;
 import static com.android.settings.fuelgauge.batteryusage.PowerUsageBase.KEY_INCLUDE_HISTORY;
 import static com.android.settings.fuelgauge.batteryusage.PowerUsageBase.KEY_REFRESH_TYPE;
 
+import static com.google.common.truth.Truth.assertThat;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
@@ -56,6 +58,8 @@ public class PowerUsageBaseTest {
     private LoaderManager mLoaderManager;
     @Mock
     private Loader<BatteryUsageStats> mBatteryUsageStatsLoader;
+    @Mock
+    private BatteryUsageStats mBatteryUsageStats;
     private TestFragment mFragment;
 
     @Before
@@ -121,6 +125,32 @@ public class PowerUsageBaseTest {
                 refEq(bundle), any());
     }
 
+    @Test
+    public void onLoaderReset_releasesBatteryUsageStats() throws Exception {
+        // Not a spy, the callbacks update the fragment they were created with.
+        final TestFragment fragment = new TestFragment(mLoaderManager);
+        fragment.mBatteryUsageStats = mBatteryUsageStats;
+
+        fragment.mBatteryUsageStatsLoaderCallbacks.onLoaderReset(mBatteryUsageStatsLoader);
+
+        // Not shared through the cache, so releasing it closes it.
+        verify(mBatteryUsageStats).close();
+        assertThat(fragment.mBatteryUsageStats).isNull();
+    }
+
+    @Test
+    public void onLoadFinished_sameStatsDeliveredAgain_keepsThem() throws Exception {
+        final TestFragment fragment = new TestFragment(mLoaderManager);
+        fragment.mBatteryUsageStatsLoaderCallbacks.onLoadFinished(mBatteryUsageStatsLoader,
+                mBatteryUsageStats);
+
+        fragment.mBatteryUsageStatsLoaderCallbacks.onLoadFinished(mBatteryUsageStatsLoader,
+                mBatteryUsageStats);
+
+        verify(mBatteryUsageStats, never()).close();
+        assertThat(fragment.mBatteryUsageStats).isSameInstanceAs(mBatteryUsageStats);
+    }
+
     private static class TestFragment extends PowerUsageBase {
 
         private LoaderManager mLoaderManager;
@@ -328,6 +328,32 @@ public class ContextualCardManagerTest {
         verify(manager, never()).onContextualCardUpdated(anyMap());
     }
 
+    @Test
+    public void onFinishCardLoading_slowLoadWithSnapshotShown_shouldCallOnContextualCardUpdated() {
+        mManager.mStartTime = 0;
+        final ContextualCardManager manager = spy(mManager);
+        doNothing().when(manager).onContextualCardUpdated(anyMap());
+        manager.onSnapshotCardsLoaded(Arrays.asList(buildContextualCard(TEST_SLICE_URI)));
+
+        manager.onFinishCardLoading(new ArrayList<>());
+
+        verify(manager, times(2)).onContextualCardUpdated(anyMap());
+        assertThat(manager.mIsShowingSnapshot).isFalse();
+    }
+
+    @Test
+    public void onSnapshotCardsLoaded_cardsAlreadyLoaded_shouldSkipOnContextualCardUpdated() {
+        mManager.mStartTime = System.currentTimeMillis();
+        final ContextualCardManager manager = spy(mManager);
+        doNothing().when(manager).onContextualCardUpdated(anyMap());
+        manager.onFinishCardLoading(new ArrayList<>());
+
+        manager.onSnapshotCardsLoaded(Arrays.asList(buildContextualCard(TEST_SLICE_URI)));
+
+        verify(manager).onContextualCardUpdated(anyMap());
+        assertThat(manager.mIsShowingSnapshot).isFalse();
+    }
+
     @Test
     public void onFinishCardLoading_newLaunch_twoLoadedCards_shouldShowTwoCards() {
         mManager.mStartTime = System.currentTimeMillis();
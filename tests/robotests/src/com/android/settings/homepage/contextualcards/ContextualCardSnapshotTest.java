@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import static com.android.settings.homepage.contextualcards.slices.SliceContextualCardRenderer.VIEW_TYPE_FULL_WIDTH;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.slice.Slice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class ContextualCardSnapshotTest {
+    private static final Uri TEST_SLICE_URI = Uri.parse("content://test/test");
+    private static final String TEST_SLICE_NAME = "test_name";
+
+    private Context mContext;
+    private ContextualCardSnapshot mSnapshot;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mSnapshot = new ContextualCardSnapshot(mContext);
+    }
+
+    @After
+    public void tearDown() {
+        mSnapshot.getFile().delete();
+    }
+
+    @Test
+    public void read_noSnapshot_shouldReturnNull() {
+        assertThat(mSnapshot.read()).isNull();
+    }
+
+    @Test
+    public void read_afterWrite_shouldRestoreCards() {
+        final Slice slice = new Slice.Builder(TEST_SLICE_URI)
+                .addText("Test title", null /* subType */)
+                .build();
+        final ContextualCard card = new ContextualCard.Builder()
+                .setName(TEST_SLICE_NAME)
+                .setCardType(ContextualCard.CardType.SLICE)
+                .setSliceUri(TEST_SLICE_URI)
+                .setRankingScore(0.5)
+                .setPackageName(mContext.getPackageName())
+                .setViewType(VIEW_TYPE_FULL_WIDTH)
+                .setSlice(slice)
+                .build();
+
+        mSnapshot.write(Arrays.asList(card));
+        final List<ContextualCard> cards = mSnapshot.read();
+
+        assertThat(cards).hasSize(1);
+        final ContextualCard restored = cards.get(0);
+        assertThat(restored.getName()).isEqualTo(TEST_SLICE_NAME);
+        assertThat(restored.getSliceUri()).isEqualTo(TEST_SLICE_URI);
+        assertThat(restored.getRankingScore()).isEqualTo(0.5);
+        assertThat(restored.getPackageName()).isEqualTo(mContext.getPackageName());
+        assertThat(restored.getViewType()).isEqualTo(VIEW_TYPE_FULL_WIDTH);
+        assertThat(restored.isFromSnapshot()).isTrue();
+        assertThat(restored.getSlice().getUri()).isEqualTo(TEST_SLICE_URI);
+    }
+
+    @Test
+    public void read_cardWithoutSlice_shouldRestoreCardWithoutSlice() {
+        final ContextualCard card = new ContextualCard.Builder()
+                .setName(TEST_SLICE_NAME)
+                .setCardType(ContextualCard.CardType.SLICE)
+                .setSliceUri(TEST_SLICE_URI)
+                .build();
+
+        mSnapshot.write(Arrays.asList(card));
+
+        assertThat(mSnapshot.read().get(0).getSlice()).isNull();
+    }
+
+    @Test
+    public void read_corruptedSnapshot_shouldReturnNull() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(mSnapshot.getFile())) {
+            out.write(new byte[] {1, 2, 3});
+        }
+
+        assertThat(mSnapshot.read()).isNull();
+    }
+}
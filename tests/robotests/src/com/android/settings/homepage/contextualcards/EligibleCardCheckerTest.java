@@ -22,7 +22,9 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import android.app.Activity;
 import android.app.PendingIntent;
@@ -131,6 +133,54 @@ public class EligibleCardCheckerTest {
         assertThat(mEligibleCardChecker.mCard.getSlice()).isNotNull();
     }
 
+    @Test
+    public void isCardEligibleToDisplay_cachedEligible_shouldBindFreshSlice() {
+        final EligibleCardCache cache = new EligibleCardCache(Long.MAX_VALUE);
+        cache.put(TEST_SLICE_URI, true /* eligible */);
+        final Slice slice = buildSlice();
+        final EligibleCardChecker checker = spy(
+                new EligibleCardChecker(mContext, getContextualCard(TEST_SLICE_URI), cache));
+        doReturn(slice).when(checker).bindSlice(any(Uri.class));
+
+        assertThat(checker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI))).isTrue();
+
+        verify(checker).bindSlice(any(Uri.class));
+        assertThat(checker.mCard.getSlice()).isSameInstanceAs(slice);
+    }
+
+    @Test
+    public void isCardEligibleToDisplay_cachedIneligible_shouldNotBindSlice() {
+        final EligibleCardCache cache = new EligibleCardCache(Long.MAX_VALUE);
+        cache.put(TEST_SLICE_URI, false /* eligible */);
+        final EligibleCardChecker checker = spy(
+                new EligibleCardChecker(mContext, getContextualCard(TEST_SLICE_URI), cache));
+
+        assertThat(checker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI))).isFalse();
+
+        verify(checker, never()).bindSlice(any(Uri.class));
+    }
+
+    @Test
+    public void isCardEligibleToDisplay_errorSlice_shouldCacheIneligible() {
+        final EligibleCardCache cache = new EligibleCardCache(Long.MAX_VALUE);
+        final EligibleCardChecker checker = spy(
+                new EligibleCardChecker(mContext, getContextualCard(TEST_SLICE_URI), cache));
+        doReturn(new Slice.Builder(TEST_SLICE_URI).addHints(HINT_ERROR).build())
+                .when(checker).bindSlice(any(Uri.class));
+
+        checker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+
+        assertThat(cache.isIneligible(TEST_SLICE_URI)).isTrue();
+    }
+
+    @Test
+    public void eligibleCardCache_expiredResult_returnFalse() {
+        final EligibleCardCache cache = new EligibleCardCache(0 /* ttlMs */);
+        cache.put(TEST_SLICE_URI, false /* eligible */);
+
+        assertThat(cache.isIneligible(TEST_SLICE_URI)).isFalse();
+    }
+
     private ContextualCard getContextualCard(Uri sliceUri) {
         return new ContextualCard.Builder()
                 .setName("test_card")
@@ -20,12 +20,19 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.INotificationManager;
+import android.app.NotificationChannel;
+import android.app.NotificationChannelGroup;
+import android.app.NotificationManager;
 import android.app.role.RoleManager;
 import android.app.usage.UsageEvents;
 import android.bluetooth.BluetoothAdapter;
@@ -35,9 +42,11 @@ import android.content.ComponentName;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
+import android.content.pm.ParceledListSlice;
 import android.net.MacAddress;
 import android.os.Build;
 import android.os.Parcel;
+import android.os.SystemClock;
 
 import com.android.settings.notification.NotificationBackend.AppRow;
 import com.android.settingslib.bluetooth.CachedBluetoothDevice;
@@ -268,6 +277,80 @@ public class NotificationBackendTest {
                 mCdm, mBm, mCn.getPackageName(), 0).toString()).isEqualTo("Device 1, Device 2");
     }
 
+    @Test
+    public void getChannelSnapshot_countsFromOneCall() throws Exception {
+        final NotificationChannel blocked =
+                new NotificationChannel("blocked", "blocked", NotificationManager.IMPORTANCE_NONE);
+        final NotificationChannel deleted =
+                new NotificationChannel("deleted", "deleted", NotificationManager.IMPORTANCE_LOW);
+        deleted.setDeleted(true);
+        final NotificationChannelGroup group = new NotificationChannelGroup("group", "group");
+        group.addChannel(blocked);
+        group.addChannel(new NotificationChannel(
+                "allowed", "allowed", NotificationManager.IMPORTANCE_HIGH));
+        final NotificationChannelGroup deletedGroup = new NotificationChannelGroup("old", "old");
+        deletedGroup.addChannel(deleted);
+        when(mInm.getNotificationChannelGroupsForPackage("test", 123, true))
+                .thenReturn(new ParceledListSlice<>(ImmutableList.of(group, deletedGroup)));
+
+        assertThat(mNotificationBackend.getBlockedChannelCount("test", 123)).isEqualTo(1);
+        assertThat(mNotificationBackend.getDeletedChannelCount("test", 123)).isEqualTo(1);
+        assertThat(mNotificationBackend.getChannelCount("test", 123)).isEqualTo(2);
+        assertFalse(mNotificationBackend.onlyHasDefaultChannel("test", 123));
+        assertThat(mNotificationBackend.getGroups("test", 123).getList())
+                .containsExactly(group);
+
+        verify(mInm, times(1)).getNotificationChannelGroupsForPackage("test", 123, true);
+        verify(mInm, never()).getNumNotificationChannelsForPackage(anyString(), anyInt(),
+                anyBoolean());
+    }
+
+    @Test
+    public void getChannelSnapshot_onlyDefaultChannel() throws Exception {
+        final NotificationChannelGroup ungrouped = new NotificationChannelGroup(null, null);
+        ungrouped.addChannel(new NotificationChannel(NotificationChannel.DEFAULT_CHANNEL_ID,
+                "default", NotificationManager.IMPORTANCE_DEFAULT));
+        when(mInm.getNotificationChannelGroupsForPackage("test", 123, true))
+                .thenReturn(new ParceledListSlice<>(ImmutableList.of(ungrouped)));
+
+        assertTrue(mNotificationBackend.onlyHasDefaultChannel("test", 123));
+    }
+
+    @Test
+    public void getChannelSnapshot_updateChannel_queriesAgain() throws Exception {
+        when(mInm.getNotificationChannelGroupsForPackage("test", 123, true))
+                .thenReturn(ParceledListSlice.emptyList());
+
+        mNotificationBackend.getGroups("test", 123);
+        mNotificationBackend.updateChannel("test", 123,
+                new NotificationChannel("id", "name", NotificationManager.IMPORTANCE_LOW));
+        mNotificationBackend.getGroups("test", 123);
+
+        verify(mInm, times(2)).getNotificationChannelGroupsForPackage("test", 123, true);
+    }
+
+    @Test
+    public void getChannelSnapshot_expired_queriesAgain() throws Exception {
+        when(mInm.getNotificationChannelGroupsForPackage("test", 123, true))
+                .thenReturn(ParceledListSlice.emptyList());
+
+        mNotificationBackend.getBlockedChannelCount("test", 123);
+        // Advances the Robolectric clock.
+        SystemClock.sleep(NotificationBackend.CHANNEL_SNAPSHOT_TTL_MS);
+        mNotificationBackend.getBlockedChannelCount("test", 123);
+
+        verify(mInm, times(2)).getNotificationChannelGroupsForPackage("test", 123, true);
+    }
+
+    @Test
+    public void getChannelCount_noSnapshot_asksForCountOnly() throws Exception {
+        when(mInm.getNumNotificationChannelsForPackage("test", 123, false)).thenReturn(4);
+
+        assertThat(mNotificationBackend.getChannelCount("test", 123)).isEqualTo(4);
+        verify(mInm, never()).getNotificationChannelGroupsForPackage(anyString(), anyInt(),
+                anyBoolean());
+    }
+
     private ImmutableList<AssociationInfo> mockAssociations(String... macAddresses) {
         final AssociationInfo[] associations = new AssociationInfo[macAddresses.length];
         for (int index = 0; index < macAddresses.length; index++) {
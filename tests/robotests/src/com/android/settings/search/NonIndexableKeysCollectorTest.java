@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import com.android.settingslib.search.SearchIndexableData;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@RunWith(RobolectricTestRunner.class)
+public class NonIndexableKeysCollectorTest {
+
+    private ExecutorService mExecutor;
+    private NonIndexableKeysCollector mCollector;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(4);
+        mCollector = new NonIndexableKeysCollector(mExecutor);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void collect_providersFinishOutOfOrder_mergesInBundleOrder() {
+        final CountDownLatch firstMayFinish = new CountDownLatch(1);
+        final SearchIndexableData first = createBundle(String.class);
+        final SearchIndexableData second = createBundle(Long.class);
+
+        final List<String> keys = mCollector.collect(Arrays.asList(first, second), bundle -> {
+            if (bundle == first) {
+                await(firstMayFinish);
+                return new ArrayList<>(Arrays.asList("a", "b"));
+            }
+            firstMayFinish.countDown();
+            return new ArrayList<>(Arrays.asList("c"));
+        });
+
+        assertThat(keys).containsExactly("a", "b", "c").inOrder();
+    }
+
+    @Test
+    public void collect_providerReturnsNull_skipsProvider() {
+        final List<String> keys = mCollector.collect(
+                Arrays.asList(createBundle(String.class), createBundle(Long.class)),
+                bundle -> bundle.getTargetClass() == String.class
+                        ? null : new ArrayList<>(Arrays.asList("key")));
+
+        assertThat(keys).containsExactly("key");
+    }
+
+    @Test
+    public void collect_providerTimesOut_usesLastKnownKeys() {
+        final CountDownLatch release = new CountDownLatch(1);
+        mCollector = new NonIndexableKeysCollector(mExecutor) {
+            @Override
+            long getProviderTimeoutMillis() {
+                return 50;
+            }
+        };
+        final List<SearchIndexableData> bundles =
+                Arrays.asList(createBundle(String.class), createBundle(Long.class));
+        mCollector.collect(bundles, bundle -> new ArrayList<>(Arrays.asList(
+                bundle.getTargetClass().getSimpleName())));
+
+        final List<String> keys = mCollector.collect(bundles, bundle -> {
+            if (bundle.getTargetClass() == String.class) {
+                await(release);
+            }
+            return new ArrayList<>(Arrays.asList("new"));
+        });
+        release.countDown();
+
+        assertThat(keys).containsExactly("String", "new").inOrder();
+        assertThat(mCollector.getLastTimings().get(0).mTimedOut).isTrue();
+        assertThat(mCollector.getLastTimings().get(1).mTimedOut).isFalse();
+    }
+
+    @Test
+    public void collect_providerTimesOutWithoutKnownKeys_waitsForIt() {
+        mCollector = new NonIndexableKeysCollector(mExecutor) {
+            @Override
+            long getProviderTimeoutMillis() {
+                return 10;
+            }
+        };
+
+        final List<String> keys = mCollector.collect(
+                Arrays.asList(createBundle(String.class), createBundle(Long.class)),
+                bundle -> {
+                    if (bundle.getTargetClass() == String.class) {
+                        sleep(100);
+                    }
+                    return new ArrayList<>(Arrays.asList("key"));
+                });
+
+        assertThat(keys).containsExactly("key", "key");
+        assertThat(mCollector.getLastTimings().get(0).mTimedOut).isTrue();
+    }
+
+    @Test
+    public void dump_afterCollect_listsEveryProvider() {
+        mCollector.collect(Arrays.asList(createBundle(String.class), createBundle(Long.class)),
+                bundle -> new ArrayList<>(Arrays.asList("key")));
+        final StringWriter stringWriter = new StringWriter();
+
+        mCollector.dump(new PrintWriter(stringWriter));
+
+        final String output = stringWriter.toString();
+        assertThat(output).contains("2 providers");
+        assertThat(output).contains(String.class.getName());
+        assertThat(output).contains(Long.class.getName());
+    }
+
+    @Test
+    public void computeAll_providersRunConcurrently_returnsResultsByName() {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+
+        final Map<String, String> results = mCollector.computeAll(
+                Arrays.asList(createBundle(String.class), createBundle(Long.class)), bundle -> {
+                    bothStarted.countDown();
+                    await(bothStarted);
+                    return bundle.getTargetClass().getSimpleName();
+                });
+
+        assertThat(results).containsExactly(
+                String.class.getName(), "String", Long.class.getName(), "Long");
+    }
+
+    @Test
+    public void computeAll_providerReturnsNull_leavesItOut() {
+        final Map<String, String> results = mCollector.computeAll(
+                Arrays.asList(createBundle(String.class), createBundle(Long.class)),
+                bundle -> bundle.getTargetClass() == String.class ? null : "result");
+
+        assertThat(results).containsExactly(Long.class.getName(), "result");
+    }
+
+    /** Runs every registered provider through the collector with the test application context. */
+    @Test
+    public void collect_allProviders_recordsEveryProvider() {
+        final Context context = RuntimeEnvironment.application;
+        final Collection<SearchIndexableData> bundles = new SearchFeatureProviderImpl()
+                .getSearchIndexableResources().getProviderValues();
+
+        mCollector.collect(bundles, bundle -> {
+            try {
+                return bundle.getSearchIndexProvider().getNonIndexableKeys(context);
+            } catch (Exception e) {
+                return null;
+            }
+        });
+
+        final List<NonIndexableKeysCollector.ProviderTiming> timings =
+                mCollector.getLastTimings();
+        assertThat(timings).hasSize(bundles.size());
+        long cpuTime = 0;
+        for (NonIndexableKeysCollector.ProviderTiming timing : timings) {
+            cpuTime += timing.mCpuTimeMillis;
+        }
+        final StringWriter output = new StringWriter();
+        mCollector.dump(new PrintWriter(output));
+        // Reports the wall time of the parallel run next to the cpu time a serial run would take.
+        System.out.println(output);
+        assertThat(output.toString()).contains("wall time " + mCollector.getLastWallTimeMillis()
+                + "ms, sum of cpu time " + cpuTime + "ms");
+    }
+
+    private static SearchIndexableData createBundle(Class<?> targetClass) {
+        return new SearchIndexableData(targetClass, new BaseSearchIndexProvider());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
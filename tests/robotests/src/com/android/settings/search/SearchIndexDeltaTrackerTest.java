@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import com.android.settingslib.search.SearchIndexableData;
+import com.android.settingslib.search.SearchIndexableRaw;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public class SearchIndexDeltaTrackerTest {
+
+    private Context mContext;
+    private SearchIndexDeltaTracker mTracker;
+    private FakeProvider mStableProvider;
+    private FakeProvider mChangingProvider;
+    private List<SearchIndexableData> mBundles;
+    private SearchIndexableData mUnknownBundle;
+    private FakeLoader mLoader;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mTracker = new SearchIndexDeltaTracker(1234L);
+        mStableProvider = new FakeProvider(10L);
+        mChangingProvider = new FakeProvider(20L);
+        mUnknownBundle = new SearchIndexableData(Integer.class, new BaseSearchIndexProvider());
+        mBundles = Arrays.asList(
+                new SearchIndexableData(String.class, mStableProvider),
+                new SearchIndexableData(Long.class, mChangingProvider),
+                mUnknownBundle);
+        mLoader = new FakeLoader();
+    }
+
+    @Test
+    public void getChangedSince_noToken_returnsAllProviders() {
+        final SearchIndexDeltaTracker.Delta delta = mTracker.getChangedSince(
+                mContext, mBundles, SearchIndexDeltaTracker.NO_TOKEN, mLoader);
+
+        assertThat(delta.changedBundles).containsExactlyElementsIn(mBundles);
+        assertThat(delta.token).isNotEqualTo(SearchIndexDeltaTracker.NO_TOKEN);
+    }
+
+    @Test
+    public void getChangedSince_nothingChanged_returnsNoProvider() {
+        final long token = mTracker.getChangedSince(
+                mContext, mBundles, SearchIndexDeltaTracker.NO_TOKEN, mLoader).token;
+
+        final SearchIndexDeltaTracker.Delta delta =
+                mTracker.getChangedSince(mContext, mBundles, token, mLoader);
+
+        assertThat(delta.changedBundles).isEmpty();
+        assertThat(delta.token).isEqualTo(token);
+    }
+
+    @Test
+    public void getChangedSince_hashChanged_returnsChangedProvider() {
+        final long token = mTracker.getChangedSince(
+                mContext, mBundles, SearchIndexDeltaTracker.NO_TOKEN, mLoader).token;
+        mChangingProvider.mHash = 21L;
+
+        final SearchIndexDeltaTracker.Delta delta =
+                mTracker.getChangedSince(mContext, mBundles, token, mLoader);
+
+        assertThat(delta.changedBundles).containsExactly(mBundles.get(1));
+    }
+
+    @Test
+    public void getChangedSince_unknownHash_loadsOnlyThatProvider() {
+        mTracker.getChangedSince(mContext, mBundles, SearchIndexDeltaTracker.NO_TOKEN, mLoader);
+
+        assertThat(mLoader.mLoadedBundles).containsExactly(mUnknownBundle);
+    }
+
+    @Test
+    public void getChangedSince_unknownHashResultsChanged_returnsProviderWithResults() {
+        final long token = mTracker.getChangedSince(
+                mContext, mBundles, SearchIndexDeltaTracker.NO_TOKEN, mLoader).token;
+        mLoader.mKeys = Arrays.asList("key");
+
+        final SearchIndexDeltaTracker.Delta delta =
+                mTracker.getChangedSince(mContext, mBundles, token, mLoader);
+
+        assertThat(delta.changedBundles).containsExactly(mUnknownBundle);
+        assertThat(delta.results.get(Integer.class.getName()).nonIndexableKeys)
+                .containsExactly("key");
+    }
+
+    @Test
+    public void getChangedSince_unknownHashRawDataChanged_returnsProvider() {
+        final long token = mTracker.getChangedSince(
+                mContext, mBundles, SearchIndexDeltaTracker.NO_TOKEN, mLoader).token;
+        final SearchIndexableRaw raw = new SearchIndexableRaw(mContext);
+        raw.key = "raw";
+        mLoader.mRawData = Arrays.asList(raw);
+
+        final SearchIndexDeltaTracker.Delta delta =
+                mTracker.getChangedSince(mContext, mBundles, token, mLoader);
+
+        assertThat(delta.changedBundles).containsExactly(mUnknownBundle);
+    }
+
+    @Test
+    public void getChangedSince_loadFailed_returnsProviderUntilLoaded() {
+        final long token = mTracker.getChangedSince(
+                mContext, mBundles, SearchIndexDeltaTracker.NO_TOKEN, mLoader).token;
+        mLoader.mFail = true;
+
+        final SearchIndexDeltaTracker.Delta failed =
+                mTracker.getChangedSince(mContext, mBundles, token, mLoader);
+        mLoader.mFail = false;
+        final SearchIndexDeltaTracker.Delta loaded =
+                mTracker.getChangedSince(mContext, mBundles, failed.token, mLoader);
+        final SearchIndexDeltaTracker.Delta unchanged =
+                mTracker.getChangedSince(mContext, mBundles, loaded.token, mLoader);
+
+        assertThat(failed.changedBundles).containsExactly(mUnknownBundle);
+        assertThat(loaded.changedBundles).containsExactly(mUnknownBundle);
+        assertThat(unchanged.changedBundles).isEmpty();
+    }
+
+    @Test
+    public void getChangedSince_gatedPageDisabled_notLoaded() {
+        final SearchIndexableData gatedBundle = new SearchIndexableData(Short.class,
+                new GatedPageSearchIndexProvider() {
+                    @Override
+                    protected boolean isPageSearchEnabled(Context context) {
+                        return false;
+                    }
+                });
+
+        mTracker.getChangedSince(mContext, Arrays.asList(gatedBundle),
+                SearchIndexDeltaTracker.NO_TOKEN, mLoader);
+
+        assertThat(mLoader.mLoadedBundles).isEmpty();
+    }
+
+    @Test
+    public void getChangedSince_olderToken_includesIntermediateChanges() {
+        final long token = mTracker.getChangedSince(
+                mContext, mBundles, SearchIndexDeltaTracker.NO_TOKEN, mLoader).token;
+        mChangingProvider.mHash = 21L;
+        mTracker.getChangedSince(mContext, mBundles, token, mLoader);
+
+        final SearchIndexDeltaTracker.Delta delta =
+                mTracker.getChangedSince(mContext, mBundles, token, mLoader);
+
+        assertThat(delta.changedBundles).containsExactly(mBundles.get(1));
+    }
+
+    @Test
+    public void getChangedSince_tokenFromOtherEpoch_returnsAllProviders() {
+        final long token = new SearchIndexDeltaTracker(42L).getChangedSince(
+                mContext, mBundles, SearchIndexDeltaTracker.NO_TOKEN, mLoader).token;
+        mTracker.getChangedSince(mContext, mBundles, SearchIndexDeltaTracker.NO_TOKEN, mLoader);
+
+        final SearchIndexDeltaTracker.Delta delta =
+                mTracker.getChangedSince(mContext, mBundles, token, mLoader);
+
+        assertThat(delta.changedBundles).containsExactlyElementsIn(mBundles);
+    }
+
+    @Test
+    public void resultHash_keyMovedToRawData_differs() {
+        final SearchIndexableRaw raw = new SearchIndexableRaw(mContext);
+        raw.title = "key";
+
+        assertThat(new SearchIndexDeltaTracker.Result(Arrays.asList("key"), new ArrayList<>())
+                .getHash()).isNotEqualTo(
+                new SearchIndexDeltaTracker.Result(null, Arrays.asList(raw)).getHash());
+    }
+
+    private static class FakeProvider extends BaseSearchIndexProvider {
+        private long mHash;
+
+        FakeProvider(long hash) {
+            mHash = hash;
+        }
+
+        @Override
+        public long getDynamicStateHash(Context context) {
+            return mHash;
+        }
+    }
+
+    private static class FakeLoader implements SearchIndexDeltaTracker.ResultLoader {
+        private final List<SearchIndexableData> mLoadedBundles = new ArrayList<>();
+        private List<String> mKeys = new ArrayList<>();
+        private List<SearchIndexableRaw> mRawData = new ArrayList<>();
+        private boolean mFail;
+
+        @Override
+        public Map<String, SearchIndexDeltaTracker.Result> loadResults(
+                List<SearchIndexableData> bundles) {
+            mLoadedBundles.addAll(bundles);
+            final Map<String, SearchIndexDeltaTracker.Result> results = new HashMap<>();
+            if (!mFail) {
+                for (SearchIndexableData bundle : bundles) {
+                    results.put(SettingsSearchIndexablesProvider.getBundleName(bundle),
+                            new SearchIndexDeltaTracker.Result(mKeys, mRawData));
+                }
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.MatrixCursor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SearchIndexableSnapshotTest {
+
+    private static final String[] COLUMNS = {"rank", "title", "icon"};
+
+    private Context mContext;
+    private SearchIndexableSnapshot mSnapshot;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mSnapshot = new SearchIndexableSnapshot(mContext);
+    }
+
+    @Test
+    public void read_noSnapshot_returnsFalse() {
+        final MatrixCursor cursor = new MatrixCursor(COLUMNS);
+
+        assertThat(mSnapshot.read(SearchIndexableSnapshot.SECTION_RAW, cursor)).isFalse();
+        assertThat(cursor.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void read_afterWrite_returnsSameRows() {
+        final List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1, "title", null});
+        rows.add(new Object[]{2, null, 42});
+        mSnapshot.write(SearchIndexableSnapshot.SECTION_RAW, COLUMNS.length, rows);
+
+        final MatrixCursor cursor = new MatrixCursor(COLUMNS);
+
+        assertThat(mSnapshot.read(SearchIndexableSnapshot.SECTION_RAW, cursor)).isTrue();
+        assertThat(cursor.getCount()).isEqualTo(2);
+        cursor.moveToFirst();
+        assertThat(cursor.getInt(0)).isEqualTo(1);
+        assertThat(cursor.getString(1)).isEqualTo("title");
+        assertThat(cursor.isNull(2)).isTrue();
+        cursor.moveToNext();
+        assertThat(cursor.getInt(0)).isEqualTo(2);
+        assertThat(cursor.isNull(1)).isTrue();
+        assertThat(cursor.getInt(2)).isEqualTo(42);
+    }
+
+    @Test
+    public void write_leavesOnlySnapshotFile() {
+        mSnapshot.write(SearchIndexableSnapshot.SECTION_RAW, COLUMNS.length, new ArrayList<>());
+        mSnapshot.write(SearchIndexableSnapshot.SECTION_RAW, COLUMNS.length, new ArrayList<>());
+
+        final File file = mSnapshot.getFile(SearchIndexableSnapshot.SECTION_RAW);
+        assertThat(file.getParentFile().list()).asList().containsExactly(file.getName());
+    }
+
+    @Test
+    public void read_otherSection_returnsFalse() {
+        final List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1, "title", null});
+        mSnapshot.write(SearchIndexableSnapshot.SECTION_RAW, COLUMNS.length, rows);
+
+        assertThat(mSnapshot.read(SearchIndexableSnapshot.SECTION_XML_RES,
+                new MatrixCursor(COLUMNS))).isFalse();
+    }
+
+    @Test
+    public void read_localeChanged_returnsFalse() {
+        final List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1, "title", null});
+        mSnapshot.write(SearchIndexableSnapshot.SECTION_RAW, COLUMNS.length, rows);
+
+        RuntimeEnvironment.setQualifiers("fr");
+
+        assertThat(mSnapshot.read(SearchIndexableSnapshot.SECTION_RAW,
+                new MatrixCursor(COLUMNS))).isFalse();
+    }
+
+    @Test
+    public void read_columnCountChanged_returnsFalse() {
+        final List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1, "title", null});
+        mSnapshot.write(SearchIndexableSnapshot.SECTION_RAW, COLUMNS.length, rows);
+
+        assertThat(mSnapshot.read(SearchIndexableSnapshot.SECTION_RAW,
+                new MatrixCursor(new String[]{"rank"}))).isFalse();
+    }
+
+    @Test
+    public void read_corruptedSnapshot_returnsFalse() throws Exception {
+        mSnapshot.write(SearchIndexableSnapshot.SECTION_RAW, COLUMNS.length, new ArrayList<>());
+        try (FileOutputStream out = new FileOutputStream(
+                mSnapshot.getFile(SearchIndexableSnapshot.SECTION_RAW))) {
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        assertThat(mSnapshot.read(SearchIndexableSnapshot.SECTION_RAW,
+                new MatrixCursor(COLUMNS))).isFalse();
+    }
+}
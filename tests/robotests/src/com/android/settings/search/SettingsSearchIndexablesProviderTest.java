@@ -113,6 +113,19 @@ public class SettingsSearchIndexablesProviderTest {
         assertThat(cursor.getString(12)).isEqualTo(FakeSettingsFragment.KEY);
     }
 
+    @Test
+    public void queryRawData_rawDataNotStatic_notServedFromSnapshot() {
+        final Uri rawUri = Uri.parse(BASE_AUTHORITY + SearchIndexablesContract.INDEXABLES_RAW_PATH);
+        mProvider.query(rawUri, SearchIndexablesContract.INDEXABLES_RAW_COLUMNS, null, null, null);
+        mFakeFeatureFactory.searchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .clear();
+
+        final Cursor cursor = mProvider.query(rawUri,
+                SearchIndexablesContract.INDEXABLES_RAW_COLUMNS, null, null, null);
+
+        assertThat(cursor.getCount()).isEqualTo(0);
+    }
+
     @Test
     public void testResourcesColumnFetched() {
         Uri rawUri = Uri.parse(BASE_AUTHORITY + SearchIndexablesContract.INDEXABLES_XML_RES_PATH);
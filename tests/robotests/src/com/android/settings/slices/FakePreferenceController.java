@@ -22,13 +22,16 @@ import com.android.settings.core.BasePreferenceController;
 
 public class FakePreferenceController extends BasePreferenceController {
 
+    /** Availability reported by every instance, reset by tests which change it. */
+    static int sAvailabilityStatus = AVAILABLE;
+
     public FakePreferenceController(Context context, String preferenceKey) {
         super(context, preferenceKey);
     }
 
     @Override
     public int getAvailabilityStatus() {
-        return AVAILABLE;
+        return sAvailabilityStatus;
     }
 
     @Override
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.android.settings.testutils.DatabaseTestUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+@RunWith(RobolectricTestRunner.class)
+public class SliceDataCacheTest {
+
+    private static final String KEY = "key";
+    private static final Uri URI = Uri.parse("content://com.android.settings.slices/action/key");
+
+    private Context mContext;
+    private SliceDataCache mCache;
+    private SliceData mData;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mCache = spy(new SliceDataCache(mContext));
+        doReturn(0L).when(mCache).elapsedRealtime();
+        mData = createSliceData(KEY, URI);
+    }
+
+    @After
+    public void cleanUp() {
+        DatabaseTestUtils.clearDb(mContext);
+    }
+
+    @Test
+    public void get_cachedEntry_returnsDataAndCountsHit() {
+        mCache.put(URI, mData);
+
+        assertThat(mCache.get(URI)).isEqualTo(mData);
+        assertThat(mCache.get(URI)).isEqualTo(mData);
+        assertThat(mCache.getHitCount()).isEqualTo(2);
+        assertThat(mCache.getMissCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void get_missingEntry_returnsNullAndCountsMiss() {
+        assertThat(mCache.get(URI)).isNull();
+        assertThat(mCache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_expiredEntry_returnsNull() {
+        mCache.put(URI, mData);
+        doReturn(SliceDataCache.TTL_MILLIS + 1).when(mCache).elapsedRealtime();
+
+        assertThat(mCache.get(URI)).isNull();
+    }
+
+    @Test
+    public void get_indexRewritten_returnsNull() {
+        mCache.put(URI, mData);
+        SlicesDatabaseHelper.getInstance(mContext).invalidateSliceDataCache();
+
+        assertThat(mCache.get(URI)).isNull();
+    }
+
+    @Test
+    public void clear_dropsEntries() {
+        mCache.put(URI, mData);
+        mCache.clear();
+
+        assertThat(mCache.get(URI)).isNull();
+    }
+
+    @Test
+    public void put_overCapacity_evictsLeastRecentlyUsed() {
+        mCache.put(URI, mData);
+        for (int i = 0; i < SliceDataCache.MAX_ENTRIES; i++) {
+            final Uri uri = Uri.parse("content://com.android.settings.slices/action/key" + i);
+            mCache.put(uri, createSliceData(KEY + i, uri));
+        }
+
+        assertThat(mCache.get(URI)).isNull();
+    }
+
+    @Test
+    public void dump_printsCounters() {
+        mCache.put(URI, mData);
+        mCache.get(URI);
+        mCache.recordBind(500);
+        final StringWriter stringWriter = new StringWriter();
+
+        mCache.dump(new PrintWriter(stringWriter));
+
+        final String output = stringWriter.toString();
+        assertThat(output).contains("hits: 1, misses: 0, hit rate: 100%");
+        assertThat(output).contains("cached binds: 1, avg 500us, max 500us");
+    }
+
+    private static SliceData createSliceData(String key, Uri uri) {
+        return new SliceData.Builder()
+                .setKey(key)
+                .setTitle(SliceTestUtils.FAKE_TITLE)
+                .setFragmentName(SliceTestUtils.FAKE_FRAGMENT_NAME)
+                .setPreferenceControllerClassName(SliceTestUtils.FAKE_CONTROLLER_NAME)
+                .setHighlightMenuRes(SliceTestUtils.FAKE_HIGHLIGHT_MENU_RES)
+                .setUri(uri)
+                .build();
+    }
+}
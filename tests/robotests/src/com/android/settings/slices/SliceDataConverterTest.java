@@ -33,6 +33,7 @@ import android.text.TextUtils;
 import com.android.settings.R;
 import com.android.settings.accessibility.AccessibilitySettings;
 import com.android.settings.accessibility.AccessibilitySlicePreferenceController;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.search.SearchFeatureProvider;
 import com.android.settings.search.SearchFeatureProviderImpl;
 import com.android.settings.testutils.FakeFeatureFactory;
@@ -86,6 +87,45 @@ public class SliceDataConverterTest {
     @After
     public void cleanUp() {
         mFakeFeatureFactory.searchFeatureProvider = mock(SearchFeatureProvider.class);
+        FakePreferenceController.sAvailabilityStatus = BasePreferenceController.AVAILABLE;
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getFingerprint_sameSource_isStable() {
+        final SearchIndexableData bundle = new SearchIndexableData(FakeIndexProvider.class,
+                FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER);
+
+        assertThat(mSliceDataConverter.getFingerprint(bundle)).isNotNull();
+        assertThat(mSliceDataConverter.getFingerprint(bundle))
+                .isEqualTo(mSliceDataConverter.getFingerprint(bundle));
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getFingerprint_controllerAvailabilityChanged_isUnchanged() {
+        final SearchIndexableData bundle = new SearchIndexableData(FakeIndexProvider.class,
+                FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER);
+        final String fingerprint = mSliceDataConverter.getFingerprint(bundle);
+
+        FakePreferenceController.sAvailabilityStatus =
+                BasePreferenceController.UNSUPPORTED_ON_DEVICE;
+
+        assertThat(mSliceDataConverter.getFingerprint(bundle)).isEqualTo(fingerprint);
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getSliceDataFromBundle_controllerUnavailable_stillConverted() {
+        FakePreferenceController.sAvailabilityStatus =
+                BasePreferenceController.UNSUPPORTED_ON_DEVICE;
+
+        final List<SliceData> sliceDataList = mSliceDataConverter.getSliceDataFromBundle(
+                new SearchIndexableData(FakeIndexProvider.class,
+                        FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER));
+
+        assertThat(sliceDataList).hasSize(1);
+        assertFakeSlice(sliceDataList.get(0));
     }
 
     @Test
@@ -81,5 +81,6 @@ class SliceTestUtils {
 
         db.replaceOrThrow(SlicesDatabaseHelper.Tables.TABLE_SLICES_INDEX, null, values);
         db.close();
+        SlicesDatabaseHelper.getInstance(context).invalidateSliceDataCache();
     }
 }
@@ -18,8 +18,13 @@ package com.android.settings.slices;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import android.content.ContentValues;
 import android.content.Context;
@@ -29,6 +34,8 @@ import android.net.Uri;
 
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 import com.android.settings.testutils.DatabaseTestUtils;
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settingslib.search.SearchIndexableData;
 
 import org.junit.After;
 import org.junit.Before;
@@ -205,6 +212,127 @@ public class SlicesIndexerTest {
         }
     }
 
+    @Test
+    public void streamSliceData_multipleSources_insertsAllRowsInSourceOrder() {
+        final SliceDataConverter converter = mock(SliceDataConverter.class);
+        final FakeFeatureFactory featureFactory = FakeFeatureFactory.setupForTest();
+        when(featureFactory.slicesFeatureProvider.getSliceDataConverter(any()))
+                .thenReturn(converter);
+        final List<SearchIndexableData> bundles = new ArrayList<>();
+        for (int i = 0; i < SlicesIndexer.MAX_PENDING_SOURCES * 2; i++) {
+            bundles.add(new SearchIndexableData(SlicesIndexerTest.class, null));
+        }
+        final List<SliceData> sliceData = getMockIndexableData(false);
+        when(converter.getSearchIndexableData()).thenReturn(bundles);
+        when(converter.getSliceDataFromBundle(any())).thenReturn(sliceData);
+        when(converter.getAccessibilitySliceData()).thenReturn(new ArrayList<>());
+
+        final SQLiteDatabase db = SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        final int count = mManager.streamSliceData(db);
+
+        assertThat(count).isEqualTo(bundles.size() * sliceData.size());
+        try (Cursor cursor = db.rawQuery("SELECT * FROM slices_index", null)) {
+            assertThat(cursor.getCount()).isEqualTo(count);
+            cursor.moveToFirst();
+            for (int i = 0; i < count; i++) {
+                assertThat(cursor.getString(cursor.getColumnIndex(IndexColumns.KEY)))
+                        .isEqualTo(KEYS[i % KEYS.length]);
+                assertThat(cursor.getString(cursor.getColumnIndex(IndexColumns.SCREENTITLE)))
+                        .isEqualTo(SCREEN_TITLE);
+                assertThat(cursor.getInt(cursor.getColumnIndex(IndexColumns.PUBLIC_SLICE)))
+                        .isEqualTo(0);
+                cursor.moveToNext();
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void streamSliceData_unchangedFingerprint_skipsConversion() {
+        final SliceDataConverter converter = mock(SliceDataConverter.class);
+        final FakeFeatureFactory featureFactory = FakeFeatureFactory.setupForTest();
+        when(featureFactory.slicesFeatureProvider.getSliceDataConverter(any()))
+                .thenReturn(converter);
+        final List<SearchIndexableData> bundles = new ArrayList<>();
+        bundles.add(new SearchIndexableData(SlicesIndexerTest.class, null));
+        final List<SliceData> sliceData = getMockIndexableData(false);
+        when(converter.getSearchIndexableData()).thenReturn(bundles);
+        when(converter.getFingerprint(any())).thenReturn("fingerprint");
+        when(converter.getSliceDataFromBundle(any())).thenReturn(sliceData);
+        when(converter.getAccessibilitySliceData()).thenReturn(new ArrayList<>());
+
+        final SQLiteDatabase db = SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        try {
+            assertThat(mManager.streamSliceData(db)).isEqualTo(sliceData.size());
+            assertThat(mManager.streamSliceData(db)).isEqualTo(0);
+
+            verify(converter, times(1)).getSliceDataFromBundle(any());
+            try (Cursor cursor = db.rawQuery("SELECT * FROM slices_index", null)) {
+                assertThat(cursor.getCount()).isEqualTo(sliceData.size());
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void streamSliceData_changedFingerprint_replacesSourceRows() {
+        final SliceDataConverter converter = mock(SliceDataConverter.class);
+        final FakeFeatureFactory featureFactory = FakeFeatureFactory.setupForTest();
+        when(featureFactory.slicesFeatureProvider.getSliceDataConverter(any()))
+                .thenReturn(converter);
+        final List<SearchIndexableData> bundles = new ArrayList<>();
+        bundles.add(new SearchIndexableData(SlicesIndexerTest.class, null));
+        final List<SliceData> sliceData = getMockIndexableData(false);
+        when(converter.getSearchIndexableData()).thenReturn(bundles);
+        when(converter.getFingerprint(any())).thenReturn("fingerprint1", "fingerprint2");
+        when(converter.getSliceDataFromBundle(any()))
+                .thenReturn(sliceData, sliceData.subList(0, 1));
+        when(converter.getAccessibilitySliceData()).thenReturn(new ArrayList<>());
+
+        final SQLiteDatabase db = SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        try {
+            mManager.streamSliceData(db);
+            assertThat(mManager.streamSliceData(db)).isEqualTo(1);
+
+            try (Cursor cursor = db.rawQuery("SELECT * FROM slices_index", null)) {
+                assertThat(cursor.getCount()).isEqualTo(1);
+                cursor.moveToFirst();
+                assertThat(cursor.getString(cursor.getColumnIndex(IndexColumns.KEY)))
+                        .isEqualTo(KEYS[0]);
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void streamSliceData_removedSource_deletesSourceRows() {
+        final SliceDataConverter converter = mock(SliceDataConverter.class);
+        final FakeFeatureFactory featureFactory = FakeFeatureFactory.setupForTest();
+        when(featureFactory.slicesFeatureProvider.getSliceDataConverter(any()))
+                .thenReturn(converter);
+        final List<SearchIndexableData> bundles = new ArrayList<>();
+        bundles.add(new SearchIndexableData(SlicesIndexerTest.class, null));
+        when(converter.getSearchIndexableData()).thenReturn(bundles, new ArrayList<>());
+        when(converter.getFingerprint(any())).thenReturn("fingerprint");
+        when(converter.getSliceDataFromBundle(any())).thenReturn(getMockIndexableData(false));
+        when(converter.getAccessibilitySliceData()).thenReturn(new ArrayList<>());
+
+        final SQLiteDatabase db = SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        try {
+            mManager.streamSliceData(db);
+            mManager.streamSliceData(db);
+
+            try (Cursor cursor = db.rawQuery("SELECT * FROM slices_index", null)) {
+                assertThat(cursor.getCount()).isEqualTo(0);
+            }
+        } finally {
+            db.close();
+        }
+    }
+
     private void insertSpecialCase(String key, String title) {
         final ContentValues values = new ContentValues();
         values.put(IndexColumns.KEY, key);
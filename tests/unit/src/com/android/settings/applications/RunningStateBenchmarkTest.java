@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records snapshots of the running services and processes of the device, then replays them the
+ * way the running services screen polls them: each snapshot several times in a row, as nothing
+ * changes between most polls. Reports the latency and allocations per poll with and without the
+ * {@link RunningStateFingerprint} check.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RunningStateBenchmarkTest {
+
+    private static final String TAG = "RunningStateBenchmark";
+    private static final int WARMUP_TIME = 2;
+    private static final int TEST_TIME = 10;
+    private static final int SNAPSHOTS = 5;
+    private static final int POLLS_PER_SNAPSHOT = 4;
+    private static final long SNAPSHOT_INTERVAL_MS = 200;
+
+    private final List<Snapshot> mSnapshots = new ArrayList<>();
+    private Context mContext;
+    private RunningState mState;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mState = RunningState.getInstance(mContext);
+        final ActivityManager am = mContext.getSystemService(ActivityManager.class);
+        for (int i = 0; i < SNAPSHOTS; i++) {
+            mSnapshots.add(new Snapshot(am.getRunningServices(RunningState.MAX_SERVICES),
+                    am.getRunningAppProcesses()));
+            SystemClock.sleep(SNAPSHOT_INTERVAL_MS);
+        }
+    }
+
+    @Test
+    public void update_alwaysRebuild_reportsPollLatencyAndAllocations() {
+        measure("Always rebuild", true /* forceRebuild */);
+    }
+
+    @Test
+    public void update_fingerprint_reportsPollLatencyAndAllocations() {
+        measure("Fingerprint", false /* forceRebuild */);
+    }
+
+    @Test
+    public void update_sameSnapshot_keepsItems() {
+        final Snapshot snapshot = mSnapshots.get(0);
+        poll(snapshot, true /* forceRebuild */);
+        final ArrayList<RunningState.MergedItem> items = mState.getCurrentMergedItems();
+
+        poll(snapshot, false /* forceRebuild */);
+
+        assertThat(mState.getCurrentMergedItems()).isSameInstanceAs(items);
+        assertThat(mState.mUnchangedUpdates).isEqualTo(1);
+        assertThat(mState.getContentsUpdateDelay())
+                .isGreaterThan(RunningState.CONTENTS_UPDATE_DELAY);
+    }
+
+    private void measure(String name, boolean forceRebuild) {
+        for (int i = 0; i < WARMUP_TIME; i++) {
+            replay(forceRebuild);
+        }
+
+        final List<Long> times = new ArrayList<>();
+        final List<Long> allocCounts = new ArrayList<>();
+        final List<Long> allocSizes = new ArrayList<>();
+        for (int i = 0; i < TEST_TIME; i++) {
+            for (Snapshot snapshot : mSnapshots) {
+                for (int poll = 0; poll < POLLS_PER_SNAPSHOT; poll++) {
+                    Debug.startAllocCounting();
+                    Debug.resetThreadAllocCount();
+                    Debug.resetThreadAllocSize();
+                    final long startTime = SystemClock.elapsedRealtimeNanos();
+                    poll(snapshot, forceRebuild);
+                    times.add((SystemClock.elapsedRealtimeNanos() - startTime) / 1000);
+                    allocCounts.add((long) Debug.getThreadAllocCount());
+                    allocSizes.add((long) Debug.getThreadAllocSize());
+                    Debug.stopAllocCounting();
+                }
+            }
+        }
+        Log.i(TAG, name + " per poll over " + mSnapshots.get(0).mProcesses.size()
+                + " processes: median " + median(times) + "us, " + median(allocCounts)
+                + " objects, " + median(allocSizes) / 1024 + "KB allocated");
+    }
+
+    private void replay(boolean forceRebuild) {
+        for (Snapshot snapshot : mSnapshots) {
+            for (int poll = 0; poll < POLLS_PER_SNAPSHOT; poll++) {
+                poll(snapshot, forceRebuild);
+            }
+        }
+    }
+
+    private void poll(Snapshot snapshot, boolean forceRebuild) {
+        if (forceRebuild) {
+            // Rebuilding on every poll was the behavior before the fingerprint check.
+            mState.mHasFingerprint = false;
+        }
+        mState.update(mContext, new ArrayList<>(snapshot.mServices),
+                new ArrayList<>(snapshot.mProcesses));
+    }
+
+    private static long median(List<Long> values) {
+        final List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static final class Snapshot {
+        final List<ActivityManager.RunningServiceInfo> mServices;
+        final List<ActivityManager.RunningAppProcessInfo> mProcesses;
+
+        Snapshot(List<ActivityManager.RunningServiceInfo> services,
+                List<ActivityManager.RunningAppProcessInfo> processes) {
+            mServices = services != null ? services : Collections.emptyList();
+            mProcesses = processes != null ? processes : Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Types a query one character at a time over 2,000 synthetic apps, comparing the former linear
+ * scan of the app list search with {@link AppSearchIndex}, and reports the latency and
+ * allocations per keystroke.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AppSearchIndexBenchmarkTest {
+
+    private static final String TAG = "AppSearchIndexBenchmark";
+    private static final int WARMUP_TIME = 2;
+    private static final int TEST_TIME = 10;
+    private static final int APPS = 2000;
+    private static final String QUERY = "calendar";
+    private static final String[] WORDS = {"Calendar", "Camera", "Clock", "Contacts", "Files",
+            "Gallery", "Keep", "Maps", "Messages", "Music", "Notes", "Phone", "Photos", "Player",
+            "Recorder", "Scanner", "Settings", "Weather", "Wallet", "Éditeur"};
+
+    private final ArrayList<AppEntry> mEntries = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        for (int i = 0; i < APPS; i++) {
+            final String word = WORDS[i % WORDS.length];
+            final ApplicationInfo info = new ApplicationInfo();
+            info.packageName = "com.vendor" + (i % 50) + ".app" + i;
+            info.sourceDir = "/data/app/" + info.packageName + "/base.apk";
+            final AppEntry entry = new AppEntry(context, info, i);
+            entry.label = word + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+            mEntries.add(entry);
+        }
+    }
+
+    @Test
+    public void search_linearScan_reportsKeystrokeLatencyAndAllocations() {
+        measure("Linear scan", (entries, query) -> linearScan(entries, query));
+    }
+
+    @Test
+    public void search_index_reportsKeystrokeLatencyAndAllocations() {
+        final AppSearchIndex index = new AppSearchIndex();
+        measure("AppSearchIndex", index::search);
+    }
+
+    @Test
+    public void search_index_sameResultsAsLinearScan() {
+        final AppSearchIndex index = new AppSearchIndex();
+        for (int length = 1; length <= QUERY.length(); length++) {
+            final String query = QUERY.substring(0, length);
+            assertThat(index.search(mEntries, query))
+                    .containsAtLeastElementsIn(linearScan(mEntries, query)).inOrder();
+        }
+    }
+
+    private void measure(String name,
+            BiFunction<List<AppEntry>, String, List<AppEntry>> search) {
+        for (int i = 0; i < WARMUP_TIME; i++) {
+            typeQuery(search);
+        }
+
+        final List<Long> times = new ArrayList<>();
+        final List<Long> allocCounts = new ArrayList<>();
+        final List<Long> allocSizes = new ArrayList<>();
+        for (int i = 0; i < TEST_TIME; i++) {
+            for (int length = 1; length <= QUERY.length(); length++) {
+                final String query = QUERY.substring(0, length);
+                Debug.startAllocCounting();
+                Debug.resetThreadAllocCount();
+                Debug.resetThreadAllocSize();
+                final long startTime = SystemClock.elapsedRealtimeNanos();
+                search.apply(mEntries, query);
+                times.add((SystemClock.elapsedRealtimeNanos() - startTime) / 1000);
+                allocCounts.add((long) Debug.getThreadAllocCount());
+                allocSizes.add((long) Debug.getThreadAllocSize());
+                Debug.stopAllocCounting();
+            }
+        }
+        Log.i(TAG, name + " per keystroke: median " + median(times) + "us, "
+                + median(allocCounts) + " objects, " + median(allocSizes) / 1024
+                + "KB allocated");
+    }
+
+    private void typeQuery(BiFunction<List<AppEntry>, String, List<AppEntry>> search) {
+        for (int length = 1; length <= QUERY.length(); length++) {
+            search.apply(mEntries, QUERY.substring(0, length));
+        }
+    }
+
+    /** The search of {@link ManageApplications} before {@link AppSearchIndex}. */
+    private static List<AppEntry> linearScan(List<AppEntry> entries, CharSequence query) {
+        final ArrayList<AppEntry> matchedEntries = new ArrayList<>();
+        for (AppEntry entry : entries) {
+            if (entry.label.toLowerCase().contains(query.toString().toLowerCase())) {
+                matchedEntries.add(entry);
+            }
+        }
+        return matchedEntries;
+    }
+
+    private static long median(List<Long> values) {
+        final List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.deviceinfo.storage;
+
+import android.content.ContentProvider;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.provider.MediaStore;
+import android.provider.MediaStore.Files.FileColumns;
+import android.provider.MediaStore.MediaColumns;
+
+/**
+ * A MediaStore backed by a single in-memory files table, for the {@link MediaStoreSizeQuery}
+ * tests. It is shared with the Robolectric tests through the
+ * {@code SettingsUnitTests-fake-media-provider} filegroup.
+ */
+class FakeMediaProvider extends ContentProvider {
+    private static final String TABLE = "files";
+
+    private final SQLiteDatabase mDatabase = SQLiteDatabase.create(null /* factory */);
+    boolean mRejectGrouping;
+
+    FakeMediaProvider() {
+        mDatabase.execSQL("CREATE TABLE " + TABLE + " (" + FileColumns.MEDIA_TYPE
+                + " INTEGER, " + MediaColumns.IS_TRASHED + " INTEGER, "
+                + FileColumns.MIME_TYPE + " TEXT, " + MediaColumns.SIZE + " INTEGER)");
+    }
+
+    /**
+     * Inserts {@code count} files spread over every media type, with some of them trashed and
+     * some without a mime type.
+     */
+    void insertFiles(int count) {
+        final ContentValues values = new ContentValues();
+        mDatabase.beginTransaction();
+        try {
+            for (int i = 0; i < count; i++) {
+                values.put(FileColumns.MEDIA_TYPE, i % 7);
+                values.put(MediaColumns.IS_TRASHED, i % 11 == 0 ? 1 : 0);
+                values.put(FileColumns.MIME_TYPE,
+                        i % 7 == 0 && i % 2 == 0 ? null : "application/octet-stream");
+                values.put(MediaColumns.SIZE, i + 1);
+                mDatabase.insert(TABLE, null /* nullColumnHack */, values);
+            }
+            mDatabase.setTransactionSuccessful();
+        } finally {
+            mDatabase.endTransaction();
+        }
+    }
+
+    void close() {
+        mDatabase.close();
+    }
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Override
+    public Cursor query(Uri uri, String[] projection, Bundle queryArgs,
+            CancellationSignal cancellationSignal) {
+        final Bundle args = queryArgs != null ? queryArgs : Bundle.EMPTY;
+        final String groupBy = args.getString(ContentResolver.QUERY_ARG_SQL_GROUP_BY);
+        if (groupBy != null && mRejectGrouping) {
+            throw new IllegalArgumentException("Grouping not allowed");
+        }
+        final StringBuilder where = new StringBuilder();
+        final String path = uri.getPath();
+        if (path.contains("/images/")) {
+            where.append(FileColumns.MEDIA_TYPE + "=" + FileColumns.MEDIA_TYPE_IMAGE);
+        } else if (path.contains("/video/")) {
+            where.append(FileColumns.MEDIA_TYPE + "=" + FileColumns.MEDIA_TYPE_VIDEO);
+        } else if (path.contains("/audio/")) {
+            where.append(FileColumns.MEDIA_TYPE + "=" + FileColumns.MEDIA_TYPE_AUDIO);
+        } else {
+            where.append("1");
+        }
+        switch (args.getInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_DEFAULT)) {
+            case MediaStore.MATCH_INCLUDE:
+                break;
+            case MediaStore.MATCH_ONLY:
+                where.append(" AND " + MediaColumns.IS_TRASHED + "=1");
+                break;
+            default:
+                where.append(" AND " + MediaColumns.IS_TRASHED + "=0");
+                break;
+        }
+        final String selection = args.getString(ContentResolver.QUERY_ARG_SQL_SELECTION);
+        if (selection != null) {
+            where.append(" AND (").append(selection).append(")");
+        }
+        return mDatabase.query(TABLE, projection, where.toString(),
+                null /* selectionArgs */, groupBy, null /* having */, null /* orderBy */);
+    }
+
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection,
+            String[] selectionArgs, String sortOrder) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getType(Uri uri) {
+        return null;
+    }
+
+    @Override
+    public Uri insert(Uri uri, ContentValues values) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int update(Uri uri, ContentValues values, String selection,
+            String[] selectionArgs) {
+        throw new UnsupportedOperationException();
+    }
+}
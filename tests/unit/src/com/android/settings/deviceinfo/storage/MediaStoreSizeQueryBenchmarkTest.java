@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.deviceinfo.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.pm.ProviderInfo;
+import android.os.SystemClock;
+import android.provider.MediaStore;
+import android.test.mock.MockContentResolver;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Compares the storage category sizes computed with one MediaStore query per category against
+ * {@link MediaStoreSizeQuery#queryGroupedSizes} on a fake MediaStore of 300k files. The fake
+ * provider lives in process, so the binder round trips saved on a real device come on top.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MediaStoreSizeQueryBenchmarkTest {
+
+    private static final String TAG = "MediaStoreSizeQueryBenchmark";
+    private static final int WARMUP_TIME = 2;
+    private static final int TEST_TIME = 10;
+    private static final int ROWS = 300000;
+
+    private FakeMediaProvider mProvider;
+    private MockContentResolver mResolver;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        final ProviderInfo info = new ProviderInfo();
+        info.authority = MediaStore.AUTHORITY;
+        mProvider = new FakeMediaProvider();
+        mProvider.attachInfo(context, info);
+        mProvider.insertFiles(ROWS);
+        mResolver = new MockContentResolver(context);
+        mResolver.addProvider(MediaStore.AUTHORITY, mProvider);
+    }
+
+    @After
+    public void tearDown() {
+        mProvider.close();
+    }
+
+    @Test
+    public void querySizes_groupedQuery_sameSizesAsCategoryQueries() {
+        final StorageAsyncLoader.StorageResult expected = new StorageAsyncLoader.StorageResult();
+        MediaStoreSizeQuery.queryCategorySizes(mResolver, expected);
+        final StorageAsyncLoader.StorageResult actual = new StorageAsyncLoader.StorageResult();
+
+        assertThat(MediaStoreSizeQuery.queryGroupedSizes(mResolver, actual)).isTrue();
+
+        assertThat(actual.imagesSize).isEqualTo(expected.imagesSize);
+        assertThat(actual.videosSize).isEqualTo(expected.videosSize);
+        assertThat(actual.audioSize).isEqualTo(expected.audioSize);
+        assertThat(actual.documentsAndOtherSize).isEqualTo(expected.documentsAndOtherSize);
+        assertThat(actual.trashSize).isEqualTo(expected.trashSize);
+    }
+
+    @Test
+    public void querySizes_categoryQueries_reportsTime() {
+        measure("Category queries", MediaStoreSizeQuery::queryCategorySizes);
+    }
+
+    @Test
+    public void querySizes_groupedQuery_reportsTime() {
+        measure("Grouped query", MediaStoreSizeQuery::queryGroupedSizes);
+    }
+
+    private void measure(String name,
+            BiConsumer<ContentResolver, StorageAsyncLoader.StorageResult> query) {
+        for (int i = 0; i < WARMUP_TIME; i++) {
+            query.accept(mResolver, new StorageAsyncLoader.StorageResult());
+        }
+
+        final List<Long> times = new ArrayList<>();
+        for (int i = 0; i < TEST_TIME; i++) {
+            final StorageAsyncLoader.StorageResult result = new StorageAsyncLoader.StorageResult();
+            final long startTime = SystemClock.elapsedRealtime();
+            query.accept(mResolver, result);
+            times.add(SystemClock.elapsedRealtime() - startTime);
+            assertThat(result.documentsAndOtherSize).isGreaterThan(0L);
+        }
+        Collections.sort(times);
+        Log.i(TAG, name + ": median " + times.get(times.size() / 2) + "ms, max "
+                + times.get(times.size() - 1) + "ms over " + ROWS + " files");
+    }
+}
@@ -25,10 +25,13 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.PackageManager.NameNotFoundException;
 import android.content.pm.UserInfo;
@@ -45,6 +48,7 @@ import androidx.test.runner.AndroidJUnit4;
 import com.android.settings.R;
 import com.android.settingslib.applications.StorageStatsSource;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -71,7 +75,7 @@ public class StorageAsyncLoaderTest {
     private PackageManager mPackageManager;
     @Mock
     private UserManager mUserManager;
-    private List<ApplicationInfo> mInfo = new ArrayList<>();
+    private List<PackageInfo> mInfo = new ArrayList<>();
     private List<UserInfo> mUsers;
 
     private StorageAsyncLoader mLoader;
@@ -83,8 +87,7 @@ public class StorageAsyncLoaderTest {
         mContext = spy(ApplicationProvider.getApplicationContext());
         mInfo = new ArrayList<>();
         mLoader = new StorageAsyncLoader(mContext, mUserManager, "id", mSource, mPackageManager);
-        when(mPackageManager.getInstalledApplicationsAsUser(eq(PRIMARY_USER_ID), anyInt()))
-                .thenReturn(mInfo);
+        when(mPackageManager.getInstalledPackagesAsUser(eq(0), anyInt())).thenReturn(mInfo);
         UserInfo info = new UserInfo();
         mUsers = new ArrayList<>();
         mUsers.add(info);
@@ -94,6 +97,12 @@ public class StorageAsyncLoaderTest {
         when(mContext.getResources()).thenReturn(resources);
         doReturn("content://com.android.providers.media.documents/root/videos_root")
                 .when(resources).getString(R.string.config_videos_storage_category_uri);
+        new StorageCacheHelper(mContext, PRIMARY_USER_ID).clearPackageStats();
+    }
+
+    @After
+    public void tearDown() {
+        new StorageCacheHelper(mContext, PRIMARY_USER_ID).clearPackageStats();
     }
 
     @Test
@@ -176,7 +185,10 @@ public class StorageAsyncLoaderTest {
         ApplicationInfo info = new ApplicationInfo();
         info.packageName = PACKAGE_NAME_1;
         info.category = ApplicationInfo.CATEGORY_UNDEFINED;
-        mInfo.add(info);
+        PackageInfo packageInfo = new PackageInfo();
+        packageInfo.packageName = PACKAGE_NAME_1;
+        packageInfo.applicationInfo = info;
+        mInfo.add(packageInfo);
         when(mSource.getStatsForPackage(anyString(), anyString(), any(UserHandle.class)))
                 .thenThrow(new NameNotFoundException());
 
@@ -208,6 +220,37 @@ public class StorageAsyncLoaderTest {
         assertThat(result.get(PRIMARY_USER_ID).allAppsExceptGamesSize).isEqualTo(33L);
     }
 
+    @Test
+    public void testOnlyOldestCachedPackagesAreQueriedAgain() throws Exception {
+        final int packageCount = StorageAsyncLoader.MAX_REFRESHED_PACKAGES_PER_LOAD + 5;
+        for (int i = 0; i < packageCount; i++) {
+            addPackage(PACKAGE_NAME_1 + i, 0, 1, 10, ApplicationInfo.CATEGORY_UNDEFINED);
+        }
+
+        mLoader.loadInBackground();
+        SparseArray<StorageAsyncLoader.StorageResult> result = mLoader.loadInBackground();
+
+        verify(mSource, times(packageCount + StorageAsyncLoader.MAX_REFRESHED_PACKAGES_PER_LOAD))
+                .getStatsForPackage(anyString(), anyString(), any(UserHandle.class));
+        assertThat(result.get(PRIMARY_USER_ID).allAppsExceptGamesSize)
+                .isEqualTo(11L * packageCount);
+    }
+
+    @Test
+    public void testUpdatedPackageIsQueriedAgain() throws Exception {
+        addPackage(PACKAGE_NAME_1, 0, 1, 10, ApplicationInfo.CATEGORY_UNDEFINED);
+        mLoader.loadInBackground();
+
+        mInfo.clear();
+        addPackage(PACKAGE_NAME_1, 0, 2, 20, ApplicationInfo.CATEGORY_UNDEFINED);
+        mInfo.get(0).lastUpdateTime = 1000L;
+        SparseArray<StorageAsyncLoader.StorageResult> result = mLoader.loadInBackground();
+
+        verify(mSource, times(2)).getStatsForPackage(anyString(), eq(PACKAGE_NAME_1),
+                any(UserHandle.class));
+        assertThat(result.get(PRIMARY_USER_ID).allAppsExceptGamesSize).isEqualTo(22L);
+    }
+
     private ApplicationInfo addPackage(String packageName, long cacheSize, long codeSize,
             long dataSize, int category) throws Exception {
         StorageStatsSource.AppStorageStats storageStats =
@@ -221,7 +264,10 @@ public class StorageAsyncLoaderTest {
         ApplicationInfo info = new ApplicationInfo();
         info.packageName = packageName;
         info.category = category;
-        mInfo.add(info);
+        PackageInfo packageInfo = new PackageInfo();
+        packageInfo.packageName = packageName;
+        packageInfo.applicationInfo = info;
+        mInfo.add(packageInfo);
         return info;
     }
 
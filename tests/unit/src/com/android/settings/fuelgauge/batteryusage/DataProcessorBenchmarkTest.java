@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Measures time and allocations of {@link DataProcessor#getBatteryUsageData} over a synthetic
+ * 7-day history of 500 apps, and the heap retained by the processed history in its columnar and
+ * its map representation. The first test only uses public API, so it can be run on two builds to
+ * compare implementations.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataProcessorBenchmarkTest {
+
+    private static final String TAG = "DataProcessorBenchmark";
+    private static final int WARMUP_TIME = 2;
+    private static final int TEST_TIME = 5;
+    private static final int DAYS = 7;
+    private static final int APPS = 500;
+    private static final int FIRST_UID = 10000;
+
+    private Context mContext;
+    private Map<Long, Map<String, BatteryHistEntry>> mBatteryHistoryMap;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mBatteryHistoryMap = createHistoryMap();
+    }
+
+    @Test
+    public void getBatteryUsageData_weekOfHistory_reportsTimeAndAllocations() {
+        for (int i = 0; i < WARMUP_TIME; i++) {
+            DataProcessor.getBatteryUsageData(mContext, mBatteryHistoryMap);
+        }
+
+        final List<Long> times = new ArrayList<>();
+        final List<Long> allocCounts = new ArrayList<>();
+        final List<Long> allocSizes = new ArrayList<>();
+        for (int i = 0; i < TEST_TIME; i++) {
+            Runtime.getRuntime().gc();
+            Debug.startAllocCounting();
+            Debug.resetThreadAllocCount();
+            Debug.resetThreadAllocSize();
+            final long startTime = SystemClock.elapsedRealtime();
+            DataProcessor.getBatteryUsageData(mContext, mBatteryHistoryMap);
+            times.add(SystemClock.elapsedRealtime() - startTime);
+            allocCounts.add((long) Debug.getThreadAllocCount());
+            allocSizes.add((long) Debug.getThreadAllocSize());
+            Debug.stopAllocCounting();
+        }
+        Log.i(TAG, "getBatteryUsageData: median " + median(times) + "ms, "
+                + median(allocCounts) + " objects, " + median(allocSizes) / 1024 + "KB");
+    }
+
+    @Test
+    public void processedHistory_columnsAndMap_reportsRetainedHeap() {
+        final BatteryHistoryColumns rawHistory =
+                BatteryHistoryColumns.fromHistoryMap(mBatteryHistoryMap);
+
+        Runtime.getRuntime().gc();
+        long baseHeap = getUsedHeap();
+        final BatteryHistoryColumns processedHistory =
+                DataProcessor.getHistoryColumnsWithExpectedTimestamps(mContext, rawHistory);
+        Runtime.getRuntime().gc();
+        final long columnsHeap = getUsedHeap() - baseHeap;
+
+        baseHeap = getUsedHeap();
+        final Map<Long, Map<String, BatteryHistEntry>> processedMap =
+                processedHistory.toHistoryMap();
+        Runtime.getRuntime().gc();
+        final long mapHeap = getUsedHeap() - baseHeap;
+
+        Log.i(TAG, "Processed history of " + rawHistory.getRowCount() + " snapshots and "
+                + rawHistory.getKeyCount() + " keys: columns " + columnsHeap / 1024
+                + "KB, map " + mapHeap / 1024 + "KB");
+        assertThat(processedMap).hasSize(processedHistory.getRowCount());
+    }
+
+    private static Map<Long, Map<String, BatteryHistEntry>> createHistoryMap() {
+        final long now = System.currentTimeMillis();
+        final long startTimestamp = now - now % DateUtils.HOUR_IN_MILLIS
+                - DAYS * DateUtils.DAY_IN_MILLIS + 5 * DateUtils.MINUTE_IN_MILLIS;
+        final int snapshots = DAYS * 24;
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap = new HashMap<>();
+        for (int snapshot = 0; snapshot <= snapshots; snapshot++) {
+            final long timestamp = startTimestamp + snapshot * DateUtils.HOUR_IN_MILLIS;
+            final int batteryLevel = 100 - (snapshot % 24) * 4;
+            final Map<String, BatteryHistEntry> entryMap = new HashMap<>();
+            for (int app = 0; app < APPS; app++) {
+                final BatteryHistEntry entry =
+                        createBatteryHistEntry(app, snapshot, timestamp, batteryLevel);
+                entryMap.put(entry.getKey(), entry);
+            }
+            batteryHistoryMap.put(timestamp, entryMap);
+        }
+        return batteryHistoryMap;
+    }
+
+    private static BatteryHistEntry createBatteryHistEntry(
+            int app, int snapshot, long timestamp, int batteryLevel) {
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_UID, (long) FIRST_UID + app);
+        values.put(BatteryHistEntry.KEY_USER_ID, 0L);
+        values.put(BatteryHistEntry.KEY_APP_LABEL, "App " + app);
+        values.put(BatteryHistEntry.KEY_PACKAGE_NAME, "com.example.app" + app);
+        values.put(BatteryHistEntry.KEY_IS_HIDDEN, false);
+        values.put(BatteryHistEntry.KEY_BOOT_TIMESTAMP,
+                (long) (snapshot + 1) * DateUtils.HOUR_IN_MILLIS);
+        values.put(BatteryHistEntry.KEY_TIMESTAMP, timestamp);
+        values.put(BatteryHistEntry.KEY_ZONE_ID, TimeZone.getDefault().getID());
+        values.put(BatteryHistEntry.KEY_TOTAL_POWER, 1000.0 * (snapshot + 1));
+        // Cumulative values growing with a per-app rate.
+        values.put(BatteryHistEntry.KEY_CONSUME_POWER, (app % 17 + 1) * 0.5 * snapshot);
+        values.put(BatteryHistEntry.KEY_PERCENT_OF_TOTAL, 0.0);
+        values.put(BatteryHistEntry.KEY_FOREGROUND_USAGE_TIME,
+                (app % 7) * DateUtils.MINUTE_IN_MILLIS * snapshot);
+        values.put(BatteryHistEntry.KEY_BACKGROUND_USAGE_TIME,
+                (app % 5) * DateUtils.MINUTE_IN_MILLIS * snapshot);
+        values.put(BatteryHistEntry.KEY_DRAIN_TYPE, 0);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        values.put(BatteryHistEntry.KEY_BATTERY_LEVEL, batteryLevel);
+        values.put(BatteryHistEntry.KEY_BATTERY_STATUS, 0);
+        values.put(BatteryHistEntry.KEY_BATTERY_HEALTH, 0);
+        return new BatteryHistEntry(values);
+    }
+
+    private static long median(List<Long> values) {
+        final List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static long getUsedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -104,6 +104,24 @@ public class ContextualCardsDiffCallbackTest {
         assertThat(mDiffCallback.areContentsTheSame(0, 0)).isFalse();
     }
 
+    @Test
+    public void areContentsTheSame_oldCardFromSnapshot_returnFalse() {
+        final ContextualCard card = getContextualCard("test1").mutate()
+                .setIsFromSnapshot(true).build();
+        mOldCards.add(0, card);
+
+        assertThat(mDiffCallback.areContentsTheSame(0, 0)).isFalse();
+    }
+
+    @Test
+    public void areContentsTheSame_differentViewType_returnFalse() {
+        final ContextualCard card = getContextualCard("test1").mutate()
+                .setViewType(1).build();
+        mNewCards.add(0, card);
+
+        assertThat(mDiffCallback.areContentsTheSame(0, 0)).isFalse();
+    }
+
     private ContextualCard getContextualCard(String name) {
         return new ContextualCard.Builder()
                 .setName(name)
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures time-to-index and peak heap of a full slice index over the real provider registry.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SlicesIndexerBenchmarkTest {
+
+    private static final String TAG = "SlicesIndexerBenchmark";
+    private static final int TEST_TIME = 5;
+    private static final long HEAP_SAMPLE_INTERVAL_MS = 5;
+
+    private Context mContext;
+    private SlicesDatabaseHelper mHelper;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mHelper = SlicesDatabaseHelper.getInstance(mContext);
+    }
+
+    @Test
+    public void indexSliceData_fullRegistry_reportsTimeAndPeakHeap() throws Exception {
+        for (int i = 0; i < TEST_TIME; i++) {
+            final SQLiteDatabase database = mHelper.getWritableDatabase();
+            mHelper.reconstruct(database);
+            assertThat(mHelper.isSliceDataIndexed()).isFalse();
+
+            Runtime.getRuntime().gc();
+            final long baseHeap = getUsedHeap();
+            final AtomicLong peakHeap = new AtomicLong(baseHeap);
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final Thread sampler = new Thread(() -> {
+                while (running.get()) {
+                    peakHeap.accumulateAndGet(getUsedHeap(), Math::max);
+                    SystemClock.sleep(HEAP_SAMPLE_INTERVAL_MS);
+                }
+            });
+            sampler.start();
+
+            final long startTime = SystemClock.elapsedRealtime();
+            new SlicesIndexer(mContext).indexSliceData();
+            final long indexTime = SystemClock.elapsedRealtime() - startTime;
+
+            running.set(false);
+            sampler.join();
+            Log.i(TAG, "Run " + i + ": indexed in " + indexTime + "ms, peak heap growth "
+                    + (peakHeap.get() - baseHeap) / 1024 + "KB");
+            assertThat(mHelper.isSliceDataIndexed()).isTrue();
+        }
+    }
+
+    private static long getUsedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}